@@ -0,0 +1,143 @@
+package jumptest.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.apache.log4j.Level;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.io.DriverProperties;
+import com.vividsolutions.jump.io.ShapefileReader;
+import com.vividsolutions.jump.io.datasource.DataSource;
+
+/**
+ * Datasets shared by the benchmarks : synthetic collections built in memory,
+ * and the shapefiles of the sampledata directory.
+ *
+ * <p>The sampledata directory is looked up in the working directory, or in
+ * the directory given by the benchmark.sampledata system property.</p>
+ */
+public class BenchmarkData {
+
+  /** Name of the synthetic dataset, the other names are sampledata shapefiles */
+  public static final String SYNTHETIC = "synthetic";
+
+  private static final GeometryFactory FACTORY = new GeometryFactory();
+
+  private BenchmarkData() {}
+
+  /**
+   * Keeps the debug messages of the readers out of the measures.
+   */
+  public static void quietLogging() {
+    org.apache.log4j.Logger.getRootLogger().setLevel(Level.WARN);
+  }
+
+  /**
+   * Returns the synthetic dataset, or reads a shapefile of
+   * sampledata/simpleset-shp (e.g. "luse", "roads", "bdgs").
+   */
+  public static FeatureCollection getDataset(String name) throws Exception {
+    if (SYNTHETIC.equals(name)) {
+      return createPolygons(10000, 32);
+    }
+    File file = new File(new File(System.getProperty("benchmark.sampledata",
+        "sampledata"), "simpleset-shp"), name + ".shp");
+    if (!file.exists()) {
+      throw new IOException("Sample data not found: " + file.getAbsolutePath());
+    }
+    return new ShapefileReader().read(properties(file));
+  }
+
+  /**
+   * Creates count polygons of vertices vertices on a regular grid, with an
+   * integer, a string and a double attribute.
+   */
+  public static FeatureCollection createPolygons(int count, int vertices) {
+    FeatureSchema schema = createSchema();
+    FeatureDataset dataset = new FeatureDataset(schema);
+    Random random = new Random(0);
+    int columns = (int)Math.ceil(Math.sqrt(count));
+    for (int i = 0 ; i < count ; i++) {
+      double x = (i % columns) * 10.0;
+      double y = (i / columns) * 10.0;
+      Coordinate[] ring = new Coordinate[vertices + 1];
+      for (int j = 0 ; j < vertices ; j++) {
+        double angle = 2 * Math.PI * j / vertices;
+        double radius = 3.0 + random.nextDouble();
+        ring[j] = new Coordinate(x + 5 + radius * Math.cos(angle),
+            y + 5 + radius * Math.sin(angle));
+      }
+      ring[vertices] = new Coordinate(ring[0]);
+      dataset.add(createFeature(schema, i, FACTORY.createPolygon(ring), random));
+    }
+    return dataset;
+  }
+
+  /**
+   * Creates count points randomly distributed in a square of extent x extent.
+   */
+  public static FeatureCollection createPoints(int count, double extent) {
+    FeatureSchema schema = createSchema();
+    FeatureDataset dataset = new FeatureDataset(schema);
+    Random random = new Random(0);
+    for (int i = 0 ; i < count ; i++) {
+      dataset.add(createFeature(schema, i, FACTORY.createPoint(new Coordinate(
+          random.nextDouble() * extent, random.nextDouble() * extent)), random));
+    }
+    return dataset;
+  }
+
+  private static FeatureSchema createSchema() {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("ID", AttributeType.INTEGER);
+    schema.addAttribute("NAME", AttributeType.STRING);
+    schema.addAttribute("VALUE", AttributeType.DOUBLE);
+    return schema;
+  }
+
+  private static Feature createFeature(FeatureSchema schema, int id,
+        Geometry geometry, Random random) {
+    Feature feature = new BasicFeature(schema);
+    feature.setGeometry(geometry);
+    feature.setAttribute("ID", id);
+    feature.setAttribute("NAME", "name" + (id % 100));
+    feature.setAttribute("VALUE", random.nextDouble() * 1000);
+    return feature;
+  }
+
+  /**
+   * Returns DriverProperties designating file for all the readers and writers.
+   */
+  public static DriverProperties properties(File file) {
+    DriverProperties dp = new DriverProperties();
+    dp.set(DataSource.FILE_KEY, file.getPath());
+    dp.set(DataSource.URI_KEY, file.toURI().toString());
+    return dp;
+  }
+
+  public static File createTempDirectory() throws IOException {
+    return Files.createTempDirectory("ojbench").toFile();
+  }
+
+  public static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,117 @@
+package jumptest.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+
+/**
+ * Latency of envelope queries on FeatureDataset (lazily indexed) and
+ * IndexedFeatureCollection, on randomly distributed points.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class QueryBenchmark {
+
+  private static final double EXTENT = 10000.0;
+  private static final int QUERIES = 1024;
+
+  @Param({"10000", "100000"})
+  public int size;
+
+  /** Side of the query windows, as a fraction of the extent of the data */
+  @Param({"0.01", "0.1"})
+  public double window;
+
+  private FeatureDataset dataset;
+  private IndexedFeatureCollection indexed;
+  private Envelope[] queries;
+  private int next = 0;
+
+  private final GeometryFactory factory = new GeometryFactory();
+  private final Random random = new Random(1);
+
+  @Setup
+  public void setUp() {
+    BenchmarkData.quietLogging();
+    FeatureCollection points = BenchmarkData.createPoints(size, EXTENT);
+    dataset = new FeatureDataset(points.getFeatures(), points.getFeatureSchema());
+    indexed = new IndexedFeatureCollection(
+        new FeatureDataset(points.getFeatures(), points.getFeatureSchema()));
+    queries = new Envelope[QUERIES];
+    double side = window * EXTENT;
+    for (int i = 0 ; i < QUERIES ; i++) {
+      double x = random.nextDouble() * (EXTENT - side);
+      double y = random.nextDouble() * (EXTENT - side);
+      queries[i] = new Envelope(x, x + side, y, y + side);
+    }
+    // build the lazy index of the dataset
+    dataset.query(queries[0]);
+  }
+
+  private Envelope nextQuery() {
+    next = (next + 1) % QUERIES;
+    return queries[next];
+  }
+
+  @Benchmark
+  public List<Feature> featureDatasetQuery() {
+    return dataset.query(nextQuery());
+  }
+
+  @Benchmark
+  public List<Feature> indexedFeatureCollectionQuery() {
+    return indexed.query(nextQuery());
+  }
+
+  /**
+   * Moves one feature, then queries : measures the incremental update of
+   * the index of FeatureDataset.
+   */
+  @Benchmark
+  public List<Feature> featureDatasetEditAndQuery() {
+    Feature feature = dataset.getFeature(random.nextInt(size));
+    Feature clone = feature.clone(false);
+    feature.setGeometry(factory.createPoint(new Coordinate(
+        random.nextDouble() * EXTENT, random.nextDouble() * EXTENT)));
+    dataset.invalidateEnvelope(Collections.singletonList(feature),
+        Collections.singletonList(clone));
+    return dataset.query(nextQuery());
+  }
+
+  /**
+   * Time to pack the index of a FeatureDataset, paid on the first query.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 20)
+  public List<Feature> featureDatasetFirstQuery() {
+    dataset.invalidateEnvelope();
+    return dataset.query(nextQuery());
+  }
+}
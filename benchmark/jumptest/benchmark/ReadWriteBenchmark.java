@@ -0,0 +1,93 @@
+package jumptest.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.io.DriverProperties;
+import com.vividsolutions.jump.io.JMLReader;
+import com.vividsolutions.jump.io.JMLWriter;
+import com.vividsolutions.jump.io.JUMPReader;
+import com.vividsolutions.jump.io.JUMPWriter;
+import com.vividsolutions.jump.io.ShapefileReader;
+import com.vividsolutions.jump.io.ShapefileWriter;
+import com.vividsolutions.jump.io.geojson.GeoJSONReader;
+import com.vividsolutions.jump.io.geojson.GeoJSONWriter;
+
+/**
+ * Read and write time of a whole dataset with the shapefile, GeoJSON and
+ * JML drivers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ReadWriteBenchmark {
+
+  @Param({BenchmarkData.SYNTHETIC, "luse", "roads"})
+  public String dataset;
+
+  @Param({"shp", "geojson", "jml"})
+  public String format;
+
+  private FeatureCollection featureCollection;
+  private File directory;
+  private DriverProperties input;
+  private DriverProperties output;
+
+  @Setup
+  public void setUp() throws Exception {
+    BenchmarkData.quietLogging();
+    featureCollection = BenchmarkData.getDataset(dataset);
+    directory = BenchmarkData.createTempDirectory();
+    input = BenchmarkData.properties(new File(directory, "input." + format));
+    output = BenchmarkData.properties(new File(directory, "output." + format));
+    createWriter().write(featureCollection, input);
+  }
+
+  @TearDown
+  public void tearDown() {
+    BenchmarkData.delete(directory);
+  }
+
+  private JUMPReader createReader() {
+    switch (format) {
+      case "shp": return new ShapefileReader();
+      case "geojson": return new GeoJSONReader();
+      default: return new JMLReader();
+    }
+  }
+
+  private JUMPWriter createWriter() {
+    switch (format) {
+      case "shp": return new ShapefileWriter();
+      case "geojson": return new GeoJSONWriter();
+      default: return new JMLWriter();
+    }
+  }
+
+  @Benchmark
+  public FeatureCollection read() throws Exception {
+    return createReader().read(input);
+  }
+
+  @Benchmark
+  public void write() throws Exception {
+    createWriter().write(featureCollection, output);
+  }
+}
@@ -0,0 +1,125 @@
+package jumptest.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.workbench.model.Layer;
+import com.vividsolutions.jump.workbench.model.LayerManager;
+import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanelContext;
+import com.vividsolutions.jump.workbench.ui.renderer.LayerRenderer;
+import com.vividsolutions.jump.workbench.ui.renderer.LayerRendererFactory;
+import com.vividsolutions.jump.workbench.ui.renderer.RenderingManager;
+import com.vividsolutions.jump.workbench.ui.renderer.java2D.Java2DConverter;
+
+/**
+ * Off-screen rendering time of a whole layer in a headless LayerViewPanel,
+ * and conversion time of its geometries to Java2D shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+  @Param({BenchmarkData.SYNTHETIC, "luse", "roads"})
+  public String dataset;
+
+  /** Width and height of the view in pixels */
+  @Param({"1024"})
+  public int extent;
+
+  private FeatureCollection featureCollection;
+  private Layer layer;
+  private LayerViewPanel panel;
+  private BufferedImage image;
+
+  @Setup
+  public void setUp() throws Exception {
+    BenchmarkData.quietLogging();
+    RenderingManager.setRendererFactory(Layer.class, new LayerRendererFactory());
+    featureCollection = BenchmarkData.getDataset(dataset);
+    LayerManager layerManager = new LayerManager();
+    layer = layerManager.addLayer(StandardCategoryNames.WORKING, dataset,
+        featureCollection);
+    panel = new LayerViewPanel(layerManager, new LayerViewPanelContext() {
+      public void setStatusMessage(String message) {
+      }
+      public void warnUser(String warning) {
+      }
+      public void handleThrowable(Throwable t) {
+        t.printStackTrace();
+      }
+    });
+    panel.setSize(extent, extent);
+    panel.getViewport().zoom(featureCollection.getEnvelope());
+    // let the rendering triggered by the panel itself complete
+    while (panel.getRenderingManager().getDefaultRendererThreadQueue()
+        .getRunningThreads() > 0) {
+      Thread.sleep(10);
+    }
+    image = new BufferedImage(extent, extent, BufferedImage.TYPE_INT_ARGB);
+  }
+
+  @TearDown
+  public void tearDown() {
+    panel.dispose();
+  }
+
+  private BufferedImage render() {
+    LayerRenderer renderer = new LayerRenderer(layer, panel);
+    Runnable runnable = renderer.createRunnable();
+    if (runnable != null) {
+      runnable.run();
+    }
+    Graphics2D graphics = image.createGraphics();
+    renderer.copyTo(graphics);
+    graphics.dispose();
+    return image;
+  }
+
+  /**
+   * Renders the whole layer, without the tiles rendered by previous calls.
+   */
+  @Benchmark
+  public BufferedImage renderLayer() {
+    panel.getRenderingManager().getTileCache(layer).clear();
+    return render();
+  }
+
+  /**
+   * Renders the whole layer, reusing the tiles rendered by previous calls.
+   */
+  @Benchmark
+  public BufferedImage renderLayerFromTileCache() {
+    return render();
+  }
+
+  @Benchmark
+  public void java2DConverter(Blackhole blackhole) throws Exception {
+    Java2DConverter converter = panel.getViewport().getJava2DConverter();
+    for (Feature feature : featureCollection.getFeatures()) {
+      blackhole.consume(converter.toShape(feature.getGeometry()));
+    }
+  }
+}
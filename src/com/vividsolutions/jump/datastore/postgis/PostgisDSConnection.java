@@ -48,7 +48,9 @@ public class PostgisDSConnection extends SpatialDatabasesDSConnection {
         String queryString = builder.getSQL(query);
         
         // [mmichaud 2013-08-07] add a parameter for database primary key name
-        return new PostgisFeatureInputStream(connection, queryString, query.getPrimaryKey());
+        PostgisFeatureInputStream ifs = new PostgisFeatureInputStream(connection, queryString, query.getPrimaryKey());
+        ifs.setDataStoreConnection(this);
+        return ifs;
     }
     
     /**
@@ -65,6 +67,7 @@ public class PostgisDSConnection extends SpatialDatabasesDSConnection {
     public FeatureInputStream executeAdhocQuery(AdhocQuery query) throws Exception {
         String queryString = query.getQuery();
         PostgisFeatureInputStream ifs = new PostgisFeatureInputStream(connection, queryString, query.getPrimaryKey());
+        ifs.setDataStoreConnection(this);
         
         // Nicolas Ribot: getting FeatureSchema here actually runs the query: if an error occurs, must trap it here
         FeatureSchema fs;
@@ -39,6 +39,10 @@ public class PostgisDataStoreDriver
             "ApplicationName", 
             I18N.get("JUMPWorkbench.jump") + " " + JUMPVersion.CURRENT_VERSION);
         Connection conn = super.createJdbcConnection(params, connectionProps);
-        return new PostgisDSConnection(conn);
+        PostgisDSConnection dsConnection = new PostgisDSConnection(conn);
+        // cursor reads use their own connections, see PostgisFeatureInputStream
+        dsConnection.setCursorConnectionFactory(
+            () -> super.createJdbcConnection(params, connectionProps));
+        return dsConnection;
     }
 }
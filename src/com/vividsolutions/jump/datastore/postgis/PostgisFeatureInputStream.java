@@ -30,4 +30,13 @@ public class PostgisFeatureInputStream extends SpatialDatabasesFeatureInputStrea
         return new PostgisResultSetConverter(conn, rs);
     }
 
+    /**
+     * The PostgreSQL driver reads the whole ResultSet at once unless the
+     * connection is out of auto-commit mode.
+     */
+    @Override
+    protected boolean isCursorInTransactionOnly() {
+        return true;
+    }
+
 }
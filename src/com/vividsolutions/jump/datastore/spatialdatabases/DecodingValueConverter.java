@@ -0,0 +1,26 @@
+package com.vividsolutions.jump.datastore.spatialdatabases;
+
+import com.vividsolutions.jump.datastore.jdbc.ValueConverter;
+
+import java.sql.ResultSet;
+
+/**
+ * A ValueConverter whose work is split between reading the raw value of the
+ * column (e.g. the bytes of a WKB geometry) and decoding it, so that
+ * {@link SpatialDatabasesFeatureInputStream} can decode the values of a row
+ * while the next rows are read from the database.
+ * getValue(rs, column) must return decode(getRawValue(rs, column)).
+ */
+public interface DecodingValueConverter extends ValueConverter {
+
+  /**
+   * Reads the value of column from the current row of rs, without decoding it.
+   */
+  Object getRawValue(ResultSet rs, int column) throws Exception;
+
+  /**
+   * Decodes a value returned by {@link #getRawValue(ResultSet, int)}.
+   * Called from a single thread at a time.
+   */
+  Object decode(Object rawValue) throws Exception;
+}
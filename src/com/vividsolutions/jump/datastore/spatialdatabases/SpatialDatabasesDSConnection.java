@@ -23,6 +23,20 @@ public class SpatialDatabasesDSConnection implements DataStoreConnection {
   protected SpatialDatabasesDSMetadata dbMetadata;
   protected Connection connection;
 
+  // maximum number of idle cursor connections kept open
+  private static final int MAX_IDLE_CURSOR_CONNECTIONS = 2;
+
+  /**
+   * Opens a new JDBC connection to the database of this DataStoreConnection.
+   */
+  public interface ConnectionFactory {
+    Connection createConnection() throws Exception;
+  }
+
+  private ConnectionFactory cursorConnectionFactory;
+  private final List<Connection> idleCursorConnections = new ArrayList<>();
+  private boolean closed = false;
+
   public SpatialDatabasesDSConnection(Connection conn) {
     connection = conn;
     dbMetadata = new SpatialDatabasesDSMetadata(this);
@@ -87,9 +101,76 @@ public class SpatialDatabasesDSConnection implements DataStoreConnection {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Sets the factory of the dedicated connections used by the feature streams
+   * which read through a cursor inside a transaction (see
+   * {@link SpatialDatabasesFeatureInputStream#isCursorInTransactionOnly()}),
+   * so that the shared connection never leaves auto-commit mode.
+   */
+  public void setCursorConnectionFactory(ConnectionFactory factory) {
+    cursorConnectionFactory = factory;
+  }
+
+  /**
+   * Returns a connection out of auto-commit mode, used by a single feature
+   * stream until it is given back with {@link #releaseCursorConnection}.
+   * @return null if no cursor connection factory is set
+   */
+  public Connection takeCursorConnection() throws SQLException {
+    synchronized (idleCursorConnections) {
+      if (closed) {
+        throw new SQLException("The connection is closed");
+      }
+      if (!idleCursorConnections.isEmpty()) {
+        return idleCursorConnections.remove(idleCursorConnections.size() - 1);
+      }
+    }
+    if (cursorConnectionFactory == null) {
+      return null;
+    }
+    try {
+      Connection conn = cursorConnectionFactory.createConnection();
+      conn.setAutoCommit(false);
+      conn.setReadOnly(true);
+      return conn;
+    } catch (SQLException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SQLException(e);
+    }
+  }
+
+  /**
+   * Ends the transaction of a connection returned by takeCursorConnection,
+   * and keeps it for the next reads or closes it.
+   */
+  public void releaseCursorConnection(Connection conn) throws SQLException {
+    boolean keep = false;
+    try {
+      conn.rollback();
+      synchronized (idleCursorConnections) {
+        if (!closed && idleCursorConnections.size() < MAX_IDLE_CURSOR_CONNECTIONS) {
+          idleCursorConnections.add(conn);
+          keep = true;
+        }
+      }
+    } finally {
+      if (!keep) {
+        conn.close();
+      }
+    }
+  }
+
   @Override
   public void close() throws DataStoreException {
     try {
+      synchronized (idleCursorConnections) {
+        closed = true;
+        for (Connection conn : idleCursorConnections) {
+          conn.close();
+        }
+        idleCursorConnections.clear();
+      }
       connection.close();
     } catch (Exception ex) {
       throw new DataStoreException(ex);
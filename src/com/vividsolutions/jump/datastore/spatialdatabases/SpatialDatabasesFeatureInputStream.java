@@ -3,15 +3,35 @@ package com.vividsolutions.jump.datastore.spatialdatabases;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureSchema;
 import com.vividsolutions.jump.io.BaseFeatureInputStream;
+import com.vividsolutions.jump.workbench.Logger;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Reads features from a Spatial database.
- * 
+ *
+ * <p>Rows are fetched by batches of {@link #getFetchSize()} rows (a
+ * server-side cursor for the drivers supporting it), and read in a
+ * background thread while the features of the previous rows are decoded in
+ * the thread calling {@link #next()}. The fetch size can be set with the
+ * datastore.fetch.size system property (0 to use the default behaviour of
+ * the driver), and the background thread disabled with the
+ * datastore.pipeline.off system property.</p>
+ *
+ * <p>Drivers which only use a cursor inside a transaction read through a
+ * dedicated connection of the {@link SpatialDatabasesDSConnection} (see
+ * {@link #setDataStoreConnection}), so that the connection shared by the
+ * layers and writers of a datastore is never taken out of auto-commit
+ * mode.</p>
  */
 public class SpatialDatabasesFeatureInputStream extends BaseFeatureInputStream {
     
@@ -19,12 +39,33 @@ public class SpatialDatabasesFeatureInputStream extends BaseFeatureInputStream {
     protected Connection conn;
     protected String queryString;
     private boolean initialized = false;
-    private Exception savedException;
+    private Throwable savedException;
 
     private Statement stmt = null;
     private ResultSet rs = null;
     private SpatialDatabasesResultSetConverter mapper;
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    // number of rows passed at once from the reading thread to the decoding one
+    private static final int BATCH_SIZE = 256;
+    // marks the end of the rows, must not be the same instance as the empty
+    // batch the stream starts with
+    private static final List<Object[]> END = new ArrayList<>(0);
+
+    private int fetchSize = Integer.getInteger("datastore.fetch.size", DEFAULT_FETCH_SIZE);
+    private boolean pipelined = System.getProperty("datastore.pipeline.off") == null;
+
+    // the source of the dedicated connection used for cursor reads, and the
+    // connection passed to the constructor while conn is the dedicated one
+    private SpatialDatabasesDSConnection dataStoreConnection = null;
+    private Connection sharedConn = null;
+
+    private Thread reader = null;
+    private BlockingQueue<Object> batches;
+    private List<Object[]> batch = Collections.emptyList();
+    private int batchIndex = 0;
+    private volatile boolean closed = false;
+
     String externalIdentifier = null;  // added on 2013-08-07
 
     public SpatialDatabasesFeatureInputStream(Connection conn, String queryString) {
@@ -63,17 +104,96 @@ public class SpatialDatabasesFeatureInputStream extends BaseFeatureInputStream {
      */
     public Statement getStatement(){return stmt;}
 
+    /**
+     * @return the number of rows fetched at once from the database, 0 if
+     * the default of the driver is used.
+     */
+    public int getFetchSize() {return fetchSize;}
+
+    /**
+     * Sets the number of rows fetched at once, to be called before the first
+     * read. 0 lets the driver use its default (often the whole result set).
+     */
+    public void setFetchSize(int fetchSize) {this.fetchSize = fetchSize;}
+
+    /**
+     * Whether rows are read in a background thread while the features are
+     * decoded, to be called before the first read.
+     */
+    public void setPipelined(boolean pipelined) {this.pipelined = pipelined;}
+
+    /**
+     * Sets the DataStoreConnection providing a dedicated connection for the
+     * cursor reads, to be called before the first read. Without it, the rows
+     * are read through the connection of the constructor in auto-commit mode,
+     * which may fetch them all at once for some drivers.
+     */
+    public void setDataStoreConnection(SpatialDatabasesDSConnection dataStoreConnection) {
+        this.dataStoreConnection = dataStoreConnection;
+    }
+
+    /**
+     * To overload for the drivers which use a cursor for fetchSize only
+     * inside a transaction (e.g. PostgreSQL).
+     * @return true if reads with a fetch size must use a dedicated connection
+     * out of auto-commit mode
+     */
+    protected boolean isCursorInTransactionOnly() {
+        return false;
+    }
+
+    /**
+     * To overload to create another kind of statement (e.g. a
+     * PreparedStatement using the binary protocol of the database).
+     * @return the ResultSet of the query
+     */
+    protected ResultSet executeQuery(String query) throws SQLException {
+        stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (fetchSize > 0) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return stmt.executeQuery(query);
+    }
+
+    /**
+     * Switches to a dedicated connection out of auto-commit mode, until all the
+     * rows have been read or the stream is closed.
+     */
+    private void beginCursorTransaction() throws SQLException {
+        if (dataStoreConnection == null) {
+            return;
+        }
+        Connection cursorConn = dataStoreConnection.takeCursorConnection();
+        if (cursorConn != null) {
+            sharedConn = conn;
+            conn = cursorConn;
+        }
+    }
+
+    private synchronized void endCursorTransaction() throws SQLException {
+        if (sharedConn == null) {
+            return;
+        }
+        Connection cursorConn = conn;
+        conn = sharedConn;
+        sharedConn = null;
+        dataStoreConnection.releaseCursorConnection(cursorConn);
+    }
+
     private void init() throws SQLException {
         if (initialized) {
             return;
         }
         initialized = true;
     
-        stmt = conn.createStatement();
+        if (fetchSize > 0 && isCursorInTransactionOnly()) {
+            beginCursorTransaction();
+        }
         String parsedQuery = queryString;
         try {
-          rs = stmt.executeQuery(parsedQuery);
+          rs = executeQuery(parsedQuery);
         } catch (SQLException e) {
+          endCursorTransaction();
           // adds SQL query to SQLError
           e.setNextException(new SQLException("Invalid query: " + queryString));
           throw e;
@@ -88,23 +208,115 @@ public class SpatialDatabasesFeatureInputStream extends BaseFeatureInputStream {
     }
     
     protected Feature readNext() throws Exception {
-        if (savedException != null) throw savedException;
+        if (savedException != null) throw rethrow(savedException);
         if (! initialized) init();
         if (rs == null) return null;
-        if (! rs.next()) return null;
-        return getFeature();
+        if (! pipelined) {
+            if (! rs.next()) return end();
+            return getFeature();
+        }
+        if (reader == null) startReader();
+        if (batchIndex == batch.size()) {
+            if (batch == END) return end();
+            Object next = batches.take();
+            if (next instanceof Throwable) {
+                savedException = (Throwable) next;
+                throw rethrow(savedException);
+            }
+            batch = (List<Object[]>) next;
+            batchIndex = 0;
+            if (batch == END) return end();
+        }
+        return mapper.toFeature(batch.get(batchIndex++));
     }
     
+    /**
+     * Ends the cursor transaction as soon as all the rows have been read, in
+     * case the stream is not closed right away.
+     */
+    private Feature end() throws SQLException {
+        if (sharedConn != null) {
+            closeResultSet();
+            rs = null;
+            endCursorTransaction();
+        }
+        return null;
+    }
+
+    private static Exception rethrow(Throwable t) {
+        if (t instanceof Error) throw (Error) t;
+        return (Exception) t;
+    }
+
     private Feature getFeature() throws Exception {
         return mapper.getFeature();
     }
-    
+
+    /**
+     * Starts the thread reading the rows of the ResultSet by batches.
+     */
+    private void startReader() {
+        batches = new ArrayBlockingQueue<>(Math.max(2, fetchSize / BATCH_SIZE));
+        reader = new Thread(() -> {
+            try {
+                List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+                while (!closed && rs.next()) {
+                    rows.add(mapper.readValues());
+                    if (rows.size() == BATCH_SIZE) {
+                        put(rows);
+                        rows = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!rows.isEmpty()) put(rows);
+                put(END);
+            } catch (Throwable t) {
+                // Errors too, otherwise next() would wait for rows forever
+                try {
+                    put(t);
+                } catch (InterruptedException ie) {
+                    // closed
+                }
+            }
+        }, "SpatialDatabasesFeatureInputStream reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void put(Object item) throws InterruptedException {
+        while (!closed) {
+            if (batches.offer(item, 100, TimeUnit.MILLISECONDS)) return;
+        }
+    }
+
     public void close() throws SQLException {
-        if (rs != null) {
-            rs.close();
+        closed = true;
+        if (reader != null) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            closeResultSet();
+        } finally {
+            try {
+                endCursorTransaction();
+            } catch (SQLException e) {
+                Logger.warn("Could not release the cursor connection", e);
+            }
         }
-        if (stmt != null) {
-            stmt.close();
+    }
+
+    private void closeResultSet() throws SQLException {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } finally {
+            if (stmt != null) {
+                stmt.close();
+            }
         }
     }
     
@@ -46,11 +46,39 @@ public class SpatialDatabasesResultSetConverter {
 
   public Feature getFeature()
       throws Exception {
+    return toFeature(readValues());
+  }
+
+  /**
+   * Reads the values of the current row. The values of the columns having a
+   * {@link DecodingValueConverter} are not decoded yet.
+   * @see #toFeature(Object[])
+   */
+  public Object[] readValues()
+      throws Exception {
+    init();
+    Object[] values = new Object[mapper.length];
+    for (int i = 0; i < mapper.length; i++) {
+      values[i] = mapper[i] instanceof DecodingValueConverter ?
+          ((DecodingValueConverter) mapper[i]).getRawValue(rs, i + 1) :
+          mapper[i].getValue(rs, i + 1);
+    }
+    return values;
+  }
+
+  /**
+   * Creates the feature of a row read by {@link #readValues()}, decoding its
+   * raw values. May be called from another thread than readValues.
+   */
+  public Feature toFeature(Object[] values)
+      throws Exception {
     init();
     // use flex feature for lazy data type conversion
     Feature f = new FlexibleFeature(featureSchema);
     for (int i = 0; i < mapper.length; i++) {
-      f.setAttribute(i, mapper[i].getValue(rs, i + 1));
+      f.setAttribute(i, mapper[i] instanceof DecodingValueConverter ?
+          ((DecodingValueConverter) mapper[i]).decode(values[i]) :
+          values[i]);
     }
     return f;
   }
@@ -49,7 +49,7 @@ public class SpatialDatabasesValueConverterFactory {
       throw new UnsupportedOperationException();
   }
 
-  class WKTGeometryValueConverter implements ValueConverter {
+  class WKTGeometryValueConverter implements DecodingValueConverter {
 
     public AttributeType getType() {
       return AttributeType.GEOMETRY;
@@ -57,7 +57,14 @@ public class SpatialDatabasesValueConverterFactory {
 
     public Object getValue(ResultSet rs, int columnIndex)
         throws IOException, SQLException, ParseException {
-      Object valObj = rs.getObject(columnIndex);
+      return decode(getRawValue(rs, columnIndex));
+    }
+
+    public Object getRawValue(ResultSet rs, int columnIndex) throws SQLException {
+      return rs.getObject(columnIndex);
+    }
+
+    public Object decode(Object valObj) throws ParseException {
       if (valObj == null) {
         return wktReader.read("GEOMETRYCOLLECTION EMPTY");
       } else {
@@ -66,7 +73,7 @@ public class SpatialDatabasesValueConverterFactory {
     }
   }
 
-  class WKBGeometryValueConverter implements ValueConverter {
+  class WKBGeometryValueConverter implements DecodingValueConverter {
 
     public AttributeType getType() {
       return AttributeType.GEOMETRY;
@@ -74,7 +81,15 @@ public class SpatialDatabasesValueConverterFactory {
 
     public Object getValue(ResultSet rs, int columnIndex)
         throws IOException, SQLException, ParseException {
-      byte[] bytes = rs.getBytes(columnIndex);
+      return decode(getRawValue(rs, columnIndex));
+    }
+
+    public Object getRawValue(ResultSet rs, int columnIndex) throws SQLException {
+      return rs.getBytes(columnIndex);
+    }
+
+    public Object decode(Object rawValue) throws ParseException {
+      byte[] bytes = (byte[]) rawValue;
 
       //so rs.getBytes will be one of two things:
       //1. The actual bytes of the WKB if someone did ST_AsBinary
@@ -104,7 +119,7 @@ public class SpatialDatabasesValueConverterFactory {
     }
   }
 
-  class WKBObjectValueConverter implements ValueConverter {
+  class WKBObjectValueConverter implements DecodingValueConverter {
 
     public AttributeType getType() {
       return AttributeType.OBJECT;
@@ -112,7 +127,15 @@ public class SpatialDatabasesValueConverterFactory {
 
     public Object getValue(ResultSet rs, int columnIndex)
         throws IOException, SQLException, ParseException {
-      byte[] bytes = rs.getBytes(columnIndex);
+      return decode(getRawValue(rs, columnIndex));
+    }
+
+    public Object getRawValue(ResultSet rs, int columnIndex) throws SQLException {
+      return rs.getBytes(columnIndex);
+    }
+
+    public Object decode(Object rawValue) throws ParseException {
+      byte[] bytes = (byte[]) rawValue;
 
             //so rs.getBytes will be one of two things:
       //1. The actual bytes of the WKB if someone did ST_AsBinary
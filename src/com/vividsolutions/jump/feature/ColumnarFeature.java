@@ -0,0 +1,144 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.feature;
+
+/**
+ * Feature whose attributes are stored in a row of a
+ * {@link ColumnarFeatureCollection}.
+ * <p>
+ * If the schema of the feature is changed (e.g. by ViewSchemaPlugIn), the
+ * feature is detached from the columns and stores its attributes in its own
+ * array, like a BasicFeature.
+ * </p>
+ */
+public class ColumnarFeature extends AbstractBasicFeature {
+
+    private static final long serialVersionUID = 4737393521064786253L;
+
+    private final ColumnarFeatureCollection collection;
+    private final int row;
+    // attributes of a detached feature, null while they are stored in collection
+    private Object[] attributes = null;
+
+    ColumnarFeature(ColumnarFeatureCollection collection, int row) {
+        super(collection.getFeatureSchema());
+        this.collection = collection;
+        this.row = row;
+    }
+
+    /**
+     * Returns the collection storing the attributes of this feature.
+     */
+    public ColumnarFeatureCollection getCollection() {
+        return collection;
+    }
+
+    /**
+     * Returns the row of this feature in the columns of its collection.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns true if the attributes of this feature are no longer stored in
+     * the columns of its collection.
+     */
+    public boolean isDetached() {
+        return attributes != null;
+    }
+
+    public void setSchema(FeatureSchema schema) {
+        if (schema != getSchema() && attributes == null) {
+            attributes = getAttributes();
+        }
+        super.setSchema(schema);
+    }
+
+    public Object getAttribute(int i) {
+        if (getSchema().isOperation(i)) {
+            try {
+                return getSchema().getOperation(i).invoke(this);
+            } catch(Exception e) {
+                return new Error(e);
+            }
+        }
+        if (attributes != null) return attributes[i];
+        return collection.getValue(row, i);
+    }
+
+    public void setAttribute(int attributeIndex, Object newAttribute) {
+        if (attributes != null) {
+            if (attributes[attributeIndex] != null) {
+                collection.setModified(row, true);
+            }
+            attributes[attributeIndex] = newAttribute;
+        } else {
+            collection.setValue(row, attributeIndex, newAttribute);
+        }
+    }
+
+    /**
+     * Returns a copy of the attributes of this feature, unless it is detached.
+     */
+    public Object[] getAttributes() {
+        if (attributes != null) return attributes;
+        Object[] values = new Object[getSchema().getAttributeCount()];
+        for (int i = 0 ; i < values.length ; i++) {
+            if (!getSchema().isOperation(i)) {
+                values[i] = collection.getValue(row, i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets all the attributes. The feature is detached from its collection if
+     * the number of attributes differs from its schema.
+     */
+    public void setAttributes(Object[] attributes) {
+        if (this.attributes != null || attributes.length != getSchema().getAttributeCount()) {
+            Object[] attributesOld = getAttributes();
+            boolean modified = attributesOld.length != attributes.length;
+            for (int i = 0 ; i < attributes.length && !modified ; i++) {
+                modified = attributesOld[i] != null && attributesOld[i] != attributes[i];
+            }
+            if (modified) collection.setModified(row, true);
+            this.attributes = attributes;
+            return;
+        }
+        for (int i = 0 ; i < attributes.length ; i++) {
+            if (!getSchema().isOperation(i)) {
+                collection.setValue(row, i, attributes[i]);
+            }
+        }
+    }
+
+    /**
+     * @return true if an attribute of this feature (including Geometry) has
+     * been overwritten.
+     */
+    public boolean isModified() {
+        return collection.isModified(row);
+    }
+
+    public void setModified(boolean modified) {
+        collection.setModified(row, modified);
+    }
+}
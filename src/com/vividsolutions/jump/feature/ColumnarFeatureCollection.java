@@ -0,0 +1,519 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.feature;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FeatureCollection storing the attributes of its features in columns.
+ * <p>
+ * Each attribute is stored in an array of primitives (int, long, float,
+ * double, boolean) or, for strings, in an array of codes referencing a
+ * dictionary of distinct values, instead of an array of boxed values per
+ * feature. The features of the collection are lightweight
+ * {@link ColumnarFeature} views of a row of the columns. Large tables take
+ * several times less memory than with BasicFeatures, and a single attribute
+ * can be scanned without touching the other ones (see {@link #getColumn(int)}
+ * and {@link #getDoubleValues(int)}).
+ * </p>
+ * <p>
+ * Rows are only appended : a feature removed from the collection keeps its
+ * row, so that it can still be read and added again (e.g. by an undo).
+ * A column receiving a value of another class than expected (e.g. a Long in
+ * an INTEGER column) is converted to a column of objects, and a string column
+ * with too many distinct values is no longer dictionary-encoded. Features
+ * which are not views of this collection can be added, they are kept as is.
+ * </p>
+ * <p>
+ * As for BasicFeature, reading from several threads is safe, but writing is
+ * not. The columns of attributes added to the schema after the creation of
+ * the collection are created on first access, under a lock, so that reading
+ * them concurrently is safe too.
+ * </p>
+ */
+public class ColumnarFeatureCollection extends FeatureDataset {
+
+    private static final long serialVersionUID = -2263574211418587431L;
+
+    // A string column with more distinct values is no longer
+    // dictionary-encoded if less than half of its values are repeated
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private final FeatureSchema schema;
+    // replaced, once filled, when attributes are added to the schema, so
+    // that readers never see a partially initialized array
+    private volatile Column[] columns;
+    private int rowCount = 0;
+    private int capacity = 0;
+    // rows of the features whose attributes have been overwritten
+    private final BitSet modified = new BitSet();
+
+    /**
+     * Creates an empty ColumnarFeatureCollection.
+     * @param featureSchema the types of the attributes of the features in this collection
+     */
+    public ColumnarFeatureCollection(FeatureSchema featureSchema) {
+        super(featureSchema);
+        this.schema = featureSchema;
+        columns = new Column[0];
+        ensureColumns(featureSchema.getAttributeCount());
+    }
+
+    /**
+     * Creates a ColumnarFeatureCollection containing a copy of the features
+     * of source.
+     * @param source the features to copy
+     */
+    public ColumnarFeatureCollection(FeatureCollection source) {
+        this(source.getFeatureSchema());
+        ensureCapacity(source.size());
+        List<Feature> copies = new ArrayList<>(source.size());
+        for (Feature feature : source.getFeatures()) {
+            copies.add(createCopy(feature));
+        }
+        addAll(copies);
+    }
+
+    /**
+     * Creates a new feature with null attributes, stored in a new row of this
+     * collection. The feature is not added to the collection.
+     */
+    public ColumnarFeature createFeature() {
+        ensureCapacity(rowCount + 1);
+        return new ColumnarFeature(this, rowCount++);
+    }
+
+    /**
+     * Copies the attributes of feature into a new row and adds the view of
+     * this row to the collection. Contrary to {@link #add(Feature)}, the
+     * added feature is not feature itself, which can be discarded.
+     * @return the feature added to the collection
+     */
+    public ColumnarFeature addCopy(Feature feature) {
+        ColumnarFeature copy = createCopy(feature);
+        add(copy);
+        return copy;
+    }
+
+    private ColumnarFeature createCopy(Feature feature) {
+        ColumnarFeature copy = createFeature();
+        int count = Math.min(feature.getSchema().getAttributeCount(),
+                schema.getAttributeCount());
+        for (int i = 0 ; i < count ; i++) {
+            if (!schema.isOperation(i)) {
+                setValue(copy.getRow(), i, feature.getAttribute(i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of rows of this collection, including the rows of
+     * the features which have been created but not added, or removed.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the column storing an attribute. Values are read by row (see
+     * {@link ColumnarFeature#getRow()}). The returned column must not be
+     * kept, as it is replaced if it has to be converted to another storage.
+     * @param attributeIndex index of the attribute in the FeatureSchema
+     */
+    public Column getColumn(int attributeIndex) {
+        Column[] columns = this.columns;
+        if (attributeIndex >= columns.length) {
+            columns = ensureColumns(attributeIndex + 1);
+        }
+        return columns[attributeIndex];
+    }
+
+    /**
+     * Returns the column storing an attribute.
+     * @see #getColumn(int)
+     */
+    public Column getColumn(String attributeName) {
+        return getColumn(schema.getAttributeIndex(attributeName));
+    }
+
+    /**
+     * Returns the values of a numeric attribute for all the features of this
+     * collection, in the order of {@link #getFeatures()}. Null or non-numeric
+     * values are returned as NaN.
+     * @param attributeIndex index of the attribute in the FeatureSchema
+     */
+    public double[] getDoubleValues(int attributeIndex) {
+        List<Feature> features = getFeatures();
+        double[] values = new double[features.size()];
+        Column column = getColumn(attributeIndex);
+        boolean operation = schema.isOperation(attributeIndex);
+        for (int i = 0 ; i < values.length ; i++) {
+            Feature feature = features.get(i);
+            if (!operation && isStoredIn(feature)) {
+                values[i] = column.getDouble(((ColumnarFeature)feature).getRow());
+            } else {
+                Object value = feature.getAttribute(attributeIndex);
+                values[i] = value instanceof Number ?
+                        ((Number)value).doubleValue() : Double.NaN;
+            }
+        }
+        return values;
+    }
+
+    private boolean isStoredIn(Feature feature) {
+        return feature instanceof ColumnarFeature &&
+                ((ColumnarFeature)feature).getCollection() == this &&
+                !((ColumnarFeature)feature).isDetached();
+    }
+
+    Object getValue(int row, int attributeIndex) {
+        return getColumn(attributeIndex).getValue(row);
+    }
+
+    /**
+     * Sets the value of an attribute. The row is marked as modified if a
+     * non-null value is overwritten.
+     */
+    void setValue(int row, int attributeIndex, Object value) {
+        Column column = getColumn(attributeIndex);
+        if (column.getValue(row) != null) {
+            modified.set(row);
+        }
+        if (!column.set(row, value)) {
+            // the column can't store this value, store it as an object
+            columns[attributeIndex] = column = new ObjectColumn(column, capacity);
+            column.set(row, value);
+        }
+    }
+
+    boolean isModified(int row) {
+        return modified.get(row);
+    }
+
+    void setModified(int row, boolean modified) {
+        this.modified.set(row, modified);
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= capacity) return;
+        capacity = Math.max(rows, Math.max(16, capacity + (capacity >> 1)));
+        for (Column column : columns) {
+            column.grow(capacity);
+        }
+    }
+
+    // Creates the columns of the attributes added to the schema. Synchronized
+    // as it may be called by readers (see getColumn).
+    private synchronized Column[] ensureColumns(int count) {
+        if (count <= columns.length) return columns;
+        int oldCount = columns.length;
+        Column[] newColumns = Arrays.copyOf(columns, Math.max(count, schema.getAttributeCount()));
+        for (int i = oldCount ; i < newColumns.length ; i++) {
+            newColumns[i] = createColumn(schema.getAttributeType(i).toJavaClass());
+            newColumns[i].grow(capacity);
+        }
+        columns = newColumns;
+        return newColumns;
+    }
+
+    private static Column createColumn(Class<?> type) {
+        if (type == Integer.class) return new IntColumn();
+        if (type == Long.class) return new LongColumn();
+        if (type == Double.class) return new DoubleColumn();
+        if (type == Float.class) return new FloatColumn();
+        if (type == Boolean.class) return new BooleanColumn();
+        if (type == String.class) return new StringColumn();
+        return new ObjectColumn();
+    }
+
+    /**
+     * Values of one attribute, indexed by row.
+     */
+    public static abstract class Column implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Returns the value of a row, boxed if the column stores primitives.
+         */
+        public abstract Object getValue(int row);
+
+        public boolean isNull(int row) {
+            return getValue(row) == null;
+        }
+
+        /**
+         * Returns the value of a row as a double without boxing it, or NaN
+         * if the value is null or not a number.
+         */
+        public double getDouble(int row) {
+            Object value = getValue(row);
+            return value instanceof Number ? ((Number)value).doubleValue() : Double.NaN;
+        }
+
+        /**
+         * Returns the distinct values of a dictionary-encoded column, indexed
+         * by code, or null if the column is not dictionary-encoded.
+         */
+        public String[] getDictionary() {
+            return null;
+        }
+
+        /**
+         * Returns the index in {@link #getDictionary()} of the value of a
+         * row, or -1 if it is null or the column is not dictionary-encoded.
+         */
+        public int getCode(int row) {
+            return -1;
+        }
+
+        /**
+         * Sets the value of a row.
+         * @return false if the column can't store this kind of value
+         */
+        abstract boolean set(int row, Object value);
+
+        abstract void grow(int capacity);
+    }
+
+    /**
+     * Column whose values are primitives, with a bitmap of non-null values.
+     */
+    private static abstract class PrimitiveColumn extends Column {
+        private static final long serialVersionUID = 1L;
+        final BitSet present = new BitSet();
+
+        public boolean isNull(int row) {
+            return !present.get(row);
+        }
+
+        boolean set(int row, Object value) {
+            if (value == null) {
+                present.clear(row);
+                return true;
+            }
+            if (!setPrimitive(row, value)) return false;
+            present.set(row);
+            return true;
+        }
+
+        abstract boolean setPrimitive(int row, Object value);
+    }
+
+    private static class IntColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 1L;
+        int[] values = new int[0];
+
+        public Object getValue(int row) {
+            return present.get(row) ? Integer.valueOf(values[row]) : null;
+        }
+
+        public double getDouble(int row) {
+            return present.get(row) ? values[row] : Double.NaN;
+        }
+
+        boolean setPrimitive(int row, Object value) {
+            if (value.getClass() != Integer.class) return false;
+            values[row] = (Integer)value;
+            return true;
+        }
+
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class LongColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 1L;
+        long[] values = new long[0];
+
+        public Object getValue(int row) {
+            return present.get(row) ? Long.valueOf(values[row]) : null;
+        }
+
+        public double getDouble(int row) {
+            return present.get(row) ? values[row] : Double.NaN;
+        }
+
+        boolean setPrimitive(int row, Object value) {
+            if (value.getClass() != Long.class) return false;
+            values[row] = (Long)value;
+            return true;
+        }
+
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class DoubleColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 1L;
+        double[] values = new double[0];
+
+        public Object getValue(int row) {
+            return present.get(row) ? Double.valueOf(values[row]) : null;
+        }
+
+        public double getDouble(int row) {
+            return present.get(row) ? values[row] : Double.NaN;
+        }
+
+        boolean setPrimitive(int row, Object value) {
+            if (value.getClass() != Double.class) return false;
+            values[row] = (Double)value;
+            return true;
+        }
+
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class FloatColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 1L;
+        float[] values = new float[0];
+
+        public Object getValue(int row) {
+            return present.get(row) ? Float.valueOf(values[row]) : null;
+        }
+
+        public double getDouble(int row) {
+            return present.get(row) ? values[row] : Double.NaN;
+        }
+
+        boolean setPrimitive(int row, Object value) {
+            if (value.getClass() != Float.class) return false;
+            values[row] = (Float)value;
+            return true;
+        }
+
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    private static class BooleanColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 1L;
+        final BitSet values = new BitSet();
+
+        public Object getValue(int row) {
+            return present.get(row) ? Boolean.valueOf(values.get(row)) : null;
+        }
+
+        boolean setPrimitive(int row, Object value) {
+            if (value.getClass() != Boolean.class) return false;
+            values.set(row, (Boolean)value);
+            return true;
+        }
+
+        void grow(int capacity) {
+        }
+    }
+
+    /**
+     * Dictionary-encoded strings.
+     */
+    private static class StringColumn extends Column {
+        private static final long serialVersionUID = 1L;
+        // code of the value of each row, -1 for null
+        int[] codes = new int[0];
+        final List<String> dictionary = new ArrayList<>();
+        final Map<String,Integer> index = new HashMap<>();
+        int rows = 0;
+
+        public Object getValue(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        public boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        public String[] getDictionary() {
+            return dictionary.toArray(new String[0]);
+        }
+
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        boolean set(int row, Object value) {
+            if (value == null) {
+                codes[row] = -1;
+                return true;
+            }
+            if (value.getClass() != String.class) return false;
+            rows = Math.max(rows, row + 1);
+            Integer code = index.get(value);
+            if (code == null) {
+                if (dictionary.size() >= MAX_DICTIONARY_SIZE && dictionary.size() > rows / 2) {
+                    return false;
+                }
+                code = dictionary.size();
+                dictionary.add((String)value);
+                index.put((String)value, code);
+            }
+            codes[row] = code;
+            return true;
+        }
+
+        void grow(int capacity) {
+            int oldCapacity = codes.length;
+            codes = Arrays.copyOf(codes, capacity);
+            Arrays.fill(codes, oldCapacity, capacity, -1);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private static final long serialVersionUID = 1L;
+        Object[] values = new Object[0];
+
+        ObjectColumn() {
+        }
+
+        // Copy of the values of another column
+        ObjectColumn(Column column, int capacity) {
+            values = new Object[capacity];
+            for (int i = 0 ; i < capacity ; i++) {
+                values[i] = column.getValue(i);
+            }
+        }
+
+        public Object getValue(int row) {
+            return values[row];
+        }
+
+        boolean set(int row, Object value) {
+            values[row] = value;
+            return true;
+        }
+
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+}
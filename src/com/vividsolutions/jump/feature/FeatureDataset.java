@@ -34,6 +34,8 @@
 package com.vividsolutions.jump.feature;
 
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.locationtech.jts.index.strtree.STRtree;
 
 import java.io.Serializable;
 import java.util.*;
@@ -41,16 +43,53 @@ import java.util.*;
 
 /**
  * Default implementation of FeatureCollection.
+ * <p>
+ * Envelope queries are answered by a spatial index which is built lazily on
+ * the first query of a large dataset. The index is an STR-packed tree of the
+ * features present at build time, plus a dynamic overlay recording features
+ * added, removed or modified afterwards. When the overlay grows too large,
+ * the index is discarded and packed again on the next query.
+ * </p>
+ * <p>
+ * Geometries modified in place must be notified with
+ * {@link #invalidateEnvelope(Collection, Collection)} or
+ * {@link #invalidateEnvelope()}, which layers do for each geometry event
+ * fired by their LayerManager. A query also checks the features it finds
+ * against the envelope they were indexed with, and rebuilds the index when
+ * one of them has moved without notification, but it cannot see a feature
+ * moved into the query envelope from elsewhere.
+ * </p>
  */
 public class FeatureDataset implements FeatureCollection, Serializable {
 
     private static final long serialVersionUID = 5573446944516446540L;
+
+    // Under this size, a linear scan is as fast as an index query
+    private static final int MIN_INDEXED_SIZE = 1000;
+
+    // Based on tests on Victoria ICI data, 10 is an optimum node-capacity for
+    // fast queries. [Jon Aquino]
+    private static final int NODE_CAPACITY = 10;
+
     private FeatureSchema featureSchema;
 
-    //<<TODO>> Possibly use hashtable to do spatial indexing [Jon Aquino]
     private List<Feature> features;
     private Envelope envelope = null;
 
+    // Spatial index, built lazily by query(Envelope)
+    private transient STRtree packedIndex = null;
+    // Features added or modified after packedIndex has been built
+    private transient Quadtree overlayIndex = null;
+    // Features whose entry in packedIndex is obsolete, mapped to their entry
+    // in overlayIndex, or to null if they have been removed
+    private transient Map<Feature,IndexEntry> overriddenEntries = null;
+    // Sequence number given to the next feature entering the overlay, used to
+    // return query results in the same order as the feature list
+    private transient int nextSequence;
+    private transient int overlayChanges;
+    // Incremented each time features are added, removed or modified
+    private transient volatile int modificationCount;
+
     /**
      * Creates a FeatureDataset, initialized with a group of Features.
      * @param newFeatures an initial group of features to add to this FeatureDataset
@@ -122,6 +161,10 @@ public class FeatureDataset implements FeatureCollection, Serializable {
 
         //<<TODO:NAMING>> Rename this method to getFeatures(Envelope), to parallel
         //getFeatures() [Jon Aquino]
+        if (features.size() >= MIN_INDEXED_SIZE) {
+            return queryIndex(envelope);
+        }
+
         List<Feature> queryResult = new ArrayList<>();
 
         for (Feature feature : features) {
@@ -133,12 +176,151 @@ public class FeatureDataset implements FeatureCollection, Serializable {
         return queryResult;
     }
 
+    private synchronized List<Feature> queryIndex(Envelope envelope) {
+        if (packedIndex == null) {
+            buildIndex();
+        }
+        List<IndexEntry> entries = new ArrayList<>();
+        if (!queryIndex(envelope, entries)) {
+            // A geometry has been modified without notification
+            modificationCount++;
+            this.envelope = null;
+            buildIndex();
+            entries.clear();
+            queryIndex(envelope, entries);
+        }
+        // Return features in the order they have in this collection, as
+        // renderers draw them in this order
+        entries.sort(Comparator.comparingInt(entry -> entry.sequence));
+        List<Feature> queryResult = new ArrayList<>(entries.size());
+        for (IndexEntry entry : entries) {
+            queryResult.add(entry.feature);
+        }
+        return queryResult;
+    }
+
+    /**
+     * Adds the entries intersecting envelope to entries.
+     * @return false if an entry is stale
+     */
+    private boolean queryIndex(Envelope envelope, List<IndexEntry> entries) {
+        for (Object item : packedIndex.query(envelope)) {
+            IndexEntry entry = (IndexEntry) item;
+            if (!overriddenEntries.containsKey(entry.feature)) {
+                if (!addEntry(entry, envelope, entries)) return false;
+            }
+        }
+        for (Object item : overlayIndex.query(envelope)) {
+            if (!addEntry((IndexEntry) item, envelope, entries)) return false;
+        }
+        return true;
+    }
+
+    private boolean addEntry(IndexEntry entry, Envelope envelope, List<IndexEntry> entries) {
+        Envelope env = entry.feature.getGeometry().getEnvelopeInternal();
+        if (!env.equals(entry.envelope)) {
+            return false;
+        }
+        if (env.intersects(envelope)) {
+            entries.add(entry);
+        }
+        return true;
+    }
+
+    private void buildIndex() {
+        packedIndex = new STRtree(NODE_CAPACITY);
+        overlayIndex = new Quadtree();
+        overriddenEntries = new IdentityHashMap<>();
+        int sequence = 0;
+        for (Feature feature : features) {
+            Envelope env = feature.getGeometry().getEnvelopeInternal();
+            packedIndex.insert(env, new IndexEntry(feature, sequence++, env));
+        }
+        packedIndex.build();
+        nextSequence = sequence;
+        overlayChanges = 0;
+    }
+
+    /**
+     * Drops the spatial index. It will be packed again by the next query.
+     */
+    private synchronized void invalidateIndex() {
+        packedIndex = null;
+        overlayIndex = null;
+        overriddenEntries = null;
+    }
+
+    private synchronized void addToIndex(Feature feature) {
+        if (packedIndex == null) return;
+        Envelope env = feature.getGeometry().getEnvelopeInternal();
+        IndexEntry entry = new IndexEntry(feature, nextSequence++, env);
+        removeFromOverlay(overriddenEntries.put(feature, entry));
+        overlayIndex.insert(env, entry);
+        overlayChanged();
+    }
+
+    private synchronized void removeFromIndex(Feature feature) {
+        if (packedIndex == null) return;
+        removeFromOverlay(overriddenEntries.put(feature, null));
+        overlayChanged();
+    }
+
+    private synchronized void updateIndex(Feature feature, Envelope oldEnvelope) {
+        if (packedIndex == null) return;
+        IndexEntry oldEntry = overriddenEntries.get(feature);
+        if (oldEntry == null) {
+            // A feature removed from the collection has nothing to update
+            if (overriddenEntries.containsKey(feature)) return;
+            for (Object item : packedIndex.query(oldEnvelope)) {
+                if (((IndexEntry) item).feature == feature) {
+                    oldEntry = (IndexEntry) item;
+                    break;
+                }
+            }
+            if (oldEntry == null) {
+                invalidateIndex();
+                return;
+            }
+        } else {
+            removeFromOverlay(oldEntry);
+        }
+        Envelope env = feature.getGeometry().getEnvelopeInternal();
+        IndexEntry entry = new IndexEntry(feature, oldEntry.sequence, env);
+        overriddenEntries.put(feature, entry);
+        overlayIndex.insert(env, entry);
+        overlayChanged();
+    }
+
+    private void removeFromOverlay(IndexEntry entry) {
+        if (entry != null) {
+            overlayIndex.remove(entry.envelope, entry);
+        }
+    }
+
+    private void overlayChanged() {
+        if (++overlayChanges > Math.max(MIN_INDEXED_SIZE, features.size() / 4)) {
+            invalidateIndex();
+        }
+    }
+
+    /**
+     * Returns a counter incremented each time features are added to or removed
+     * from this dataset, or the envelope is invalidated after a modification.
+     * Caches built from the features can compare it with the value they were
+     * built with to detect changes which have not been notified.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
     @Override
     public void add(Feature feature) {
+        modificationCount++;
         features.add(feature);
         if (envelope != null) {
             envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
         }
+        addToIndex(feature);
     }
 
     /**
@@ -163,8 +345,11 @@ public class FeatureDataset implements FeatureCollection, Serializable {
 
     @Override
     public void remove(Feature feature) {
-        features.remove(feature);
-        invalidateEnvelope();
+        modificationCount++;
+        if (features.remove(feature)) {
+            removeFromIndex(feature);
+        }
+        envelope = null;
     }
 
     /**
@@ -183,25 +368,69 @@ public class FeatureDataset implements FeatureCollection, Serializable {
 
     @Override
     public Iterator<Feature> iterator() {
-        return features.iterator();
+        final Iterator<Feature> iterator = features.iterator();
+        return new Iterator<Feature>() {
+            private Feature current;
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+            public Feature next() {
+                return current = iterator.next();
+            }
+            public void remove() {
+                iterator.remove();
+                modificationCount++;
+                removeFromIndex(current);
+                envelope = null;
+            }
+        };
     }
 
     /**
-     * Clears the cached envelope of this FeatureDataset's Features. Call this method
-     * when a Feature's Geometry is modified.
+     * Clears the cached envelope and the spatial index of this FeatureDataset's
+     * Features. Call this method when a Feature's Geometry is modified.
      */
     public void invalidateEnvelope() {
+        modificationCount++;
         envelope = null;
+        invalidateIndex();
+    }
+
+    /**
+     * Clears the cached envelope of this FeatureDataset's Features and updates
+     * the spatial index for the modified Features only. Call this method
+     * rather than {@link #invalidateEnvelope()} when the Geometries of a few
+     * Features of a large dataset have been modified.
+     * @param modifiedFeatures features of this dataset whose Geometry changed
+     * @param oldFeatureClones clones of the modified features holding their
+     *                         previous Geometry, in the same order
+     */
+    public void invalidateEnvelope(Collection<Feature> modifiedFeatures,
+                                   Collection<Feature> oldFeatureClones) {
+        modificationCount++;
+        envelope = null;
+        if (modifiedFeatures.size() != oldFeatureClones.size()) {
+            invalidateIndex();
+            return;
+        }
+        Iterator<Feature> oldFeatures = oldFeatureClones.iterator();
+        for (Feature feature : modifiedFeatures) {
+            updateIndex(feature, oldFeatures.next().getGeometry().getEnvelopeInternal());
+        }
     }
 
     @Override
     public void addAll(Collection<Feature> features) {
+        modificationCount++;
         this.features.addAll(features);
         if (envelope != null) {
             for (Feature feature : features) {
                 envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
             }            
         }
+        for (Feature feature : features) {
+            addToIndex(feature);
+        }
     }
     
     // [michaudm 2009-05-16] creating a map on the fly improves dramatically
@@ -211,6 +440,7 @@ public class FeatureDataset implements FeatureCollection, Serializable {
     // [michaudm 2013-07-13] change HashMap to LinkedHashMap to preserve feature order
     @Override
     public void removeAll(Collection<Feature> c) {
+        modificationCount++;
         Map<Integer,Feature> map = new LinkedHashMap<>();
         for (Feature feature : features) {
             map.put(feature.getID(), feature);
@@ -218,8 +448,29 @@ public class FeatureDataset implements FeatureCollection, Serializable {
         for (Feature feature : c) {
             map.remove(feature.getID());
         }
+        for (Feature feature : features) {
+            if (map.get(feature.getID()) != feature) {
+                removeFromIndex(feature);
+            }
+        }
         features = new ArrayList<>();
         features.addAll(map.values());
-        invalidateEnvelope();
+        envelope = null;
+    }
+
+    /**
+     * Spatial index item. The envelope is the one the item was inserted with,
+     * needed to remove it from the overlay index and to detect geometries
+     * modified without notification.
+     */
+    private static class IndexEntry {
+        final Feature feature;
+        final int sequence;
+        final Envelope envelope;
+        IndexEntry(Feature feature, int sequence, Envelope envelope) {
+            this.feature = feature;
+            this.sequence = sequence;
+            this.envelope = envelope;
+        }
     }
 }
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.locationtech.jts.geom.Geometry;
 
@@ -92,13 +93,14 @@ public class FeatureUtil {
 		}
 	}	
 	
-	private static int lastID = 0;
+	// atomic, as features may be created by several threads
+	private static final AtomicInteger lastID = new AtomicInteger(0);
 	
     /**
      * Increments and returns the feature-ID counter
      * @see Feature#getID()
      */
-	public static int nextID() { return ++lastID; }
+	public static int nextID() { return lastID.incrementAndGet(); }
 
     /**
      * Although Feature implements Cloneable, this method is useful
@@ -0,0 +1,268 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.geotools.dbffile.DbfFile;
+import org.geotools.shapefile.ShapeHandler;
+import org.geotools.shapefile.ShapeTypeNotSupportedException;
+import org.geotools.shapefile.Shapefile;
+import org.geotools.shapefile.ShapefileHeader;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.workbench.Logger;
+
+/**
+ * A {@link FeatureInputStream} reading a shapefile one record at a time.
+ *
+ * <p>Contrary to {@link ShapefileReader}, which builds the whole
+ * FeatureCollection in memory, this stream keeps only the current record in
+ * memory, so that files larger than the heap can be processed feature by
+ * feature (format conversion, batch processing...).</p>
+ *
+ * <p>If a .shx file is found beside the .shp file, shapes are read from the
+ * offsets recorded in the index, otherwise the .shp file is read sequentially.
+ * Attributes are read from the .dbf file (which is optional). Deleted dbf
+ * records are skipped unless the dbf.deleted.on system property is set.
+ * Compressed shapefiles are not supported.</p>
+ */
+public class ShapefileFeatureInputStream extends BaseFeatureInputStream {
+
+    private final FeatureSchema featureSchema;
+    private final GeometryFactory factory = new GeometryFactory();
+    private final ShapeHandler handler;
+
+    private final FileChannel shp;
+    // index file, or null if the shp file is read sequentially
+    private final EndianDataInputStream shx;
+    // sequential view of the shp file, used if there is no shx file
+    private final EndianDataInputStream shpStream;
+    private final DbfFile dbf;
+
+    // number of records read so far
+    private int recordCount = 0;
+    private int shapeCount = 0;
+    private boolean shpExhausted = false;
+    private byte[] buffer = new byte[1024];
+    private int errors = 0;
+
+    /**
+     * Opens a shapefile stream using the charset declared by the .cpg file,
+     * or the platform default charset.
+     * @param shpFileName path of the .shp file
+     */
+    public ShapefileFeatureInputStream(String shpFileName) throws Exception {
+        this(shpFileName, Charset.forName(
+                new ShapefileReader().getCharset(shpFileName, new DriverProperties())));
+    }
+
+    /**
+     * Opens a shapefile stream.
+     * @param shpFileName path of the .shp file
+     * @param charset charset used to decode dbf strings
+     */
+    public ShapefileFeatureInputStream(String shpFileName, Charset charset) throws Exception {
+        File dbfFile = sibling(shpFileName, ".dbf");
+        File shxFile = sibling(shpFileName, ".shx");
+        shp = new FileInputStream(shpFileName).getChannel();
+        try {
+            ShapefileHeader header = new ShapefileHeader(new EndianDataInputStream(
+                    new ByteArrayInputStream(read(0, 100))));
+            handler = Shapefile.getShapeHandler(header.getShapeType());
+            if (handler == null) {
+                throw new ShapeTypeNotSupportedException("Unsupported shape type:" + header.getShapeType());
+            }
+            if (shxFile.exists()) {
+                shx = new EndianDataInputStream(new BufferedInputStream(new FileInputStream(shxFile)));
+                new ShapefileHeader(shx);
+                shpStream = null;
+            } else {
+                shx = null;
+                shp.position(100);
+                shpStream = new EndianDataInputStream(new BufferedInputStream(
+                        java.nio.channels.Channels.newInputStream(shp), 16 * 1024));
+            }
+            dbf = dbfFile.exists() ? new DbfFile(dbfFile.getPath(), charset) : null;
+        } catch (Exception e) {
+            shp.close();
+            throw e;
+        }
+        featureSchema = new FeatureSchema();
+        featureSchema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        if (dbf != null) {
+            for (int j = 0; j < dbf.getNumFields(); j++) {
+                featureSchema.addAttribute(dbf.getFieldName(j),
+                        AttributeType.toAttributeType(dbf.getFieldType(j)));
+            }
+        }
+    }
+
+    private static File sibling(String shpFileName, String extension) {
+        File file = new File(shpFileName.replaceAll("\\.[^.]*$", extension));
+        if (!file.exists()) {
+            file = new File(shpFileName.replaceAll("\\.[^.]*$", extension.toUpperCase()));
+        }
+        return file;
+    }
+
+    @Override
+    public FeatureSchema getFeatureSchema() {
+        return featureSchema;
+    }
+
+    /**
+     * Returns the number of records which could not be decoded properly and
+     * have been replaced by an empty geometry.
+     */
+    public int getErrorNumber() {
+        return errors;
+    }
+
+    /**
+     * Returns the number of shapes read so far.
+     */
+    public int getShapeNumber() {
+        return shapeCount;
+    }
+
+    /**
+     * Returns the number of records of the dbf file, or -1 if there is no dbf
+     * file.
+     */
+    public int getRecordNumber() {
+        return dbf == null ? -1 : dbf.getLastRec();
+    }
+
+    @Override
+    protected Feature readNext() throws Exception {
+        while (true) {
+            int row = recordCount;
+            Geometry geometry = shpExhausted ? null : readGeometry();
+            if (geometry != null) shapeCount++;
+            boolean hasRecord = dbf != null && row < dbf.getLastRec();
+            if (geometry == null && !hasRecord) {
+                return null;
+            }
+            recordCount++;
+            // [mmichaud 2017-06-10] skip deleted records
+            if (hasRecord && dbf.isDeleted(row) && System.getProperty("dbf.deleted.on") == null) {
+                continue;
+            }
+            Feature feature = new BasicFeature(featureSchema);
+            // same behaviour as ShapefileReader if there are less shapes than
+            // dbf records
+            feature.setGeometry(geometry != null ? geometry :
+                    factory.buildGeometry(new ArrayList<Geometry>()));
+            if (hasRecord) {
+                for (int y = 0; y < dbf.getNumFields(); y++) {
+                    feature.setAttribute(y + 1, dbf.getValue(row, y));
+                }
+            }
+            return feature;
+        }
+    }
+
+    /**
+     * Reads the next shape, or returns null if the shp file is exhausted.
+     */
+    private Geometry readGeometry() throws IOException {
+        try {
+            return shx == null ? readSequentialGeometry() : readIndexedGeometry();
+        } catch (EOFException e) {
+            shpExhausted = true;
+            return null;
+        }
+    }
+
+    private Geometry readIndexedGeometry() throws IOException {
+        long offset = shx.readIntBE() & 0x00000000ffffffffL;
+        int length = shx.readIntBE();
+        try {
+            byte[] bytes = read(offset * 2 + 8, length * 2);
+            return handler.read(new EndianDataInputStream(
+                    new ByteArrayInputStream(bytes, 0, length * 2)), factory, length);
+        } catch (Exception e) {
+            Logger.warn("Error processing record " + (recordCount + 1) + ": " + e.getMessage(), e);
+            Logger.warn("an empty Geometry has been returned");
+            errors++;
+            return handler.getEmptyGeometry(factory);
+        }
+    }
+
+    private Geometry readSequentialGeometry() throws IOException {
+        int recordNumber = shpStream.readIntBE();
+        int contentLength = shpStream.readIntBE();
+        if (recordNumber != recordCount + 1 || contentLength < 0) {
+            Logger.warn("Unexpected record header (" + recordNumber + ", " + contentLength +
+                    ") : stop reading " + recordCount + " shapes");
+            throw new EOFException();
+        }
+        try {
+            return handler.read(shpStream, factory, contentLength);
+        } catch (Exception e) {
+            // the stream is not positioned anymore, can't go further
+            Logger.warn("Error processing record " + recordNumber + ": " + e.getMessage(), e);
+            errors++;
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Reads length bytes of the shp file at position, in a reused buffer.
+     */
+    private byte[] read(long position, int length) throws IOException {
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        ByteBuffer bb = ByteBuffer.wrap(buffer, 0, length);
+        while (bb.hasRemaining()) {
+            if (shp.read(bb, position + bb.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer;
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (shx != null) shx.close();
+            if (dbf != null) dbf.close();
+        } finally {
+            shp.close();
+        }
+    }
+}
@@ -54,10 +54,14 @@ import org.locationtech.jts.geom.GeometryFactory;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.AttributeType;
 import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.ColumnarFeatureCollection;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
 import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.task.TaskCancelledException;
+import com.vividsolutions.jump.task.TaskMonitorV2Util;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.Logger;
 
 /**
@@ -131,6 +135,13 @@ public class ShapefileReader extends AbstractJUMPReader {
             throw new IllegalParametersException(I18N.get("io.ShapefileReader.no-file-property-specified"));
         }
 
+        // Without parallel decoding, features are streamed from the files
+        // rather than decoded into an intermediate GeometryCollection first
+        if (dp.getProperty(DataSource.COMPRESSED_KEY) == null &&
+                getParallelism() <= 1 && !isColumnar()) {
+            return readStream(shpFileName, Charset.forName(getCharset(shpFileName, dp)));
+        }
+
         // okay, we have .shp and .dbf file paths, lets create Shapefile and DbfFile
         Shapefile myshape = getShapefile(shpFileName, dp.getProperty(DataSource.COMPRESSED_KEY));
         // attach task monitor
@@ -148,7 +159,15 @@ public class ShapefileReader extends AbstractJUMPReader {
             GeometryFactory factory = new GeometryFactory();
             GeometryCollection collection;
             // Read the shapefile either from shx (if provided) or directly from shp
-            collection = shx == null ? myshape.read(factory) : myshape.readFromIndex(factory, shx);
+            // With a shx index, records can be decoded in parallel
+            final int parallelism = getParallelism();
+            if (shx == null) {
+                collection = myshape.read(factory);
+            } else if (parallelism > 1) {
+                collection = myshape.readFromIndex(factory, shx, parallelism);
+            } else {
+                collection = myshape.readFromIndex(factory, shx);
+            }
 
             // Minimal schema for FeatureCollection (if no dbf is provided)
             FeatureSchema fs = new FeatureSchema();
@@ -180,25 +199,40 @@ public class ShapefileReader extends AbstractJUMPReader {
                     fs.addAttribute( mydbf.getFieldName(j), type );
                 }
 
-                featureCollection = new FeatureDataset(fs);
-
-                for (int x = 0; x < Math.min(mydbf.getLastRec(), collection.getNumGeometries()); x++) {
-
-                    // [sstein 9.Sept.08] Get bytes rather than String to be able to read multibytes strings
-                    byte[] s = mydbf.GetDbfRec(x);
-                    // [mmichaud 2017-06-10] skip deleted records
-                    if (s[0] == (byte)0x2A && System.getProperty("dbf.deleted.on")==null) {
-                        Logger.debug("Skip deleted dbf record " + x);
-                        continue;
+                // attributes of large files can be stored in columns rather
+                // than in BasicFeatures (see shp.columnar.on)
+                final int count = Math.min(mydbf.getLastRec(), collection.getNumGeometries());
+                if (isColumnar()) {
+                    featureCollection = new ColumnarFeatureCollection(fs);
+                    readColumnar((ColumnarFeatureCollection)featureCollection,
+                            mydbf, collection, count, parallelism);
+                } else {
+                    featureCollection = new FeatureDataset(fs);
+                    // features are created first, so that their IDs follow the
+                    // order of the file, then filled in parallel
+                    final Feature[] features = new Feature[count];
+                    for (int x = 0; x < features.length; x++) {
+                        features[x] = new BasicFeature(fs);
                     }
-                    Feature feature = new BasicFeature(fs);
-                    Geometry geo = collection.getGeometryN(x);
-                    for (int y = 0; y < numfields; y++) {
-                        feature.setAttribute(y + 1, mydbf.ParseRecordColumn(s, y));
+                    ParallelUtil.forEachChunk(features.length, 4096, parallelism, getTaskMonitor(), (start, end) -> {
+                        for (int x = start; x < end; x++) {
+                            // [mmichaud 2017-06-10] skip deleted records
+                            if (isSkipped(mydbf, x)) {
+                                features[x] = null;
+                                continue;
+                            }
+                            Feature feature = features[x];
+                            Geometry geo = collection.getGeometryN(x);
+                            // fields are decoded directly from the memory mapped dbf file
+                            for (int y = 0; y < numfields; y++) {
+                                feature.setAttribute(y + 1, mydbf.getValue(x, y));
+                            }
+                            feature.setGeometry(geo);
+                        }
+                    });
+                    for (Feature feature : features) {
+                        if (feature != null) featureCollection.add(feature);
                     }
-
-                    feature.setGeometry(geo);
-                    featureCollection.add(feature);
                 }
 
                 // [mmichaud 2013-10-07] if the number of shapes is greater than the number of records
@@ -224,13 +258,12 @@ public class ShapefileReader extends AbstractJUMPReader {
                     for (int x = collection.getNumGeometries() ; x < mydbf.getLastRec() ; x++) {
                         Feature feature = new BasicFeature(fs);
                         Geometry geo = factory.buildGeometry(emptyList);
-                        byte[] s = mydbf.GetDbfRec(x); //[sstein 9.Sept.08]
                         // [mmichaud 2017-06-10] skip deleted records
-                        if (s[0] == (byte)0x2A && System.getProperty("dbf.deleted.on")==null) {
+                        if (mydbf.isDeleted(x) && System.getProperty("dbf.deleted.on")==null) {
                             continue;
                         }
                         for (int y = 0; y < numfields; y++) {
-                            feature.setAttribute(y + 1, mydbf.ParseRecordColumn(s, y));
+                            feature.setAttribute(y + 1, mydbf.getValue(x, y));
                         }
                         feature.setGeometry(geo);
                         featureCollection.add(feature);
@@ -249,6 +282,114 @@ public class ShapefileReader extends AbstractJUMPReader {
     }
 
 
+    // Number of records whose attributes are decoded at once before being
+    // stored in the columns of a ColumnarFeatureCollection
+    private static final int COLUMNAR_BLOCK_SIZE = 65536;
+
+    /**
+     * Fills a ColumnarFeatureCollection block by block : the fields of a block
+     * of records are decoded in parallel, then stored in the columns by the
+     * calling thread, as the columns can't be written concurrently. Only one
+     * block of decoded values is kept in memory, no BasicFeature is created.
+     */
+    private void readColumnar(ColumnarFeatureCollection featureCollection,
+            final DbfFile mydbf, GeometryCollection collection, int count,
+            int parallelism) throws Exception {
+        final int numfields = mydbf.getNumFields();
+        final Object[][] values = new Object[Math.min(count, COLUMNAR_BLOCK_SIZE)][];
+        for (int block = 0; block < count; block += COLUMNAR_BLOCK_SIZE) {
+            final int offset = block;
+            final int size = Math.min(COLUMNAR_BLOCK_SIZE, count - block);
+            ParallelUtil.forEachChunk(size, 4096, parallelism, getTaskMonitor(), (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    int x = offset + i;
+                    // [mmichaud 2017-06-10] skip deleted records
+                    if (isSkipped(mydbf, x)) {
+                        values[i] = null;
+                        continue;
+                    }
+                    Object[] row = new Object[numfields];
+                    for (int y = 0; y < numfields; y++) {
+                        row[y] = mydbf.getValue(x, y);
+                    }
+                    values[i] = row;
+                }
+            });
+            for (int i = 0; i < size; i++) {
+                if (values[i] == null) continue;
+                Feature feature = featureCollection.createFeature();
+                for (int y = 0; y < numfields; y++) {
+                    feature.setAttribute(y + 1, values[i][y]);
+                }
+                feature.setGeometry(collection.getGeometryN(offset + i));
+                featureCollection.add(feature);
+                values[i] = null;
+            }
+        }
+    }
+
+    private static boolean isSkipped(DbfFile mydbf, int x) throws IOException {
+        if (mydbf.isDeleted(x) && System.getProperty("dbf.deleted.on")==null) {
+            Logger.debug("Skip deleted dbf record " + x);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads an uncompressed shapefile with a {@link ShapefileFeatureInputStream},
+     * keeping a single copy of each geometry in memory.
+     */
+    private FeatureCollection readStream(String shpFileName, Charset charset) throws Exception {
+        ShapefileFeatureInputStream stream = new ShapefileFeatureInputStream(shpFileName, charset);
+        try {
+            FeatureCollection featureCollection = new FeatureDataset(stream.getFeatureSchema());
+            int count = 0;
+            while (stream.hasNext()) {
+                featureCollection.add(stream.next());
+                if (++count % 10000 == 0) {
+                    TaskMonitorV2Util.report(getTaskMonitor(), I18N.getMessage(
+                            "Reader.parsed-{0}-features", String.format("%,10d", count)));
+                    if (getTaskMonitor().isCancelRequested()) {
+                        throw new TaskCancelledException();
+                    }
+                }
+            }
+            int shapes = stream.getShapeNumber();
+            int records = stream.getRecordNumber();
+            if (records >= 0 && shapes != records) {
+                String message = I18N.getMessage(shapes > records ?
+                        "com.vividsolutions.jump.io.ShapefileReader.shp-gt-dbf" :
+                        "com.vividsolutions.jump.io.ShapefileReader.shp-lt-dbf",
+                        shpFileName, shapes, records);
+                Logger.error(message);
+                getExceptions().add(new Exception(message));
+            }
+            return featureCollection;
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Returns the number of threads used to decode shapes and attributes.
+     * Parallel decoding can be disabled with the shp.parallel.off system
+     * property.
+     */
+    protected int getParallelism() {
+        if (System.getProperty("shp.parallel.off") != null) return 1;
+        return ParallelUtil.getDefaultParallelism();
+    }
+
+    /**
+     * Returns true if the attributes must be stored in a
+     * {@link ColumnarFeatureCollection}, which takes much less memory for
+     * large files. This is enabled by the shp.columnar.on system property.
+     */
+    protected boolean isColumnar() {
+        return System.getProperty("shp.columnar.on") != null;
+    }
+
     protected Shapefile getShapefile(String shpfileName, String compressedFname)
                 throws Exception {
         InputStream in = CompressedFile.openFile(shpfileName,compressedFname);
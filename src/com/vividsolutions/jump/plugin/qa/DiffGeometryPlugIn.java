@@ -150,7 +150,7 @@ public class DiffGeometryPlugIn
       diff.setNormalize(! testExactCoordinateOrder);
       diff.setSplitIntoComponents(splitIntoComponents);
       if (useTolerance) {
-        diff.setMatcher(new BufferGeometryMatcher(distanceTolerance));
+        diff.setMatcherFactory(() -> new BufferGeometryMatcher(distanceTolerance));
       }
       diffFC = diff.diff();
     }
@@ -179,6 +179,7 @@ public class DiffGeometryPlugIn
           diffFC[0],
           diffFC[1],
           distanceTolerance);
+      diff.setTaskMonitor(monitor);
 
       diffSegFC  = diff.diff();
     }
@@ -80,6 +80,14 @@ public class ValidationErrorType {
     public final static ValidationErrorType POLYGON_HAS_HOLES = new ValidationErrorType(
     		I18N.get("qa.ValidationErrorType.polygon-has-holes"));
 
+    /** Polygon overlaps another polygon */
+    public final static ValidationErrorType OVERLAP = new ValidationErrorType(
+    		I18N.get("qa.ValidationErrorType.polygon-overlaps-another-polygon"));
+
+    /** Polygon borders a gap between polygons */
+    public final static ValidationErrorType GAP = new ValidationErrorType(
+    		I18N.get("qa.ValidationErrorType.polygon-borders-a-gap"));
+
     /** Consecutive points are the same */
     public final static ValidationErrorType REPEATED_CONSECUTIVE_POINTS = new ValidationErrorType(
     		I18N.get("qa.ValidationErrorType.consecutive-points-are-the-same"));
@@ -34,25 +34,38 @@
 package com.vividsolutions.jump.qa;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.locationtech.jts.algorithm.Orientation;
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.locationtech.jts.operation.IsSimpleOp;
 import org.locationtech.jts.operation.valid.*;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.geom.Angle;
 import com.vividsolutions.jump.geom.CoordUtil;
+import com.vividsolutions.jump.task.TaskCancelledException;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.tools.IndexedJoin;
+import com.vividsolutions.jump.tools.UnionEngine;
 import com.vividsolutions.jump.util.CoordinateArrays;
+import com.vividsolutions.jump.util.ParallelUtil;
+import com.vividsolutions.jump.workbench.Logger;
 
 
 /**
  * Performs basic JTS validation, and additional validation like checking polygon
- * orientation.
+ * orientation. Features are checked in parallel chunks. Optionally, polygonal
+ * features are checked against each other for overlaps and gaps.
  */
 public class Validator {
 
+    // number of features checked by a task
+    private static final int CHUNK_SIZE = 256;
+
     private boolean checkingBasicTopology = true;
     private boolean checkingPolygonOrientation = false;
     private boolean checkingGeometriesSimple = false;
@@ -61,11 +74,27 @@ public class Validator {
     private boolean checkingMinPolygonArea = false;
     private boolean checkingNoRepeatedConsecutivePoints = false;
     private boolean checkingNoHoles = false;
+    private boolean checkingNoOverlaps = false;
+    private boolean checkingNoGaps = false;
     private double minSegmentLength = 0;
     private double minAngle = 0;
     private double minPolygonArea = 0;
+    private double maxGapArea = Double.POSITIVE_INFINITY;
+    private int parallelism = ParallelUtil.getDefaultParallelism();
     private Collection<String> disallowedGeometryClassNames = new ArrayList<>();
-    private RepeatedPointTester repeatedPointTester = new RepeatedPointTester();
+
+    /**
+     * Receives the validation errors found by
+     * {@link Validator#validate(Collection, TaskMonitor, Listener)}.
+     */
+    public interface Listener {
+        /**
+         * Called in the thread calling validate, as soon as errors are found.
+         * @param validationErrors the ValidationErrors of the last features
+         * checked, in the order of the features
+         */
+        void validationErrorsFound(List<ValidationError> validationErrors);
+    }
 
     //<<TODO:REFACTORING>> Move this class and associated classes to JTS [Jon Aquino]
     public Validator() {
@@ -97,6 +126,45 @@ public class Validator {
         this.checkingNoHoles = checkingNoHoles;
     }
 
+    /**
+     * Sets whether polygonal features are not allowed to overlap each other
+     * @param checkingNoOverlaps whether the interiors of polygonal features
+     * are not allowed to intersect
+     */
+    public void setCheckingNoOverlaps(boolean checkingNoOverlaps) {
+        this.checkingNoOverlaps = checkingNoOverlaps;
+    }
+
+    /**
+     * Sets whether gaps between polygonal features are not allowed. A gap is
+     * a hole of the union of the polygonal features.
+     * @param checkingNoGaps whether gaps between polygonal features are not
+     * allowed
+     * @see #setMaxGapArea(double)
+     */
+    public void setCheckingNoGaps(boolean checkingNoGaps) {
+        this.checkingNoGaps = checkingNoGaps;
+    }
+
+    /**
+     * Sets the area below which a hole of the union of the polygonal features
+     * is considered as a gap, larger holes being considered as intended.
+     * @param maxGapArea the threshold used by the gap check (infinite by default)
+     * @see #setCheckingNoGaps(boolean)
+     */
+    public void setMaxGapArea(double maxGapArea) {
+        this.maxGapArea = maxGapArea;
+    }
+
+    /**
+     * Sets the number of threads used to check the features.
+     * @param parallelism the maximum number of threads (by default, the
+     * number of processors)
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     /**
      * Sets whether polygon orientation should be checked
      * @param checkingPolygonOrientation whether to enforce the constraint that
@@ -201,21 +269,74 @@ public class Validator {
      * will be empty
      */
     public List validate(Collection features, TaskMonitor monitor) {
+        final List<Object> validationErrors = new ArrayList<>();
+        validate(features, monitor, validationErrors::addAll);
+        return validationErrors;
+    }
+
+    /**
+     * Checks a collection of features, passing the errors found to listener
+     * as soon as possible. The errors of the checks of each feature are
+     * passed in the order of the features, then the overlap and gap errors.
+     * @param features the Feature's to validate
+     * @param listener the Listener receiving the ValidationErrors found
+     */
+    public void validate(Collection features, final TaskMonitor monitor,
+        final Listener listener) {
         monitor.allowCancellationRequests();
-        int validatedFeatureCount = 0;
         monitor.report(I18N.get("qa.Validator.validating"));
 
-        List<Object> validationErrors = new ArrayList<>();
-        int totalFeatures = features.size();
+        final Feature[] featureArray = (Feature[]) features.toArray(new Feature[0]);
+        final int chunkCount = (featureArray.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // errors of the chunks checked, passed to the listener in order
+        // (written by the workers, read by the calling thread)
+        final AtomicReferenceArray<List<Object>> chunkErrors =
+            new AtomicReferenceArray<>(chunkCount);
+        final int[] next = new int[1];
+        Runnable progress = () -> {
+            while (next[0] < chunkCount && chunkErrors.get(next[0]) != null) {
+                if (!chunkErrors.get(next[0]).isEmpty()) {
+                    listener.validationErrorsFound(toValidationErrors(chunkErrors.get(next[0])));
+                }
+                chunkErrors.set(next[0], Collections.emptyList());
+                next[0]++;
+            }
+            monitor.report(Math.min(featureArray.length, next[0] * CHUNK_SIZE),
+                featureArray.length, "features");
+        };
+        try {
+            ParallelUtil.forEachChunk(featureArray.length, CHUNK_SIZE, parallelism,
+                monitor, (start, end) -> {
+                    List<Object> errors = new ArrayList<>();
+                    for (int i = start; i < end && !monitor.isCancelRequested(); i++) {
+                        validate(featureArray[i], errors);
+                    }
+                    chunkErrors.set(start / CHUNK_SIZE, errors);
+                }, progress);
+        } catch (TaskCancelledException e) {
+            return;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
 
-        for (Iterator i = features.iterator();
-                i.hasNext() && !monitor.isCancelRequested();) {
-            Feature feature = (Feature) i.next();
-            validate(feature, validationErrors);
-            validatedFeatureCount++;
-            monitor.report(validatedFeatureCount, totalFeatures, "features");
+        if (checkingNoOverlaps && !monitor.isCancelRequested()) {
+            List<ValidationError> errors = validateNoOverlaps(featureArray, monitor);
+            if (!errors.isEmpty()) listener.validationErrorsFound(errors);
         }
 
+        if (checkingNoGaps && !monitor.isCancelRequested()) {
+            List<ValidationError> errors = validateNoGaps(featureArray, monitor);
+            if (!errors.isEmpty()) listener.validationErrorsFound(errors);
+        }
+    }
+
+    private List<ValidationError> toValidationErrors(List<Object> errors) {
+        List<ValidationError> validationErrors = new ArrayList<>(errors.size());
+        for (Object error : errors) {
+            validationErrors.add((ValidationError) error);
+        }
         return validationErrors;
     }
 
@@ -227,7 +348,7 @@ public class Validator {
     }
 
     /**
-     * Checks a feature.
+     * Checks a feature. Called by several threads at once.
      * @param feature the Feature to validate
      * @param validationErrors a List of ValidationError's to add to if the feature
      * is not valid
@@ -295,6 +416,7 @@ public class Validator {
 
     protected ValidationError validateNoRepeatedConsecutivePoints(
         Feature feature) {
+        RepeatedPointTester repeatedPointTester = new RepeatedPointTester();
         if (repeatedPointTester.hasRepeatedPoint(feature.getGeometry())) {
             return new ValidationError(ValidationErrorType.REPEATED_CONSECUTIVE_POINTS,
                 feature, repeatedPointTester.getCoordinate());
@@ -445,6 +567,119 @@ public class Validator {
             });
     }
 
+    /**
+     * Reports each pair of overlapping polygonal features once, as an error
+     * of the first feature of the pair.
+     */
+    private List<ValidationError> validateNoOverlaps(Feature[] features,
+        TaskMonitor monitor) {
+        List<Feature> polygonal = new ArrayList<>();
+        final Map<Feature,Integer> order = new IdentityHashMap<>();
+        for (Feature feature : features) {
+            if (feature.getGeometry() instanceof Polygonal) {
+                order.put(feature, polygonal.size());
+                polygonal.add(feature);
+            }
+        }
+        List<List<Object>> results;
+        try {
+            results = IndexedJoin.join(polygonal, polygonal, (feature, candidates) -> {
+                // only the features following feature, in order
+                int index = order.get(feature);
+                List<Feature> following = new ArrayList<>(candidates.size());
+                for (Feature candidate : candidates) {
+                    if (order.get(candidate) > index) following.add(candidate);
+                }
+                following.sort(Comparator.comparing(order::get));
+                List<Object> errors = new ArrayList<>(0);
+                PreparedGeometry prepared = null;
+                for (Feature candidate : following) {
+                    if (prepared == null) prepared = PreparedGeometryFactory.prepare(feature.getGeometry());
+                    if (!prepared.intersects(candidate.getGeometry())) continue;
+                    addIfNotNull(validateNoOverlap(feature, candidate), errors);
+                }
+                return errors;
+            }, parallelism, monitor, "features");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        List<Object> errors = new ArrayList<>();
+        for (List<Object> featureErrors : results) {
+            if (featureErrors != null) errors.addAll(featureErrors);
+        }
+        return toValidationErrors(errors);
+    }
+
+    /**
+     * Checks that the interiors of two features don't intersect.
+     * Called by several threads at once.
+     * @return an error of feature located on the overlap, or null
+     */
+    protected ValidationError validateNoOverlap(Feature feature, Feature other) {
+        Geometry geometry = feature.getGeometry();
+        try {
+            if (geometry.relate(other.getGeometry(), "2********")) {
+                Geometry overlap = geometry.intersection(other.getGeometry());
+                return new ValidationError(ValidationErrorType.OVERLAP,
+                    feature, overlap.isEmpty() ? geometry : overlap);
+            }
+        } catch (TopologyException e) {
+            // invalid geometries are reported by the basic topology check
+        }
+        return null;
+    }
+
+    /**
+     * Reports the holes of the union of the polygonal features, with an area
+     * smaller than maxGapArea, as errors of the first feature touching them.
+     */
+    private List<ValidationError> validateNoGaps(Feature[] features,
+        TaskMonitor monitor) {
+        List<ValidationError> errors = new ArrayList<>();
+        List<Geometry> geometries = new ArrayList<>();
+        STRtree index = new STRtree();
+        for (int i = 0; i < features.length; i++) {
+            Geometry geometry = features[i].getGeometry();
+            if (!(geometry instanceof Polygonal)) continue;
+            geometries.add(geometry);
+            index.insert(geometry.getEnvelopeInternal(), i);
+        }
+        if (geometries.isEmpty()) return errors;
+
+        monitor.report(I18N.get("qa.Validator.validating"));
+        Geometry union;
+        try {
+            union = UnionEngine.union(geometries, parallelism);
+        } catch (TopologyException e) {
+            Logger.warn("Gaps could not be checked", e);
+            return errors;
+        }
+        for (int i = 0; i < union.getNumGeometries(); i++) {
+            if (!(union.getGeometryN(i) instanceof Polygon)) continue;
+            Polygon polygon = (Polygon) union.getGeometryN(i);
+            for (int j = 0; j < polygon.getNumInteriorRing(); j++) {
+                LinearRing ring = polygon.getInteriorRingN(j);
+                Polygon gap = union.getFactory().createPolygon(ring);
+                if (gap.getArea() >= maxGapArea) continue;
+                int first = -1;
+                for (Object item : index.query(ring.getEnvelopeInternal())) {
+                    int k = (Integer) item;
+                    if ((first < 0 || k < first) &&
+                            ring.intersects(features[k].getGeometry())) {
+                        first = k;
+                    }
+                }
+                if (first >= 0) {
+                    errors.add(new ValidationError(ValidationErrorType.GAP,
+                        features[first], gap));
+                }
+            }
+        }
+        return errors;
+    }
+
     private ValidationError validateMinSegmentLength(Coordinate[] coordinates,
         Feature feature) {
         if (coordinates.length < 2) {
@@ -0,0 +1,134 @@
+package com.vividsolutions.jump.qa.diff;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.locationtech.jts.geom.Envelope;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
+
+/**
+ * Splits the extent of a collection of items into a grid of cells, each item
+ * belonging to the cell containing the centre of its envelope, and processes
+ * the cells in parallel. The results of the cells are passed to a consumer in
+ * the calling thread, in the order of the cells, as soon as they are
+ * computed, so that the diff classes never keep the intermediate structures
+ * (segment maps and indexes) of the whole dataset in memory.
+ */
+class CellPartitioner {
+
+  /**
+   * Average number of items of a cell.
+   */
+  static final int ITEMS_PER_CELL = 256;
+
+  private CellPartitioner() {}
+
+  /**
+   * Computes the result of a cell. Called by several threads at once.
+   */
+  interface CellProcessor<T,R> {
+    /**
+     * @param cell the items of the cell
+     * @param envelope the envelope of the items of the cell
+     */
+    R process(List<T> cell, Envelope envelope) throws Exception;
+  }
+
+  /**
+   * Returns the non-empty cells of items, in row order. Items with a null
+   * envelope are ignored.
+   */
+  static <T> List<List<T>> partition(Collection<T> items,
+      Function<T,Envelope> envelopeFunction, int itemsPerCell) {
+    Envelope extent = new Envelope();
+    for (T item : items) {
+      Envelope envelope = envelopeFunction.apply(item);
+      if (envelope != null) extent.expandToInclude(envelope);
+    }
+    List<List<T>> cells = new ArrayList<>();
+    if (extent.isNull()) return cells;
+    int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) items.size() / itemsPerCell)));
+    List<List<T>> grid = new ArrayList<>(side * side);
+    for (int i = 0; i < side * side; i++) grid.add(null);
+    for (T item : items) {
+      Envelope envelope = envelopeFunction.apply(item);
+      if (envelope == null || envelope.isNull()) continue;
+      int col = index(envelope.centre().x, extent.getMinX(), extent.getWidth(), side);
+      int row = index(envelope.centre().y, extent.getMinY(), extent.getHeight(), side);
+      List<T> cell = grid.get(row * side + col);
+      if (cell == null) {
+        cell = new ArrayList<>();
+        grid.set(row * side + col, cell);
+      }
+      cell.add(item);
+    }
+    for (List<T> cell : grid) {
+      if (cell != null) cells.add(cell);
+    }
+    return cells;
+  }
+
+  private static int index(double value, double min, double size, int side) {
+    if (size <= 0) return 0;
+    return Math.min(side - 1, (int) ((value - min) / size * side));
+  }
+
+  /**
+   * Processes cells with at most parallelism threads.
+   *
+   * @param monitor a TaskMonitor used to report progress and checked for
+   *          cancellation, may be null
+   * @param items the name of the items, used to report progress
+   * @param consumer called in the calling thread with the result of each cell,
+   *          in the order of cells
+   * @throws com.vividsolutions.jump.task.TaskCancelledException if the monitor
+   *           requested cancellation
+   * @throws Exception the first exception thrown by processor
+   */
+  static <T,R> void process(final List<List<T>> cells,
+      final Function<T,Envelope> envelopeFunction, int parallelism,
+      final TaskMonitor monitor, final String items,
+      final CellProcessor<T,R> processor, final Consumer<R> consumer) throws Exception {
+    final Object[] results = new Object[cells.size()];
+    final boolean[] done = new boolean[cells.size()];
+    final int[] next = new int[1];
+    final int[] processed = new int[1];
+    int total = 0;
+    for (List<T> cell : cells) total += cell.size();
+    final int totalItems = total;
+    Runnable drain = () -> {
+      while (next[0] < cells.size() && isDone(done, next[0])) {
+        @SuppressWarnings("unchecked")
+        R result = (R) results[next[0]];
+        results[next[0]] = null;
+        processed[0] += cells.get(next[0]).size();
+        next[0]++;
+        consumer.accept(result);
+      }
+      if (monitor != null) monitor.report(processed[0], totalItems, items);
+    };
+    ParallelUtil.forEachChunk(cells.size(), 1, parallelism, monitor,
+        (start, end) -> {
+          for (int i = start; i < end; i++) {
+            List<T> cell = cells.get(i);
+            Envelope envelope = new Envelope();
+            for (T item : cell) envelope.expandToInclude(envelopeFunction.apply(item));
+            results[i] = processor.process(cell, envelope);
+            synchronized (done) {
+              done[i] = true;
+            }
+          }
+        }, drain);
+    drain.run();
+  }
+
+  private static boolean isDone(boolean[] done, int i) {
+    synchronized (done) {
+      return done[i];
+    }
+  }
+}
@@ -33,16 +33,28 @@
 package com.vividsolutions.jump.qa.diff;
 
 import java.util.*;
+import java.util.function.Supplier;
+
+import org.locationtech.jts.geom.Envelope;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
 import com.vividsolutions.jump.task.TaskMonitor;
-
+import com.vividsolutions.jump.util.ParallelUtil;
+
+/**
+ * Finds the features of two FeatureCollections whose geometries (or
+ * geometry components) have no match in the other collection.
+ * The extent is split into cells whose geometries are matched in parallel,
+ * each cell with its own DiffGeometryMatcher. Geometries left unmatched are
+ * then matched across cell boundaries.
+ */
 public class DiffGeometryComponents {
 
   private FeatureCollection[] inputFC = new FeatureCollection[2];
   private TaskMonitor monitor;
-  private DiffGeometryMatcher diffMatcher = new ExactGeometryMatcher();
+  private Supplier<? extends DiffGeometryMatcher> matcherFactory = ExactGeometryMatcher::new;
   private boolean splitIntoComponents = true;
+  private int parallelism = ParallelUtil.getDefaultParallelism();
   
   private final static String sMatchingfeatures = I18N.get("com.vividsolutions.jump.qa.diff.DiffGeometry.Matching-features");
   private final static String sGeometries = I18N.get("com.vividsolutions.jump.qa.diff.DiffGeometryComponents.geometries");
@@ -58,9 +70,9 @@ public class DiffGeometryComponents {
 
   public void setNormalize(boolean normalizeGeometry)
   {
-    diffMatcher = normalizeGeometry ?
-            new NormalizedExactGeometryMatcher()
-            : new ExactGeometryMatcher();
+    matcherFactory = normalizeGeometry ?
+            NormalizedExactGeometryMatcher::new
+            : ExactGeometryMatcher::new;
   }
 
   public void setSplitIntoComponents(boolean splitIntoComponents)
@@ -68,12 +80,36 @@ public class DiffGeometryComponents {
     this.splitIntoComponents = splitIntoComponents;
   }
 
-  public void setMatcher(DiffGeometryMatcher diffMatcher)
+  /**
+   * Sets the matcher used to compare geometries. As a matcher cannot be
+   * shared between threads, geometries are then matched in a single thread :
+   * use {@link #setMatcherFactory(Supplier)} to match them in parallel.
+   */
+  public void setMatcher(final DiffGeometryMatcher diffMatcher)
+  {
+    this.matcherFactory = () -> diffMatcher;
+    this.parallelism = 1;
+  }
+
+  /**
+   * Sets the factory of the matchers used to compare geometries, one matcher
+   * being created for each cell.
+   */
+  public void setMatcherFactory(Supplier<? extends DiffGeometryMatcher> matcherFactory)
   {
-    this.diffMatcher = diffMatcher;
+    this.matcherFactory = matcherFactory;
   }
 
-  public FeatureCollection[] diff() {
+  /**
+   * Sets the maximum number of threads used to match geometries (by default,
+   * the number of processors).
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  public FeatureCollection[] diff() throws Exception {
     MatchCollection[] mc = {
       new MatchCollection(inputFC[0], splitIntoComponents),
       new MatchCollection(inputFC[1], splitIntoComponents) };
@@ -85,11 +121,10 @@ public class DiffGeometryComponents {
 
   }
 
-  private void compute(MatchCollection mc0, MatchCollection mc1) {
-    MatchIndex index = new MatchIndex(mc1);
-
+  private void compute(MatchCollection mc0, MatchCollection mc1) throws Exception {
     monitor.report(sMatchingfeatures);
-    matchFeatures(mc0, index);
+    matchCells(mc0, mc1);
+    matchAcrossCells(mc0, mc1);
 
     // compute feature matches based on own geometries
     mc0.computeFeatureMatches();
@@ -100,13 +135,66 @@ public class DiffGeometryComponents {
     mc1.propagateUnmatchedFeatures();
   }
 
-  private void matchFeatures(MatchCollection matchColl, MatchIndex index) {
-    int count = 1;
-    int totalItems = matchColl.geometrySize();
-    for (Iterator i = matchColl.geometryIterator(); i.hasNext(); ) {
-      monitor.report(count++, totalItems, sGeometries);
+  /**
+   * Matches the geometries of mc0 with the geometries of mc1 of the same cell.
+   * Each geometry of mc1 belongs to a single cell, so that its match is only
+   * set by the thread processing this cell.
+   */
+  private void matchCells(MatchCollection mc0, MatchCollection mc1) throws Exception {
+    List<MatchGeometry> items = new ArrayList<>();
+    final Set<MatchGeometry> items1 = new HashSet<>();
+    for (Iterator i = mc0.geometryIterator(); i.hasNext(); ) {
+      items.add((MatchGeometry) i.next());
+    }
+    for (Iterator i = mc1.geometryIterator(); i.hasNext(); ) {
+      MatchGeometry matchGeom = (MatchGeometry) i.next();
+      items.add(matchGeom);
+      items1.add(matchGeom);
+    }
+    CellPartitioner.process(
+        CellPartitioner.partition(items, DiffGeometryComponents::envelope,
+            CellPartitioner.ITEMS_PER_CELL),
+        DiffGeometryComponents::envelope, parallelism, monitor, sGeometries,
+        (cell, envelope) -> {
+          List<MatchGeometry> geometries0 = new ArrayList<>();
+          List<MatchGeometry> geometries1 = new ArrayList<>();
+          for (MatchGeometry matchGeom : cell) {
+            if (items1.contains(matchGeom)) geometries1.add(matchGeom);
+            else geometries0.add(matchGeom);
+          }
+          if (geometries0.isEmpty() || geometries1.isEmpty()) return null;
+          MatchIndex index = new MatchIndex(geometries1);
+          DiffGeometryMatcher diffMatcher = matcherFactory.get();
+          for (MatchGeometry matchGeom : geometries0) {
+            index.testMatch(matchGeom, diffMatcher);
+          }
+          return null;
+        },
+        result -> {});
+  }
+
+  private static Envelope envelope(MatchGeometry matchGeom) {
+    return matchGeom.getGeometry() == null ? null : matchGeom.getGeometry().getEnvelopeInternal();
+  }
+
+  /**
+   * Matches the geometries left unmatched, which may match geometries of
+   * neighbouring cells when the matcher has a tolerance.
+   */
+  private void matchAcrossCells(MatchCollection mc0, MatchCollection mc1) {
+    List<MatchGeometry> unmatched1 = new ArrayList<>();
+    for (Iterator i = mc1.geometryIterator(); i.hasNext(); ) {
+      MatchGeometry matchGeom = (MatchGeometry) i.next();
+      if (! matchGeom.isMatched() && matchGeom.getGeometry() != null) unmatched1.add(matchGeom);
+    }
+    if (unmatched1.isEmpty()) return;
+    MatchIndex index = new MatchIndex(unmatched1);
+    DiffGeometryMatcher diffMatcher = matcherFactory.get();
+    for (Iterator i = mc0.geometryIterator(); i.hasNext(); ) {
       MatchGeometry matchGeom = (MatchGeometry) i.next();
-      index.testMatch(matchGeom, diffMatcher);
+      if (! matchGeom.isMatched() && matchGeom.getGeometry() != null) {
+        index.testMatch(matchGeom, diffMatcher);
+      }
     }
   }
 
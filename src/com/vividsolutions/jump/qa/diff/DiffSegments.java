@@ -32,46 +32,94 @@
 
 package com.vividsolutions.jump.qa.diff;
 
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
+import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
 import java.util.*;
+import java.util.function.Consumer;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 
 /**
  * Finds all line segments in two
  * FeatureCollections which occur once only.
+ * The extent of a collection is split into cells which are processed in
+ * parallel, the segments of a cell being compared with the segments of the
+ * features of the other collection intersecting it only.
  */
 public class DiffSegments {
 
   private FeatureCollection[] fc = new FeatureCollection[2];
-  private UnmatchedEdgeExtracter[] uee = new UnmatchedEdgeExtracter[2];
+  private STRtree[] featureIndex = new STRtree[2];
   private TaskMonitor monitor;
+  private int parallelism = ParallelUtil.getDefaultParallelism();
 
   public DiffSegments(TaskMonitor monitor)
   {
     this.monitor = monitor;
   }
 
+  /**
+   * Sets the maximum number of threads used to compare segments (by
+   * default, the number of processors).
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
   public void setSegments(int index, FeatureCollection fc)
   {
     this.fc[index] = fc;
-    uee[index] = new UnmatchedEdgeExtracter();
+    featureIndex[index] = new STRtree();
     for (Feature feature : fc.getFeatures()) {
-      uee[index].add(feature.getGeometry());
+      if (feature.getGeometry() == null) continue;
+      featureIndex[index].insert(feature.getGeometry().getEnvelopeInternal(), feature);
     }
+    // queries from several threads are only safe on a built tree
+    featureIndex[index].build();
   }
 
   /**
    * Returns all the subedges from fc which are unmatched.
    */
-  public FeatureCollection computeDiffEdges(int index)
+  public FeatureCollection computeDiffEdges(int index) throws Exception
   {
-    List<Geometry> diffEdges = new ArrayList<>();
-    UnmatchedEdgeExtracter otherUee = uee[1 - index];
-    for (Feature feature : fc[index].getFeatures()) {
-      otherUee.getDiffEdges(feature.getGeometry(), diffEdges);
-    }
+    final List<Geometry> diffEdges = new ArrayList<>();
+    computeDiffEdges(index, diffEdges::addAll);
     return FeatureDatasetFactory.createFromGeometry(diffEdges);
   }
 
+  /**
+   * Computes all the subedges from fc which are unmatched, and passes the
+   * subedges of each cell to consumer as soon as they are computed.
+   */
+  public void computeDiffEdges(int index, Consumer<List<Geometry>> consumer) throws Exception
+  {
+    final STRtree otherIndex = featureIndex[1 - index];
+    CellPartitioner.process(
+        CellPartitioner.partition(fc[index].getFeatures(), DiffSegments::envelope,
+            CellPartitioner.ITEMS_PER_CELL),
+        DiffSegments::envelope, parallelism, monitor,
+        I18N.get("com.vividsolutions.jump.qa.diff.DiffGeometry.features"),
+        (cell, envelope) -> {
+          UnmatchedEdgeExtracter otherUee = new UnmatchedEdgeExtracter();
+          for (Object feature : otherIndex.query(envelope)) {
+            otherUee.add(((Feature) feature).getGeometry());
+          }
+          List<Geometry> diffEdges = new ArrayList<>();
+          for (Feature feature : cell) {
+            otherUee.getDiffEdges(feature.getGeometry(), diffEdges);
+          }
+          return diffEdges;
+        },
+        consumer);
+  }
+
+  static Envelope envelope(Feature feature) {
+    return feature.getGeometry() == null ? null : feature.getGeometry().getEnvelopeInternal();
+  }
+
 }
@@ -33,13 +33,21 @@
 package com.vividsolutions.jump.qa.diff;
 
 
+import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
+import com.vividsolutions.jump.geom.EnvelopeUtil;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 import java.util.*;
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.index.strtree.STRtree;
 
 /**
  * <code>DiffEdges</code> find all line segments in two
  * FeatureCollections which occur once only.
+ * The extent of a collection is split into cells which are processed in
+ * parallel, the segments of a cell being compared with the segments of the
+ * features of the other collection within the tolerance of the cell only.
  */
 public class DiffSegmentsWithTolerance {
 
@@ -48,6 +56,8 @@ public class DiffSegmentsWithTolerance {
   private FeatureCollection[] inputFC = new FeatureCollection[2];
   private double tolerance;
   private List diffGeom[] = new ArrayList[2];
+  private TaskMonitor monitor;
+  private int parallelism = ParallelUtil.getDefaultParallelism();
 
   public DiffSegmentsWithTolerance(FeatureCollection fc0, FeatureCollection fc1, double tolerance) {
     inputFC[0] = fc0;
@@ -55,7 +65,22 @@ public class DiffSegmentsWithTolerance {
     this.tolerance = tolerance;
   }
 
-  public FeatureCollection[] diff() {
+  /**
+   * Sets a TaskMonitor used to report progress and checked for cancellation.
+   */
+  public void setTaskMonitor(TaskMonitor monitor) {
+    this.monitor = monitor;
+  }
+
+  /**
+   * Sets the maximum number of threads used to compare segments (by
+   * default, the number of processors).
+   */
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public FeatureCollection[] diff() throws Exception {
     compute(inputFC[0], inputFC[1]);
     FeatureCollection[] diffFC = new FeatureCollection[2];
     diffFC[0] = FeatureDatasetFactory.createFromGeometry(diffGeom[0]);
@@ -63,18 +88,43 @@ public class DiffSegmentsWithTolerance {
     return diffFC;
   }
 
-  private void compute(FeatureCollection fc0, FeatureCollection fc1) {
+  private void compute(FeatureCollection fc0, FeatureCollection fc1) throws Exception {
     diffGeom[0] = findUniqueSegmentGeometries(fc0, fc1);
     diffGeom[1] = findUniqueSegmentGeometries(fc1, fc0);
   }
 
-  private List<Geometry> findUniqueSegmentGeometries(FeatureCollection fc0, FeatureCollection fc1) {
-    List<Geometry> segGeomList = new ArrayList<>();
-    UniqueSegmentsWithToleranceFinder finder = new UniqueSegmentsWithToleranceFinder(fc0, fc1);
-    List<LineSegment> segs = finder.findUniqueSegments(tolerance);
-    for (LineSegment lineSegment : segs) {
-      segGeomList.add(lineSegment.toGeometry(geomFactory));
+  private List<Geometry> findUniqueSegmentGeometries(FeatureCollection fc0,
+      final FeatureCollection fc1) throws Exception {
+    final STRtree index = new STRtree();
+    for (Feature feature : fc1.getFeatures()) {
+      if (feature.getGeometry() == null) continue;
+      index.insert(feature.getGeometry().getEnvelopeInternal(), feature);
     }
+    // queries from several threads are only safe on a built tree
+    index.build();
+
+    final List<Geometry> segGeomList = new ArrayList<>();
+    final FeatureSchema schema0 = fc0.getFeatureSchema();
+    CellPartitioner.process(
+        CellPartitioner.partition(fc0.getFeatures(), DiffSegments::envelope,
+            CellPartitioner.ITEMS_PER_CELL),
+        DiffSegments::envelope, parallelism, monitor,
+        I18N.get("com.vividsolutions.jump.qa.diff.DiffGeometry.features"),
+        (cell, envelope) -> {
+          List<Feature> candidates = new ArrayList<>();
+          for (Object feature : index.query(EnvelopeUtil.expand(envelope, tolerance))) {
+            candidates.add((Feature) feature);
+          }
+          UniqueSegmentsWithToleranceFinder finder = new UniqueSegmentsWithToleranceFinder(
+              new FeatureDataset(cell, schema0),
+              new FeatureDataset(candidates, fc1.getFeatureSchema()));
+          List<Geometry> geometries = new ArrayList<>();
+          for (LineSegment lineSegment : finder.findUniqueSegments(tolerance)) {
+            geometries.add(lineSegment.toGeometry(geomFactory));
+          }
+          return geometries;
+        },
+        segGeomList::addAll);
     return segGeomList;
   }
 
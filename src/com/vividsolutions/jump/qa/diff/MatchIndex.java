@@ -52,6 +52,17 @@ public class MatchIndex
     buildIndex(matchColl);
   }
 
+  /**
+   * Indexes a subset of the geometries of a MatchCollection.
+   */
+  public MatchIndex(Collection<MatchGeometry> matchGeometries)
+  {
+    index = new STRtree();
+    for (MatchGeometry matchGeom : matchGeometries) {
+      index.insert(matchGeom.getGeometry().getEnvelopeInternal(), matchGeom);
+    }
+  }
+
   private void buildIndex(MatchCollection matchColl)
   {
     index = new STRtree();
@@ -0,0 +1,116 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.task.TaskCancelledException;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
+
+/**
+ * Joins each feature of a collection with the features of a second collection
+ * whose envelope intersects its own, found with a STRtree. The features of the
+ * first collection are processed in parallel, and the results are returned in
+ * their order, so that they do not depend on the number of threads.
+ * Used by overlay operations such as {@link OverlayEngine}.
+ */
+public class IndexedJoin {
+
+    // number of features of the first collection processed by a task
+    private static final int CHUNK_SIZE = 64;
+
+    private IndexedJoin() {}
+
+    /**
+     * Computes the result of a feature of the first collection.
+     * Must be thread-safe, as it is called by several threads at once.
+     */
+    public interface Joiner<T> {
+        /**
+         * @param a a feature of the first collection
+         * @param candidates the features of the second collection whose
+         *            envelope intersects the envelope of a
+         */
+        T join(Feature a, List<Feature> candidates) throws Exception;
+    }
+
+    /**
+     * Calls joiner for each feature of a, with at most parallelism threads.
+     *
+     * @param items the name of the features of a, used to report progress
+     * @return the results of joiner, in the order of a. If the monitor
+     *         requested cancellation, results of the features not processed
+     *         are null.
+     * @throws Exception the first exception thrown by joiner
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> join(Collection<Feature> a, Collection<Feature> b,
+            final Joiner<T> joiner, int parallelism, final TaskMonitor monitor,
+            final String items) throws Exception {
+        final STRtree index = new STRtree(10);
+        for (Feature feature : b) {
+            if (feature.getGeometry() == null) continue;
+            index.insert(feature.getGeometry().getEnvelopeInternal(), feature);
+        }
+        // Build the tree now : queries from several threads are only safe
+        // on a built tree
+        index.build();
+
+        final Feature[] features = a.toArray(new Feature[0]);
+        final Object[] results = new Object[features.length];
+        final AtomicInteger done = new AtomicInteger();
+        try {
+            ParallelUtil.forEachChunk(features.length, CHUNK_SIZE, parallelism, monitor,
+                (start, end) -> {
+                    for (int i = start ; i < end ; i++) {
+                        if (monitor.isCancelRequested()) return;
+                        results[i] = joiner.join(features[i], candidates(index, features[i]));
+                        done.incrementAndGet();
+                    }
+                },
+                () -> monitor.report(done.get(), features.length, items));
+        } catch (TaskCancelledException e) {
+            // results of the features processed are kept
+        }
+        return (List<T>) new ArrayList<>(Arrays.asList(results));
+    }
+
+    private static List<Feature> candidates(STRtree index, Feature feature) {
+        Geometry geometry = feature.getGeometry();
+        if (geometry == null) return new ArrayList<>();
+        Envelope envelope = geometry.getEnvelopeInternal();
+        List<Feature> candidates = new ArrayList<>();
+        for (Object o : index.query(envelope)) {
+            Feature candidate = (Feature) o;
+            if (envelope.intersects(candidate.getGeometry().getEnvelopeInternal())) {
+                candidates.add(candidate);
+            }
+        }
+        return candidates;
+    }
+}
@@ -33,6 +33,8 @@
 
 package com.vividsolutions.jump.tools;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.locationtech.jts.geom.Geometry;
@@ -45,19 +47,23 @@ import com.vividsolutions.jump.feature.BasicFeature;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
-import com.vividsolutions.jump.feature.IndexedFeatureCollection;
+import com.vividsolutions.jump.feature.FeatureSchema;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.Logger;
 
 
 /**
  * Takes two FeatureCollections and returns their overlay, which is a new
  * FeatureCollection containing the intersections of all pairs of input features.
+ * The intersections are computed in parallel (see {@link IndexedJoin}), the
+ * features of the overlay being in the same order as with a single thread.
  */
 public class OverlayEngine {
 
     private boolean splittingGeometryCollections = true;
     private boolean allowingPolygonsOnly = true;
+    private int parallelism = ParallelUtil.getDefaultParallelism();
 
     /**
      * Creates a new OverlayEngine.
@@ -92,31 +98,44 @@ public class OverlayEngine {
     public FeatureCollection overlay(FeatureCollection a, FeatureCollection b,
         AttributeMapping mapping, TaskMonitor monitor) {
         monitor.allowCancellationRequests();
-        monitor.report(I18N.get("tools.OverlayEngine.indexing-second-feature-collection"));
-
-        IndexedFeatureCollection indexedB = new IndexedFeatureCollection(b);
         monitor.report(I18N.get("tools.OverlayEngine.overlaying-feature-collections"));
 
-        FeatureDataset overlay = new FeatureDataset(mapping.createSchema("GEOMETRY"));
-        List<Feature> aFeatures = a.getFeatures();
-
-        int count = 0;
-        for (Feature aFeature : aFeatures) {
-            if (monitor.isCancelRequested()) break;
+        final FeatureDataset overlay = new FeatureDataset(mapping.createSchema("GEOMETRY"));
+        final FeatureSchema schema = overlay.getFeatureSchema();
+        // Errors are reported at the end, from the thread of the monitor
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
 
-            for (Feature bFeature : indexedB.query(aFeature.getGeometry().getEnvelopeInternal())) {
-                if (monitor.isCancelRequested()) break;
-                addIntersection(aFeature, bFeature, mapping, overlay, monitor);
-            }
+        List<List<Feature>> results;
+        try {
+            results = IndexedJoin.join(a.getFeatures(), b.getFeatures(),
+                (aFeature, candidates) -> {
+                    List<Feature> intersections = new ArrayList<>();
+                    for (Feature bFeature : candidates) {
+                        if (monitor.isCancelRequested()) break;
+                        addIntersection(aFeature, bFeature, mapping, schema,
+                                intersections, errors);
+                    }
+                    return intersections;
+                }, parallelism, monitor, "features");
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
 
-            monitor.report(count++, a.size(), "features");
+        for (List<Feature> intersections : results) {
+            if (intersections != null) overlay.addAll(intersections);
+        }
+        for (Exception e : errors) {
+            monitor.report(e);
         }
 
         return overlay;
     }
 
     private void addIntersection(Feature a, Feature b,
-        AttributeMapping mapping, FeatureCollection overlay, TaskMonitor monitor) {
+        AttributeMapping mapping, FeatureSchema schema, List<Feature> overlay,
+        List<Exception> errors) {
         if (!a.getGeometry().getEnvelope().intersects(b.getGeometry()
                                                            .getEnvelope())) {
             return;
@@ -129,7 +148,7 @@ public class OverlayEngine {
             intersection = EnhancedPrecisionOp.intersection(a.getGeometry(),
                     b.getGeometry());
         } catch (Exception ex) {
-            monitor.report(ex);
+            errors.add(ex);
             Logger.error(a.getGeometry().toString());
             Logger.error(b.getGeometry().toString());
         }
@@ -138,16 +157,16 @@ public class OverlayEngine {
             return;
         }
 
-        addFeature(intersection, overlay, mapping, a, b);
+        addFeature(intersection, schema, overlay, mapping, a, b);
     }
 
-    private void addFeature(Geometry intersection, FeatureCollection overlay,
-                AttributeMapping mapping, Feature a, Feature b) {
+    private void addFeature(Geometry intersection, FeatureSchema schema,
+                List<Feature> overlay, AttributeMapping mapping, Feature a, Feature b) {
         if (splittingGeometryCollections && intersection instanceof GeometryCollection) {
             GeometryCollection gc = (GeometryCollection) intersection;
 
             for (int i = 0; i < gc.getNumGeometries(); i++) {
-                addFeature(gc.getGeometryN(i), overlay, mapping, a, b);
+                addFeature(gc.getGeometryN(i), schema, overlay, mapping, a, b);
             }
 
             return;
@@ -157,7 +176,7 @@ public class OverlayEngine {
             return;
         }
 
-        Feature feature = new BasicFeature(overlay.getFeatureSchema());
+        Feature feature = new BasicFeature(schema);
         mapping.transferAttributes(a, b, feature);
         feature.setGeometry(intersection);
         overlay.add(feature);
@@ -171,4 +190,12 @@ public class OverlayEngine {
     public void setAllowingPolygonsOnly(boolean allowingPolygonsOnly) {
         this.allowingPolygonsOnly = allowingPolygonsOnly;
     }
+
+    /**
+     * @param parallelism the maximum number of threads computing
+     *            intersections, 1 to compute them in the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
 }
@@ -0,0 +1,207 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+import com.vividsolutions.jump.task.TaskCancelledException;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
+
+/**
+ * Computes the union of groups of geometries in parallel. The geometries of
+ * each group are split into spatially compact partitions (as the nodes of a
+ * STRtree) which are unioned independently with {@link UnaryUnionOp}, then
+ * the partial unions of the group are unioned together. Partitions of all the
+ * groups are processed by the same threads, so that many small groups as well
+ * as a single large one use all of them.
+ * <p>The union of each group is passed to a consumer, in the calling thread and
+ * in the order of the groups, as soon as it is complete, and the intermediate
+ * geometries of the group are released, so that the unions of all the groups
+ * are never kept in memory at once.</p>
+ * Used by UnionPlugIn, DissolvePlugIn, UnionByAttributePlugIn and the Union
+ * aggregator of Dissolve2PlugIn.
+ */
+public class UnionEngine {
+
+    // maximum number of geometries unioned by a task
+    static final int PARTITION_SIZE = 256;
+
+    private UnionEngine() {}
+
+    /**
+     * Returns the union of geometries, computed with at most parallelism
+     * threads, or null if geometries is empty.
+     */
+    public static Geometry union(Collection<Geometry> geometries, int parallelism) {
+        final Geometry[] result = new Geometry[1];
+        try {
+            union(Collections.singletonMap(null, geometries), parallelism, null, null,
+                    (key, union) -> result[0] = union);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return result[0];
+    }
+
+    /**
+     * Computes the union of each group of geometries with at most parallelism
+     * threads, and calls consumer with the key and the union of each group,
+     * in the iteration order of groups. The union of a group without
+     * geometries is null. Null geometries are ignored.
+     *
+     * @param monitor a TaskMonitor used to report progress and checked for
+     *            cancellation, may be null. If it requested cancellation,
+     *            consumer is called for the groups completed only.
+     * @param items the name of the groups, used to report progress
+     * @throws Exception the first exception thrown by a union
+     */
+    public static <K> void union(Map<K,? extends Collection<Geometry>> groups,
+            int parallelism, final TaskMonitor monitor, final String items,
+            final BiConsumer<K,Geometry> consumer) throws Exception {
+        final List<K> keys = new ArrayList<>(groups.keySet());
+        final Group[] states = new Group[keys.size()];
+        final List<Partition> partitions = new ArrayList<>();
+        for (int i = 0 ; i < states.length ; i++) {
+            List<List<Geometry>> parts = partition(groups.get(keys.get(i)));
+            states[i] = new Group(parts.size());
+            for (int j = 0 ; j < parts.size() ; j++) {
+                partitions.add(new Partition(states[i], j, parts.get(j)));
+            }
+        }
+
+        // passes the completed groups to the consumer, in order
+        final int[] next = new int[1];
+        Runnable drain = () -> {
+            while (next[0] < states.length && states[next[0]].complete) {
+                consumer.accept(keys.get(next[0]), states[next[0]].result);
+                states[next[0]] = null;
+                next[0]++;
+            }
+            if (monitor != null && items != null) {
+                monitor.report(next[0], states.length, items);
+            }
+        };
+        try {
+            ParallelUtil.forEachChunk(partitions.size(), 1, parallelism, monitor,
+                (start, end) -> {
+                    for (int i = start ; i < end ; i++) {
+                        partitions.get(i).union();
+                        partitions.set(i, null);
+                    }
+                }, drain);
+        } catch (TaskCancelledException e) {
+            // the groups completed are still passed to the consumer
+        }
+        drain.run();
+    }
+
+    /**
+     * Splits geometries into partitions of at most PARTITION_SIZE geometries,
+     * grouping geometries which are close to each other as the Sort-Tile-Recursive
+     * algorithm does : geometries are sorted into vertical slices by the x of
+     * their centre, then each slice is sorted by y and cut into partitions.
+     */
+    static List<List<Geometry>> partition(Collection<Geometry> geometries) {
+        List<Geometry> list = new ArrayList<>(geometries.size());
+        for (Geometry geometry : geometries) {
+            if (geometry != null) list.add(geometry);
+        }
+        if (list.isEmpty()) return new ArrayList<>();
+        if (list.size() <= PARTITION_SIZE) return Collections.singletonList(list);
+
+        int count = (list.size() + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        int slices = (int) Math.ceil(Math.sqrt(count));
+        int sliceSize = (int) Math.ceil((double) count / slices) * PARTITION_SIZE;
+        list.sort(Comparator.comparingDouble(g -> centre(g.getEnvelopeInternal(), true)));
+        List<List<Geometry>> partitions = new ArrayList<>(count);
+        for (int start = 0 ; start < list.size() ; start += sliceSize) {
+            List<Geometry> slice = new ArrayList<>(
+                    list.subList(start, Math.min(list.size(), start + sliceSize)));
+            slice.sort(Comparator.comparingDouble(g -> centre(g.getEnvelopeInternal(), false)));
+            for (int i = 0 ; i < slice.size() ; i += PARTITION_SIZE) {
+                partitions.add(new ArrayList<>(
+                        slice.subList(i, Math.min(slice.size(), i + PARTITION_SIZE))));
+            }
+        }
+        return partitions;
+    }
+
+    private static double centre(Envelope envelope, boolean x) {
+        if (envelope.isNull()) return 0;
+        return x ? (envelope.getMinX() + envelope.getMaxX()) / 2 :
+                   (envelope.getMinY() + envelope.getMaxY()) / 2;
+    }
+
+    private static class Group {
+        // partial unions, released when the group is complete
+        private Geometry[] partials;
+        // number of partitions not unioned yet
+        private final AtomicInteger remaining;
+        private Geometry result;
+        private volatile boolean complete;
+
+        Group(int partitionCount) {
+            partials = new Geometry[partitionCount];
+            remaining = new AtomicInteger(partitionCount);
+            complete = partitionCount == 0;
+        }
+
+        void setPartial(int index, Geometry partial) {
+            partials[index] = partial;
+            // the thread completing the last partition unions the partial
+            // unions of the group
+            if (remaining.decrementAndGet() == 0) {
+                result = partials.length == 1 ? partials[0] :
+                        UnaryUnionOp.union(Arrays.asList(partials));
+                partials = null;
+                complete = true;
+            }
+        }
+    }
+
+    private static class Partition {
+        private final Group group;
+        private final int index;
+        private final List<Geometry> geometries;
+
+        Partition(Group group, int index, List<Geometry> geometries) {
+            this.group = group;
+            this.index = index;
+            this.geometries = geometries;
+        }
+
+        void union() {
+            group.setPartial(index, UnaryUnionOp.union(geometries));
+        }
+    }
+}
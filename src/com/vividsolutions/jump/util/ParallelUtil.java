@@ -0,0 +1,137 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.vividsolutions.jump.task.TaskCancelledException;
+import com.vividsolutions.jump.task.TaskMonitor;
+
+/**
+ * Utilities to process a range of items in parallel chunks on a bounded pool
+ * of threads.
+ */
+public class ParallelUtil {
+
+  private static final AtomicInteger poolCount = new AtomicInteger();
+
+  private ParallelUtil() {}
+
+  /**
+   * Returns the number of threads to use by default for parallel processing,
+   * which is the number of available processors.
+   */
+  public static int getDefaultParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Processes a range of items [start, end[.
+   */
+  public interface ChunkProcessor {
+    void process(int start, int end) throws Exception;
+  }
+
+  /**
+   * Splits the range [0, size[ into chunks of chunkSize items and processes
+   * them with at most parallelism threads. Chunks are processed in the
+   * calling thread if parallelism is 1 or if there is only one chunk.
+   * @param size number of items to process
+   * @param chunkSize number of items processed by one ChunkProcessor call
+   * @param parallelism maximum number of threads
+   * @param monitor a TaskMonitor checked for cancellation between chunks, may be null
+   * @param processor the processor called for each chunk
+   * @throws TaskCancelledException if the monitor requested cancellation
+   * @throws Exception the first exception thrown by the processor
+   */
+  public static void forEachChunk(int size, int chunkSize, int parallelism,
+        TaskMonitor monitor, ChunkProcessor processor) throws Exception {
+    forEachChunk(size, chunkSize, parallelism, monitor, processor, null);
+  }
+
+  /**
+   * Same as {@link #forEachChunk(int, int, int, TaskMonitor, ChunkProcessor)},
+   * and calls progress regularly in the calling thread while the chunks are
+   * processed, so that progress can be reported to a TaskMonitor safely.
+   */
+  public static void forEachChunk(int size, int chunkSize, int parallelism,
+        final TaskMonitor monitor, final ChunkProcessor processor,
+        Runnable progress) throws Exception {
+    chunkSize = Math.max(1, chunkSize);
+    int chunks = (int)((size + (long)chunkSize - 1) / chunkSize);
+    if (parallelism <= 1 || chunks <= 1) {
+      for (int start = 0 ; start < size ; start += chunkSize) {
+        if (monitor != null && monitor.isCancelRequested()) {
+          throw new TaskCancelledException();
+        }
+        processor.process(start, Math.min(size, start + chunkSize));
+        if (progress != null) progress.run();
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parallelism, chunks), runnable -> {
+          Thread thread = new Thread(runnable,
+              "ParallelUtil-" + poolCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    try {
+      List<Future<?>> futures = new ArrayList<>(chunks);
+      for (int start = 0 ; start < size ; start += chunkSize) {
+        final int from = start;
+        final int to = Math.min(size, start + chunkSize);
+        futures.add(executor.submit(() -> {
+          if (monitor != null && monitor.isCancelRequested()) return null;
+          processor.process(from, to);
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        while (true) {
+          try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            break;
+          } catch (TimeoutException e) {
+            if (progress != null) progress.run();
+          }
+        }
+      }
+      if (progress != null) progress.run();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Exception) throw (Exception)cause;
+      if (cause instanceof Error) throw (Error)cause;
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+    if (monitor != null && monitor.isCancelRequested()) {
+      throw new TaskCancelledException();
+    }
+  }
+}
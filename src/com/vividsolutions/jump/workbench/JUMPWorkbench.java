@@ -136,6 +136,7 @@ public class JUMPWorkbench {
   public static final String INITIAL_PROJECT_FILE = "project";
   public static final String I18NPREFIX = JUMPWorkbench.class.getPackage().getName()+".";
   public static final String STATE_OPTION = "state";
+  public static final String PROFILE_STARTUP_OPTION = "profile-startup";
 
   // Added by STanner to allow I18N to have access to this
   public static String I18N_SETLOCALE = "";
@@ -324,6 +325,10 @@ public class JUMPWorkbench {
     try {
       // first fetch parameters, locale might be changed with -i18n switch
       parseCommandLine(args);
+      if (commandLine.hasOption(PROFILE_STARTUP_OPTION)) {
+        StartupProfiler.start(new File(commandLine.getOption(
+            PROFILE_STARTUP_OPTION).getArg(0)));
+      }
       // load i18n specified in command line ( '-i18n translation' )
       if (commandLine.hasOption(I18N_FILE)) {
         I18N_SETLOCALE = commandLine.getOption(I18N_FILE).getArg(0);
@@ -360,6 +365,8 @@ public class JUMPWorkbench {
         Logger.setLevel(v.getArg(0));
       }
       
+      StartupProfiler.Measure measure = StartupProfiler.begin(
+          StartupProfiler.PHASE, "look-and-feel");
       // Init the L&F before instantiating the progress monitor [Jon Aquino]
       initLookAndFeel();
       // fix lnf (weird windows non-unicode locale bug)
@@ -372,7 +379,9 @@ public class JUMPWorkbench {
       if (setFont()) {
         Logger.info("New fonts have been loaded");
       }
+      StartupProfiler.end(measure);
 
+      measure = StartupProfiler.begin(StartupProfiler.PHASE, "splash");
       com.vividsolutions.jump.workbench.ui.ProgressMonitor progressMonitor =
               (com.vividsolutions.jump.workbench.ui.ProgressMonitor) progressMonitorClass
           .getDeclaredConstructor().newInstance();
@@ -380,10 +389,13 @@ public class JUMPWorkbench {
           I18N.get("ui.AboutDialog.version") + " "
               + JUMPVersion.CURRENT_VERSION);
       splashPanel.addProgressMonitor(progressMonitor);
+      StartupProfiler.end(measure);
 
       main(I18N.get("JUMPWorkbench.jump"), splashPanel, progressMonitor);
       Logger.info("OJ start took "
           + Timer.secondsSinceString(start) + "s alltogether.");
+      // after the events queued by showing the frame, e.g. opening the first task
+      SwingUtilities.invokeLater(StartupProfiler::finish);
 
     } catch (final Throwable t) {
       try {
@@ -420,12 +432,18 @@ public class JUMPWorkbench {
   static void main(String title, JComponent splashComponent,
       TaskMonitor taskMonitor) throws Exception {
 
+    StartupProfiler.Measure measure = StartupProfiler.begin(
+        StartupProfiler.PHASE, "splash-window");
     SplashWindow splashWindow = new SplashWindow(splashComponent);
     splashWindow.setVisible(true);
+    StartupProfiler.end(measure);
 
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "frame-creation");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.create"));
     workbench = new JUMPWorkbench(title, splashWindow, taskMonitor);
+    StartupProfiler.end(measure);
 
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "core-configuration");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.configure-core"));
     // first things first, make persistent data available early
     PersistentBlackboardPlugIn persistentBlackboard = new PersistentBlackboardPlugIn();
@@ -443,20 +461,29 @@ public class JUMPWorkbench {
     // TODO: clean up and merge with postExtensionInitialization below or even better put into xml config
     JUMPConfiguration config = new JUMPConfiguration();
     config.setup(workbench.context);
+    StartupProfiler.end(measure);
 
     // load plugin/extensions via plugin mgr.
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "extensions");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.load-extensions"));
     workbench.context.getWorkbench().getPlugInManager().load();
+    StartupProfiler.end(measure);
     
     // some more intialization 
     // TODO: clean up and merge with setup above or even better put into xml config
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "post-extension-initialization");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.initialize-datasources"));
     config.postExtensionInitialization(workbench.context);
+    StartupProfiler.end(measure);
 
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "restore-state");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.restore-state"));
     frame.restore();
+    StartupProfiler.end(measure);
+    measure = StartupProfiler.begin(StartupProfiler.PHASE, "show-workbench");
     taskMonitor.report(I18N.get("JUMPWorkbench.status.show-workbench"));
     frame.setVisible(true);
+    StartupProfiler.end(measure);
     // Activate SelectFeaturesTool cursor after opening a new session.
     // See also JUMPConfiguration.configureToolBar() where the select
     // button has been selected.
@@ -655,6 +682,9 @@ public class JUMPWorkbench {
     // show properties (for debugging purposes)
     commandLine.addOptionSpec(new OptionSpec(new String[] { "p",
         "print-properties" }, 0, "print a list of runtime properties"));
+    // profile startup
+    commandLine.addOptionSpec(new OptionSpec(PROFILE_STARTUP_OPTION, 1,
+        "write startup timings, allocations and loaded classes per phase, plugin and extension as JSON to the given file"));
 
     try {
       commandLine.parse(args);
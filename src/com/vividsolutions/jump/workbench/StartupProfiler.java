@@ -0,0 +1,184 @@
+package com.vividsolutions.jump.workbench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONValue;
+
+import com.vividsolutions.jump.JUMPVersion;
+
+/**
+ * Records where the startup of the workbench goes : the duration of its phases
+ * (splash, frame creation, extension loading, state restore...) and of the
+ * initialization of each plug-in and extension, together with the memory they
+ * allocated and the classes loaded meanwhile. The report is written as JSON
+ * when the workbench is shown, so that startups can be compared across
+ * releases.
+ * <br>Enabled with the -profile-startup command line option. When disabled,
+ * {@link #begin(String, String)} returns null and nothing is recorded.
+ * <br>Allocations are the bytes allocated by the measuring thread, when the
+ * JVM supports it (-1 otherwise). Loaded classes are counted for the whole JVM,
+ * so they include the classes loaded by other threads meanwhile.
+ */
+public class StartupProfiler {
+
+  /** startup phases, measured in JUMPWorkbench */
+  public static final String PHASE = "phases";
+  /** initialization of the plug-ins of the workbench properties */
+  public static final String PLUGIN = "plugins";
+  /** configuration of the extensions */
+  public static final String EXTENSION = "extensions";
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final ClassLoadingMXBean CLASSES = ManagementFactory.getClassLoadingMXBean();
+
+  private static File output;
+  private static long startNanos;
+  private static final Map<String,List<Map<String,Object>>> measures = new LinkedHashMap<>();
+
+  private StartupProfiler() {}
+
+  /**
+   * A measure in progress.
+   */
+  public static class Measure {
+    private final String category;
+    private final String name;
+    private final long nanos = System.nanoTime();
+    private final long allocated = allocatedBytes();
+    private final long classes = CLASSES.getTotalLoadedClassCount();
+
+    private Measure(String category, String name) {
+      this.category = category;
+      this.name = name;
+    }
+  }
+
+  /**
+   * Enables profiling.
+   * @param file the file the JSON report is written to by {@link #finish()}
+   */
+  public static synchronized void start(File file) {
+    output = file;
+    startNanos = System.nanoTime();
+    measures.clear();
+    measures.put(PHASE, new ArrayList<>());
+    measures.put(PLUGIN, new ArrayList<>());
+    measures.put(EXTENSION, new ArrayList<>());
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+      if (threads.isThreadAllocatedMemorySupported()) {
+        threads.setThreadAllocatedMemoryEnabled(true);
+      }
+    }
+  }
+
+  public static synchronized boolean isEnabled() {
+    return output != null;
+  }
+
+  /**
+   * Starts measuring a phase, a plug-in or an extension.
+   * @param category one of PHASE, PLUGIN or EXTENSION
+   * @return the measure to pass to {@link #end(Measure)}, null if profiling
+   *   is disabled
+   */
+  public static Measure begin(String category, String name) {
+    return isEnabled() ? new Measure(category, name) : null;
+  }
+
+  /**
+   * Records a measure, in the thread which began it.
+   * @param measure a measure returned by begin, may be null
+   */
+  public static void end(Measure measure) {
+    if (measure == null) {
+      return;
+    }
+    long allocated = allocatedBytes();
+    Map<String,Object> entry = new LinkedHashMap<>();
+    entry.put("name", measure.name);
+    entry.put("millis", (System.nanoTime() - measure.nanos) / 1000000.0);
+    entry.put("allocatedBytes", allocated < 0 || measure.allocated < 0 ? -1 :
+        allocated - measure.allocated);
+    entry.put("loadedClasses", CLASSES.getTotalLoadedClassCount() - measure.classes);
+    entry.put("heapUsedBytes", ManagementFactory.getMemoryMXBean()
+        .getHeapMemoryUsage().getUsed());
+    synchronized (StartupProfiler.class) {
+      List<Map<String,Object>> list = measures.get(measure.category);
+      // profiling may have been finished meanwhile
+      if (list != null) {
+        list.add(entry);
+      }
+    }
+  }
+
+  /**
+   * Returns the report as a JSON string, null if profiling is disabled.
+   */
+  public static synchronized String toJSON() {
+    if (!isEnabled()) {
+      return null;
+    }
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    Map<String,Object> report = new LinkedHashMap<>();
+    report.put("version", JUMPVersion.CURRENT_VERSION);
+    report.put("javaVersion", System.getProperty("java.version"));
+    report.put("processors", Runtime.getRuntime().availableProcessors());
+    report.put("jvmStartTime", ManagementFactory.getRuntimeMXBean().getStartTime());
+    // time spent by the JVM before the profiler was started
+    report.put("jvmStartupMillis", System.currentTimeMillis()
+        - (System.nanoTime() - startNanos) / 1000000
+        - ManagementFactory.getRuntimeMXBean().getStartTime());
+    report.put("totalMillis", (System.nanoTime() - startNanos) / 1000000.0);
+    report.put("heapUsedBytes", heap.getUsed());
+    report.put("heapCommittedBytes", heap.getCommitted());
+    report.put("heapMaxBytes", heap.getMax());
+    report.put("loadedClasses", CLASSES.getLoadedClassCount());
+    report.put("totalLoadedClasses", CLASSES.getTotalLoadedClassCount());
+    report.putAll(measures);
+    return JSONValue.toJSONString(report);
+  }
+
+  /**
+   * Writes the JSON report to the file given to {@link #start(File)}, and
+   * disables profiling. Does nothing if profiling is disabled.
+   */
+  public static synchronized void finish() {
+    if (!isEnabled()) {
+      return;
+    }
+    String json = toJSON();
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(output),
+        StandardCharsets.UTF_8)) {
+      writer.write(json);
+      Logger.info("Startup profile written to " + output);
+    } catch (IOException e) {
+      Logger.error("Could not write the startup profile to " + output, e);
+    }
+    output = null;
+    measures.clear();
+  }
+
+  private static long allocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
@@ -56,6 +56,7 @@ public interface WorkbenchProperties {
   String ATTR_CHECKBOX = "checkbox";
   String ATTR_MENUTYPE = "menutype";
   String ATTR_INITIALIZE = "initialize";
+  String ATTR_LAZY = "lazy";
   String ATTR_INSTALL = "install";
   String ATTR_NAME = "name";
   String ATTR_ICON = "icon";
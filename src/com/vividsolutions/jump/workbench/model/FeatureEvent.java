@@ -34,6 +34,7 @@ package com.vividsolutions.jump.workbench.model;
 import java.util.Collection;
 import java.util.Collections;
 import org.locationtech.jts.util.Assert;
+import org.locationtech.jts.geom.Envelope;
 import com.vividsolutions.jump.feature.Feature;
 
 /**
@@ -51,6 +52,8 @@ public class FeatureEvent {
     
     //[UT] 25.08.2005 added 
     private Collection<Feature> oldFeatureAttClones;
+
+    private Envelope envelope;
     
     /**
      * @param features a collection of features
@@ -106,4 +109,36 @@ public class FeatureEvent {
     public Collection getOldFeatureAttClones() {
         return Collections.unmodifiableCollection(oldFeatureAttClones);
     }
+
+    /**
+     * Returns the area touched by this event : the envelope of the features
+     * and, for GEOMETRY_MODIFIED events, of their old geometries. Returns
+     * null if the features can't be read anymore (e.g. database-backed
+     * collections), meaning that the whole layer may have changed.
+     */
+    public synchronized Envelope getEnvelope() {
+        if (envelope == null) {
+            Envelope env = new Envelope();
+            try {
+                for (Feature feature : features) {
+                    expandToInclude(env, feature);
+                }
+                if (oldFeatureClones != null) {
+                    for (Feature feature : oldFeatureClones) {
+                        expandToInclude(env, feature);
+                    }
+                }
+            } catch (RuntimeException ex) {
+                return null;
+            }
+            envelope = env;
+        }
+        return envelope;
+    }
+
+    private static void expandToInclude(Envelope envelope, Feature feature) {
+        if (feature.getGeometry() != null) {
+            envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+        }
+    }
 }
@@ -40,6 +40,7 @@ import java.util.List;
 
 import javax.swing.SwingUtilities;
 
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.util.Assert;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
@@ -436,7 +437,8 @@ public class Layer extends GeoReferencedLayerable implements Disposable {
               // initialize
               // FIRING_APPEARANCE_CHANGED_ON_ATTRIBUTE_CHANGE
               // on the blackboard [Jon Aquino 10/21/2003]
-              fireAppearanceChanged();
+              // Only the area of the changed features needs to be redrawn
+              fireAppearanceChanged(e.getEnvelope());
             }
             // Taken from SRIDStyle class to set SRID on new features
             SRIDStyle ss = (SRIDStyle) getStyle(SRIDStyle.class);
@@ -458,6 +460,19 @@ public class Layer extends GeoReferencedLayerable implements Disposable {
     return layerListener;
   }
 
+  /**
+   * Fires an APPEARANCE_CHANGED event concerning only the features located
+   * in dirtyEnvelope.
+   * @param dirtyEnvelope the area to redraw, or null to redraw the whole layer
+   */
+  public void fireAppearanceChanged(Envelope dirtyEnvelope) {
+    if (getLayerManager() == null) {
+      return;
+    }
+    getLayerManager().fireLayerChanged(this, LayerEventType.APPEARANCE_CHANGED,
+        dirtyEnvelope);
+  }
+
   //public Blackboard getBlackboard() {
     //return blackboard;
   //}
@@ -531,6 +546,20 @@ public class Layer extends GeoReferencedLayerable implements Disposable {
     }
   }
 
+  /**
+   * Does nothing if the underlying feature collection is not a FeatureDataset.
+   * @param layer the Layer whose envelope must be invalidated
+   * @param modifiedFeatures the features whose geometry has been modified
+   * @param oldFeatureClones clones of the modified features with their old geometry
+   */
+  public static void tryToInvalidateEnvelope(Layer layer,
+        Collection<Feature> modifiedFeatures, Collection<Feature> oldFeatureClones) {
+    if (layer.getFeatureCollectionWrapper().getUltimateWrappee() instanceof FeatureDataset) {
+      ((FeatureDataset) layer.getFeatureCollectionWrapper()
+          .getUltimateWrappee()).invalidateEnvelope(modifiedFeatures, oldFeatureClones);
+    }
+  }
+
   public DataSourceQuery getDataSourceQuery() {
     return dataSourceQuery;
   }
@@ -33,6 +33,7 @@
 
 package com.vividsolutions.jump.workbench.model;
 
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.util.Assert;
 
 /**
@@ -45,9 +46,19 @@ public class LayerEvent {
     private LayerEventType type;
     private Category category;
     private int layerableIndex;
+    private Envelope dirtyEnvelope;
 
     public LayerEvent(Layerable layerable, LayerEventType type,
         Category category, int layerIndex) {
+        this(layerable, type, category, layerIndex, null);
+    }
+
+    /**
+     * @param dirtyEnvelope the area whose appearance changed, or null if the
+     * whole layerable is concerned
+     */
+    public LayerEvent(Layerable layerable, LayerEventType type,
+        Category category, int layerIndex, Envelope dirtyEnvelope) {
         Assert.isTrue(category != null);
         Assert.isTrue(layerable != null);
         Assert.isTrue(type != null);
@@ -55,6 +66,7 @@ public class LayerEvent {
         this.type = type;
         this.category = category;
         this.layerableIndex = layerIndex;
+        this.dirtyEnvelope = dirtyEnvelope;
     }
 
     public LayerEventType getType() {
@@ -72,4 +84,12 @@ public class LayerEvent {
     public int getLayerableIndex() {
         return layerableIndex;
     }
+
+    /**
+     * @return the area whose appearance changed, or null if the whole
+     * layerable is concerned (e.g. after a style change)
+     */
+    public Envelope getDirtyEnvelope() {
+        return dirtyEnvelope;
+    }
 }
@@ -82,6 +82,10 @@ public class LayerManager {
 
     // Variables
     private boolean firingEvents = true;
+    // FeatureEvents held back by #beginFeatureEventBatch
+    private final List<PendingFeatureEvent> pendingFeatureEvents = new ArrayList<>();
+    private final Map<Layer, PendingFeatureEvent> lastPendingFeatureEvents = new HashMap<>();
+    private int featureEventBatchDepth = 0;
     private Task task;
     private CoordinateSystem coordinateSystem = CoordinateSystem.UNSPECIFIED;
 
@@ -434,6 +438,9 @@ public class LayerManager {
     public void fireGeometryModified(final Collection<Feature> features,
             final Layer layer, final Collection<Feature> oldFeatureClones) {
         Assert.isTrue(oldFeatureClones != null);
+        // Keep the envelope and the spatial index of the layer up to date,
+        // even if events are not fired
+        Layer.tryToInvalidateEnvelope(layer, features, oldFeatureClones);
         fireFeaturesChanged(features, FeatureEventType.GEOMETRY_MODIFIED,
                 layer, oldFeatureClones);
     }
@@ -444,12 +451,125 @@ public class LayerManager {
         if (!firingEvents) {
             return;
         }
+        synchronized (pendingFeatureEvents) {
+            if (featureEventBatchDepth > 0) {
+                queueFeatureEvent(features, type, layer, oldFeatureClones);
+                return;
+            }
+        }
+        fireFeaturesChanged(new FeatureEvent(features, type, layer, oldFeatureClones));
+    }
 
+    private void fireFeaturesChanged(final FeatureEvent event) {
         // New ArrayList to avoid ConcurrentModificationException [Jon Aquino]
         for (final LayerListener layerListener : new ArrayList<>(layerListeners)) {
-            fireLayerEvent(() ->
-                layerListener.featuresChanged(new FeatureEvent(features, type, layer, oldFeatureClones))
-            );
+            fireLayerEvent(() -> layerListener.featuresChanged(event));
+        }
+    }
+
+    /**
+     * Holds back the FeatureEvents fired from now on, until the matching call
+     * to #endFeatureEventBatch. Consecutive events of the same type on the
+     * same layer are then merged and delivered as one event, so that the
+     * listeners (renderers, attribute tables...) refresh once instead of once
+     * per feature. Batches may be nested : the events are delivered at the
+     * end of the outermost one.
+     */
+    public void beginFeatureEventBatch() {
+        synchronized (pendingFeatureEvents) {
+            featureEventBatchDepth++;
+        }
+    }
+
+    /**
+     * Ends a batch started by #beginFeatureEventBatch, delivering the merged
+     * events if it was the outermost one.
+     */
+    public void endFeatureEventBatch() {
+        List<PendingFeatureEvent> events;
+        synchronized (pendingFeatureEvents) {
+            Assert.isTrue(featureEventBatchDepth > 0, "No feature event batch to end");
+            featureEventBatchDepth--;
+            if (featureEventBatchDepth > 0) {
+                return;
+            }
+            events = new ArrayList<>(pendingFeatureEvents);
+            pendingFeatureEvents.clear();
+            lastPendingFeatureEvents.clear();
+        }
+        for (PendingFeatureEvent event : events) {
+            fireFeaturesChanged(event.toFeatureEvent());
+        }
+    }
+
+    public boolean isBatchingFeatureEvents() {
+        synchronized (pendingFeatureEvents) {
+            return featureEventBatchDepth > 0;
+        }
+    }
+
+    /**
+     * Runs r in a feature event batch.
+     * @see #beginFeatureEventBatch()
+     */
+    public void batchFeatureEvents(Runnable r) {
+        beginFeatureEventBatch();
+        try {
+            r.run();
+        } finally {
+            endFeatureEventBatch();
+        }
+    }
+
+    private void queueFeatureEvent(Collection<Feature> features,
+            FeatureEventType type, Layer layer,
+            Collection<Feature> oldFeatureClones) {
+        // Only merge with the last event of the layer, to keep the order of
+        // the changes made to each layer (e.g. a feature added then deleted)
+        PendingFeatureEvent last = lastPendingFeatureEvents.get(layer);
+        if (last == null || last.type != type) {
+            last = new PendingFeatureEvent(type, layer, oldFeatureClones != null);
+            pendingFeatureEvents.add(last);
+            lastPendingFeatureEvents.put(layer, last);
+        }
+        last.add(features, oldFeatureClones);
+    }
+
+    /**
+     * FeatureEvents of one type on one layer, merged during a batch.
+     */
+    private static class PendingFeatureEvent {
+        private final FeatureEventType type;
+        private final Layer layer;
+        private final List<Feature> features = new ArrayList<>();
+        private final List<Feature> oldFeatureClones;
+        private final Set<Feature> featureSet =
+                Collections.newSetFromMap(new IdentityHashMap<Feature,Boolean>());
+
+        PendingFeatureEvent(FeatureEventType type, Layer layer, boolean withClones) {
+            this.type = type;
+            this.layer = layer;
+            this.oldFeatureClones = withClones ? new ArrayList<Feature>() : null;
+        }
+
+        void add(Collection<Feature> newFeatures, Collection<Feature> newOldFeatureClones) {
+            Iterator<Feature> clones = newOldFeatureClones == null ? null : newOldFeatureClones.iterator();
+            for (Feature feature : newFeatures) {
+                Feature clone = clones != null && clones.hasNext() ? clones.next() : null;
+                // A feature modified several times keeps the clone of its
+                // state before the first modification
+                if (!featureSet.add(feature)) {
+                    continue;
+                }
+                features.add(feature);
+                if (oldFeatureClones != null) {
+                    oldFeatureClones.add(clone);
+                }
+            }
+        }
+
+        FeatureEvent toFeatureEvent() {
+            return new FeatureEvent(features, type, layer, oldFeatureClones);
         }
     }
 
@@ -486,6 +606,12 @@ public class LayerManager {
     private void fireLayerChanged(final Layerable layerable,
             final LayerEventType layerChangeType, final Category category,
             final int layerIndex) {
+        fireLayerChanged(layerable, layerChangeType, category, layerIndex, null);
+    }
+
+    private void fireLayerChanged(final Layerable layerable,
+            final LayerEventType layerChangeType, final Category category,
+            final int layerIndex, final Envelope dirtyEnvelope) {
         if (!firingEvents) {
             return;
         }
@@ -494,7 +620,7 @@ public class LayerManager {
         for (final LayerListener layerListener : new ArrayList<>(layerListeners)) {
             fireLayerEvent(() ->
                 layerListener.layerChanged(
-                    new LayerEvent(layerable, layerChangeType, category, layerIndex)
+                    new LayerEvent(layerable, layerChangeType, category, layerIndex, dirtyEnvelope)
                 )
             );
         }
@@ -504,6 +630,17 @@ public class LayerManager {
     // LayerCategory, layerIndex) can use this simpler method instead. [Jon
     // Aquino]
     public void fireLayerChanged(Layerable layerable, LayerEventType type) {
+        fireLayerChanged(layerable, type, null);
+    }
+
+    /**
+     * Fires a LayerEvent concerning only the features located in
+     * dirtyEnvelope, so that renderers can update this area only.
+     * @param dirtyEnvelope the area concerned by the change, or null if the
+     *                      whole layerable is concerned
+     */
+    public void fireLayerChanged(Layerable layerable, LayerEventType type,
+            Envelope dirtyEnvelope) {
         Category cat = getCategory(layerable);
 
         if (cat == null) {
@@ -518,7 +655,7 @@ public class LayerManager {
             return;
         }
 
-        fireLayerChanged(layerable, type, cat, cat.indexOf(layerable));
+        fireLayerChanged(layerable, type, cat, cat.indexOf(layerable), dirtyEnvelope);
     }
 
     public void setFiringEvents(boolean firingEvents) {
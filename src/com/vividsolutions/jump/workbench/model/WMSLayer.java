@@ -32,8 +32,11 @@
 
 package com.vividsolutions.jump.workbench.model;
 
+import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.MediaTracker;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
@@ -74,6 +77,8 @@ public class WMSLayer
   private Reference oldImage;
   private URL oldURL;
 
+  private boolean tiled = System.getProperty("wms.tiles.on") != null;
+
   /**
    * Called by Java2XML
    */
@@ -148,7 +153,30 @@ public class WMSLayer
     this.alpha = alpha;
   }
 
+  /**
+   * @return true if the view is made of tiles requested separately and kept
+   *         in the {@link MapTileCache}
+   */
+  public boolean isTiled() {
+    return tiled;
+  }
+
+  /**
+   * Tiled requests make panning and revisiting areas faster, but the labels
+   * drawn by some servers are cut or repeated at the borders of the tiles.
+   * The default value is set by the wms.tiles.on system property, it can be
+   * changed in the Edit WMS Query dialog and is saved with the project.
+   *
+   * @param tiled whether the view is made of tiles
+   */
+  public void setTiled(boolean tiled) {
+    this.tiled = tiled;
+  }
+
   public Image createImage(LayerViewPanel panel) throws IOException {
+    if (tiled) {
+      return createTiledImage(panel);
+    }
 
     MapRequest request = createRequest(panel);
     URL newURL = request.getURL();
@@ -175,19 +203,77 @@ public class WMSLayer
     return image;
   }
 
+  /**
+   * Composes the image of the view from tiles of a grid aligned on the
+   * model origin. The size of the tiles in model units is snapped to a power
+   * of 2, so that the tiles of a former view at a close scale are reused, and
+   * they are resampled to the scale of the view.
+   */
+  private Image createTiledImage(LayerViewPanel panel) throws IOException {
+    int tileSize = MapTileCache.TILE_SIZE;
+    double scale = panel.getViewport().getScale();
+    double tileExtent = getTileExtent(tileSize / scale);
+    Envelope envelope = panel.getViewport().getEnvelopeInModelCoordinates();
+    long minI = (long) Math.floor(envelope.getMinX() / tileExtent);
+    long maxI = (long) Math.floor(envelope.getMaxX() / tileExtent);
+    long minJ = (long) Math.floor(envelope.getMinY() / tileExtent);
+    long maxJ = (long) Math.floor(envelope.getMaxY() / tileExtent);
+    List<MapRequest> requests = new ArrayList<>();
+    for (long j = minJ; j <= maxJ; j++) {
+      for (long i = minI; i <= maxI; i++) {
+        requests.add(createRequest(new Envelope(i * tileExtent,
+            (i + 1) * tileExtent, j * tileExtent, (j + 1) * tileExtent),
+            tileSize, tileSize));
+      }
+    }
+    List<BufferedImage> tiles = MapTileCache.getInstance().getImages(requests);
+
+    BufferedImage image = new BufferedImage(panel.getWidth(),
+        panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    int k = 0;
+    for (long j = minJ; j <= maxJ; j++) {
+      // the borders of the tiles are rounded the same way for adjacent tiles
+      int top = (int) Math.round((envelope.getMaxY() - (j + 1) * tileExtent) * scale);
+      int bottom = (int) Math.round((envelope.getMaxY() - j * tileExtent) * scale);
+      for (long i = minI; i <= maxI; i++) {
+        int left = (int) Math.round((i * tileExtent - envelope.getMinX()) * scale);
+        int right = (int) Math.round(((i + 1) * tileExtent - envelope.getMinX()) * scale);
+        g.drawImage(tiles.get(k++), left, top, right - left, bottom - top, null);
+      }
+    }
+    g.dispose();
+    return image;
+  }
+
+  /**
+   * Returns the power of 2 closest to extent, on a logarithmic scale.
+   * @param extent the size of a tile in model units at the scale of the view
+   */
+  private static double getTileExtent(double extent) {
+    return Math.pow(2, Math.round(Math.log(extent) / Math.log(2)));
+  }
+
   private BoundingBox toBoundingBox(String srs, Envelope e) {
     return new BoundingBox(srs, e);
   }
 
   public MapRequest createRequest(LayerViewPanel panel) throws IOException {
+    return createRequest(panel.getViewport().getEnvelopeInModelCoordinates(),
+        panel.getWidth(), panel.getHeight());
+  }
+
+  private MapRequest createRequest(Envelope envelope, int width, int height)
+      throws IOException {
     MapRequest request = getService().createMapRequest();
-    request.setBoundingBox(toBoundingBox(srs,
-        panel.getViewport().getEnvelopeInModelCoordinates()));
+    request.setBoundingBox(toBoundingBox(srs, envelope));
     request.setFormat(format);
     request.setStyle(style);
     request.setMoreParameters(moreParameters);
-    request.setImageWidth(panel.getWidth());
-    request.setImageHeight(panel.getHeight());
+    request.setImageWidth(width);
+    request.setImageHeight(height);
     request.setLayerNames(layerNames);
     request.setTransparent(true);
 
@@ -1,5 +1,6 @@
 package com.vividsolutions.jump.workbench.model.cache;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -154,6 +155,38 @@ public class DynamicFeatureCollection implements FeatureCollection {
     };
   }
 
+  /**
+   * Reads all the features intersecting envelope, ignoring the limit set by
+   * {@link #setFeatureLimit(Integer)}. The limit of the query itself, if
+   * any, still applies to each call.
+   * Unlike {@link #query(Envelope)}, the result does not depend on later
+   * queries, so that this method can be called from several threads, e.g. to
+   * prefetch the features around the viewport.
+   */
+  public List<Feature> queryAll(Envelope envelope) throws Exception {
+    FilterQuery query = new FilterQuery();
+    query.setDatasetName(spatialQuery.getDatasetName());
+    query.setPropertyNames(spatialQuery.getPropertyNames());
+    query.setCondition(spatialQuery.getCondition());
+    query.setLimit(spatialQuery.getLimit());
+    query.setGeometryAttributeName(spatialQuery.getGeometryAttributeName());
+    query.setPrimaryKey(spatialQuery.getPrimaryKey());
+    query.setSRSName(spatialQuery.getSRSName());
+    query.setFilterGeometry(new GeometryFactory().toGeometry(envelope));
+    List<Feature> features = new ArrayList<>();
+    FeatureInputStream featureInputStream = connectionManager
+        .getOpenConnection(connectionDescriptor).execute(query);
+    try {
+      while (featureInputStream.hasNext()) {
+        features.add(featureInputStream.next());
+      }
+      schema = featureInputStream.getFeatureSchema();
+    } finally {
+      featureInputStream.close();
+    }
+    return features;
+  }
+
   public void add(Feature feature) {
     throw new UnsupportedOperationException();
   }
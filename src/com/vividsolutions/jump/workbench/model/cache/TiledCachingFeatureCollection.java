@@ -0,0 +1,501 @@
+package com.vividsolutions.jump.workbench.model.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.locationtech.jts.geom.Envelope;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.util.Block;
+import com.vividsolutions.jump.util.LazyList;
+import com.vividsolutions.jump.util.ListWrapper;
+import com.vividsolutions.jump.workbench.Logger;
+
+/**
+ * A CachingFeatureCollection keeping the features by tiles of a grid, so
+ * that the parts of a new view already seen are served from memory and only
+ * the missing tiles are queried. Tiles are at least half as large as the
+ * queried envelope, their size being a power of two : each scale band has its
+ * own grid.
+ * <p>The number of features kept is bounded, the least recently used tiles
+ * being dropped first. After a query made outside the GUI thread, the tiles
+ * around the queried envelope are loaded in a background thread, so that
+ * panning does not wait for the database.</p>
+ * <p>A row returned by several tiles is kept as a single Feature, identified
+ * by its external primary key if the schema has one, or else by the values
+ * of all its attributes. In the latter case, identical rows of a tile are
+ * told apart by their rank among them, so that none is lost.</p>
+ * <p>Set the datastore.tiles.off system property to use a
+ * {@link CachingFeatureCollection} instead.</p>
+ */
+public class TiledCachingFeatureCollection extends CachingFeatureCollection {
+
+    public static final int DEFAULT_MAX_FEATURES = 200000;
+
+    // Prefetching is done by a single thread for all the layers, as layers
+    // generally share the same database connection
+    private static final ExecutorService PREFETCHER = createPrefetcher();
+
+    private final FeatureCollection featureCollection;
+
+    private final int maxFeatures;
+
+    private boolean prefetching = true;
+
+    // Tiles, from the least recently used to the most recently used one
+    private final LinkedHashMap<TileKey,List<Feature>> tiles =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    // Features shared by the tiles, with the number of tiles referencing them
+    private final Map<Object,SharedFeature> sharedFeatures = new HashMap<>();
+    private final Map<Feature,SharedFeature> sharedByFeature = new IdentityHashMap<>();
+
+    private int cachedFeatureCount = 0;
+
+    private final ConcurrentHashMap<TileKey,FutureTask<List<Feature>>> loading =
+            new ConcurrentHashMap<>();
+
+    // Incremented when the cache is emptied, so that tiles loaded before are
+    // not cached
+    private volatile int cacheGeneration = 0;
+
+    // Incremented by each query, so that prefetching for a former view stops
+    private volatile int queryGeneration = 0;
+
+    public TiledCachingFeatureCollection(FeatureCollection featureCollection) {
+        this(featureCollection, Integer.getInteger(
+                "datastore.tile.cache.features", DEFAULT_MAX_FEATURES));
+    }
+
+    /**
+     * @param featureCollection the collection queried for the features of a
+     *            tile, generally a {@link DynamicFeatureCollection}
+     * @param maxFeatures the number of features above which the least
+     *            recently used tiles are dropped
+     */
+    public TiledCachingFeatureCollection(FeatureCollection featureCollection,
+            int maxFeatures) {
+        super(featureCollection);
+        this.featureCollection = featureCollection;
+        this.maxFeatures = maxFeatures;
+    }
+
+    public static boolean isEnabled() {
+        return System.getProperty("datastore.tiles.off") == null;
+    }
+
+    private static ExecutorService createPrefetcher() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread thread = new Thread(r, "TiledCachingFeatureCollection prefetcher");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param prefetching whether the tiles around a queried envelope are
+     *            loaded in the background
+     */
+    public TiledCachingFeatureCollection setPrefetching(boolean prefetching) {
+        this.prefetching = prefetching;
+        return this;
+    }
+
+    public List<Feature> query(final Envelope envelope) {
+        // Same principle as CachingFeatureCollection#query : only #iterator
+        // called outside the GUI thread queries the database.
+        final LazyList<Feature> cachedFeatures = new LazyList<>(new Block() {
+            public Object yield() {
+                return getCachedFeatures(envelope);
+            }
+        });
+        return new ListWrapper<Feature>() {
+            public Collection<Feature> getCollection() {
+                return cachedFeatures;
+            }
+
+            public Iterator<Feature> iterator() {
+                if (SwingUtilities.isEventDispatchThread() || envelope.isNull()) {
+                    return super.iterator();
+                }
+                return new LoadingIterator(envelope);
+            }
+        };
+    }
+
+    /**
+     * Returns the cached features intersecting envelope, without querying
+     * the missing tiles.
+     */
+    private synchronized List<Feature> getCachedFeatures(Envelope envelope) {
+        List<Feature> features = new ArrayList<>();
+        if (envelope.isNull()) {
+            return features;
+        }
+        Set<Feature> returned = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TileKey key : TileKey.covering(envelope)) {
+            List<Feature> tile = tiles.get(key);
+            if (tile == null) continue;
+            for (Feature feature : tile) {
+                if (intersects(feature, envelope) && returned.add(feature)) {
+                    features.add(feature);
+                }
+            }
+        }
+        return features;
+    }
+
+    private static boolean intersects(Feature feature, Envelope envelope) {
+        return feature.getGeometry() == null ||
+                envelope.intersects(feature.getGeometry().getEnvelopeInternal());
+    }
+
+    /**
+     * Iterates through the features of the tiles covering an envelope,
+     * loading the missing tiles one at a time.
+     */
+    private class LoadingIterator implements Iterator<Feature> {
+
+        private final Envelope envelope;
+        private final List<TileKey> keys;
+        private final int generation;
+        private final Set<Feature> returned =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+        private int keyIndex = 0;
+        private List<Feature> tile = Collections.emptyList();
+        private int featureIndex = 0;
+        private Feature next = null;
+
+        LoadingIterator(Envelope envelope) {
+            this.envelope = envelope;
+            this.keys = TileKey.covering(envelope);
+            this.generation = ++queryGeneration;
+        }
+
+        public boolean hasNext() {
+            while (next == null) {
+                if (featureIndex < tile.size()) {
+                    Feature feature = tile.get(featureIndex++);
+                    if (intersects(feature, envelope) && returned.add(feature)) {
+                        next = feature;
+                    }
+                } else if (keyIndex < keys.size()) {
+                    tile = getTile(keys.get(keyIndex++));
+                    featureIndex = 0;
+                } else {
+                    if (prefetching && keyIndex++ == keys.size()) {
+                        prefetch(keys, generation);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Feature next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Feature feature = next;
+            next = null;
+            return feature;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Returns the features of a tile, loading them if they are not cached.
+     */
+    private List<Feature> getTile(TileKey key) {
+        synchronized (this) {
+            List<Feature> tile = tiles.get(key);
+            if (tile != null) return tile;
+        }
+        FutureTask<List<Feature>> task = new FutureTask<>(() -> load(key));
+        FutureTask<List<Feature>> running = loading.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            run(key, task);
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void run(TileKey key, FutureTask<List<Feature>> task) {
+        try {
+            task.run();
+        } finally {
+            loading.remove(key, task);
+        }
+    }
+
+    private List<Feature> load(TileKey key) throws Exception {
+        int generation = cacheGeneration;
+        synchronized (this) {
+            List<Feature> tile = tiles.get(key);
+            if (tile != null) return tile;
+        }
+        Envelope envelope = key.getEnvelope();
+        List<Feature> features;
+        if (featureCollection instanceof DynamicFeatureCollection) {
+            features = ((DynamicFeatureCollection) featureCollection).queryAll(envelope);
+        } else {
+            features = new ArrayList<>(featureCollection.query(envelope));
+        }
+        synchronized (this) {
+            if (generation != cacheGeneration) {
+                // the cache has been emptied during the query
+                return features;
+            }
+            Map<Object,Integer> occurrences = new HashMap<>();
+            for (int i = 0 ; i < features.size() ; i++) {
+                features.set(i, share(features.get(i), occurrences));
+            }
+            tiles.put(key, features);
+            cachedFeatureCount += features.size();
+            for (Iterator<List<Feature>> it = tiles.values().iterator() ;
+                 cachedFeatureCount > maxFeatures && tiles.size() > 1 ; ) {
+                List<Feature> eldest = it.next();
+                if (eldest == features) break;
+                it.remove();
+                release(eldest);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Loads the tiles around the tiles of keys, in the background, until
+     * another query is made.
+     */
+    private void prefetch(List<TileKey> keys, final int generation) {
+        final List<TileKey> ring = TileKey.ring(keys);
+        PREFETCHER.execute(() -> {
+            try {
+                loadTiles(ring, generation);
+            } finally {
+                prefetchEnded();
+            }
+        });
+    }
+
+    private void loadTiles(List<TileKey> ring, int generation) {
+        for (TileKey key : ring) {
+            if (generation != queryGeneration) return;
+            synchronized (this) {
+                if (tiles.containsKey(key)) continue;
+            }
+            FutureTask<List<Feature>> task = new FutureTask<>(() -> load(key));
+            if (loading.putIfAbsent(key, task) != null) continue;
+            run(key, task);
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                return;
+            } catch (ExecutionException e) {
+                Logger.warn("Could not prefetch features around " + key.getEnvelope(),
+                        e.getCause());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called in the prefetching thread when the prefetching started by a
+     * query ends, whether all the tiles around it have been loaded or it has
+     * been interrupted by another query. Does nothing by default.
+     */
+    protected void prefetchEnded() {
+    }
+
+    /**
+     * Returns the shared instance of feature. Must be called with the lock
+     * held.
+     * @param occurrences the number of features of the tile met so far for
+     *            each identifier
+     */
+    private Feature share(Feature feature, Map<Object,Integer> occurrences) {
+        Object identifier = identifier(feature);
+        int rank = occurrences.merge(identifier, 1, Integer::sum) - 1;
+        Object id = new AbstractMap.SimpleImmutableEntry<>(identifier, rank);
+        SharedFeature shared = sharedFeatures.get(id);
+        if (shared == null) {
+            shared = new SharedFeature(id, feature);
+            sharedFeatures.put(id, shared);
+            sharedByFeature.put(feature, shared);
+        }
+        shared.tileCount++;
+        return shared.feature;
+    }
+
+    // Must be called with the lock held
+    private void release(List<Feature> tile) {
+        cachedFeatureCount -= tile.size();
+        for (Feature feature : tile) {
+            SharedFeature shared = sharedByFeature.get(feature);
+            if (shared != null && --shared.tileCount == 0) {
+                sharedFeatures.remove(shared.id);
+                sharedByFeature.remove(feature);
+            }
+        }
+    }
+
+    private static Object identifier(Feature feature) {
+        FeatureSchema schema = feature.getSchema();
+        int pk = schema.getExternalPrimaryKeyIndex();
+        if (pk >= 0 && feature.getAttribute(pk) != null) {
+            return feature.getAttribute(pk);
+        }
+        // Geometry#equals compares geometries with equalsExact
+        return Arrays.asList(feature.getAttributes());
+    }
+
+    private static class SharedFeature {
+        final Object id;
+        final Feature feature;
+        int tileCount = 0;
+        SharedFeature(Object id, Feature feature) {
+            this.id = id;
+            this.feature = feature;
+        }
+    }
+
+    /**
+     * @return all the cached features
+     */
+    public synchronized List<Feature> getFeatures() {
+        List<Feature> features = new ArrayList<>(sharedFeatures.size());
+        for (SharedFeature shared : sharedFeatures.values()) {
+            features.add(shared.feature);
+        }
+        return features;
+    }
+
+    public synchronized int size() {
+        return sharedFeatures.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return sharedFeatures.isEmpty();
+    }
+
+    public Iterator<Feature> iterator() {
+        return getFeatures().iterator();
+    }
+
+    public void emptyCache() {
+        synchronized (this) {
+            tiles.clear();
+            sharedFeatures.clear();
+            sharedByFeature.clear();
+            cachedFeatureCount = 0;
+            cacheGeneration++;
+        }
+        queryGeneration++;
+        loading.clear();
+    }
+
+    /**
+     * A cell of the grid of a scale band. The cells of band b are squares of
+     * side 2^b.
+     */
+    private static final class TileKey {
+
+        final int band;
+        final long x;
+        final long y;
+
+        TileKey(int band, long x, long y) {
+            this.band = band;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Returns the tiles covering envelope, in the band where tiles are
+         * between half and the whole size of envelope.
+         */
+        static List<TileKey> covering(Envelope envelope) {
+            double extent = Math.max(envelope.getWidth(), envelope.getHeight());
+            int band = Math.getExponent(Math.max(extent, Double.MIN_NORMAL));
+            double size = Math.scalb(1.0, band);
+            long minX = (long) Math.floor(envelope.getMinX() / size);
+            long maxX = (long) Math.floor(envelope.getMaxX() / size);
+            long minY = (long) Math.floor(envelope.getMinY() / size);
+            long maxY = (long) Math.floor(envelope.getMaxY() / size);
+            List<TileKey> keys = new ArrayList<>();
+            for (long y = minY ; y <= maxY ; y++) {
+                for (long x = minX ; x <= maxX ; x++) {
+                    keys.add(new TileKey(band, x, y));
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * Returns the tiles surrounding the rectangle of tiles of keys.
+         */
+        static List<TileKey> ring(List<TileKey> keys) {
+            TileKey first = keys.get(0);
+            TileKey last = keys.get(keys.size() - 1);
+            List<TileKey> ring = new ArrayList<>();
+            for (long y = first.y - 1 ; y <= last.y + 1 ; y++) {
+                for (long x = first.x - 1 ; x <= last.x + 1 ; x++) {
+                    if (y < first.y || y > last.y || x < first.x || x > last.x) {
+                        ring.add(new TileKey(first.band, x, y));
+                    }
+                }
+            }
+            return ring;
+        }
+
+        Envelope getEnvelope() {
+            double size = Math.scalb(1.0, band);
+            return new Envelope(x * size, (x + 1) * size, y * size, (y + 1) * size);
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) return false;
+            TileKey other = (TileKey) o;
+            return band == other.band && x == other.x && y == other.y;
+        }
+
+        public int hashCode() {
+            return (int) (31 * (31 * band + x) + y) ^ (int) ((x ^ y) >>> 32);
+        }
+    }
+}
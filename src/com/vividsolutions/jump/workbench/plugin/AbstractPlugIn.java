@@ -319,7 +319,7 @@ public abstract class AbstractPlugIn implements PlugIn, ShortcutEnabled, EnableC
   }
 
   /**
-   * @param plugIn the plugin
+   * @param plugInOrLazy the plugin, or a {@link LazyPlugIn} loaded on first use
    * @param workbenchContext context of the application
    * @param taskMonitorManager
    *          can be null if you do not wish to use the Task Monitor
@@ -327,13 +327,27 @@ public abstract class AbstractPlugIn implements PlugIn, ShortcutEnabled, EnableC
    * @return an ActionListener for this PlugIn
    */
 
-  public static ActionListener toActionListener(final PlugIn plugIn,
+  public static ActionListener toActionListener(final PlugIn plugInOrLazy,
       final WorkbenchContext workbenchContext,
       final TaskMonitorManager taskMonitorManager) {
     return new ActionListener() {
       public void actionPerformed(ActionEvent e) {
         //System.out.println("ap toaction "+e);
         try {
+          PlugIn plugIn = plugInOrLazy;
+          if (plugInOrLazy instanceof LazyPlugIn) {
+            // load the plug-in on first use, and check it as its menu item
+            // could not be checked before
+            plugIn = ((LazyPlugIn) plugInOrLazy).getPlugIn();
+            EnableCheck check = getEnableCheck(plugIn);
+            String message = check != null ? check.check(null) : null;
+            if (message != null) {
+              if (workbenchContext.getWorkbench() != null) {
+                workbenchContext.getWorkbench().getFrame().warnUser(message);
+              }
+              return;
+            }
+          }
           if (workbenchContext.getWorkbench() != null) {
             workbenchContext.getWorkbench().getFrame().setStatusMessage("");
             Logger.info(I18N.get("plugin.AbstractPlugIn.executing") + " " + plugIn.getName());
@@ -0,0 +1,128 @@
+package com.vividsolutions.jump.workbench.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.vividsolutions.jump.workbench.Logger;
+
+/**
+ * Index of the candidate extension classes (classes whose name ends with
+ * Extension or Configuration) of the jar files of the extension folders.
+ * Scanning all the entries of a large jar is slow, so the class names found
+ * are kept in a properties file between runs, together with the size and the
+ * modification date of the jar : a jar is only scanned again if it changed.
+ * <br>Thread-safe, so that several jars can be scanned at once.
+ */
+public class ExtensionIndex {
+
+  // Filter by filename; otherwise we'll be loading all the classes,
+  // which takes significantly longer [Jon Aquino]
+  // no $ ensures that inner classes are ignored as well [ede]
+  // Include "Configuration" for backwards compatibility. [Jon Aquino]
+  private static final Pattern CLASS_PATTERN = Pattern
+      .compile("[^$]+(Extension|Configuration)\\.class");
+
+  private final File file;
+
+  // entries read from the file, and entries used during this run
+  private final Map<String, String> entries = new ConcurrentHashMap<>();
+  private final Map<String, String> used = new ConcurrentHashMap<>();
+  private volatile boolean modified = false;
+
+  /**
+   * @param file the file storing the index between runs, null to keep the
+   *          index in memory only
+   */
+  public ExtensionIndex(File file) {
+    this.file = file;
+    if (file != null && file.isFile()) {
+      Properties properties = new Properties();
+      try (InputStream in = new FileInputStream(file)) {
+        properties.load(in);
+        for (String key : properties.stringPropertyNames()) {
+          entries.put(key, properties.getProperty(key));
+        }
+      } catch (IOException e) {
+        Logger.warn("Could not read the extension index " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Returns the names of the candidate extension classes of a jar/zip file,
+   * from the index if the file did not change since it was indexed.
+   *
+   * @throws java.util.zip.ZipException if jar is not a zip file
+   */
+  public List<String> getClassNames(File jar) throws IOException {
+    String key = jar.getAbsolutePath();
+    String stamp = jar.length() + ";" + jar.lastModified() + ";";
+    String entry = entries.get(key);
+    if (entry == null || !entry.startsWith(stamp)) {
+      List<String> classNames;
+      try (ZipFile zipFile = new ZipFile(jar)) {
+        classNames = classNames(zipFile);
+      }
+      StringBuilder sb = new StringBuilder(stamp);
+      for (int i = 0; i < classNames.size(); i++) {
+        sb.append(i == 0 ? "" : ",").append(classNames.get(i));
+      }
+      entry = sb.toString();
+      entries.put(key, entry);
+      modified = true;
+    }
+    used.put(key, entry);
+    String names = entry.substring(stamp.length());
+    return names.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(names.split(","));
+  }
+
+  /**
+   * Writes the index to its file if it changed, dropping the jars which were
+   * not looked up during this run.
+   */
+  public void save() {
+    if (file == null || (!modified && used.size() == entries.size())) {
+      return;
+    }
+    Properties properties = new Properties();
+    properties.putAll(used);
+    try (OutputStream out = new FileOutputStream(file)) {
+      properties.store(out, "OpenJUMP extension class index");
+      modified = false;
+    } catch (IOException e) {
+      Logger.warn("Could not write the extension index " + file, e);
+    }
+  }
+
+  /**
+   * list all class names in the zip file that end with Extension or Configuration
+   */
+  static List<String> classNames(ZipFile zipFile) {
+    List<String> classNames = new ArrayList<>();
+    for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements();) {
+      ZipEntry entry = e.nextElement();
+      if (entry.isDirectory() || !CLASS_PATTERN.matcher(entry.getName()).matches()) {
+        continue;
+      }
+      String className = entry.getName();
+      className = className.substring(0, className.length() - ".class".length());
+      classNames.add(className.replace('/', '.'));
+    }
+    return classNames;
+  }
+}
@@ -0,0 +1,78 @@
+package com.vividsolutions.jump.workbench.plugin;
+
+import com.vividsolutions.jump.util.StringUtil;
+import com.vividsolutions.jump.workbench.WorkbenchContext;
+
+/**
+ * Stands for a plug-in declared with lazy="true" in the workbench properties.
+ * Its menu entries are installed from the name, icon and menupath settings of
+ * the workbench properties, and the plug-in class is only loaded, instantiated
+ * and initialized when one of them is used for the first time.
+ * <br>Until then, the menu entries are always enabled : the enable check of the
+ * plug-in is applied once it is loaded (see
+ * {@link AbstractPlugIn#toActionListener}), and its shortcuts are registered
+ * then.
+ */
+public class LazyPlugIn implements PlugIn, EnableChecked {
+
+  private final String className;
+  private final ClassLoader classLoader;
+  private final WorkbenchContext workbenchContext;
+  private PlugIn plugIn;
+
+  public LazyPlugIn(String className, ClassLoader classLoader,
+      WorkbenchContext workbenchContext) {
+    this.className = className;
+    this.classLoader = classLoader;
+    this.workbenchContext = workbenchContext;
+  }
+
+  /**
+   * the name of the plug-in class, which is the key of the plug-in settings in
+   * the workbench properties
+   */
+  public String getPlugInClassName() {
+    return className;
+  }
+
+  public synchronized boolean isLoaded() {
+    return plugIn != null;
+  }
+
+  /**
+   * Returns the plug-in, loaded and initialized on the first call.
+   */
+  public synchronized PlugIn getPlugIn() throws Exception {
+    if (plugIn == null) {
+      PlugIn p = PlugInManager.newPlugIn(className, classLoader);
+      p.initialize(workbenchContext.createPlugInContext());
+      AbstractPlugIn.registerShortcuts(p);
+      plugIn = p;
+    }
+    return plugIn;
+  }
+
+  /**
+   * Does nothing, the plug-in is initialized by {@link #getPlugIn()}.
+   */
+  public void initialize(PlugInContext context) throws Exception {
+  }
+
+  public boolean execute(PlugInContext context) throws Exception {
+    return getPlugIn().execute(context);
+  }
+
+  public synchronized String getName() {
+    return plugIn != null ? plugIn.getName() : StringUtil.toFriendlyName(className, "PlugIn");
+  }
+
+  public EnableCheck getEnableCheck() {
+    return component -> {
+      EnableCheck check;
+      synchronized (this) {
+        check = plugIn != null ? AbstractPlugIn.getEnableCheck(plugIn) : null;
+      }
+      return check != null ? check.check(component) : null;
+    };
+  }
+}
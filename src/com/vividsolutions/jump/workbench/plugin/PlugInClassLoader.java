@@ -14,6 +14,11 @@ import java.util.List;
 
 public class PlugInClassLoader extends URLClassLoader {
 
+  static {
+    // classes are preloaded by several threads at once (see PlugInManager)
+    ClassLoader.registerAsParallelCapable();
+  }
+
   public PlugInClassLoader(ClassLoader parent) {
     super(new URL[0], parent);
     // up to java8 we could get the classpath from the app classloader
@@ -45,6 +50,13 @@ public class PlugInClassLoader extends URLClassLoader {
    */
   @Override
   public Class<?> loadClass(String name) throws ClassNotFoundException {
+    // prevent two threads from defining the same class
+    synchronized (getClassLoadingLock(name)) {
+      return loadClassLocked(name);
+    }
+  }
+
+  private Class<?> loadClassLocked(String name) {
     // if (name.matches("(?i).*PlugInClassLoader"))
     // System.out.println("foo");
     Class<?> c = findLoadedClass(name);
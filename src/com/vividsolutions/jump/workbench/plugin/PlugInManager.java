@@ -38,6 +38,11 @@ import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -46,23 +51,36 @@ import org.locationtech.jts.util.Assert;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.JUMPException;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.util.StringUtil;
 import com.vividsolutions.jump.util.Timer;
 import com.vividsolutions.jump.workbench.Logger;
+import com.vividsolutions.jump.workbench.StartupProfiler;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.WorkbenchProperties;
 import com.vividsolutions.jump.workbench.ui.cursortool.CursorTool;
 import com.vividsolutions.jump.workbench.ui.cursortool.CursorToolPluginWrapper;
 import com.vividsolutions.jump.workbench.ui.plugin.FeatureInstaller;
+import com.vividsolutions.jump.workbench.ui.plugin.PersistentBlackboardPlugIn;
 
 /**
  * Loads plug-ins (or more precisely, Extensions), and any JAR files that they
  * depend on, from the plug-in directory.
+ * <p>The extension jars are scanned in parallel (see {@link ExtensionIndex}),
+ * then the extensions they contain are instantiated and configured one after
+ * the other, in a stable order. With the extensions.parallel.on system
+ * property, extensions are instantiated by a background thread, in parallel,
+ * while the plug-ins of the workbench properties are initialized : this is
+ * faster, but only safe if the static initializers of the extensions don't
+ * depend on each other or on the plug-ins.
+ * Plug-ins declared with lazy="true" are installed in their menus from the
+ * workbench properties and loaded on first use (see {@link LazyPlugIn}).</p>
  */
 public class PlugInManager {
     private static final String NOT_INITIALIZED = "com.vividsolutions.jump.workbench.plugin.PlugInManager.could-not-be-initialized";
     private static final String LOADING = "com.vividsolutions.jump.workbench.plugin.PlugInManager.loading";
     private static final String LOADING_ERROR = "com.vividsolutions.jump.workbench.plugin.PlugInManager.throwable-encountered-loading";
+    private static final String INDEX_FILE_NAME = "extension-index.properties";
 
     private TaskMonitor monitor;
     private WorkbenchContext context;
@@ -166,25 +184,44 @@ public class PlugInManager {
     // and
     // plugins/extensions defined in workbench properties (developers use this)
     public void load() throws Exception {
+      FutureTask<Object[]> extensions = null;
+      if (isParallel()) {
+        // instantiate the extensions in the background while the plugins are
+        // initialized
+        final List<String> classNames = findConfigurationClassNames();
+        extensions = new FutureTask<>(() -> newConfigurations(classNames,
+            ParallelUtil.getDefaultParallelism()));
+        Thread thread = new Thread(extensions, "PlugInManager-extensions");
+        thread.setDaemon(true);
+        thread.start();
+      }
+
       // load plugins from workbench-properties
       loadPlugIns(context.getWorkbench().getProperties());
-  
-      long start;
-  
-      // Find the configurations right away so they get reported to the splash
-      // screen ASAP. [Jon Aquino]
-      if (!extensionDirs.isEmpty()) {
-        start = Timer.milliSecondsSince(0);
-        for (File dir : extensionDirs) {
-          configurations.addAll(findConfigurations(dir));
+
+      long start = Timer.milliSecondsSince(0);
+      Object[] found;
+      if (extensions == null) {
+        found = newConfigurations(findConfigurationClassNames(), 1);
+      } else {
+        try {
+          found = extensions.get();
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
         }
-        Logger.info("Finding all OJ extensions took "
-            + Timer.secondsSinceString(start) + "s");
       }
-  
-      configurations.addAll(findConfigurations(context.getWorkbench()
-          .getProperties().getConfigurationClassNames()));
-  
+      for (Object o : found) {
+        // errors are reported here so that the error handler is never called
+        // by several threads at once
+        if (o instanceof Configuration) {
+          configurations.add((Configuration) o);
+        } else if (o instanceof Throwable) {
+          context.getErrorHandler().handleThrowable((Throwable) o);
+        }
+      }
+      Logger.info("Getting all OJ extensions took "
+          + Timer.secondsSinceString(start) + "s");
+
       start = Timer.milliSecondsSince(0);
       loadConfigurations();
       Logger.info("Loading all OJ extensions took "
@@ -204,6 +241,8 @@ public class PlugInManager {
         monitor.report(I18N.get(LOADING) + " " + name(configuration) + " "
             + version(configuration));
         long start = Timer.milliSecondsSince(0);
+        StartupProfiler.Measure measure = StartupProfiler.begin(
+            StartupProfiler.EXTENSION, configuration.getClass().getName());
         try {
           // we used the plugin classloader to instantiate extensions already above
           configuration.configure(pc);
@@ -217,6 +256,9 @@ public class PlugInManager {
           context.getWorkbench().getFrame()
               .log(configuration.getClass().getName() + " " + I18N.get(NOT_INITIALIZED), this.getClass());
         }
+        finally {
+          StartupProfiler.end(measure);
+        }
       }
     }
     
@@ -226,73 +268,41 @@ public class PlugInManager {
       Map<String, Map<String, String>> pluginSettings = props
           .getSettings(new String[]{WorkbenchProperties.KEY_PLUGIN});
 
+      final List<String> classNames = new ArrayList<>();
       for (String className : pluginSettings.keySet()) {
-//        System.out.println(i++ + "/"+ className);
         String initSetting = pluginSettings.get(className).get(
             WorkbenchProperties.ATTR_INITIALIZE);
         if (initSetting instanceof String
             && initSetting.equals(WorkbenchProperties.ATTR_VALUE_FALSE))
           continue;
+        if (WorkbenchProperties.ATTR_VALUE_TRUE.equals(pluginSettings.get(
+            className).get(WorkbenchProperties.ATTR_LAZY))) {
+          if (installLazily(props, className, pc))
+            continue;
+          Logger.warn("Plugin " + className + " can't be loaded lazily, a "
+              + WorkbenchProperties.ATTR_NAME + " is required for each menu.");
+        }
+        classNames.add(className);
+      }
 
+      // plugins are initialized in order in this thread, but their classes
+      // can be loaded and verified beforehand by other threads
+      preloadClasses(classNames);
+
+      for (String className : classNames) {
+//        System.out.println(i++ + "/"+ className);
         monitor.report(I18N.get(LOADING) + " " + className);
 
-        Class plugInClass = null;
+        StartupProfiler.Measure measure = StartupProfiler.begin(
+            StartupProfiler.PLUGIN, className);
         try {
           long start = Timer.milliSecondsSince(0);
 
-          // make sure we use the plugin classloader for plugins
-          plugInClass = classLoader.loadClass(className);
-          if (plugInClass == null)
-            throw new JUMPException("class '"+className+"' is not available in the class path!");
-
-          Object o = plugInClass.newInstance();
-          PlugIn plugIn;
-          if (o instanceof CursorTool) {
-            plugIn = new CursorToolPluginWrapper((CursorTool) o);
-          } else {
-            plugIn = (PlugIn) o;
-          }
+          PlugIn plugIn = newPlugIn(className, classLoader);
 
           plugIn.initialize(pc);
 
-          // get plugin's menu settings
-          Map<String, Map> menuSettings = props.getSettings(new String[] {
-              WorkbenchProperties.KEY_PLUGIN, className,
-              WorkbenchProperties.KEY_MENUS});
-
-          // interpret menu settings
-          for (Map.Entry<String, Map> entry : menuSettings.entrySet()) {
-
-            String menuKey = entry.getKey();
-            if (pc.getFeatureInstaller().fetchMenuForKey(menuKey)==null){
-              if (menuKey != "order_id")
-                Logger.error("'"+menuKey+"' is an invalid menu handle.");
-
-              continue;
-            }
-
-            // install me to menu?
-            String installSetting = props.getSetting(new String[] {
-                WorkbenchProperties.KEY_PLUGIN, className,
-                WorkbenchProperties.KEY_MENUS,
-                menuKey,
-                WorkbenchProperties.ATTR_INSTALL});
-//            String orderSetting = props.getSetting(new String[] {
-//                WorkbenchProperties.KEY_PLUGIN, className,
-//                WorkbenchProperties.KEY_MENUS,
-//                menuKey,
-//                WorkbenchProperties.ATTR_ORDERID});
-            // log (order) info
-//            context
-//                .getWorkbench()
-//                .getFrame()
-//                .log(
-//                    "install " + className + " to " + menuKey + " = "
-//                        + installSetting + " with orderid = " + orderSetting);
-            // install, or not
-            if (installSetting.equals(WorkbenchProperties.ATTR_VALUE_TRUE))
-              pc.getFeatureInstaller().addMenuPlugin(menuKey, plugIn);
-          }
+          installMenus(props, className, plugIn, pc);
 
           // register shortcuts of plugins
           AbstractPlugIn.registerShortcuts(plugIn);
@@ -308,10 +318,118 @@ public class PlugInManager {
           context.getErrorHandler().handleThrowable(e);
           context.getWorkbench().getFrame()
               .log(className + " " + I18N.get(NOT_INITIALIZED), this.getClass());
+        } finally {
+          StartupProfiler.end(measure);
         }
       }
     }
 
+    /**
+     * Instantiates a plugin, cursor tools being wrapped into a plugin.
+     */
+    static PlugIn newPlugIn(String className, ClassLoader classLoader) throws Exception {
+      // make sure we use the plugin classloader for plugins
+      Class plugInClass = classLoader.loadClass(className);
+      if (plugInClass == null)
+        throw new JUMPException("class '"+className+"' is not available in the class path!");
+
+      Object o = plugInClass.newInstance();
+      if (o instanceof CursorTool) {
+        return new CursorToolPluginWrapper((CursorTool) o);
+      }
+      return (PlugIn) o;
+    }
+
+    private void preloadClasses(final List<String> classNames) {
+      try {
+        ParallelUtil.forEachChunk(classNames.size(), 16,
+            ParallelUtil.getDefaultParallelism(), null, (start, end) -> {
+              for (int i = start; i < end; i++) {
+                try {
+                  Class.forName(classNames.get(i), false, classLoader);
+                } catch (Throwable t) {
+                  // reported when the plugin is loaded
+                }
+              }
+            });
+      } catch (Exception e) {
+        Logger.warn(e);
+      }
+    }
+
+    /**
+     * Installs a LazyPlugIn in the menus of a plugin, if a name is defined in
+     * the workbench properties for each of them.
+     * @return false if the plugin must be loaded to be installed
+     */
+    private boolean installLazily(WorkbenchProperties props, String className,
+        PlugInContext pc) {
+      Map<String, Map> menuSettings = props.getSettings(new String[] {
+          WorkbenchProperties.KEY_PLUGIN, className,
+          WorkbenchProperties.KEY_MENUS});
+      boolean installed = false;
+      for (String menuKey : menuSettings.keySet()) {
+        if (pc.getFeatureInstaller().fetchMenuForKey(menuKey) == null)
+          continue;
+        String[] keys = new String[] {WorkbenchProperties.KEY_PLUGIN,
+            className, WorkbenchProperties.KEY_MENUS, menuKey, null};
+        keys[4] = WorkbenchProperties.ATTR_INSTALL;
+        if (!props.getSetting(keys).equals(WorkbenchProperties.ATTR_VALUE_TRUE))
+          continue;
+        keys[4] = WorkbenchProperties.ATTR_NAME;
+        if (props.getSetting(keys).isEmpty())
+          return false;
+        installed = true;
+      }
+      if (!installed)
+        return false;
+      installMenus(props, className, new LazyPlugIn(className, classLoader,
+          context), pc);
+      return true;
+    }
+
+    private void installMenus(WorkbenchProperties props, String className,
+        PlugIn plugIn, PlugInContext pc) {
+      // get plugin's menu settings
+      Map<String, Map> menuSettings = props.getSettings(new String[] {
+          WorkbenchProperties.KEY_PLUGIN, className,
+          WorkbenchProperties.KEY_MENUS});
+
+      // interpret menu settings
+      for (Map.Entry<String, Map> entry : menuSettings.entrySet()) {
+
+        String menuKey = entry.getKey();
+        if (pc.getFeatureInstaller().fetchMenuForKey(menuKey)==null){
+          if (menuKey != "order_id")
+            Logger.error("'"+menuKey+"' is an invalid menu handle.");
+
+          continue;
+        }
+
+        // install me to menu?
+        String installSetting = props.getSetting(new String[] {
+            WorkbenchProperties.KEY_PLUGIN, className,
+            WorkbenchProperties.KEY_MENUS,
+            menuKey,
+            WorkbenchProperties.ATTR_INSTALL});
+//            String orderSetting = props.getSetting(new String[] {
+//                WorkbenchProperties.KEY_PLUGIN, className,
+//                WorkbenchProperties.KEY_MENUS,
+//                menuKey,
+//                WorkbenchProperties.ATTR_ORDERID});
+        // log (order) info
+//            context
+//                .getWorkbench()
+//                .getFrame()
+//                .log(
+//                    "install " + className + " to " + menuKey + " = "
+//                        + installSetting + " with orderid = " + orderSetting);
+        // install, or not
+        if (installSetting.equals(WorkbenchProperties.ATTR_VALUE_TRUE))
+          pc.getFeatureInstaller().addMenuPlugin(menuKey, plugIn);
+      }
+    }
+
     public static String name(Configuration configuration) {
         if (configuration instanceof Extension) {
             return ((Extension) configuration).getName();
@@ -336,30 +454,67 @@ public class PlugInManager {
   }
 
     /**
-     * filter all Configurations from a list of class names
-     * @param classNames name of Configuration classes
-     * @return a collection of Configurations
+     * Returns true if the extensions are instantiated in parallel, while the
+     * plugins are initialized. Enabled by the extensions.parallel.on system
+     * property.
      */
-    private Collection<Configuration> findConfigurations(List<String> classNames) {
-      List<Configuration> configurations = new ArrayList<>();
-      for (Iterator i = classNames.iterator(); i.hasNext();) {
-        String name = (String) i.next();
-        
-        try {
-          // find class using the plugin classloader
-          Class clazz = Class.forName(name, false, classLoader);
-          if ( Configuration.class.isAssignableFrom(clazz) ) {
-            Configuration configuration = (Configuration) clazz.newInstance();
-            configurations.add(configuration);
-          }
-        } 
-        // make sure ClassVersionErrors or such do not break OJ startup
-        catch (Throwable t) {
-          context.getErrorHandler().handleThrowable(t);
-          continue;
+    protected boolean isParallel() {
+      return System.getProperty("extensions.parallel.on") != null;
+    }
+
+    /**
+     * list the candidate Configuration class names of the extension folders
+     * and of the workbench properties
+     */
+    private List<String> findConfigurationClassNames() throws Exception {
+      long start = Timer.milliSecondsSince(0);
+      final List<String> classNames = new ArrayList<>();
+      if (!extensionDirs.isEmpty()) {
+        File indexFile = new File(PersistentBlackboardPlugIn.getPersistenceDirectory(),
+            INDEX_FILE_NAME);
+        ExtensionIndex index = new ExtensionIndex(indexFile);
+        for (File dir : extensionDirs) {
+          classNames.addAll(findConfigurations(dir, index));
         }
+        index.save();
+        Logger.info("Finding all OJ extensions took "
+            + Timer.secondsSinceString(start) + "s");
       }
-      return configurations;
+      classNames.addAll(context.getWorkbench().getProperties()
+          .getConfigurationClassNames());
+      return classNames;
+    }
+
+    /**
+     * Instantiates the Configurations of a list of class names.
+     * @param parallelism the number of threads instantiating them, 1 to
+     *   instantiate them in the calling thread
+     * @return for each class name, in order, the Configuration, a Throwable
+     *   if it could not be instantiated or null if it is not a Configuration
+     */
+    private Object[] newConfigurations(final List<String> classNames,
+        int parallelism) throws Exception {
+      long start = Timer.milliSecondsSince(0);
+      final Object[] results = new Object[classNames.size()];
+      ParallelUtil.forEachChunk(classNames.size(), 1,
+          parallelism, null, (from, to) -> {
+            for (int i = from; i < to; i++) {
+              try {
+                // find class using the plugin classloader
+                Class clazz = Class.forName(classNames.get(i), false, classLoader);
+                if (Configuration.class.isAssignableFrom(clazz)) {
+                  results[i] = clazz.newInstance();
+                }
+              }
+              // make sure ClassVersionErrors or such do not break OJ startup
+              catch (Throwable t) {
+                results[i] = t;
+              }
+            }
+          });
+      Logger.info("Instantiating all OJ extensions took "
+          + Timer.secondsSinceString(start) + "s");
+      return results;
     }
 
     static FileFilter jarfilter = new FileFilter(){
@@ -387,27 +542,56 @@ public class PlugInManager {
         return files;
     }
 
-    private Collection findConfigurations(File plugInDirectory) throws Exception {
-      ArrayList configurations = new ArrayList();
-      long start;
-      for (Iterator i = findFilesRecursively( plugInDirectory, false ).iterator(); i.hasNext();) {
-        start = Timer.milliSecondsSince(0);
-        File file = (File) i.next();
-        String msg = I18N.getMessage(
-            "com.vividsolutions.jump.workbench.plugin.PlugInManager.scan",
-            new String[] { file.getName() });
-        monitor.report(msg);
-        try {
-          // add all extensions contained in this zip file
-          configurations.addAll(findConfigurations(classNames(new ZipFile(file))));
-        } catch (ZipException e) {
-          // Might not be a zipfile. Eat it. [Jon Aquino]
+    /**
+     * list the candidate Configuration class names of the jar files of a
+     * directory, scanning the jar files in parallel. Each jar file is reported
+     * to the monitor, by the calling thread, while its scan is awaited.
+     */
+    private List<String> findConfigurations(File plugInDirectory,
+        final ExtensionIndex index) throws Exception {
+      final List<File> files = new ArrayList<>(findFilesRecursively(plugInDirectory, false));
+      List<String> result = new ArrayList<>();
+      if (files.isEmpty()) {
+        return result;
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(
+          Math.min(files.size(), ParallelUtil.getDefaultParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "PlugInManager-scan");
+            thread.setDaemon(true);
+            return thread;
+          });
+      try {
+        List<Future<List<String>>> classNames = new ArrayList<>(files.size());
+        for (final File file : files) {
+          classNames.add(executor.submit(() -> {
+            long start = Timer.milliSecondsSince(0);
+            try {
+              // add all extensions contained in this zip file
+              return index.getClassNames(file);
+            } catch (ZipException e) {
+              // Might not be a zipfile. Eat it. [Jon Aquino]
+              return Collections.<String>emptyList();
+            } finally {
+              Logger.info("Scanning " + file + " took " + Timer.secondsSinceString(start)
+                  + "s");
+            }
+          }));
+        }
+        for (int i = 0; i < files.size(); i++) {
+          String msg = I18N.getMessage(
+              "com.vividsolutions.jump.workbench.plugin.PlugInManager.scan",
+              new String[] { files.get(i).getName() });
+          monitor.report(msg);
+          try {
+            result.addAll(classNames.get(i).get());
+          } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+          }
         }
-        Logger.info("Scanning " + file + " took " + Timer.secondsSinceString(start)
-            + "s");
+      } finally {
+        executor.shutdownNow();
       }
-  
-      return configurations;
+      return result;
     }
 
     private URL[] toURLs(Collection<File> files) {
@@ -448,29 +632,6 @@ public class PlugInManager {
         return classes;
     }
 
-    /**
-     * list all class names in the zip file that end with Extension or Configuration
-     */
-    private List<String> classNames(ZipFile zipFile) 
-    {
-        ArrayList<String> classNames = new ArrayList();
-        for (Enumeration e = zipFile.entries(); e.hasMoreElements();) {
-            ZipEntry entry = (ZipEntry) e.nextElement();
-            // Filter by filename; otherwise we'll be loading all the classes,
-            // which takes significantly longer [Jon Aquino]
-            // no $ ensures that inner classes are ignored as well [ede]
-            // Include "Configuration" for backwards compatibility. [Jon Aquino]
-            if (!(entry.getName().matches("[^$]+(Extension|Configuration)\\.class"))
-                  || entry.isDirectory()) {
-                continue;
-            }
-            String name = toClassName(entry, classLoader);
-            classNames.add(name);
-        }
-        
-        return classNames;
-    }
-
     private Class toClass(ZipEntry entry, ClassLoader classLoader) 
     {
         String className = entry.getName();
@@ -494,16 +655,6 @@ public class PlugInManager {
         return candidate;
     }
 
-    private String toClassName(ZipEntry entry, ClassLoader classLoader) 
-    {
-        String className = entry.getName();
-        className = className.substring(0, className.length()
-                - ".class".length());
-        className = StringUtil.replaceAll(className, "/", ".");
-
-        return className;
-    }
-
     public Collection getConfigurations() {
         return Collections.unmodifiableCollection(configurations);
     }
@@ -118,7 +118,14 @@ public class LayerTableModel extends ColumnBasedTableModel {
             if (e.getType() == FeatureEventType.DELETED) {
                 removeAll(e.getFeatures());
             }
-            if (e.getType() == FeatureEventType.ATTRIBUTES_MODIFIED) {
+            if (e.getType() == FeatureEventType.ATTRIBUTES_MODIFIED &&
+                    e.getFeatures().size() > 1) {
+                // e.g. a batch of modifications : refresh all the rows at
+                // once rather than looking up each feature
+                if (getRowCount() > 0) {
+                    fireTableChanged(new TableModelEvent(LayerTableModel.this, 0, getRowCount() - 1));
+                }
+            } else if (e.getType() == FeatureEventType.ATTRIBUTES_MODIFIED) {
                 for (Iterator i = e.getFeatures().iterator(); i.hasNext();) {
                     Feature feature = (Feature) i.next();
                     int row = getFeatures().indexOf(feature);
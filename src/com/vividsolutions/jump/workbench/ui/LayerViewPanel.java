@@ -493,9 +493,12 @@ public class LayerViewPanel extends JPanel
 			if (! deferLayerEvents)
 			{
 				if ((e.getType() == LayerEventType.ADDED)
-						|| (e.getType() == LayerEventType.REMOVED)
-						|| (e.getType() == LayerEventType.APPEARANCE_CHANGED)) {
+						|| (e.getType() == LayerEventType.REMOVED)) {
 					renderingManager.render(e.getLayerable());
+				} else if (e.getType() == LayerEventType.APPEARANCE_CHANGED) {
+					// Only the tiles intersecting the dirty envelope are
+					// rendered again
+					renderingManager.render(e.getLayerable(), e.getDirtyEnvelope());
 				} else if (e.getType() == LayerEventType.VISIBILITY_CHANGED) {
 					renderingManager.render(e.getLayerable(), false);
 				} else {
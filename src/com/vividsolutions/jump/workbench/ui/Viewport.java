@@ -83,6 +83,20 @@ public class Viewport implements Java2DConverter.PointConverter {
         });
     }
 
+    /**
+     * Creates a Viewport which does not follow the panel size nor record a
+     * zoom history, used to render an area of the model off-screen.
+     * Subclasses must override {@link #getModelToViewTransform()} and
+     * {@link #getEnvelopeInModelCoordinates()}.
+     */
+    protected Viewport(LayerViewPanel panel, double scale,
+            Point2D viewOriginAsPerceivedByModel) {
+        this.panel = panel;
+        this.scale = scale;
+        this.viewOriginAsPerceivedByModel = viewOriginAsPerceivedByModel;
+        java2DConverter = new Java2DConverter(this);
+    }
+
     public LayerViewPanel getPanel() {
         return panel;
     }
@@ -83,6 +83,7 @@ import com.vividsolutions.jump.workbench.plugin.EnableCheck;
 import com.vividsolutions.jump.workbench.plugin.EnableCheckFactory;
 import com.vividsolutions.jump.workbench.plugin.EnableChecked;
 import com.vividsolutions.jump.workbench.plugin.Iconified;
+import com.vividsolutions.jump.workbench.plugin.LazyPlugIn;
 import com.vividsolutions.jump.workbench.plugin.MultiEnableCheck;
 import com.vividsolutions.jump.workbench.plugin.PlugIn;
 import com.vividsolutions.jump.workbench.plugin.ShortcutEnabled;
@@ -1221,15 +1222,18 @@ public class FeatureInstaller {
 
     WorkbenchProperties wbProps = workbenchContext.getWorkbench()
         .getProperties();
+    // lazy plugins are configured under the name of the class they stand for
+    String className = plugin instanceof LazyPlugIn ? ((LazyPlugIn) plugin)
+        .getPlugInClassName() : plugin.getClass().getName();
     // get setting if defined in workbenchproperties
     String setting = wbProps.getSetting(new String[] {
-        WorkbenchProperties.KEY_PLUGIN, plugin.getClass().getName(),
+        WorkbenchProperties.KEY_PLUGIN, className,
         WorkbenchProperties.KEY_MENUS, menu_key, attribute_key });
     
     // retry with plugin orderid if menu is unconfigured
     if (setting.isEmpty() && attribute_key.equals(WorkbenchProperties.ATTR_ORDERID)){
       setting = wbProps.getSetting(new String[] {
-          WorkbenchProperties.KEY_PLUGIN, plugin.getClass().getName(), attribute_key });
+          WorkbenchProperties.KEY_PLUGIN, className, attribute_key });
     }
 
     return setting;
@@ -44,6 +44,7 @@ import org.openjump.core.ui.plugin.file.OpenProjectPlugIn;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.workbench.JUMPWorkbench;
 import com.vividsolutions.jump.workbench.Logger;
+import com.vividsolutions.jump.workbench.StartupProfiler;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.plugin.AbstractPlugIn;
 import com.vividsolutions.jump.workbench.plugin.PlugInContext;
@@ -75,6 +76,9 @@ public class FirstTaskFramePlugIn extends AbstractPlugIn {// AbstractPlugIn {
         // will throw an IllegalComponentStateException. [Jon Aquino]
         // UT skip this; see 1st if there is a filename available
         // if so, load it
+        // (threaded loaders only start here, they are not profiled)
+        StartupProfiler.Measure measure = StartupProfiler.begin(
+            StartupProfiler.PHASE, "first-task");
         String filename = (String) context.getWorkbenchContext()
             .getBlackboard().get(JUMPWorkbench.INITIAL_PROJECT_FILE);
         File f;
@@ -129,6 +133,7 @@ public class FirstTaskFramePlugIn extends AbstractPlugIn {// AbstractPlugIn {
         // always open at least one first task
         if (!(context.getWorkbenchFrame().getActiveTaskFrame() instanceof TaskFrame))
           context.getWorkbenchFrame().addTaskFrame();
+        StartupProfiler.end(measure);
 
         context.getWorkbenchFrame().removeComponentListener(componentListener);
       }
@@ -87,6 +87,9 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
     private final static String MIN_ANGLE = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.minimum-angle-in-degrees");
     private final static String MIN_POLYGON_AREA = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.minimum-polygon-area");    
     private final static String CHECK_MIN_POLYGON_AREA = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.check-minimum-polygon-area");
+    private final static String CHECK_NO_OVERLAPS = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.disallow-overlapping-polygons");
+    private final static String CHECK_NO_GAPS = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.disallow-gaps-between-polygons");
+    private final static String MAX_GAP_AREA = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.maximum-gap-area");
     private final static String DISALLOW_POINTS = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.disallow-points");
     private final static String DISALLOW_LINESTRINGS = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.disallow-linestrings");
     private final static String DISALLOW_POLYGONS = I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.disallow-polygons");
@@ -184,6 +187,9 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
         validator.setMinSegmentLength(dialog.getDouble(MIN_SEGMENT_LENGTH));
         validator.setMinAngle(dialog.getDouble(MIN_ANGLE));
         validator.setMinPolygonArea(dialog.getDouble(MIN_POLYGON_AREA));
+        validator.setCheckingNoOverlaps(dialog.getBoolean(CHECK_NO_OVERLAPS));
+        validator.setCheckingNoGaps(dialog.getBoolean(CHECK_NO_GAPS));
+        validator.setMaxGapArea(dialog.getDouble(MAX_GAP_AREA));
 
         List<Class> disallowedGeometryClasses = new ArrayList<>();
 
@@ -222,6 +228,8 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
 
     private void validate(final Layer layer, final Validator validator,
         PlugInContext context, TaskMonitor monitor) {
+        // error layers are built once, after the validation, as the layers
+        // being rendered must not be modified from this thread
         List validationErrors = validator.validate(layer.getFeatureCollectionWrapper()
                                                         .getFeatures(), monitor);
 
@@ -370,6 +378,9 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
             5);
         dialog.addCheckBox(CHECK_GEOMETRIES_SIMPLE, false,
         		I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.check-that-geometries-are-simple"));
+        dialog.addCheckBox(CHECK_NO_OVERLAPS, false);
+        dialog.addCheckBox(CHECK_NO_GAPS, false);
+        dialog.addPositiveDoubleField(MAX_GAP_AREA, 1, 5);
         //dialog.startNewColumn();
         dialog.setRightPane();
         dialog.addLabel("<HTML><STRONG>"+I18N.get("ui.plugin.ValidateSelectedLayersPlugIn.geometry-types-validation")+"</STRONG></HTML>");
@@ -45,7 +45,6 @@ import javax.swing.JMenuItem;
 
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.operation.union.UnaryUnionOp;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.AttributeType;
 import com.vividsolutions.jump.feature.Feature;
@@ -55,6 +54,8 @@ import com.vividsolutions.jump.feature.FeatureDatasetFactory;
 import com.vividsolutions.jump.feature.FeatureSchema;
 import com.vividsolutions.jump.feature.FeatureUtil;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.tools.UnionEngine;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
 import com.vividsolutions.jump.workbench.plugin.AbstractPlugIn;
@@ -153,7 +154,7 @@ public class UnionPlugIn extends AbstractPlugIn implements ThreadedPlugIn {
         }
         
         Collection geoms = FeatureUtil.toGeometries(a.getFeatures());
-        Geometry g = UnaryUnionOp.union(geoms);
+        Geometry g = UnionEngine.union(geoms, ParallelUtil.getDefaultParallelism());
         geoms.clear();
         geoms.add(g);
         FeatureCollection fc = FeatureDatasetFactory.createFromGeometry(geoms);
@@ -20,6 +20,7 @@ import com.vividsolutions.jump.workbench.datastore.ConnectionDescriptor;
 import com.vividsolutions.jump.workbench.datastore.ConnectionManager;
 import com.vividsolutions.jump.workbench.model.cache.CachingFeatureCollection;
 import com.vividsolutions.jump.workbench.model.cache.DynamicFeatureCollection;
+import com.vividsolutions.jump.workbench.model.cache.TiledCachingFeatureCollection;
 import com.vividsolutions.jump.workbench.ui.plugin.WorkbenchContextReference;
 
 /**
@@ -165,13 +166,19 @@ public class DataStoreDataSource extends DataStoreQueryDataSource implements
         String queryString = conn.getSqlBuilder(srid, colNames).getSQL(query);
         getProperties().put(SQL_QUERY_KEY, queryString);
         
-        return new CachingFeatureCollection(new DynamicFeatureCollection(
+        DynamicFeatureCollection dynamicFeatureCollection = new DynamicFeatureCollection(
                 (ConnectionDescriptor) getProperties().get(
                         CONNECTION_DESCRIPTOR_KEY), ConnectionManager
-                        .instance(context), query))
-                .setCachingByEnvelope(((Boolean) LangUtil.ifNull(
-                        getProperties().get(CACHING_KEY), Boolean.TRUE))
-                        .booleanValue());
+                        .instance(context), query);
+        boolean caching = ((Boolean) LangUtil.ifNull(
+                getProperties().get(CACHING_KEY), Boolean.TRUE)).booleanValue();
+        // The limit of features applies to each view, which tiles can't honour
+        if (caching && getProperties().get(MAX_FEATURES_KEY) == null
+                && TiledCachingFeatureCollection.isEnabled()) {
+            return new TiledCachingFeatureCollection(dynamicFeatureCollection);
+        }
+        return new CachingFeatureCollection(dynamicFeatureCollection)
+                .setCachingByEnvelope(caching);
     }
 
     protected WorkbenchContext getWorkbenchContext() {
@@ -60,6 +60,8 @@ import com.vividsolutions.wms.MapLayer;
 
 public class EditWMSQueryPlugIn extends AbstractPlugIn {
 
+    private static final String TILED = "ui.plugin.wms.EditWMSQueryPlugIn.tiled";
+
     public MultiEnableCheck createEnableCheck(
             final WorkbenchContext workbenchContext) {
         EnableCheckFactory checkFactory = new EnableCheckFactory(
@@ -97,6 +99,8 @@ public class EditWMSQueryPlugIn extends AbstractPlugIn {
                 I18N.get("ui.plugin.wms.EditWMSQueryPlugIn.chosen-layers"),
                 new JLabel(""), panel, panel.getEnableChecks(), "",
                 AbstractMultiInputDialog.NO_LABEL, GridBagConstraints.BOTH);
+        dialog.addCheckBox(I18N.get(TILED), layer.isTiled(),
+                I18N.get("ui.plugin.wms.EditWMSQueryPlugIn.tiled-tooltip"));
         dialog.pack();
         GUIUtil.centreOnWindow(dialog);
         dialog.setVisible(true);
@@ -115,6 +119,7 @@ public class EditWMSQueryPlugIn extends AbstractPlugIn {
             layer.setStyle(panel.getStyle());
             layer.setAlpha(panel.getAlpha());
             layer.setWmsVersion(panel.getService().getVersion());
+            layer.setTiled(dialog.getBoolean(I18N.get(TILED)));
             layer.setName(panel.getChosenMapLayers().get(0).getTitle());
 
             layer.fireAppearanceChanged();
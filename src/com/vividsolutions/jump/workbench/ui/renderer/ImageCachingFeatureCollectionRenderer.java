@@ -36,6 +36,10 @@ public class ImageCachingFeatureCollectionRenderer extends ImageCachingRenderer
 		this.styles = styles;
 	}
 
+	protected Collection getStyles() {
+		return styles;
+	}
+
 	protected void renderHook(ThreadSafeImage image, Collection features,
 			Layer layer, final Style style) throws Exception {
 		if (!layer.isVisible()) {
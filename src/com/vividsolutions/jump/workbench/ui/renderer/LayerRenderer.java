@@ -55,7 +55,7 @@ public class LayerRenderer extends FeatureCollectionRenderer {
 
     public LayerRenderer(final Layer layer, LayerViewPanel panel) {
         //Use layer as the contentID [Jon Aquino]
-        super(layer, panel, new ImageCachingFeatureCollectionRenderer(layer,
+        super(layer, panel, new TileCachingFeatureCollectionRenderer(layer,
                 panel) {
             protected ThreadSafeImage getImage() {
                 if (!layer.isVisible()) {
@@ -32,10 +32,15 @@
 
 package com.vividsolutions.jump.workbench.ui.renderer;
 
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.model.Layerable;
 import com.vividsolutions.jump.workbench.ui.GUIUtil;
 import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
 
+import org.locationtech.jts.geom.Envelope;
+
 import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -80,12 +85,19 @@ public class RenderingManager {
 
   private Map<Object,Renderer.Factory> contentIDToHighRendererFactoryMap = new LinkedHashMap<>();
 
+  // Tiles survive the Renderers, which are replaced when a rendering is
+  // cancelled
+  private Map<Object,TileCache> contentIDToTileCacheMap = new HashMap<>();
+
   /**
    * There's no performance advantage to rendering dozens of non-WMS or
    * non-database layers in parallel. In fact, it will make the GUI less
    * responsive. [Jon Aquino]
+   * Rendering is CPU bound for these layers, so use at most one thread
+   * per processor.
    */
-  private ThreadQueue defaultRendererThreadQueue = new ThreadQueue(1);
+  private ThreadQueue defaultRendererThreadQueue = new ThreadQueue(
+      Runtime.getRuntime().availableProcessors());
 
   /**
    * WMS and database processing are done on the server side, so allow these
@@ -130,8 +142,7 @@ public class RenderingManager {
 	 * @param mode : INTERACTIVE, SINGLE_THREAD_QUEUE, or EXECUTE_ON_EVENT_THREAD
 	 */
 	public void setRenderingMode(int mode){
-		renderingMode = mode;
-		notifyWhenDone = null;
+		setRenderingMode(null, mode);
 	}
 	/**
 	 * Set the rendering mode
@@ -142,6 +153,8 @@ public class RenderingManager {
 	public void setRenderingMode(Runnable notify, int mode){
 		renderingMode = mode;
 		notifyWhenDone = notify;
+		defaultRendererThreadQueue.setMaxRunningThreads(
+				mode == SINGLE_THREAD_QUEUE ? 1 : Runtime.getRuntime().availableProcessors());
 	}
 
 	/**
@@ -199,7 +212,7 @@ public class RenderingManager {
     }
 
     if (notifyWhenDone != null) {
-        defaultRendererThreadQueue.add(notifyWhenDone);
+        defaultRendererThreadQueue.addWhenIdle(notifyWhenDone);
     }
   }
 
@@ -228,6 +241,44 @@ public class RenderingManager {
     render(contentID, true);
   }
 
+  /**
+   * Renders contentID after a change located in dirtyEnvelope. Cached tiles
+   * outside this area are reused.
+   * @param contentID the contentID, generally a Layerable
+   * @param dirtyEnvelope the modified area, or null if the whole content
+   *                      must be rendered again
+   */
+  public void render(Object contentID, Envelope dirtyEnvelope) {
+    TileCache tileCache;
+    synchronized (this) {
+      tileCache = contentIDToTileCacheMap.get(contentID);
+    }
+    if (tileCache != null && contentID instanceof Layer) {
+      if (dirtyEnvelope == null) {
+        tileCache.clear();
+      } else {
+        FeatureCollection fc = ((Layer) contentID).getFeatureCollectionWrapper()
+            .getUltimateWrappee();
+        tileCache.invalidate(dirtyEnvelope, fc instanceof FeatureDataset ?
+            ((FeatureDataset) fc).getModificationCount() : 0);
+      }
+    }
+    render(contentID, true);
+  }
+
+  /**
+   * @param contentID a Layer
+   * @return the cache of the tiles rendered for contentID
+   */
+  public synchronized TileCache getTileCache(Object contentID) {
+    TileCache tileCache = contentIDToTileCacheMap.get(contentID);
+    if (tileCache == null) {
+      tileCache = new TileCache(panel);
+      contentIDToTileCacheMap.put(contentID, tileCache);
+    }
+    return tileCache;
+  }
+
   public void render(Object contentID, boolean clearImageCache) {
 
     if (getRenderer(contentID) == null) {
@@ -251,16 +302,18 @@ public class RenderingManager {
       // Before I would create threads that did nothing. Now I never do
       // that -- I just return null. A dozen threads that do nothing make
       // the system sluggish. [Jon Aquino]
+      // A job still waiting for the same contentID is stale : the new
+      // one supersedes it.
       if ((getRenderingMode() == INTERACTIVE)){
-            ((contentID instanceof Layerable && ((Layerable) contentID)
-                    .getBlackboard().get(USE_MULTI_RENDERING_THREAD_QUEUE_KEY,
-                            false)) ? multiRendererThreadQueue
-                    : defaultRendererThreadQueue).add(runnable);
+            getThreadQueue(contentID).add(runnable, contentID,
+                    getRenderingPriority(contentID));
       }
       else  {
           //run all renders sequentially
           if ((getRenderingMode() == SINGLE_THREAD_QUEUE)){
-              defaultRendererThreadQueue.add(runnable);  //in a single background thread
+              //in a single background thread
+              defaultRendererThreadQueue.add(runnable, contentID,
+                      getRenderingPriority(contentID));
           } else { //EXECUTE_ON_EVENT_THREAD
               try {
                   GUIUtil.invokeOnEventThread(runnable);  //in the Event Thread
@@ -279,6 +332,39 @@ public class RenderingManager {
     }
   }
 
+  private ThreadQueue getThreadQueue(Object contentID) {
+    return contentID instanceof Layerable && ((Layerable) contentID)
+        .getBlackboard().get(USE_MULTI_RENDERING_THREAD_QUEUE_KEY, false) ?
+        multiRendererThreadQueue : defaultRendererThreadQueue;
+  }
+
+  /**
+   * Returns the priority of the rendering job of this contentID. Jobs with
+   * the lowest value are run first : renderers which are not Layerables
+   * (selection...), then visible layers, then other layers.
+   * @param contentID the contentID, generally a Layerable
+   * @return the rendering priority of contentID
+   */
+  protected int getRenderingPriority(Object contentID) {
+    if (!(contentID instanceof Layerable)) {
+      return ThreadQueue.HIGHEST_PRIORITY;
+    }
+    return ((Layerable) contentID).isVisible() ?
+        ThreadQueue.HIGHEST_PRIORITY + 1 : ThreadQueue.HIGHEST_PRIORITY + 2;
+  }
+
+  /**
+   * Returns the time spent by the last rendering job of this contentID,
+   * waiting in the queue and running, which helps to find the layers
+   * slowing the map redraw down.
+   * @param contentID the contentID, generally a Layerable
+   * @return the Timing of the last rendering job, or null if contentID
+   * has not been rendered in a background thread yet
+   */
+  public ThreadQueue.Timing getRenderingTiming(Object contentID) {
+    return getThreadQueue(contentID).getTiming(contentID);
+  }
+
   public void repaintPanel() {
     if (!paintingEnabled) {
       return;
@@ -375,6 +461,12 @@ public class RenderingManager {
     // The ThreadSafeImage cached in each Renderer consumes 1 MB of memory,
     // according to OptimizeIt [Jon Aquino]
     contentIDToRendererMap.clear();
+    synchronized (this) {
+      for (TileCache tileCache : contentIDToTileCacheMap.values()) {
+        tileCache.clear();
+      }
+      contentIDToTileCacheMap.clear();
+    }
   }
 
   public LayerViewPanel getPanel() {
@@ -410,6 +502,13 @@ public class RenderingManager {
    */
   public void removeLayerRenderer(Object contentID) {
     contentIDToRendererMap.remove(contentID);
+    TileCache tileCache;
+    synchronized (this) {
+      tileCache = contentIDToTileCacheMap.remove(contentID);
+    }
+    if (tileCache != null) {
+      tileCache.clear();
+    }
   }
 
   /**
@@ -27,10 +27,22 @@
  * (250)385-6040
  * www.vividsolutions.com
  */
+
 package com.vividsolutions.jump.workbench.ui.renderer;
 
-import java.util.LinkedList;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vividsolutions.jump.workbench.Logger;
 
 /**
  * This thread queue executes at maximum N Runnables in parallel
@@ -40,6 +52,12 @@ import java.util.ArrayList;
  * If a worker thread becomes idle (no more job in the queue)
  * it is hold alive for 5 seconds. If during this period of time 
  * no new Runnable is enqueued the worker thread dies.
+ * <p>
+ * Runnables may be added with a key and a priority. Waiting jobs are run by
+ * increasing priority value, then in the order they were added. Adding a job
+ * with the key of a job which is still waiting supersedes the waiting job,
+ * which is dropped without being run. The time spent by the last job of each
+ * key, waiting in the queue and running, is recorded.
  *
  * @author Sascha L. Teichmann (sascha.teichmann@intevation.de)
  */
@@ -48,64 +66,104 @@ public class ThreadQueue
 	/** The time a worker thread stays alive if idle */
 	public static final long WORKER_STAY_ALIVE_TIME = 5000L;
 
+	/** Priority of the jobs to run first */
+	public static final int HIGHEST_PRIORITY = 0;
+
+	/** Priority of the jobs added without priority */
+	public static final int LOWEST_PRIORITY = Integer.MAX_VALUE;
+
+	private static final AtomicInteger queueCount = new AtomicInteger();
+
+	private static final AtomicLong jobCount = new AtomicLong();
+
+	/**
+	 * Time spent by a job waiting in the queue and running.
+	 */
+	public static class Timing {
+		private final long waitingTime;
+		private final long runningTime;
+
+		Timing(long waitingTime, long runningTime) {
+			this.waitingTime = waitingTime;
+			this.runningTime = runningTime;
+		}
+
+		/** @return the time in milliseconds the job has been waiting in the queue */
+		public long getWaitingTime() {
+			return waitingTime;
+		}
+
+		/** @return the time in milliseconds the job has been running */
+		public long getRunningTime() {
+			return runningTime;
+		}
+
+		public String toString() {
+			return "waiting " + waitingTime + " ms, running " + runningTime + " ms";
+		}
+	} // class Timing
+
 	/**
-	 * Worker thread. Fetches Runnable from the surrounding 
-	 * ThreadQueue instance.
+	 * Job wrapping a Runnable, ordered by priority, then by sequence number.
 	 */
-	protected class Worker 
-	extends         Thread
+	protected class Job
+	implements      Runnable, Comparable<Job>
 	{
+		final Runnable runnable;
+		final Object key;
+		final int priority;
+		final long sequence = jobCount.incrementAndGet();
+		final long queuedTime = System.currentTimeMillis();
+		volatile boolean superseded;
+
+		Job(Runnable runnable, Object key, int priority) {
+			this.runnable = runnable;
+			this.key = key;
+			this.priority = priority;
+		}
+
+		public int compareTo(Job job) {
+			if (priority != job.priority) {
+				return priority < job.priority ? -1 : 1;
+			}
+			return Long.compare(sequence, job.sequence);
+		}
+
 		public void run() {
 			try {
-				for (;;) {
-					Runnable runnable;
-
-					synchronized (queuedRunnables) {
-						if (queuedRunnables.isEmpty()) {
-
-							++waitingThreads;
-							try {
-								queuedRunnables.wait(WORKER_STAY_ALIVE_TIME);
-							}
-							catch (InterruptedException ie) {
-							}
-							finally {
-								--waitingThreads;
-							}
-
-							// if still empty -> die!
-							if (queuedRunnables.isEmpty())
-								break;
+				if (key != null) {
+					synchronized (queuedJobs) {
+						if (queuedJobs.get(key) == this) {
+							queuedJobs.remove(key);
 						}
-						if (disposed)
-							break;
-						runnable = (Runnable)queuedRunnables.remove();
-					} // synchronized queuedRunnables
-
-					try {
-						runnable.run();
-					}
-					catch (Exception e) {
-						e.printStackTrace();
 					}
-
-					// check if we are the last of the mohicans ...
-					boolean lastRunningThread;
-					synchronized (runningThreads) {
-						lastRunningThread = runningThreads[0] == 1;
+				}
+				if (superseded || disposed) {
+					return;
+				}
+				long start = System.currentTimeMillis();
+				try {
+					runnable.run();
+				}
+				catch (Exception e) {
+					Logger.error(e);
+				}
+				if (key != null) {
+					Timing timing = new Timing(start - queuedTime,
+						System.currentTimeMillis() - start);
+					synchronized (timings) {
+						timings.put(key, timing);
 					}
-					if (lastRunningThread) {
-						fireAllRunningThreadsFinished();
+					if (Logger.isTraceEnabled()) {
+						Logger.trace("Job " + key + " : " + timing);
 					}
-				} // for (;;)
-			}
-			finally { // guarantee that counter goes down
-				synchronized (runningThreads) {
-					--runningThreads[0];
 				}
 			}
+			finally {
+				jobFinished(1);
+			}
 		}
-	} // class Worker
+	} // class Job
 
 	/**
 	 * If the number of running threads goes down to zero
@@ -115,20 +173,26 @@ public class ThreadQueue
 		void allRunningThreadsFinished();
 	} // interface Listener
 
-	/** Number of running threads */
-	protected int [] runningThreads = new int[1];
-
 	/** max. Number of threads running parallel */
 	protected int maxRunningThreads;
 
-	/** Number of threads that are currently idle */
-	protected int waitingThreads;
+	/** Number of jobs waiting or running, guarded by queuedJobs */
+	protected int pendingJobs;
 
-	/** The queue of Runnables jobs waiting to be run */
-	protected final LinkedList queuedRunnables;
+	/** The pool of worker threads and its queue of waiting jobs */
+	protected final ThreadPoolExecutor executor;
+
+	/** Waiting jobs by key */
+	protected final Map<Object,Job> queuedJobs = new HashMap<>();
+
+	/** Timing of the last job run for each key */
+	protected final Map<Object,Timing> timings = new WeakHashMap<>();
+
+	/** Runnables to run as soon as the queue is idle */
+	protected final List<Runnable> idleRunnables = new ArrayList<>();
 
 	/** Singals that the ThreadQueue is going to quit */
-	protected boolean disposed;
+	protected volatile boolean disposed;
 
 	/** List of Listeners */
 	protected ArrayList listeners = new ArrayList();
@@ -145,7 +209,43 @@ public class ThreadQueue
 	 */
 	public ThreadQueue(int maxRunningThreads) {
 		this.maxRunningThreads = Math.max(1, maxRunningThreads);
-		queuedRunnables = new LinkedList();
+		final String name = "ThreadQueue-" + queueCount.incrementAndGet();
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(
+			this.maxRunningThreads, this.maxRunningThreads,
+			WORKER_STAY_ALIVE_TIME, TimeUnit.MILLISECONDS,
+			new PriorityBlockingQueue<Runnable>(),
+			runnable -> {
+				Thread thread = new Thread(runnable,
+					name + "-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Changes the max. number of threads running parallel.
+	 * @param maxRunningThreads the max. number of threads to be run parallel.
+	 */
+	public synchronized void setMaxRunningThreads(int maxRunningThreads) {
+		maxRunningThreads = Math.max(1, maxRunningThreads);
+		if (maxRunningThreads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(maxRunningThreads);
+			executor.setCorePoolSize(maxRunningThreads);
+		}
+		else {
+			executor.setCorePoolSize(maxRunningThreads);
+			executor.setMaximumPoolSize(maxRunningThreads);
+		}
+		this.maxRunningThreads = maxRunningThreads;
+	}
+
+	/**
+	 * @return the max. number of threads running parallel.
+	 */
+	public int getMaxRunningThreads() {
+		return maxRunningThreads;
 	}
 
 	/**
@@ -177,14 +277,41 @@ public class ThreadQueue
 			((Listener)copy.get(i)).allRunningThreadsFinished();
 	}
 
+	/**
+	 * Counts down finished or dropped jobs. When no job is pending anymore,
+	 * runnables waiting for the queue to be idle are queued and listeners
+	 * are informed.
+	 */
+	protected void jobFinished(int count) {
+		List<Runnable> runnables = null;
+		synchronized (queuedJobs) {
+			pendingJobs -= count;
+			if (pendingJobs > 0 || disposed) {
+				return;
+			}
+			if (!idleRunnables.isEmpty()) {
+				runnables = new ArrayList<>(idleRunnables);
+				idleRunnables.clear();
+			}
+		}
+		if (runnables != null) {
+			for (Runnable runnable : runnables) {
+				add(runnable);
+			}
+		}
+		else {
+			fireAllRunningThreadsFinished();
+		}
+	}
 
 	/**
-	 * The number of currently running worker threads.
+	 * The number of worker threads which are busy or about to be busy
+	 * with a waiting job.
 	 * @return number of currently running worker threads.
 	 */
 	public int runningThreads() {
-		synchronized (runningThreads) {
-			return runningThreads[0];
+		synchronized (queuedJobs) {
+			return Math.min(pendingJobs, maxRunningThreads);
 		}
 	}
 
@@ -202,9 +329,7 @@ public class ThreadQueue
 	 * @return number of currently waiting Runnables.
 	 */
 	public int waitingRunnables() {
-		synchronized (runningThreads) {
-			return queuedRunnables.size();
-		}
+		return executor.getQueue().size();
 	}
 
 	/**
@@ -212,46 +337,104 @@ public class ThreadQueue
 	 * @return number of currently idle worker threads.
 	 */
 	public int waitingThreads() {
-		synchronized (queuedRunnables) {
-			return waitingThreads;
-		}
+		return Math.max(0, executor.getPoolSize() - executor.getActiveCount());
 	}
 
 	/**
 	 * Adds a Runnables to the queue. It will be run in one
-	 * of the worker threads.
+	 * of the worker threads, after the jobs with a higher priority.
 	 * @param runnable The Runnables to add
 	 */
 	public void add(Runnable runnable) {
-		int waiting;
-		synchronized (queuedRunnables) {
+		add(runnable, null, LOWEST_PRIORITY);
+	}
+
+	/**
+	 * Adds a Runnable to the queue. If a job added with the same key
+	 * is still waiting, it is dropped.
+	 * @param runnable The Runnable to add
+	 * @param key the key identifying the content processed by the runnable,
+	 *            may be null
+	 * @param priority jobs with the lowest priority value run first
+	 */
+	public void add(Runnable runnable, Object key, int priority) {
+		Job job = new Job(runnable, key, priority);
+		synchronized (queuedJobs) {
 			if (disposed)
 				return;
-			waiting = waitingThreads;
-			queuedRunnables.add(runnable);
-			queuedRunnables.notify();
-		}  // synchronized (queuedRunnables)
+			++pendingJobs;
+			if (key != null) {
+				Job previous = queuedJobs.put(key, job);
+				if (previous != null) {
+					previous.superseded = true;
+					// if the worker already took it, it will count it down
+					if (executor.getQueue().remove(previous)) {
+						--pendingJobs;
+					}
+				}
+			}
+		}
+		try {
+			executor.execute(job);
+		}
+		catch (RejectedExecutionException ree) {
+			// the queue has been disposed in the meantime
+			jobFinished(1);
+		}
+	}
 
-		synchronized (runningThreads) {
+	/**
+	 * Runs a Runnable in one of the worker threads as soon as no job
+	 * is waiting or running anymore.
+	 * @param runnable The Runnable to run when the queue is idle
+	 */
+	public void addWhenIdle(Runnable runnable) {
+		synchronized (queuedJobs) {
+			if (disposed)
+				return;
+			if (pendingJobs > 0) {
+				idleRunnables.add(runnable);
+				return;
+			}
+		}
+		add(runnable);
+	}
 
-			// if waitingThreads == 1 then
-			// the queuedRunnables.notify() should have waked it up.
+	/**
+	 * Returns the timing of the last job added with this key.
+	 * @param key the key of the job
+	 * @return the Timing of the last job, or null if no job has been run
+	 * for this key
+	 */
+	public Timing getTiming(Object key) {
+		synchronized (timings) {
+			return timings.get(key);
+		}
+	}
 
-			if (waitingThreads < 2 && runningThreads[0] < maxRunningThreads) {
-				++runningThreads[0];
-				Worker w = new Worker();
-				w.setDaemon(true);
-				w.start();
-			}
-		} // synchronized (runningThreads)
+	/**
+	 * Returns the timing of the last job run for each key.
+	 * @return a copy of the timings by key
+	 */
+	public Map<Object,Timing> getTimings() {
+		synchronized (timings) {
+			return new HashMap<>(timings);
+		}
 	}
 
 	/**
-	 * Empties the queue of waiting Runnables.
+	 * Empties the queue of waiting Runnables. The dropped jobs are counted
+	 * down as finished ones, so that listeners and runnables waiting for the
+	 * queue to be idle are run if no job is running anymore.
 	 */
 	public void clear() {
-		synchronized (queuedRunnables) {
-			queuedRunnables.clear();
+		List<Runnable> dropped = new ArrayList<>();
+		synchronized (queuedJobs) {
+			executor.getQueue().drainTo(dropped);
+			queuedJobs.clear();
+		}
+		if (!dropped.isEmpty()) {
+			jobFinished(dropped.size());
 		}
 	}
 
@@ -259,12 +442,12 @@ public class ThreadQueue
 	 * Shuts down the ThreadQueue.
 	 */
 	public void dispose() {
-		synchronized (queuedRunnables) {
+		synchronized (queuedJobs) {
 			disposed = true;
-			queuedRunnables.clear();
-			// wakeup idle threads
-			queuedRunnables.notifyAll();
+			idleRunnables.clear();
 		}
+		clear();
+		executor.shutdown();
 		synchronized (this) {
 			listeners.clear();
 		}
@@ -0,0 +1,292 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.workbench.ui.renderer;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
+import com.vividsolutions.jump.workbench.ui.Viewport;
+
+/**
+ * Cache of rendered tiles for one content (generally a Layer) of a
+ * LayerViewPanel.
+ *
+ * <p>The model is divided into a grid of square tiles of {@link #TILE_SIZE}
+ * pixels for each scale level, so that panning only requires the newly
+ * exposed tiles to be rendered. Tiles are shared in a least recently used
+ * cache common to all TileCaches, bounded by the number of tiles (see
+ * {@link #setMaxTiles(int)}).</p>
+ *
+ * <p>Tiles intersecting a modified area are discarded by
+ * {@link #invalidate(Envelope, int)}. A tile rendered while the cache was
+ * invalidated is not cached.</p>
+ */
+public class TileCache {
+
+  /** Width and height of a tile in pixels */
+  public static final int TILE_SIZE = 128;
+
+  /**
+   * Number of pixels around a tile in which features are still rendered,
+   * so that symbols and thick lines of features located just outside the
+   * tile are not cut at the tile border.
+   */
+  public static final int TILE_MARGIN = 32;
+
+  /** Relative difference under which two scales share the same tiles */
+  private static final double SCALE_TOLERANCE = 1E-6;
+
+  private static final int MAX_LEVELS = 16;
+
+  private static int maxTiles = Integer.getInteger("renderer.tile.cache.size",
+      (int) Math.max(256, Math.min(4096,
+          Runtime.getRuntime().maxMemory() / 16 / (TILE_SIZE * TILE_SIZE * 4))));
+
+  // Tiles of all TileCaches, in access order
+  private static final LinkedHashMap<Key,BufferedImage> TILES =
+      new LinkedHashMap<Key,BufferedImage>(64, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Key,BufferedImage> eldest) {
+          return size() > maxTiles;
+        }
+      };
+
+  private final LayerViewPanel panel;
+
+  // Scales of the tile grids, most recently used first
+  private final List<Double> levels = new ArrayList<>();
+
+  private long generation = 0;
+
+  private int modificationCount;
+
+  public TileCache(LayerViewPanel panel) {
+    this.panel = panel;
+  }
+
+  /**
+   * Sets the maximum number of tiles kept in memory by all TileCaches.
+   * @param maxTiles maximum number of tiles
+   */
+  public static void setMaxTiles(int maxTiles) {
+    synchronized (TILES) {
+      TileCache.maxTiles = Math.max(1, maxTiles);
+      Iterator<Key> it = TILES.keySet().iterator();
+      while (TILES.size() > TileCache.maxTiles && it.hasNext()) {
+        it.next();
+        it.remove();
+      }
+    }
+  }
+
+  public static int getMaxTiles() {
+    return maxTiles;
+  }
+
+  /**
+   * Returns the scale of the tile grid to use to render the view at this
+   * scale. Scales differing only by rounding errors (e.g. after a pan)
+   * share the same grid.
+   * @param scale the scale of the viewport
+   * @return the scale of the tile grid
+   */
+  public synchronized double getLevel(double scale) {
+    for (int i = 0 ; i < levels.size() ; i++) {
+      double level = levels.get(i);
+      if (Math.abs(level - scale) <= level * SCALE_TOLERANCE) {
+        if (i > 0) {
+          levels.add(0, levels.remove(i));
+        }
+        return level;
+      }
+    }
+    levels.add(0, scale);
+    if (levels.size() > MAX_LEVELS) {
+      levels.remove(levels.size() - 1);
+    }
+    return scale;
+  }
+
+  /**
+   * Returns a token to pass to {@link #put} for tiles rendered from now on.
+   * @param modificationCount the modification count of the rendered data;
+   *                          if it differs from the one the cache has been
+   *                          updated with, all tiles are discarded
+   * @return the current generation of the cache
+   */
+  public synchronized long getGeneration(int modificationCount) {
+    if (modificationCount != this.modificationCount) {
+      clear();
+      this.modificationCount = modificationCount;
+    }
+    return generation;
+  }
+
+  /**
+   * @return the tile (column, row) of the grid of this level, or null if it
+   * is not in the cache
+   */
+  public BufferedImage get(double level, long column, long row) {
+    synchronized (TILES) {
+      return TILES.get(new Key(this, level, column, row));
+    }
+  }
+
+  /**
+   * Caches a tile, unless the cache has been invalidated since generation
+   * has been obtained.
+   */
+  public synchronized void put(double level, long column, long row,
+        BufferedImage tile, long generation) {
+    if (generation != this.generation) {
+      return;
+    }
+    synchronized (TILES) {
+      TILES.put(new Key(this, level, column, row), tile);
+    }
+  }
+
+  /**
+   * Discards the tiles intersecting envelope, at all levels.
+   * @param envelope the modified area in model coordinates
+   * @param modificationCount the modification count of the data once this
+   *                          change has been applied
+   */
+  public synchronized void invalidate(Envelope envelope, int modificationCount) {
+    generation++;
+    this.modificationCount = modificationCount;
+    synchronized (TILES) {
+      for (Iterator<Key> it = TILES.keySet().iterator() ; it.hasNext() ; ) {
+        Key key = it.next();
+        if (key.cache == this && getEnvelope(key.level, key.column, key.row,
+            TILE_MARGIN).intersects(envelope)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Discards all the tiles of this cache.
+   */
+  public synchronized void clear() {
+    generation++;
+    synchronized (TILES) {
+      TILES.keySet().removeIf(key -> key.cache == this);
+    }
+  }
+
+  /**
+   * @return the index of the grid column or row containing the model
+   * ordinate at this level
+   */
+  public static long index(double ordinate, double level) {
+    return (long) Math.floor(ordinate * level / TILE_SIZE);
+  }
+
+  /**
+   * @return the envelope in model coordinates of tile (column, row) of the
+   * grid of this level, expanded by margin pixels
+   */
+  public static Envelope getEnvelope(double level, long column, long row, int margin) {
+    return new Envelope(
+        (column * TILE_SIZE - margin) / level,
+        ((column + 1) * TILE_SIZE + margin) / level,
+        (row * TILE_SIZE - margin) / level,
+        ((row + 1) * TILE_SIZE + margin) / level);
+  }
+
+  /**
+   * @return a Viewport to render the block of columns x rows tiles whose
+   * lower left tile is (column, row) into a single image of
+   * columns * TILE_SIZE x rows * TILE_SIZE pixels
+   */
+  public Viewport createTileViewport(double level, long column, long row,
+        int columns, int rows) {
+    return new TileViewport(panel, level, column, row, columns, rows);
+  }
+
+  /**
+   * Viewport whose view is a block of tiles. Geometries are clipped to the
+   * block expanded by TILE_MARGIN.
+   */
+  private static class TileViewport extends Viewport {
+
+    private final AffineTransform modelToViewTransform;
+    private final Envelope envelope;
+
+    TileViewport(LayerViewPanel panel, double level, long column, long row,
+          int columns, int rows) {
+      super(panel, level, new Point2D.Double(column * TILE_SIZE / level,
+          row * TILE_SIZE / level));
+      modelToViewTransform = Viewport.modelToViewTransform(level,
+          getOriginInModelCoordinates(), rows * TILE_SIZE);
+      envelope = TileCache.getEnvelope(level, column, row, TILE_MARGIN);
+      envelope.expandToInclude(TileCache.getEnvelope(level,
+          column + columns - 1, row + rows - 1, TILE_MARGIN));
+    }
+
+    public AffineTransform getModelToViewTransform() {
+      return modelToViewTransform;
+    }
+
+    public Envelope getEnvelopeInModelCoordinates() {
+      // Styles may modify the returned envelope
+      return new Envelope(envelope);
+    }
+  }
+
+  private static class Key {
+    final TileCache cache;
+    final double level;
+    final long column;
+    final long row;
+
+    Key(TileCache cache, double level, long column, long row) {
+      this.cache = cache;
+      this.level = level;
+      this.column = column;
+      this.row = row;
+    }
+
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) return false;
+      Key other = (Key) o;
+      return cache == other.cache && level == other.level &&
+          column == other.column && row == other.row;
+    }
+
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(level);
+      int result = System.identityHashCode(cache);
+      result = 31 * result + (int) (bits ^ (bits >>> 32));
+      result = 31 * result + (int) (column ^ (column >>> 32));
+      result = 31 * result + (int) (row ^ (row >>> 32));
+      return result;
+    }
+  }
+}
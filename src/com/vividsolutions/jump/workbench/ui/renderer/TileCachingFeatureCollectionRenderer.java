@@ -0,0 +1,227 @@
+package com.vividsolutions.jump.workbench.ui.renderer;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.workbench.model.Layer;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
+import com.vividsolutions.jump.workbench.ui.Viewport;
+import com.vividsolutions.jump.workbench.ui.renderer.style.BasicStyle;
+import com.vividsolutions.jump.workbench.ui.renderer.style.ColorThemingStyle;
+import com.vividsolutions.jump.workbench.ui.renderer.style.LineStringStyle;
+import com.vividsolutions.jump.workbench.ui.renderer.style.Style;
+import com.vividsolutions.jump.workbench.ui.renderer.style.VertexStyle;
+
+/**
+ * ImageCachingFeatureCollectionRenderer rendering a Layer through the
+ * {@link TileCache} of the layer, so that panning only renders the newly
+ * exposed tiles, and editing only renders the tiles containing the modified
+ * features.
+ * <p>
+ * Tiles are only used for in-memory layers whose enabled styles paint each
+ * feature independently of the viewport extent. Other layers (labels,
+ * database layers...) are rendered as a single image.
+ * @see TileCache
+ */
+public class TileCachingFeatureCollectionRenderer extends ImageCachingFeatureCollectionRenderer {
+
+	// Styles whose rendering of a feature does not depend on the other
+	// features nor on the viewport extent
+	private static final List<Class> TILEABLE_STYLE_CLASSES = new ArrayList<>();
+	static {
+		addTileableStyleClass(BasicStyle.class);
+		addTileableStyleClass(ColorThemingStyle.class);
+		addTileableStyleClass(LineStringStyle.class);
+		addTileableStyleClass(VertexStyle.class);
+	}
+
+	private final Layer layer;
+
+	public TileCachingFeatureCollectionRenderer(Layer layer, LayerViewPanel panel) {
+		super(layer, panel);
+		this.layer = layer;
+	}
+
+	/**
+	 * Declares that a Style class (and its subclasses) can be rendered in tiles.
+	 * @param styleClass a Style class painting a feature independently of the
+	 * other features and of the viewport extent
+	 */
+	public static void addTileableStyleClass(Class styleClass) {
+		synchronized (TILEABLE_STYLE_CLASSES) {
+			TILEABLE_STYLE_CLASSES.add(styleClass);
+		}
+	}
+
+	private static boolean isTileable(Style style) {
+		if (!style.isEnabled()) {
+			return true;
+		}
+		synchronized (TILEABLE_STYLE_CLASSES) {
+			for (Class styleClass : TILEABLE_STYLE_CLASSES) {
+				if (styleClass.isInstance(style)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the layer can be rendered in tiles
+	 */
+	protected boolean useTiles() {
+		if (!(layer.getFeatureCollectionWrapper().getUltimateWrappee() instanceof FeatureDataset)) {
+			return false;
+		}
+		for (Iterator i = getStyles().iterator(); i.hasNext();) {
+			if (!isTileable((Style) i.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	protected void renderHook(ThreadSafeImage image) throws Exception {
+		if (!layer.isVisible()) {
+			return;
+		}
+		if (!useTiles()) {
+			super.renderHook(image);
+			return;
+		}
+		TileCache cache = panel.getRenderingManager().getTileCache(layer);
+		FeatureDataset dataset = (FeatureDataset) layer.getFeatureCollectionWrapper().getUltimateWrappee();
+		long generation = cache.getGeneration(dataset.getModificationCount());
+		Viewport viewport = panel.getViewport();
+		double level = cache.getLevel(viewport.getScale());
+		Envelope view = viewport.getEnvelopeInModelCoordinates();
+		long minColumn = TileCache.index(view.getMinX(), level);
+		long maxColumn = TileCache.index(view.getMaxX(), level);
+		long minRow = TileCache.index(view.getMinY(), level);
+		long maxRow = TileCache.index(view.getMaxY(), level);
+		for (Iterator i = getStyles().iterator(); i.hasNext();) {
+			Style style = (Style) i.next();
+			if (style.isEnabled()) {
+				style.initialize(layer);
+			}
+		}
+		// View coordinates of the grid origin, rounded once so that the
+		// tiles are drawn side by side
+		Point2D origin = viewport.getOriginInModelCoordinates();
+		long x0 = Math.round(-origin.getX() * level);
+		long y0 = Math.round(panel.getHeight() + origin.getY() * level);
+		// Render the block of tiles containing the missing ones at once,
+		// which is faster than rendering the features overlapping several
+		// tiles several times, and draw the cached tiles outside this block
+		long minMissingColumn = Long.MAX_VALUE, maxMissingColumn = Long.MIN_VALUE;
+		long minMissingRow = Long.MAX_VALUE, maxMissingRow = Long.MIN_VALUE;
+		for (long row = minRow; row <= maxRow; row++) {
+			for (long column = minColumn; column <= maxColumn; column++) {
+				if (cache.get(level, column, row) == null) {
+					minMissingColumn = Math.min(minMissingColumn, column);
+					maxMissingColumn = Math.max(maxMissingColumn, column);
+					minMissingRow = Math.min(minMissingRow, row);
+					maxMissingRow = Math.max(maxMissingRow, row);
+				}
+			}
+		}
+		for (long row = maxRow; row >= minRow; row--) {
+			for (long column = minColumn; column <= maxColumn; column++) {
+				if (column >= minMissingColumn && column <= maxMissingColumn &&
+						row >= minMissingRow && row <= maxMissingRow) {
+					continue;
+				}
+				BufferedImage tile = cache.get(level, column, row);
+				if (tile != null) {
+					drawTile(image, tile, x0 + column * TileCache.TILE_SIZE,
+							y0 - (row + 1) * TileCache.TILE_SIZE);
+				}
+			}
+		}
+		if (minMissingColumn > maxMissingColumn || cancelled) {
+			return;
+		}
+		int columns = (int) (maxMissingColumn - minMissingColumn + 1);
+		int rows = (int) (maxMissingRow - minMissingRow + 1);
+		BufferedImage block = renderBlock(layer.getFeatureCollectionWrapper(),
+				cache.createTileViewport(level, minMissingColumn, minMissingRow, columns, rows),
+				columns * TileCache.TILE_SIZE, rows * TileCache.TILE_SIZE);
+		if (block == null) {
+			return;
+		}
+		for (int j = 0; j < rows; j++) {
+			for (int i = 0; i < columns; i++) {
+				// Copy the tile, so that the block can be garbage collected
+				BufferedImage tile = new BufferedImage(TileCache.TILE_SIZE,
+						TileCache.TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+				block.getSubimage(i * TileCache.TILE_SIZE,
+						(rows - 1 - j) * TileCache.TILE_SIZE,
+						TileCache.TILE_SIZE, TileCache.TILE_SIZE).copyData(tile.getRaster());
+				long column = minMissingColumn + i;
+				long row = minMissingRow + j;
+				cache.put(level, column, row, tile, generation);
+			}
+		}
+		drawTile(image, block, x0 + minMissingColumn * TileCache.TILE_SIZE,
+				y0 - (maxMissingRow + 1) * TileCache.TILE_SIZE);
+	}
+
+	/**
+	 * Renders the features of a block of tiles, or returns null if rendering
+	 * has been cancelled.
+	 */
+	private BufferedImage renderBlock(FeatureCollection featureCollection,
+			Viewport tileViewport, int width, int height) throws Exception {
+		Collection<Feature> features = featureCollection.query(
+				tileViewport.getEnvelopeInModelCoordinates());
+		BufferedImage block = new BufferedImage(width, height,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = block.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			for (Iterator i = getStyles().iterator(); i.hasNext();) {
+				Style style = (Style) i.next();
+				if (!style.isEnabled()) {
+					continue;
+				}
+				for (Feature feature : features) {
+					if (cancelled) {
+						return null;
+					}
+					Geometry geom = feature.getGeometry();
+					if (geom == null || geom.isEmpty()) {
+						continue;
+					}
+					style.paint(feature, g, tileViewport);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+		return block;
+	}
+
+	private void drawTile(ThreadSafeImage image, final BufferedImage tile,
+			long x, long y) throws Exception {
+		final int ix = (int) x;
+		final int iy = (int) y;
+		image.draw(new ThreadSafeImage.Drawer() {
+			public void draw(Graphics2D g) {
+				g.drawImage(tile, ix, iy, null);
+			}
+		});
+	}
+}
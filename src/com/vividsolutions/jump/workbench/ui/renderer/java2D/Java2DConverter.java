@@ -34,6 +34,7 @@
 package com.vividsolutions.jump.workbench.ui.renderer.java2D;
 
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Line2D;
@@ -66,6 +67,9 @@ import org.locationtech.jts.geom.Polygon;
  // Reduced darw times by 60%.
  // 3 - Made toViewCoordinates(Coordinate[]) public to make use
  // of its decimation optimization in AbstractSelectionRenderer.
+ // Lines and rings are decimated per scale band by LevelOfDetail before being
+ // transformed, and appended to the GeneralPath without intermediate
+ // Coordinates.
 public class Java2DConverter {
 	private static double POINT_MARKER_SIZE = 3.0;
 	private PointConverter pointConverter;
@@ -86,16 +90,81 @@ public class Java2DConverter {
 	}
 
 	private Shape toShape(Polygon p) throws NoninvertibleTransformException {
-		ArrayList holeVertexCollection = new ArrayList();
+		ArrayList holePaths = new ArrayList();
 
 		for (int j = 0; j < p.getNumInteriorRing(); j++) {
-			holeVertexCollection.add(
-				toViewCoordinates(p.getInteriorRingN(j).getCoordinates()));
+			holePaths.add(toRingPath(p.getInteriorRingN(j)));
 		}
 
-		return new PolygonShape(
-			toViewCoordinates(p.getExteriorRing().getCoordinates()),
-			holeVertexCollection);
+		return new PolygonShape(toRingPath(p.getExteriorRing()), holePaths);
+	}
+
+	private GeneralPath toRingPath(LineString ring)
+		throws NoninvertibleTransformException {
+		Coordinate[] cc = toLevelOfDetail(ring);
+		GeneralPath path = new GeneralPath(GeneralPath.WIND_EVEN_ODD, cc.length);
+		append(path, cc, 0, cc.length, true);
+		return path;
+	}
+
+	// Coordinates of the line decimated for the current scale band, before
+	// their conversion to view coordinates
+	private Coordinate[] toLevelOfDetail(LineString line)
+		throws NoninvertibleTransformException {
+		return LevelOfDetail.getCoordinates(line, pointConverter.getScale(), decimatorResolution);
+	}
+
+	/**
+	 * Appends the model coordinates cc[start, end[ to path, in view coordinates.
+	 * Vertices closer than decimatorResolution pixels to the previous vertex are
+	 * skipped, and the vertices are transformed without creating intermediate
+	 * Coordinates.
+	 * @param ring if true, or if the first and last coordinates are equal,
+	 *             the last vertex closes the path
+	 */
+	private void append(GeneralPath path, Coordinate[] cc, int start, int end,
+			boolean ring) throws NoninvertibleTransformException {
+		if (end <= start) return;
+		ring = ring || (end - start > 1 && cc[start].equals2D(cc[end - 1]));
+		AffineTransform transform = pointConverter.getModelToViewTransform();
+		double m00 = 0, m01 = 0, m02 = 0, m10 = 0, m11 = 0, m12 = 0;
+		if (transform != null) {
+			m00 = transform.getScaleX();
+			m01 = transform.getShearX();
+			m02 = transform.getTranslateX();
+			m10 = transform.getShearY();
+			m11 = transform.getScaleY();
+			m12 = transform.getTranslateY();
+		}
+		double x0 = 0, y0 = 0;
+		int npts = 0;
+		for (int i = start; i < end; i++) {
+			Coordinate c = cc[i];
+			double x, y;
+			if (transform != null) {
+				x = m00 * c.x + m01 * c.y + m02;
+				y = m10 * c.x + m11 * c.y + m12;
+			} else {
+				Point2D p = pointConverter.toViewPoint(c);
+				x = p.getX();
+				y = p.getY();
+			}
+			boolean last = i == end - 1;
+			if (npts == 0) {
+				path.moveTo(x, y);
+			} else if (last && ring) {
+				// tip from Larry Becker for a better rendering 2007-07-13 [mmichaud]
+				path.closePath();
+			} else if (Math.abs(x - x0) >= decimatorResolution ||
+					Math.abs(y - y0) >= decimatorResolution || npts < 4 || last) {
+				path.lineTo(x, y);
+			} else {
+				continue;
+			}
+			x0 = x;
+			y0 = y;
+			npts++;
+		}
 	}
 
 	public Coordinate[] toViewCoordinates(Coordinate[] modelCoordinates)
@@ -150,7 +219,7 @@ public class Java2DConverter {
 
 		for (int i = 0; i < mls.getNumGeometries(); i++) {
 			LineString lineString = (LineString) mls.getGeometryN(i);
-			path.append(toShape(lineString), false);
+			append(path, toLevelOfDetail(lineString));
 		}
 
 		//BasicFeatureRenderer expects LineStrings and MultiLineStrings to be
@@ -207,34 +276,37 @@ public class Java2DConverter {
 	// the general path
 	private GeneralPath toShape(LineString lineString) 
 	                                    throws NoninvertibleTransformException {
-	    org.locationtech.jts.geom.GeometryFactory gf = lineString.getFactory();
-	    Coordinate[] cc = lineString.getCoordinates();
+	    Coordinate[] cc = toLevelOfDetail(lineString);
 	    GeneralPath shape = new GeneralPath(GeneralPath.WIND_NON_ZERO, cc.length);
-	    org.locationtech.jts.geom.CoordinateList list = new org.locationtech.jts.geom.CoordinateList();
+	    append(shape, cc);
+	    return shape;
+	}
+
+	// Sections of the line intersecting the viewport are appended directly
+	// to the path, from the coordinates decimated for the current scale band
+	private void append(GeneralPath shape, Coordinate[] cc)
+	                                    throws NoninvertibleTransformException {
 	    Envelope view = pointConverter.getEnvelopeInModelCoordinates();
-	    Coordinate c0 = cc[0];
-	    boolean start = true;
+	    double minX = view.getMinX(), maxX = view.getMaxX();
+	    double minY = view.getMinY(), maxY = view.getMaxY();
+	    // index of the first coordinate of the current section, or -1
+	    int start = -1;
 	    for (int i = 1,  max = cc.length ; i < max ; i++) {
+	        Coordinate c0 = cc[i-1];
 	        Coordinate c1 = cc[i];
-	        if (view.intersects(new Envelope(c0, c1))) {
-	            if (start) list.add(c0);
-	            list.add(c1);
-	            start = false;
-	        }
-	        else if (!list.isEmpty()) {
-	            PathIterator pi = new LineStringPath(gf.createLineString(list.toCoordinateArray()), this);
-		        shape.append(pi,false);
-		        list.clear();
-		        start = true;
+	        boolean intersects = Math.min(c0.x, c1.x) <= maxX && Math.max(c0.x, c1.x) >= minX &&
+	                Math.min(c0.y, c1.y) <= maxY && Math.max(c0.y, c1.y) >= minY;
+	        if (intersects) {
+	            if (start < 0) start = i-1;
 	        }
-	        else {/**list empty, do nothing*/}
-	        if (i == max-1 && !list.isEmpty()) {
-	            PathIterator pi = new LineStringPath(gf.createLineString(list.toCoordinateArray()), this);
-		        shape.append(pi,false);
+	        else if (start >= 0) {
+	            append(shape, cc, start, i, false);
+	            start = -1;
 	        }
-	        c0 = c1;
 	    }
-	    return shape;
+	    if (start >= 0) {
+	        append(shape, cc, start, cc.length, false);
+	    }
 	}
 
 	private Shape toShape(Point point) throws NoninvertibleTransformException {
@@ -270,6 +342,15 @@ public class Java2DConverter {
 			throws NoninvertibleTransformException;
 		double getScale() throws NoninvertibleTransformException;
 		Envelope getEnvelopeInModelCoordinates();
+		/**
+		 * Returns the affine transform used by toViewPoint, so that
+		 * coordinates can be transformed without creating a Point2D for each
+		 * of them, or null if toViewPoint is not an affine transform.
+		 */
+		default AffineTransform getModelToViewTransform()
+				throws NoninvertibleTransformException {
+			return null;
+		}
 	}
 
 	/**
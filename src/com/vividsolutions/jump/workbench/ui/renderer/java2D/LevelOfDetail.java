@@ -0,0 +1,176 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package com.vividsolutions.jump.workbench.ui.renderer.java2D;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.CoordinateArraySequence;
+
+/**
+ * Level of detail of the geometries drawn by {@link Java2DConverter}.
+ *
+ * <p>Scales are grouped into bands (one band per power of two). For each band,
+ * vertices closer than the decimator resolution (in pixels at the largest
+ * scale of the band) to the previous kept vertex are removed, so that dense
+ * lines and rings are not transformed vertex by vertex at small scales.</p>
+ *
+ * <p>The simplified coordinates of large lines are cached per band, so that
+ * successive repaints at the same zoom level (pans, edits of other features)
+ * reuse them. The cache is weak : entries are discarded with the geometry.
+ * Only lines backed by a CoordinateArraySequence are cached : the cached
+ * arrays reference the Coordinates of the line, so that coordinates modified
+ * in place are drawn at their new location, and an entry is recomputed if
+ * the envelope of the line has changed.</p>
+ *
+ * <p>Set the renderer.lod.off system property to disable this stage.</p>
+ */
+public class LevelOfDetail {
+
+    /** Lines with less vertices are only decimated while they are drawn */
+    public static final int MIN_CACHED_POINTS = 64;
+
+    private static final int MAX_BANDS = 4;
+
+    private static final boolean ENABLED = System.getProperty("renderer.lod.off") == null;
+
+    // The key is the CoordinateSequence of the line, which uses identity equality
+    private static final Map<CoordinateSequence,Entry> CACHE =
+            Collections.synchronizedMap(new WeakHashMap<CoordinateSequence,Entry>());
+
+    private LevelOfDetail() {}
+
+    /**
+     * @return the band of scales containing scale
+     */
+    public static int getBand(double scale) {
+        return Math.getExponent(scale);
+    }
+
+    /**
+     * @return the decimation tolerance in model units for this band, which is
+     * resolution pixels at the largest scale of the band
+     */
+    public static double getTolerance(int band, double resolution) {
+        return resolution / Math.scalb(1.0, band + 1);
+    }
+
+    /**
+     * Returns the coordinates of line, decimated for the band of scale.
+     * The returned array must not be modified.
+     * @param line the line or ring to draw
+     * @param scale the scale of the view (pixels per model unit)
+     * @param resolution the decimator resolution in pixels
+     */
+    public static Coordinate[] getCoordinates(LineString line, double scale, double resolution) {
+        CoordinateSequence sequence = line.getCoordinateSequence();
+        if (!ENABLED || sequence.size() < MIN_CACHED_POINTS || !(scale > 0)) {
+            return line.getCoordinates();
+        }
+        double tolerance = getTolerance(getBand(scale), resolution);
+        if (!(sequence instanceof CoordinateArraySequence)) {
+            return decimate(line.getCoordinates(), tolerance);
+        }
+        Envelope envelope = line.getEnvelopeInternal();
+        Entry entry = CACHE.get(sequence);
+        if (entry != null) {
+            Coordinate[] coordinates = entry.get(envelope, tolerance);
+            if (coordinates != null) return coordinates;
+        }
+        Coordinate[] coordinates = decimate(line.getCoordinates(), tolerance);
+        if (entry == null || !entry.envelope.equals(envelope)) {
+            entry = new Entry(envelope);
+            CACHE.put(sequence, entry);
+        }
+        entry.put(tolerance, coordinates);
+        return coordinates;
+    }
+
+    /**
+     * Removes the coordinates closer than tolerance (on both axes) to the
+     * previous kept coordinate. The first four and the last coordinates are
+     * always kept, so that a ring is still a ring.
+     * @return coordinates itself if no coordinate has been removed
+     */
+    public static Coordinate[] decimate(Coordinate[] coordinates, double tolerance) {
+        int mpts = coordinates.length;
+        Coordinate[] decimated = null;
+        Coordinate p0 = mpts > 0 ? coordinates[0] : null;
+        int npts = 0;
+        for (int i = 0 ; i < mpts ; i++) {
+            Coordinate pi = coordinates[i];
+            if (Math.abs(p0.x - pi.x) >= tolerance || Math.abs(p0.y - pi.y) >= tolerance ||
+                    npts < 4 || i == mpts - 1) {
+                if (decimated != null) decimated[npts] = pi;
+                npts++;
+                p0 = pi;
+            } else if (decimated == null) {
+                decimated = new Coordinate[mpts - 1];
+                System.arraycopy(coordinates, 0, decimated, 0, npts);
+            }
+        }
+        if (decimated == null) return coordinates;
+        Coordinate[] result = new Coordinate[npts];
+        System.arraycopy(decimated, 0, result, 0, npts);
+        return result;
+    }
+
+    /**
+     * Discards all the cached coordinates.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * Decimated coordinates of a line for the last MAX_BANDS tolerances used.
+     */
+    private static class Entry {
+        // envelope of the line when the entry was created
+        final Envelope envelope;
+        final double[] tolerances = new double[MAX_BANDS];
+        final Coordinate[][] coordinates = new Coordinate[MAX_BANDS][];
+        int next = 0;
+
+        Entry(Envelope envelope) {
+            this.envelope = envelope;
+        }
+
+        synchronized Coordinate[] get(Envelope envelope, double tolerance) {
+            if (!envelope.equals(this.envelope)) return null;
+            for (int i = 0 ; i < MAX_BANDS ; i++) {
+                if (coordinates[i] != null && tolerances[i] == tolerance) {
+                    return coordinates[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(double tolerance, Coordinate[] coordinates) {
+            tolerances[next] = tolerance;
+            this.coordinates[next] = coordinates;
+            next = (next + 1) % MAX_BANDS;
+        }
+    }
+}
@@ -76,6 +76,15 @@ public class PolygonShape implements Shape {
         }
     }
 
+    /**
+     * @param shell the path of the shell, in view coordinates
+     * @param holes a GeneralPath for each hole, in view coordinates
+     */
+    public PolygonShape(GeneralPath shell, Collection holes) {
+        this.shell = shell;
+        this.holes.addAll(holes);
+    }
+
     class PolygonPath implements PathIterator {
 		private int iterate;
 		private int numPoints;
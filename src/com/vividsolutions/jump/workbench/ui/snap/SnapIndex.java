@@ -0,0 +1,480 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+package com.vividsolutions.jump.workbench.ui.snap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineSegment;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.workbench.Logger;
+import com.vividsolutions.jump.workbench.model.CategoryEvent;
+import com.vividsolutions.jump.workbench.model.FeatureEvent;
+import com.vividsolutions.jump.workbench.model.FeatureEventType;
+import com.vividsolutions.jump.workbench.model.Layer;
+import com.vividsolutions.jump.workbench.model.LayerEvent;
+import com.vividsolutions.jump.workbench.model.LayerEventType;
+import com.vividsolutions.jump.workbench.model.LayerListener;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
+import com.vividsolutions.jump.workbench.ui.ViewportListener;
+
+/**
+ * Spatial index of the vertices and segments of the visible layers of a
+ * LayerViewPanel, used by the snap policies.
+ *
+ * <p>Each layer is indexed over an area larger than the viewport, so that
+ * small pans and zooms do not need a new index. Geometries are split into
+ * chunks of a few consecutive vertices, kept in a Quadtree which is updated
+ * from the FeatureEvents of the layer instead of being rebuilt after each
+ * edit. When the viewport leaves the indexed area, the index of the layer
+ * is rebuilt in a background thread, from a snapshot of the features of the
+ * area ; a snap query arriving before the end of this build does not wait
+ * for it, it uses a temporary index of the features near the query.</p>
+ */
+public class SnapIndex {
+
+    private static final String PANEL_PROPERTY_KEY = SnapIndex.class.getName();
+
+    /** Maximum number of vertices of a chunk */
+    static final int CHUNK_SIZE = 32;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "SnapIndex");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+
+    private LayerListener layerListener = new LayerListener() {
+            public void layerChanged(LayerEvent e) {
+                if (e.getType() == LayerEventType.REMOVED &&
+                        e.getLayerable() instanceof Layer) {
+                    remove((Layer) e.getLayerable());
+                }
+                // other changes, like a new feature collection, are caught
+                // by LayerIndex.isValid
+            }
+
+            public void featuresChanged(FeatureEvent e) {
+                update(e);
+            }
+
+            public void categoryChanged(CategoryEvent e) {
+            }
+        };
+
+    private ViewportListener viewportListener = new ViewportListener() {
+            public void zoomChanged(Envelope modelEnvelope) {
+                scheduleBuilds();
+            }
+        };
+
+    private LayerViewPanel panel;
+    private Map<Layer, LayerIndex> indexes = new HashMap<>();
+    private Map<Layer, Future<?>> builds = new HashMap<>();
+    // number of feature events received per layer, used to discard the
+    // background builds which missed an edit
+    private Map<Layer, Integer> eventCounts = new HashMap<>();
+
+    private SnapIndex(LayerViewPanel panel) {
+        this.panel = panel;
+        panel.getViewport().addListener(viewportListener);
+        panel.getLayerManager().addLayerListener(layerListener);
+    }
+
+    public static SnapIndex instance(LayerViewPanel panel) {
+        if (panel.getBlackboard().get(PANEL_PROPERTY_KEY) == null) {
+            return (SnapIndex) panel.getBlackboard().get(PANEL_PROPERTY_KEY,
+                new SnapIndex(panel));
+        }
+        return (SnapIndex) panel.getBlackboard().get(PANEL_PROPERTY_KEY);
+    }
+
+    /**
+     * Returns the vertex of the visible layers nearest to p, or null if no
+     * vertex lies within tolerance.
+     */
+    public Coordinate getNearestVertex(Coordinate p, double tolerance) {
+        Envelope envelope = new Envelope(p);
+        envelope.expandBy(tolerance);
+        Coordinate nearest = null;
+        double minDistance = tolerance;
+        for (LayerIndex index : getIndexes(envelope)) {
+            for (Object item : index.query(envelope)) {
+                Chunk chunk = (Chunk) item;
+                if (!chunk.envelope.intersects(envelope)) {
+                    continue;
+                }
+                for (int i = chunk.start; i <= chunk.end; i++) {
+                    double distance = chunk.coordinates[i].distance(p);
+                    if (distance <= minDistance) {
+                        minDistance = distance;
+                        nearest = chunk.coordinates[i];
+                    }
+                }
+            }
+        }
+        return nearest == null ? null : new Coordinate(nearest);
+    }
+
+    /**
+     * Returns the point of the segments and points of the visible layers
+     * nearest to p, or null if no such point lies within tolerance.
+     */
+    public Coordinate getNearestPoint(Coordinate p, double tolerance) {
+        Envelope envelope = new Envelope(p);
+        envelope.expandBy(tolerance);
+        Coordinate nearest = null;
+        double minDistance = tolerance;
+        LineSegment segment = new LineSegment();
+        for (LayerIndex index : getIndexes(envelope)) {
+            for (Object item : index.query(envelope)) {
+                Chunk chunk = (Chunk) item;
+                if (!chunk.envelope.intersects(envelope)) {
+                    continue;
+                }
+                if (chunk.start == chunk.end) {
+                    double distance = chunk.coordinates[chunk.start].distance(p);
+                    if (distance <= minDistance) {
+                        minDistance = distance;
+                        nearest = new Coordinate(chunk.coordinates[chunk.start]);
+                    }
+                    continue;
+                }
+                for (int i = chunk.start; i < chunk.end; i++) {
+                    segment.setCoordinates(chunk.coordinates[i], chunk.coordinates[i + 1]);
+                    Coordinate closest = segment.closestPoint(p);
+                    double distance = closest.distance(p);
+                    if (distance <= minDistance) {
+                        minDistance = distance;
+                        nearest = closest;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Returns valid indexes covering envelope for the visible layers,
+     * waiting for the background builds or building them if needed.
+     */
+    private List<LayerIndex> getIndexes(Envelope envelope) {
+        List<LayerIndex> result = new ArrayList<>();
+        for (Iterator<Layer> i = panel.getLayerManager().iterator(Layer.class); i.hasNext();) {
+            Layer layer = i.next();
+            if (!layer.isVisible()) {
+                continue;
+            }
+            LayerIndex index = getIndex(layer, envelope);
+            if (index != null) {
+                result.add(index);
+            }
+        }
+        return result;
+    }
+
+    private LayerIndex getIndex(Layer layer, Envelope envelope) {
+        synchronized (this) {
+            LayerIndex index = indexes.get(layer);
+            if (index != null && index.isValid(layer, envelope)) {
+                return index;
+            }
+            Future<?> build = builds.get(layer);
+            if (build == null || build.isDone()) {
+                Envelope area = getIndexedArea();
+                area.expandToInclude(envelope);
+                scheduleBuild(layer, area);
+            }
+        }
+        // never wait for the build, which may take long for large layers :
+        // meanwhile, index the features near the query only
+        return build(layer, envelope);
+    }
+
+    /**
+     * Returns the area indexed for the current viewport : the viewport
+     * extended by its own width and height on each side.
+     */
+    private Envelope getIndexedArea() {
+        Envelope area = new Envelope(panel.getViewport().getEnvelopeInModelCoordinates());
+        area.expandBy(area.getWidth(), area.getHeight());
+        return area;
+    }
+
+    /**
+     * Starts background builds for the visible layers whose index does not
+     * cover the new viewport.
+     */
+    private synchronized void scheduleBuilds() {
+        Envelope view = panel.getViewport().getEnvelopeInModelCoordinates();
+        final Envelope area = getIndexedArea();
+        for (Iterator<Layer> i = panel.getLayerManager().iterator(Layer.class); i.hasNext();) {
+            final Layer layer = i.next();
+            if (!layer.isVisible()) {
+                continue;
+            }
+            LayerIndex index = indexes.get(layer);
+            if (index != null && index.isValid(layer, view)) {
+                continue;
+            }
+            scheduleBuild(layer, area);
+        }
+    }
+
+    /**
+     * Starts the background build of the index of a layer over area.
+     * The features are read in the calling thread, as the collection must not
+     * be iterated by the background thread while it is edited : the build
+     * only splits the geometries of this snapshot into chunks.
+     */
+    private synchronized void scheduleBuild(final Layer layer, Envelope area) {
+        Future<?> previous = builds.get(layer);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        final int events = getEventCount(layer);
+        final LayerIndex newIndex = new LayerIndex(
+                layer.getFeatureCollectionWrapper().getUltimateWrappee(), area);
+        final List<Feature> features = new ArrayList<>(
+                layer.getFeatureCollectionWrapper().query(area));
+        builds.put(layer, EXECUTOR.submit(() -> {
+            try {
+                for (Feature feature : features) {
+                    newIndex.add(feature);
+                }
+            } catch (RuntimeException e) {
+                Logger.warn("Could not index layer " + layer.getName() + " for snapping", e);
+                return;
+            }
+            synchronized (SnapIndex.this) {
+                // an edit during the build may be missing from newIndex
+                if (getEventCount(layer) == events &&
+                        panel.getLayerManager().getLayers().contains(layer)) {
+                    indexes.put(layer, newIndex);
+                }
+            }
+        }));
+    }
+
+    private LayerIndex build(Layer layer, Envelope area) {
+        FeatureCollection collection = layer.getFeatureCollectionWrapper().getUltimateWrappee();
+        LayerIndex index = new LayerIndex(collection, area);
+        for (Feature feature : layer.getFeatureCollectionWrapper().query(area)) {
+            index.add(feature);
+        }
+        return index;
+    }
+
+    private synchronized int getEventCount(Layer layer) {
+        Integer count = eventCounts.get(layer);
+        return count == null ? 0 : count;
+    }
+
+    private synchronized void update(FeatureEvent e) {
+        if (e.getType() == FeatureEventType.ATTRIBUTES_MODIFIED) {
+            return;
+        }
+        Layer layer = e.getLayer();
+        eventCounts.put(layer, getEventCount(layer) + 1);
+        LayerIndex index = indexes.get(layer);
+        if (index == null) {
+            return;
+        }
+        for (Feature feature : e.getFeatures()) {
+            index.remove(feature);
+            if (e.getType() != FeatureEventType.DELETED) {
+                index.add(feature);
+            }
+        }
+        index.synchronize();
+    }
+
+    private synchronized void remove(Layer layer) {
+        indexes.remove(layer);
+        eventCounts.remove(layer);
+        Future<?> build = builds.remove(layer);
+        if (build != null) {
+            build.cancel(false);
+        }
+    }
+
+    /**
+     * A run of consecutive vertices of a point, linestring or ring.
+     */
+    static class Chunk {
+        final Coordinate[] coordinates;
+        final int start;
+        final int end;
+        final Envelope envelope = new Envelope();
+
+        Chunk(Coordinate[] coordinates, int start, int end) {
+            this.coordinates = coordinates;
+            this.start = start;
+            this.end = end;
+            for (int i = start; i <= end; i++) {
+                envelope.expandToInclude(coordinates[i]);
+            }
+        }
+    }
+
+    /**
+     * Splits the points, linestrings and polygon rings of geometry into
+     * chunks of at most CHUNK_SIZE vertices, sharing their end vertices.
+     */
+    static List<Chunk> toChunks(Geometry geometry) {
+        List<Chunk> chunks = new ArrayList<>();
+        addChunks(geometry, chunks);
+        return chunks;
+    }
+
+    private static void addChunks(Geometry geometry, List<Chunk> chunks) {
+        if (geometry == null || geometry.isEmpty()) {
+            return;
+        }
+        if (geometry instanceof Point) {
+            chunks.add(new Chunk(new Coordinate[]{((Point) geometry).getCoordinate()}, 0, 0));
+        } else if (geometry instanceof LineString) {
+            addChunks(((LineString) geometry).getCoordinates(), chunks);
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            addChunks(polygon.getExteriorRing(), chunks);
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                addChunks(polygon.getInteriorRingN(i), chunks);
+            }
+        } else {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                addChunks(geometry.getGeometryN(i), chunks);
+            }
+        }
+    }
+
+    private static void addChunks(Coordinate[] coordinates, List<Chunk> chunks) {
+        if (coordinates.length == 1) {
+            chunks.add(new Chunk(coordinates, 0, 0));
+            return;
+        }
+        for (int start = 0; start < coordinates.length - 1; start += CHUNK_SIZE - 1) {
+            chunks.add(new Chunk(coordinates, start,
+                    Math.min(start + CHUNK_SIZE - 1, coordinates.length - 1)));
+        }
+    }
+
+    /**
+     * The chunks of the features of one layer intersecting an area.
+     */
+    private static class LayerIndex {
+        private final FeatureCollection collection;
+        private final Envelope coverage;
+        private final Quadtree tree = new Quadtree();
+        private final Map<Feature, List<Chunk>> chunks = new IdentityHashMap<>();
+        private int modificationCount;
+
+        LayerIndex(FeatureCollection collection, Envelope coverage) {
+            this.collection = collection;
+            this.coverage = coverage;
+            synchronize();
+        }
+
+        /**
+         * Records the modification count of the collection, once the
+         * index reflects its content.
+         */
+        void synchronize() {
+            if (collection instanceof FeatureDataset) {
+                modificationCount = ((FeatureDataset) collection).getModificationCount();
+            }
+        }
+
+        /**
+         * Returns whether this index still describes the features of layer
+         * and covers envelope. Changes made to a FeatureDataset without any
+         * FeatureEvent invalidate the index.
+         */
+        boolean isValid(Layer layer, Envelope envelope) {
+            if (layer.getFeatureCollectionWrapper().getUltimateWrappee() != collection) {
+                return false;
+            }
+            if (!coverage.contains(envelope)) {
+                return false;
+            }
+            return !(collection instanceof FeatureDataset) ||
+                    ((FeatureDataset) collection).getModificationCount() == modificationCount;
+        }
+
+        void add(Feature feature) {
+            Geometry geometry = feature.getGeometry();
+            if (geometry == null || !coverage.intersects(geometry.getEnvelopeInternal())) {
+                return;
+            }
+            List<Chunk> featureChunks = toChunks(geometry);
+            for (Chunk chunk : featureChunks) {
+                tree.insert(chunk.envelope, chunk);
+            }
+            chunks.put(feature, featureChunks);
+        }
+
+        void remove(Feature feature) {
+            List<Chunk> featureChunks = chunks.remove(feature);
+            if (featureChunks == null) {
+                return;
+            }
+            for (Chunk chunk : featureChunks) {
+                tree.remove(chunk.envelope, chunk);
+            }
+        }
+
+        List query(Envelope envelope) {
+            return tree.query(envelope);
+        }
+    }
+}
@@ -32,13 +32,7 @@
 
 package com.vividsolutions.jump.workbench.ui.snap;
 
-import java.util.Iterator;
-
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
-import org.locationtech.jts.geom.GeometryFactory;
-import com.vividsolutions.jump.geom.InteriorPointFinder;
 import com.vividsolutions.jump.util.Blackboard;
 import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
 
@@ -52,41 +46,15 @@ public class SnapToFeaturesPolicy implements SnapPolicy {
         blackboard.put(ENABLED_KEY, true);
     }
     public static final String ENABLED_KEY = SnapToFeaturesPolicy.class.getName() + " - ENABLED";
-    private InteriorPointFinder interiorPointFinder = new InteriorPointFinder();
-    //On-screen features are cached. The cache is built lazily. [Jon Aquino]
-    private GeometryFactory factory = new GeometryFactory();
+    //On-screen features are indexed by SnapIndex, which is kept up to date
+    //incrementally.
     public Coordinate snap(LayerViewPanel panel, Coordinate originalCoordinate) {
         if (!blackboard.get(ENABLED_KEY, false)) {
             return null;
         }
-        Geometry bufferedTransformedCursorLocation;
-        bufferedTransformedCursorLocation =
-            factory.createPoint(originalCoordinate).buffer(SnapManager.getToleranceInPixels(blackboard) / panel.getViewport().getScale());
-        for (Iterator i =
-            VisiblePointsAndLinesCache
-                .instance(panel)
-                .getTree()
-                .query(bufferedTransformedCursorLocation.getEnvelopeInternal())
-                .iterator();
-            i.hasNext();
-            ) {
-            Geometry candidate = (Geometry) i.next();
-            if (!(candidate instanceof GeometryCollection)) {
-                Geometry intersection = candidate.intersection(bufferedTransformedCursorLocation);
-                if (intersection.isEmpty()) {
-                    continue;
-                }
-                return interiorPointFinder.findPoint(intersection);
-            }
-
-            GeometryCollection col = (GeometryCollection) candidate;
-            for (int k = 0; k < col.getNumGeometries(); ++k) {
-                Geometry intersection = col.getGeometryN(k).intersection(bufferedTransformedCursorLocation);
-                if (!intersection.isEmpty()) {
-                    return interiorPointFinder.findPoint(intersection);
-                }
-            }
-        }
-        return null;
+        // on a single segment, the nearest point is the middle of the chord
+        // cut by the cursor circle, which used to be the snapped point
+        return SnapIndex.instance(panel).getNearestPoint(originalCoordinate,
+                SnapManager.getToleranceInPixels(blackboard) / panel.getViewport().getScale());
     }
 }
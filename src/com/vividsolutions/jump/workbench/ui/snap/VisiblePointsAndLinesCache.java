@@ -52,6 +52,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 
+/**
+ * @deprecated rebuilt after each edit and each zoom, use {@link SnapIndex}
+ */
+@Deprecated
 public class VisiblePointsAndLinesCache {
     private static final String PANEL_PROPERTY_KEY = "VISIBLE_POINTS_AND_LINES_CACHE";
     private LayerListener layerListener = new LayerListener() {
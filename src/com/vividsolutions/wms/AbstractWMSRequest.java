@@ -96,6 +96,36 @@ abstract public class AbstractWMSRequest implements WMSRequest {
   public Image getImage() throws IOException {
     HttpURLConnection con = getConnection();
 
+    if (isImage(con))
+      return ImageIO.read(con.getInputStream());
+
+    // finally, no image? let's throw some error
+    readToError(con);
+    
+    return null;
+  }
+
+  /**
+   * Connect to the service and get the encoded bytes of the map image, e.g.
+   * to keep them in a cache.
+   *
+   * @return the bytes of the retrieved map image
+   */
+  public byte[] getImageBytes() throws IOException {
+    HttpURLConnection con = getConnection();
+
+    if (isImage(con)) {
+      try (InputStream in = con.getInputStream()) {
+        return IOUtils.toByteArray(in);
+      }
+    }
+
+    readToError(con);
+
+    return null;
+  }
+
+  private boolean isImage(HttpURLConnection con) throws IOException {
     boolean httpOk = con.getResponseCode() == HttpURLConnection.HTTP_OK;
 
     boolean isImage = false;
@@ -113,14 +143,7 @@ abstract public class AbstractWMSRequest implements WMSRequest {
           isImage = true;
       }
     }
-
-    if (isImage)
-      return ImageIO.read(con.getInputStream());
-
-    // finally, no image? let's throw some error
-    readToError(con);
-    
-    return null;
+    return isImage;
   }
 
   /**
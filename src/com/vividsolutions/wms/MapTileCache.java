@@ -0,0 +1,272 @@
+package com.vividsolutions.wms;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import com.vividsolutions.jump.workbench.Logger;
+import com.vividsolutions.jump.workbench.ui.plugin.PersistentBlackboardPlugIn;
+
+/**
+ * Caches the images of GetMap requests, keyed by their URL : decoded images
+ * are kept in memory for the most recently used tiles, and the bytes received
+ * from the server are kept in a directory of bounded size, so that areas
+ * already seen are displayed without requesting the server again, even after
+ * a restart. Missing tiles are requested in parallel.
+ * <p>The cache is configured by the following system properties :</p>
+ * <ul>
+ * <li>wms.tile.cache.dir : directory of the cached tiles (default wms-tiles
+ * in the settings directory of the user, see
+ * {@link PersistentBlackboardPlugIn#getPersistenceDirectory()})</li>
+ * <li>wms.tile.cache.disk.mb : maximum size of the directory (default 200)</li>
+ * <li>wms.tile.cache.size : number of decoded tiles kept in memory (default
+ * 128)</li>
+ * <li>wms.tile.cache.days : age above which a tile is requested again
+ * (default 7)</li>
+ * <li>wms.tile.threads : number of parallel requests (default 4)</li>
+ * </ul>
+ */
+public class MapTileCache {
+
+  /**
+   * Width and height of the tiles, in pixels.
+   */
+  public static final int TILE_SIZE = 256;
+
+  private static final String SUFFIX = ".tile";
+  private static final String DIRECTORY_NAME = "wms-tiles";
+
+  private static MapTileCache instance;
+
+  private final File directory;
+  private final long maxDiskBytes;
+  private final long maxAgeMillis;
+  private final int maxMemoryTiles;
+  private final ExecutorService executor;
+
+  private final LinkedHashMap<String,BufferedImage> memoryCache =
+      new LinkedHashMap<String,BufferedImage>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String,BufferedImage> eldest) {
+          return size() > maxMemoryTiles;
+        }
+      };
+
+  // size of the files of the directory, -1 until it has been computed
+  private long diskBytes = -1;
+
+  public static synchronized MapTileCache getInstance() {
+    if (instance == null) {
+      instance = new MapTileCache(
+          new File(System.getProperty("wms.tile.cache.dir",
+              new File(PersistentBlackboardPlugIn.getPersistenceDirectory(),
+                  DIRECTORY_NAME).getPath())),
+          Long.getLong("wms.tile.cache.disk.mb", 200) << 20,
+          Long.getLong("wms.tile.cache.days", 7) * 24 * 3600 * 1000,
+          Integer.getInteger("wms.tile.cache.size", 128),
+          Integer.getInteger("wms.tile.threads", 4));
+    }
+    return instance;
+  }
+
+  /**
+   * @param directory the directory of the cached tiles, or null to keep tiles
+   *          in memory only
+   * @param maxDiskBytes the maximum size of the cached files
+   * @param maxAgeMillis the age above which a cached file is ignored
+   * @param maxMemoryTiles the number of decoded tiles kept in memory
+   * @param threads the number of parallel requests
+   */
+  public MapTileCache(File directory, long maxDiskBytes, long maxAgeMillis,
+      int maxMemoryTiles, int threads) {
+    this.directory = directory;
+    this.maxDiskBytes = maxDiskBytes;
+    this.maxAgeMillis = maxAgeMillis;
+    this.maxMemoryTiles = maxMemoryTiles;
+    this.executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "MapTileCache request");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Returns the images of requests, in the same order, requesting the
+   * missing ones in parallel.
+   *
+   * @throws IOException the first error raised by a request
+   */
+  public List<BufferedImage> getImages(List<? extends AbstractWMSRequest> requests)
+      throws IOException {
+    List<Future<BufferedImage>> futures = new ArrayList<>(requests.size());
+    for (AbstractWMSRequest request : requests) {
+      final String key = request.getURL().toString();
+      BufferedImage image;
+      synchronized (memoryCache) {
+        image = memoryCache.get(key);
+      }
+      if (image != null) {
+        futures.add(CompletableFuture.completedFuture(image));
+      } else {
+        futures.add(executor.submit(() -> load(key, request)));
+      }
+    }
+    List<BufferedImage> images = new ArrayList<>(futures.size());
+    for (Future<BufferedImage> future : futures) {
+      try {
+        images.add(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+    }
+    return images;
+  }
+
+  /**
+   * Returns the image of request, from the cache if possible.
+   */
+  public BufferedImage getImage(AbstractWMSRequest request) throws IOException {
+    return getImages(Arrays.asList(request)).get(0);
+  }
+
+  private BufferedImage load(String key, AbstractWMSRequest request) throws IOException {
+    byte[] bytes = readFile(key);
+    if (bytes == null) {
+      bytes = request.getImageBytes();
+      writeFile(key, bytes);
+    }
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+    if (image == null) {
+      throw new WMSException("Unreadable image returned by " + key);
+    }
+    synchronized (memoryCache) {
+      memoryCache.put(key, image);
+    }
+    return image;
+  }
+
+  private File getFile(String key) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      StringBuilder name = new StringBuilder();
+      for (byte b : digest.digest(key.getBytes(StandardCharsets.UTF_8))) {
+        name.append(String.format("%02x", b));
+      }
+      return new File(directory, name.append(SUFFIX).toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private byte[] readFile(String key) {
+    if (directory == null) return null;
+    File file = getFile(key);
+    if (!file.isFile() ||
+        System.currentTimeMillis() - file.lastModified() > maxAgeMillis) {
+      return null;
+    }
+    try {
+      return Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      Logger.warn("Could not read cached tile " + file, e);
+      return null;
+    }
+  }
+
+  private void writeFile(String key, byte[] bytes) {
+    if (directory == null || bytes.length > maxDiskBytes) return;
+    try {
+      if (!directory.isDirectory()) {
+        Files.createDirectories(directory.toPath());
+        // the tiles may show private data, keep them to the user
+        directory.setReadable(false, false);
+        directory.setReadable(true, true);
+        directory.setExecutable(false, false);
+        directory.setExecutable(true, true);
+      }
+      File file = getFile(key);
+      long previousLength = file.length();
+      // write to a temporary file, so that a tile is never read half written
+      File tmp = File.createTempFile("tile", ".tmp", directory);
+      Files.write(tmp.toPath(), bytes);
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      synchronized (this) {
+        if (diskBytes < 0) {
+          diskBytes = 0;
+          for (File f : listFiles()) diskBytes += f.length();
+        } else {
+          diskBytes += bytes.length - previousLength;
+        }
+        if (diskBytes > maxDiskBytes) {
+          shrinkDirectory();
+        }
+      }
+    } catch (IOException e) {
+      Logger.warn("Could not cache tile " + key, e);
+    }
+  }
+
+  private File[] listFiles() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+    return files == null ? new File[0] : files;
+  }
+
+  /**
+   * Deletes the oldest files until the directory uses less than 90% of its
+   * maximum size.
+   */
+  private void shrinkDirectory() {
+    File[] files = listFiles();
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    diskBytes = 0;
+    for (File file : files) diskBytes += file.length();
+    for (File file : files) {
+      if (diskBytes <= maxDiskBytes * 9 / 10) break;
+      long length = file.length();
+      if (file.delete()) diskBytes -= length;
+    }
+  }
+
+  /**
+   * Empties the memory cache and deletes the cached files.
+   */
+  public void clear() {
+    synchronized (memoryCache) {
+      memoryCache.clear();
+    }
+    if (directory == null) return;
+    synchronized (this) {
+      for (File file : listFiles()) {
+        if (!file.delete()) {
+          Logger.warn("Could not delete cached tile " + file);
+        }
+      }
+      diskBytes = 0;
+    }
+  }
+}
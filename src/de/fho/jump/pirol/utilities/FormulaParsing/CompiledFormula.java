@@ -0,0 +1,313 @@
+package de.fho.jump.pirol.utilities.FormulaParsing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.openjump.core.apitools.comparisonandsorting.ObjectComparator;
+
+import com.vividsolutions.jump.feature.ColumnarFeature;
+import com.vividsolutions.jump.feature.ColumnarFeatureCollection;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
+
+/**
+ * A formula flattened into a postfix program of primitive operations, which
+ * is evaluated for batches of features instead of interpreting the tree of
+ * {@link FormulaValue}s for each feature : the attributes used by the formula
+ * are read once per batch into arrays of doubles (without boxing for the
+ * features of a {@link ColumnarFeatureCollection}), then each operation is
+ * applied to the whole batch in a tight loop. Batches are evaluated in
+ * parallel.
+ * <br>The results are the same as {@link FormulaValue#getValue(Feature)}.
+ * FormulaValues which can't be compiled (see
+ * {@link FormulaValue#compile(Builder)}) are evaluated with getValue.
+ */
+public class CompiledFormula {
+
+    // number of features of a batch
+    private static final int BATCH_SIZE = 1024;
+
+    // instructions followed by an operand
+    private static final int LOAD_CONSTANT = 0;
+    private static final int LOAD_ATTRIBUTE = 1;
+    private static final int LOAD_VALUE = 2;
+
+    /** operations on the two values on top of the stack */
+    public static final int ADD = 10;
+    public static final int SUBTRACT = 11;
+    public static final int MULTIPLY = 12;
+    public static final int DIVIDE = 13;
+    public static final int POWER = 14;
+
+    /** operations on the value on top of the stack */
+    public static final int SQRT = 20;
+    public static final int LOG = 21;
+    public static final int LOG10 = 22;
+    public static final int EXP = 23;
+    public static final int SIN = 24;
+    public static final int COS = 25;
+    public static final int TAN = 26;
+    public static final int ASIN = 27;
+    public static final int ACOS = 28;
+    public static final int ATAN = 29;
+    public static final int TO_DEGREES = 30;
+    public static final int TO_RADIANS = 31;
+
+    private final FormulaValue formula;
+    private final int[] code;
+    private final double[] constants;
+    private final String[] attributes;
+    private final FormulaValue[] values;
+    private final int maxDepth;
+
+    private CompiledFormula(FormulaValue formula, Builder builder) {
+        this.formula = formula;
+        this.code = new int[builder.code.size()];
+        for (int i = 0 ; i < code.length ; i++) code[i] = builder.code.get(i);
+        this.constants = new double[builder.constants.size()];
+        for (int i = 0 ; i < constants.length ; i++) constants[i] = builder.constants.get(i);
+        this.attributes = builder.attributes.toArray(new String[0]);
+        this.values = builder.values.toArray(new FormulaValue[0]);
+        this.maxDepth = Math.max(1, builder.maxDepth);
+    }
+
+    /**
+     * Compiles a parsed formula.
+     */
+    public static CompiledFormula compile(FormulaValue formula) {
+        Builder builder = new Builder();
+        formula.compile(builder);
+        if (builder.depth != 1) {
+            throw new IllegalStateException("Formula " + formula + " compiled to an invalid program");
+        }
+        return new CompiledFormula(formula, builder);
+    }
+
+    /**
+     * Computes the value of the formula for each feature, with at most
+     * parallelism threads.
+     *@param features the features to process
+     *@param monitor a TaskMonitor to which the number of features processed is
+     *   reported and checked for cancellation, may be null
+     *@param failures if not null, the bits of the features whose value could
+     *   not be computed (e.g. a string attribute which is not a number) are set
+     *@return the values of the formula, in the order of features. The value
+     *   of a failed feature is NaN.
+     *@throws com.vividsolutions.jump.task.TaskCancelledException if the monitor
+     *   requested cancellation
+     */
+    public double[] evaluate(List<Feature> features, int parallelism,
+            final TaskMonitor monitor, final BitSet failures) throws Exception {
+        final Feature[] array = features.toArray(new Feature[0]);
+        final double[] results = new double[array.length];
+        final int[] done = new int[1];
+        ParallelUtil.forEachChunk(array.length, BATCH_SIZE, parallelism, monitor,
+            (start, end) -> {
+                try {
+                    evaluate(array, start, end, results);
+                } catch (RuntimeException e) {
+                    // find out the features which can't be processed
+                    for (int i = start ; i < end ; i++) {
+                        try {
+                            results[i] = formula.getValue(array[i]);
+                        } catch (RuntimeException e2) {
+                            results[i] = Double.NaN;
+                            if (failures != null) {
+                                synchronized (failures) {
+                                    failures.set(i);
+                                }
+                            }
+                        }
+                    }
+                }
+                synchronized (done) {
+                    done[0] += end - start;
+                }
+            },
+            () -> {
+                if (monitor != null) {
+                    synchronized (done) {
+                        monitor.report(done[0], array.length, null);
+                    }
+                }
+            });
+        return results;
+    }
+
+    /**
+     * Computes the value of the formula for a feature.
+     */
+    public double evaluate(Feature feature) {
+        double[] result = new double[1];
+        evaluate(new Feature[]{feature}, 0, 1, result);
+        return result[0];
+    }
+
+    private void evaluate(Feature[] features, int start, int end, double[] results) {
+        final int n = end - start;
+        double[][] attributeValues = new double[attributes.length][];
+        for (int i = 0 ; i < attributes.length ; i++) {
+            attributeValues[i] = readAttribute(attributes[i], features, start, end);
+        }
+        double[][] stack = new double[maxDepth][n];
+        int top = -1;
+        for (int pc = 0 ; pc < code.length ; pc++) {
+            int instruction = code[pc];
+            if (instruction == LOAD_CONSTANT) {
+                Arrays.fill(stack[++top], constants[code[++pc]]);
+            } else if (instruction == LOAD_ATTRIBUTE) {
+                System.arraycopy(attributeValues[code[++pc]], 0, stack[++top], 0, n);
+            } else if (instruction == LOAD_VALUE) {
+                FormulaValue value = values[code[++pc]];
+                double[] a = stack[++top];
+                for (int i = 0 ; i < n ; i++) a[i] = value.getValue(features[start + i]);
+            } else if (instruction < SQRT) {
+                double[] a = stack[top - 1];
+                double[] b = stack[top--];
+                switch (instruction) {
+                    case ADD: for (int i = 0 ; i < n ; i++) a[i] = a[i] + b[i]; break;
+                    case SUBTRACT: for (int i = 0 ; i < n ; i++) a[i] = a[i] - b[i]; break;
+                    case MULTIPLY: for (int i = 0 ; i < n ; i++) a[i] = a[i] * b[i]; break;
+                    case DIVIDE: for (int i = 0 ; i < n ; i++) a[i] = a[i] / b[i]; break;
+                    case POWER: for (int i = 0 ; i < n ; i++) a[i] = Math.pow(a[i], b[i]); break;
+                    default: throw new IllegalStateException("Unknown operation " + instruction);
+                }
+            } else {
+                // the functions used are the ones of the FormulaValue classes
+                double[] a = stack[top];
+                switch (instruction) {
+                    case SQRT: for (int i = 0 ; i < n ; i++) a[i] = Math.sqrt(a[i]); break;
+                    case LOG: for (int i = 0 ; i < n ; i++) a[i] = Math.log(a[i]); break;
+                    case LOG10: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.log10(a[i]); break;
+                    case EXP: for (int i = 0 ; i < n ; i++) a[i] = Math.exp(a[i]); break;
+                    case SIN: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.sin(a[i]); break;
+                    case COS: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.cos(a[i]); break;
+                    case TAN: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.tan(a[i]); break;
+                    case ASIN: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.asin(a[i]); break;
+                    case ACOS: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.acos(a[i]); break;
+                    case ATAN: for (int i = 0 ; i < n ; i++) a[i] = StrictMath.atan(a[i]); break;
+                    case TO_DEGREES: for (int i = 0 ; i < n ; i++) a[i] = a[i] * (57.295779513); break;
+                    case TO_RADIANS: for (int i = 0 ; i < n ; i++) a[i] = a[i] / (57.295779513); break;
+                    default: throw new IllegalStateException("Unknown operation " + instruction);
+                }
+            }
+        }
+        System.arraycopy(stack[0], 0, results, start, n);
+    }
+
+    /**
+     * Reads the values of an attribute as doubles, as ObjectComparator.getDoubleValue
+     * does, but without boxing the values stored in the columns of a
+     * ColumnarFeatureCollection.
+     */
+    private static double[] readAttribute(String attribute, Feature[] features, int start, int end) {
+        double[] values = new double[end - start];
+        FeatureSchema schema = null;
+        int index = -1;
+        boolean operation = false;
+        ColumnarFeatureCollection collection = null;
+        ColumnarFeatureCollection.Column column = null;
+        for (int i = start ; i < end ; i++) {
+            Feature feature = features[i];
+            if (feature.getSchema() != schema) {
+                schema = feature.getSchema();
+                index = schema.getAttributeIndex(attribute);
+                operation = schema.isOperation(index);
+                collection = null;
+            }
+            if (!operation && feature instanceof ColumnarFeature &&
+                    !((ColumnarFeature)feature).isDetached()) {
+                ColumnarFeature columnarFeature = (ColumnarFeature)feature;
+                if (columnarFeature.getCollection() != collection) {
+                    collection = columnarFeature.getCollection();
+                    column = collection.getColumn(index);
+                }
+                int row = columnarFeature.getRow();
+                double value = column.getDouble(row);
+                if (Double.isNaN(value) && !column.isNull(row)) {
+                    // not a number column, e.g. a string
+                    value = ObjectComparator.getDoubleValue(column.getValue(row));
+                }
+                values[i - start] = value;
+            } else {
+                values[i - start] = ObjectComparator.getDoubleValue(feature.getAttribute(index));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Receives the instructions of the parts of a formula, in postfix order.
+     */
+    public static class Builder {
+
+        private final List<Integer> code = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<String> attributes = new ArrayList<>();
+        private final List<FormulaValue> values = new ArrayList<>();
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        private Builder() {}
+
+        /**
+         * Pushes a constant value.
+         */
+        public void addConstant(double value) {
+            code.add(LOAD_CONSTANT);
+            code.add(constants.size());
+            constants.add(value);
+            push();
+        }
+
+        /**
+         * Pushes the value of an attribute, as a double.
+         */
+        public void addAttribute(String attributeName) {
+            int index = attributes.indexOf(attributeName);
+            if (index < 0) {
+                index = attributes.size();
+                attributes.add(attributeName);
+            }
+            code.add(LOAD_ATTRIBUTE);
+            code.add(index);
+            push();
+        }
+
+        /**
+         * Pushes the result of value.getValue(feature).
+         */
+        public void addValue(FormulaValue value) {
+            code.add(LOAD_VALUE);
+            code.add(values.size());
+            values.add(value);
+            push();
+        }
+
+        /**
+         * Replaces the values on top of the stack by the result of operation.
+         *@param operation one of the operation constants of CompiledFormula
+         */
+        public void addOperation(int operation) {
+            if (operation < ADD || operation > TO_RADIANS ||
+                    (operation > POWER && operation < SQRT)) {
+                throw new IllegalArgumentException("Unknown operation " + operation);
+            }
+            int operands = operation < SQRT ? 2 : 1;
+            if (depth < operands) {
+                throw new IllegalStateException("Missing operand for operation " + operation);
+            }
+            code.add(operation);
+            depth -= operands - 1;
+        }
+
+        private void push() {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
@@ -44,6 +44,17 @@ public abstract class FormulaValue {
      */
     public abstract boolean isFeatureDependent();
     
+    /**
+     * Appends the instructions computing this value to a compiled formula,
+     * in postfix order (operands first). The default implementation lets the
+     * compiled formula call getValue for each feature, subclasses should
+     * override it with primitive instructions.
+     *@param builder the builder of the compiled formula
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        builder.addValue(this);
+    }
+    
     /**
      * @inheritDoc
      */
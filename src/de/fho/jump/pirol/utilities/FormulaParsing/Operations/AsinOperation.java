@@ -2,6 +2,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 /**
  * Class to handle additions within a formula.
@@ -33,5 +34,11 @@ public class AsinOperation extends FormulaValue {
 	        return "StrictMath.asin("+ this.value.toString() +")";
 	    }
 
-		
+	    /**
+	     *@inheritDoc
+	     */
+	    public void compile(CompiledFormula.Builder builder) {
+	        this.value.compile(builder);
+	        builder.addOperation(CompiledFormula.ASIN);
+	    }
 	}
@@ -2,6 +2,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 /**
  * Class to handle additions within a formula.
@@ -34,6 +35,11 @@ public class AtnaOperation extends FormulaValue {
 	        return "StrictMath.atan("+ this.value.toString() +")";
 	    }
 
-		
+	    /**
+	     *@inheritDoc
+	     */
+	    public void compile(CompiledFormula.Builder builder) {
+	        this.value.compile(builder);
+	        builder.addOperation(CompiledFormula.ATAN);
+	    }
 	}
-
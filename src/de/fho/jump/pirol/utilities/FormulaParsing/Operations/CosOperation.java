@@ -2,6 +2,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 
@@ -36,5 +37,11 @@ public class CosOperation extends FormulaValue {
 	        return "StrictMath.cos("+ this.value.toString() +")";
 	    }
 
-		
+	    /**
+	     *@inheritDoc
+	     */
+	    public void compile(CompiledFormula.Builder builder) {
+	        this.value.compile(builder);
+	        builder.addOperation(CompiledFormula.COS);
+	    }
 	}
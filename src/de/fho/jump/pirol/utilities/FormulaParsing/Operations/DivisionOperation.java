@@ -11,6 +11,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -44,4 +45,12 @@ public class DivisionOperation extends GenericOperation {
         return this.value1.getValue(feature) / this.value2.getValue(feature);
     }
 
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        this.value1.compile(builder);
+        this.value2.compile(builder);
+        builder.addOperation(CompiledFormula.DIVIDE);
+    }
 }
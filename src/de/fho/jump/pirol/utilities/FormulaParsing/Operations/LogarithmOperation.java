@@ -2,6 +2,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -37,5 +38,11 @@ public class LogarithmOperation extends FormulaValue {
         return "Math.log("+ this.value.toString() +")";
     }
 
-	
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        this.value.compile(builder);
+        builder.addOperation(CompiledFormula.LOG);
+    }
 }
@@ -11,6 +11,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -51,4 +52,13 @@ public class PowerOfOperation extends GenericOperation {
     public String toString() {
         return "Math.pow("+ this.value1.toString() +", "+ this.value2.toString() +")";
     }
+
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        this.value1.compile(builder);
+        this.value2.compile(builder);
+        builder.addOperation(CompiledFormula.POWER);
+    }
 }
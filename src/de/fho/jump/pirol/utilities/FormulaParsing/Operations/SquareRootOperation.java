@@ -11,6 +11,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -55,4 +56,11 @@ public class SquareRootOperation extends FormulaValue {
         return "Math.sqrt("+ this.value.toString() +")";
     }
 
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        this.value.compile(builder);
+        builder.addOperation(CompiledFormula.SQRT);
+    }
 }
@@ -14,6 +14,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 public class ToDegreesOperation extends FormulaValue {
@@ -38,6 +39,11 @@ public class ToDegreesOperation extends FormulaValue {
 	        return "Radians to Degrees("+ this.value.toString() +")";
 	    }
 
-		
+	    /**
+	     *@inheritDoc
+	     */
+	    public void compile(CompiledFormula.Builder builder) {
+	        this.value.compile(builder);
+	        builder.addOperation(CompiledFormula.TO_DEGREES);
+	    }
 	}
-
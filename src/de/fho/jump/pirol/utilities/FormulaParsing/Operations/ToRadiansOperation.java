@@ -14,6 +14,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Operations;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 public class ToRadiansOperation extends FormulaValue {
@@ -39,6 +40,11 @@ public class ToRadiansOperation extends FormulaValue {
 	        return "Degrees to Radians("+ this.value.toString() +")";
 	    }
 
-		
+	    /**
+	     *@inheritDoc
+	     */
+	    public void compile(CompiledFormula.Builder builder) {
+	        this.value.compile(builder);
+	        builder.addOperation(CompiledFormula.TO_RADIANS);
+	    }
 	}
-
@@ -13,6 +13,7 @@ import org.openjump.core.apitools.comparisonandsorting.ObjectComparator;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -63,4 +64,10 @@ public class AttributeValue extends FormulaValue {
         return this.attributeName;
     }
 
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        builder.addAttribute(this.attributeName);
+    }
 }
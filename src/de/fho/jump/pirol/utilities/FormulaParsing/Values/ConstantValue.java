@@ -11,6 +11,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Values;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 /**
@@ -56,4 +57,10 @@ public class ConstantValue extends FormulaValue {
         return "" + this.value;
     }
 
+    /**
+     *@inheritDoc
+     */
+    public void compile(CompiledFormula.Builder builder) {
+        builder.addConstant(this.value);
+    }
 }
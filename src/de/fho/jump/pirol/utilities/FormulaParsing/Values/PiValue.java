@@ -2,6 +2,7 @@ package de.fho.jump.pirol.utilities.FormulaParsing.Values;
 
 import com.vividsolutions.jump.feature.Feature;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 
 public class PiValue extends FormulaValue {
@@ -30,4 +31,10 @@ public class PiValue extends FormulaValue {
             return "PI";
         }
 
+        /**
+         *@inheritDoc
+         */
+        public void compile(CompiledFormula.Builder builder) {
+            builder.addConstant(Math.PI);
+        }
     }
@@ -153,7 +153,6 @@ public class UndoableSetGeometry
 	
 	private void refreshUI(ArrayList modifiedFeatures, ArrayList modifiedFeaturesOldClones){
 		if (this.layer!=null) {
-			Layer.tryToInvalidateEnvelope(this.layer);
 			// fire the appropriate event, so everybody gets notified
 			if (!modifiedFeatures.isEmpty()) {
 				this.layer.getLayerManager().fireGeometryModified(
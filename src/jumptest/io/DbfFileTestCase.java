@@ -1,11 +1,22 @@
 package jumptest.io;
 
 import junit.framework.TestCase;
+import org.geotools.dbffile.DbfFieldDef;
 import org.geotools.dbffile.DbfFile;
+import org.geotools.dbffile.DbfFileWriter;
 
+import java.io.File;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DbfFileTestCase extends TestCase {
 
@@ -41,4 +52,117 @@ public class DbfFileTestCase extends TestCase {
         assertEquals(dateFormatter.parse("0203-04-05"), dbfFile.parseDate("02030405"));        
     }
 
+    public void testReadRecords() throws Exception {
+        File file = File.createTempFile("test", ".dbf");
+        file.deleteOnExit();
+        DbfFieldDef[] fields = new DbfFieldDef[] {
+                new DbfFieldDef("NAME", 'C', 10, 0),
+                new DbfFieldDef("INT", 'N', 9, 0),
+                new DbfFieldDef("LONG", 'N', 18, 0),
+                new DbfFieldDef("DOUBLE", 'N', 20, 6)
+        };
+        DbfFileWriter writer = new DbfFileWriter(file.getPath());
+        writer.writeHeader(fields, 3);
+        writer.writeRecord(record("abc", -12, 123456789012L, 1.1));
+        writer.writeRecord(record("", 0, -1L, -12.25));
+        writer.writeRecord(record("xyz", 999999999, 0L, 12345678.5));
+        writer.close();
+
+        DbfFile dbf = new DbfFile(file.getPath(), Charset.forName("ISO-8859-1"));
+        assertEquals(3, dbf.getLastRec());
+        assertEquals("LONG", dbf.getFieldType(2));
+        assertEquals("abc", dbf.getValue(0, 0));
+        assertEquals(-12, dbf.getValue(0, 1));
+        assertEquals(123456789012L, dbf.getValue(0, 2));
+        assertEquals(1.1, dbf.getValue(0, 3));
+        assertEquals(-12.25, dbf.getValue(1, 3));
+        assertEquals("", dbf.getValue(1, 0));
+        assertEquals(12345678.5, dbf.getValue(2, 3));
+        assertEquals(dbf.getValue(2, 0), dbf.ParseRecordColumn(dbf.GetDbfRec(2), 0));
+        assertFalse(dbf.isDeleted(1));
+
+        DbfFile.Cursor cursor = dbf.cursor();
+        int count = 0;
+        while (cursor.next()) {
+            for (int i = 0 ; i < dbf.getNumFields() ; i++) {
+                assertEquals(dbf.getValue(cursor.getRow(), i), cursor.getValue(i));
+            }
+            count++;
+        }
+        assertEquals(3, count);
+        dbf.close();
+        assertTrue(file.delete());
+    }
+
+    public void testParallelRead() throws Exception {
+        File file = File.createTempFile("test", ".dbf");
+        file.deleteOnExit();
+        DbfFieldDef[] fields = new DbfFieldDef[] {
+                new DbfFieldDef("NAME", 'C', 10, 0),
+                new DbfFieldDef("INT", 'N', 9, 0),
+                new DbfFieldDef("LONG", 'N', 18, 0),
+                new DbfFieldDef("DOUBLE", 'N', 20, 6)
+        };
+        int size = 20000;
+        DbfFileWriter writer = new DbfFileWriter(file.getPath());
+        writer.writeHeader(fields, size);
+        for (int i = 0 ; i < size ; i++) {
+            writer.writeRecord(record("r" + (i % 100), i, i * 1000003L, i / 8.0));
+        }
+        writer.close();
+
+        List<Object> sequential = new ArrayList<>();
+        DbfFile dbf = new DbfFile(file.getPath(), Charset.forName("ISO-8859-1"));
+        DbfFile.Cursor cursor = dbf.cursor();
+        while (cursor.next()) {
+            for (int i = 0 ; i < dbf.getNumFields() ; i++) {
+                sequential.add(cursor.getValue(i));
+            }
+        }
+        dbf.close();
+
+        // a new file, so that the threads also race to map the segment
+        final DbfFile shared = new DbfFile(file.getPath(), Charset.forName("ISO-8859-1"));
+        final int threads = 4;
+        final Object[] parallel = new Object[size * fields.length];
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0 ; t < threads ; t++) {
+                final int first = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int row = first ; row < size ; row += threads) {
+                        for (int i = 0 ; i < fields.length ; i++) {
+                            parallel[row * fields.length + i] = shared.getValue(row, i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            shared.close();
+        }
+        assertEquals(sequential.size(), parallel.length);
+        for (int i = 0 ; i < parallel.length ; i++) {
+            assertEquals(sequential.get(i), parallel[i]);
+        }
+        assertTrue(file.delete());
+    }
+
+    private Vector<Object> record(String s, int i, long l, double d) {
+        Vector<Object> record = new Vector<>();
+        record.add(s);
+        record.add(i);
+        record.add(l);
+        record.add(d);
+        return record;
+    }
+
 }
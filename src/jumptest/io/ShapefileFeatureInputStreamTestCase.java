@@ -0,0 +1,139 @@
+package jumptest.io;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.io.DriverProperties;
+import com.vividsolutions.jump.io.ShapefileFeatureInputStream;
+import com.vividsolutions.jump.io.ShapefileReader;
+import com.vividsolutions.jump.io.ShapefileWriter;
+import com.vividsolutions.jump.io.datasource.DataSource;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShapefileFeatureInputStreamTestCase extends TestCase {
+
+    public ShapefileFeatureInputStreamTestCase(String arg0) {
+        super(arg0);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ShapefileFeatureInputStreamTestCase.class);
+    }
+
+    private File dir;
+    private String shpFileName;
+
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("shp").toFile();
+        shpFileName = new File(dir, "points.shp").getPath();
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        schema.addAttribute("NAME", AttributeType.STRING);
+        schema.addAttribute("COUNT", AttributeType.INTEGER);
+        schema.addAttribute("VALUE", AttributeType.DOUBLE);
+        GeometryFactory factory = new GeometryFactory();
+        FeatureCollection fc = new FeatureDataset(schema);
+        for (int i = 0 ; i < 25000 ; i++) {
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(factory.createPoint(new Coordinate(i % 100, i / 100.0)));
+            feature.setAttribute("NAME", "p" + (i % 7));
+            feature.setAttribute("COUNT", i);
+            feature.setAttribute("VALUE", i / 4.0);
+            fc.add(feature);
+        }
+        new ShapefileWriter().write(fc, properties());
+    }
+
+    protected void tearDown() throws Exception {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        dir.delete();
+    }
+
+    private DriverProperties properties() {
+        DriverProperties dp = new DriverProperties();
+        dp.set(DataSource.FILE_KEY, shpFileName);
+        return dp;
+    }
+
+    /**
+     * Returns a reader decoding the whole shapefile before building the
+     * features, as it does when shapes are decoded in parallel.
+     */
+    private FeatureCollection read() throws Exception {
+        return new ShapefileReader() {
+            protected int getParallelism() {
+                return 2;
+            }
+        }.read(properties());
+    }
+
+    public void testIndexedStream() throws Exception {
+        assertSameFeatures(read(), stream());
+    }
+
+    public void testSequentialStream() throws Exception {
+        FeatureCollection expected = read();
+        assertTrue(new File(dir, "points.shx").delete());
+        assertSameFeatures(expected, stream());
+    }
+
+    public void testSequentialReader() throws Exception {
+        // without parallel decoding, ShapefileReader reads the stream
+        ShapefileReader sequential = new ShapefileReader() {
+            protected int getParallelism() {
+                return 1;
+            }
+        };
+        FeatureCollection streamed = sequential.read(properties());
+        assertTrue(sequential.getExceptions().isEmpty());
+        assertSameFeatures(read(), streamed.getFeatures());
+    }
+
+    private List<Feature> stream() throws Exception {
+        ShapefileFeatureInputStream stream = new ShapefileFeatureInputStream(shpFileName,
+                Charset.forName("ISO-8859-1"));
+        List<Feature> features = new ArrayList<>();
+        try {
+            while (stream.hasNext()) {
+                features.add(stream.next());
+            }
+            assertEquals(0, stream.getErrorNumber());
+            assertEquals(features.size(), stream.getShapeNumber());
+            assertEquals(features.size(), stream.getRecordNumber());
+        } finally {
+            stream.close();
+        }
+        return features;
+    }
+
+    private void assertSameFeatures(FeatureCollection expected, List<Feature> actual) {
+        assertEquals(expected.size(), actual.size());
+        FeatureSchema schema = expected.getFeatureSchema();
+        for (int i = 0 ; i < actual.size() ; i++) {
+            Feature e = expected.getFeatures().get(i);
+            Feature a = actual.get(i);
+            assertTrue(e.getGeometry().equalsExact(a.getGeometry()));
+            for (int j = 0 ; j < schema.getAttributeCount() ; j++) {
+                if (j == schema.getGeometryIndex()) continue;
+                assertEquals(e.getAttribute(j), a.getAttribute(j));
+            }
+        }
+    }
+
+}
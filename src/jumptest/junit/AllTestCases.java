@@ -1,6 +1,7 @@
 package jumptest.junit;
 
 import jumptest.io.DbfFileTestCase;
+import jumptest.io.ShapefileFeatureInputStreamTestCase;
 import junit.framework.*;
 
 /**
@@ -19,22 +20,43 @@ public class AllTestCases extends TestCase {
     result.addTest(new TestSuite(AngleTestCase.class));
     result.addTest(new TestSuite(AttributeMappingTestCase.class));
     result.addTest(new TestSuite(AttributeTypeTestCase.class));
+    result.addTest(new TestSuite(BeanshellAttributeOperationTestCase.class));
     result.addTest(new TestSuite(CollectionUtilTestCase.class));
+    result.addTest(new TestSuite(ColumnarFeatureCollectionTestCase.class));
+    result.addTest(new TestSuite(CompiledFormulaTestCase.class));
+    result.addTest(new TestSuite(ConditionTestCase.class));
     result.addTest(new TestSuite(DbfFileTestCase.class));
+    result.addTest(new TestSuite(DiffGeometryTestCase.class));
     result.addTest(new TestSuite(EnvelopeIntersectorTestCase.class));
+    result.addTest(new TestSuite(ExtensionIndexTestCase.class));
     result.addTest(new TestSuite(FeatureCollectionMetaDataTestCase.class));
+    result.addTest(new TestSuite(FeatureDatasetTestCase.class));
     result.addTest(new TestSuite(FeatureTestCase.class));
     result.addTest(new TestSuite(FlexibleDateParserTestCase.class));    
     result.addTest(new TestSuite(GMLWriterTestCase.class));
     result.addTest(new TestSuite(GUIUtilTestCase.class));
     result.addTest(new TestSuite(InteriorPointFinderTestCase.class));
+    result.addTest(new TestSuite(LayerManagerTestCase.class));
+    result.addTest(new TestSuite(LazyPlugInTestCase.class));
+    result.addTest(new TestSuite(LevelOfDetailTestCase.class));
+    result.addTest(new TestSuite(MapTileCacheTestCase.class));
     result.addTest(new TestSuite(OverlayEngineTestCase.class));
     result.addTest(new TestSuite(PanelTestCase.class));
+    result.addTest(new TestSuite(PostGISBinaryCopyTestCase.class));
     result.addTest(new TestSuite(RangeTestCase.class));
     result.addTest(new TestSuite(ShapeCollectionPathIteratorTestCase.class));
+    result.addTest(new TestSuite(ShapefileFeatureInputStreamTestCase.class));
     result.addTest(new TestSuite(SimpleGMLReaderTestCase.class));
+    result.addTest(new TestSuite(SnapIndexTestCase.class));
+    result.addTest(new TestSuite(SpatialDatabasesFeatureInputStreamTestCase.class));
+    result.addTest(new TestSuite(StartupProfilerTestCase.class));
     result.addTest(new TestSuite(StringUtilTestCase.class));
+    result.addTest(new TestSuite(ThreadQueueTestCase.class));
+    result.addTest(new TestSuite(TileCacheTestCase.class));
+    result.addTest(new TestSuite(TiledCachingFeatureCollectionTestCase.class));
+    result.addTest(new TestSuite(TiledTiffReaderTestCase.class));
     result.addTest(new TestSuite(TriangulatorTestCase.class));
+    result.addTest(new TestSuite(UnionEngineTestCase.class));
     result.addTest(new TestSuite(ValidatorTestCase.class));
     result.addTest(new TestSuite(VerticesInFencePlugInTestCase.class));
     return result;
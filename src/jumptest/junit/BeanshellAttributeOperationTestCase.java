@@ -0,0 +1,111 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjump.core.feature.BeanshellAttributeOperation;
+
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.util.Blackboard;
+import com.vividsolutions.jump.workbench.JUMPWorkbench;
+import com.vividsolutions.jump.workbench.WorkbenchContext;
+import com.vividsolutions.jump.workbench.plugin.PlugInContext;
+import com.vividsolutions.jump.workbench.ui.ErrorHandler;
+import com.vividsolutions.jump.workbench.ui.LayerNamePanel;
+import com.vividsolutions.jump.workbench.ui.LayerableNamePanel;
+
+public class BeanshellAttributeOperationTestCase extends TestCase {
+
+  public BeanshellAttributeOperationTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {BeanshellAttributeOperationTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private final PlugInContext context = new PlugInContext(new WorkbenchContext() {
+    public JUMPWorkbench getWorkbench() {
+      return null;
+    }
+    public ErrorHandler getErrorHandler() {
+      return t -> fail(t.toString());
+    }
+    public Blackboard getBlackboard() {
+      return new Blackboard();
+    }
+    public LayerNamePanel getLayerNamePanel() {
+      return null;
+    }
+    public LayerableNamePanel getLayerableNamePanel() {
+      return null;
+    }
+  }, null, null, null, null);
+
+  private List<Feature> features() {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("NAME", AttributeType.STRING);
+    schema.addAttribute("COUNT", AttributeType.INTEGER);
+    schema.addAttribute("VALUE", AttributeType.DOUBLE);
+    GeometryFactory factory = new GeometryFactory();
+    List<Feature> features = new ArrayList<>();
+    for (int i = 0 ; i < 2000 ; i++) {
+      Feature feature = new BasicFeature(schema);
+      feature.setGeometry(factory.createPoint(new Coordinate(i, i % 10)));
+      feature.setAttribute("NAME", "f" + (i % 13));
+      feature.setAttribute("COUNT", i);
+      feature.setAttribute("VALUE", i / 3.0);
+      features.add(feature);
+    }
+    return features;
+  }
+
+  /**
+   * Evaluates expression for each feature in sequence, then in parallel,
+   * and checks that both give the same values.
+   */
+  private Object[] assertSameValues(AttributeType type, String expression) throws Exception {
+    List<Feature> features = features();
+    BeanshellAttributeOperation sequential =
+        new BeanshellAttributeOperation(context, type, expression);
+    Object[] expected = new Object[features.size()];
+    for (int i = 0 ; i < expected.length ; i++) {
+      expected[i] = sequential.evaluate((BasicFeature) features.get(i));
+    }
+    BeanshellAttributeOperation parallel =
+        new BeanshellAttributeOperation(context, type, expression);
+    Object[] values = parallel.evaluate(features, 4, null);
+    assertTrue(Arrays.equals(expected, values));
+    return values;
+  }
+
+  public void testExpression() throws Exception {
+    Object[] values = assertSameValues(AttributeType.DOUBLE,
+        "COUNT * 2 + VALUE + geometry.getY()");
+    assertEquals(10 * 2 + 10 / 3.0, values[10]);
+  }
+
+  public void testStatementsWithReturn() throws Exception {
+    Object[] values = assertSameValues(AttributeType.STRING,
+        "x = COUNT % 3;\nif (x == 0) return NAME + \"!\";\nreturn NAME;");
+    assertEquals("f0!", values[0]);
+    assertEquals("f1", values[1]);
+  }
+
+  public void testStatementsEvaluated() throws Exception {
+    // can't be wrapped in a method, evaluated as is for each feature
+    Object[] values = assertSameValues(AttributeType.INTEGER,
+        "x = COUNT * 2; x + feature.getAttribute(\"NAME\").length()");
+    assertEquals(2 * 20 + 2, values[20]);
+    assertEquals(2 * 1999 + 3, values[1999]);
+  }
+}
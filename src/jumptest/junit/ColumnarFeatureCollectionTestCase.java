@@ -0,0 +1,134 @@
+package jumptest.junit;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.*;
+
+public class ColumnarFeatureCollectionTestCase extends TestCase {
+
+  public ColumnarFeatureCollectionTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {ColumnarFeatureCollectionTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private GeometryFactory factory = new GeometryFactory();
+
+  private FeatureSchema schema() {
+    FeatureSchema fs = new FeatureSchema();
+    fs.addAttribute("geometry", AttributeType.GEOMETRY);
+    fs.addAttribute("id", AttributeType.INTEGER);
+    fs.addAttribute("area", AttributeType.DOUBLE);
+    fs.addAttribute("code", AttributeType.STRING);
+    fs.addAttribute("built", AttributeType.BOOLEAN);
+    fs.addAttribute("owner", AttributeType.LONG);
+    return fs;
+  }
+
+  private FeatureDataset dataset(FeatureSchema fs, int size) {
+    FeatureDataset dataset = new FeatureDataset(fs);
+    for (int i = 0 ; i < size ; i++) {
+      Feature f = new BasicFeature(fs);
+      f.setGeometry(factory.createPoint(new Coordinate(i % 100, i / 100)));
+      f.setAttribute("id", i);
+      f.setAttribute("area", i % 7 == 0 ? null : i * 0.5);
+      f.setAttribute("code", "C" + (i % 10));
+      f.setAttribute("built", i % 2 == 0);
+      f.setAttribute("owner", (long)i << 33);
+      dataset.add(f);
+    }
+    return dataset;
+  }
+
+  public void testCopy() {
+    FeatureDataset dataset = dataset(schema(), 3000);
+    ColumnarFeatureCollection fc = new ColumnarFeatureCollection(dataset);
+    assertEquals(3000, fc.size());
+    for (int i = 0 ; i < dataset.size() ; i++) {
+      Feature expected = dataset.getFeature(i);
+      Feature actual = fc.getFeature(i);
+      assertTrue(Arrays.equals(expected.getAttributes(), actual.getAttributes()));
+      assertFalse(((ColumnarFeature)actual).isModified());
+    }
+    Envelope env = new Envelope(10.5, 20.5, 10.5, 20.5);
+    assertEquals(100, fc.query(env).size());
+    assertEquals(dataset.getEnvelope(), fc.getEnvelope());
+  }
+
+  public void testColumns() {
+    ColumnarFeatureCollection fc = new ColumnarFeatureCollection(dataset(schema(), 100));
+    double[] areas = fc.getDoubleValues(fc.getFeatureSchema().getAttributeIndex("area"));
+    assertEquals(100, areas.length);
+    assertTrue(Double.isNaN(areas[0]));
+    assertEquals(0.5, areas[1], 0.0);
+    assertEquals(49.5, areas[99], 0.0);
+
+    ColumnarFeatureCollection.Column code = fc.getColumn("code");
+    assertEquals(10, code.getDictionary().length);
+    ColumnarFeature f = (ColumnarFeature)fc.getFeature(13);
+    assertEquals("C3", code.getDictionary()[code.getCode(f.getRow())]);
+    assertEquals(13.0, fc.getColumn("id").getDouble(f.getRow()), 0.0);
+    assertTrue(fc.getColumn("area").isNull(((ColumnarFeature)fc.getFeature(14)).getRow()));
+  }
+
+  public void testSetAttributes() {
+    ColumnarFeatureCollection fc = new ColumnarFeatureCollection(dataset(schema(), 10));
+    ColumnarFeature f = (ColumnarFeature)fc.getFeature(3);
+    f.setAttribute("code", "new");
+    f.setAttribute("built", null);
+    assertEquals("new", f.getAttribute("code"));
+    assertNull(f.getAttribute("built"));
+    assertTrue(f.isModified());
+    assertFalse(((ColumnarFeature)fc.getFeature(4)).isModified());
+    f.setModified(false);
+    assertFalse(f.isModified());
+
+    // a value of another class converts the column
+    f.setAttribute("id", 12L);
+    assertEquals(12L, f.getAttribute("id"));
+    assertEquals(4, fc.getFeature(4).getAttribute("id"));
+  }
+
+  public void testCreateAndRemove() {
+    FeatureSchema fs = schema();
+    ColumnarFeatureCollection fc = new ColumnarFeatureCollection(fs);
+    ColumnarFeature f = fc.createFeature();
+    assertNull(f.getAttribute("id"));
+    f.setGeometry(factory.createPoint(new Coordinate(1, 2)));
+    f.setAttribute("id", 1);
+    fc.add(f);
+    Feature basic = new BasicFeature(fs);
+    basic.setGeometry(factory.createPoint(new Coordinate(3, 4)));
+    fc.add(basic);
+    assertSame(basic, fc.getFeature(1));
+    assertEquals(1, fc.getRowCount());
+
+    fc.remove(f);
+    assertEquals(1, fc.size());
+    assertEquals(1, f.getAttribute("id"));
+    fc.add(f);
+    assertEquals(Collections.singletonList(f),
+        fc.query(new Envelope(0, 2, 0, 2)));
+  }
+
+  public void testSchemaChange() {
+    ColumnarFeatureCollection fc = new ColumnarFeatureCollection(dataset(schema(), 10));
+    ColumnarFeature f = (ColumnarFeature)fc.getFeature(2);
+    FeatureSchema newSchema = new FeatureSchema();
+    newSchema.addAttribute("geometry", AttributeType.GEOMETRY);
+    newSchema.addAttribute("id", AttributeType.STRING);
+    f.setSchema(newSchema);
+    f.setAttributes(new Object[]{f.getGeometry(), "2"});
+    assertTrue(f.isDetached());
+    assertEquals("2", f.getAttribute("id"));
+    assertEquals(3, fc.getFeature(3).getAttribute("id"));
+  }
+}
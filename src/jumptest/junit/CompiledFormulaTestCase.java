@@ -0,0 +1,92 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.*;
+
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
+import de.fho.jump.pirol.utilities.FormulaParsing.FormulaParser;
+import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
+import de.fho.jump.pirol.utilities.FormulaParsing.Operations.*;
+import de.fho.jump.pirol.utilities.FormulaParsing.Values.AttributeValue;
+import de.fho.jump.pirol.utilities.FormulaParsing.Values.ConstantValue;
+
+public class CompiledFormulaTestCase extends TestCase {
+
+  public CompiledFormulaTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {CompiledFormulaTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testParsedFormula() throws Exception {
+    FeatureCollection fc = features(5000);
+    FormulaValue formula = FormulaParser.getValue("A * 2 + B / 3 - 1", fc.getFeatureSchema());
+    assertSameValues(formula, fc.getFeatures());
+    assertSameValues(formula, new ColumnarFeatureCollection(fc).getFeatures());
+  }
+
+  public void testFunctions() throws Exception {
+    FeatureCollection fc = features(3000);
+    AttributeValue a = new AttributeValue("A");
+    AttributeValue b = new AttributeValue("B");
+    FormulaValue formula = new AdditionOperation(
+        new PowerOfOperation(new SinOperation(a), new ConstantValue(2)),
+        new MultiplicationOperation(new SquareRootOperation(b),
+            new ToDegreesOperation(new AtnaOperation(new LogarithmOperation(b)))));
+    assertSameValues(formula, fc.getFeatures());
+    assertSameValues(formula, new ColumnarFeatureCollection(fc).getFeatures());
+  }
+
+  public void testNullAndStringValues() throws Exception {
+    FeatureCollection fc = features(10);
+    fc.getFeatures().get(2).setAttribute("A", null);
+    fc.getFeatures().get(3).setAttribute("S", "abc");
+    FormulaValue formula = new SubtractionOperation(
+        new AttributeValue("S"), new AttributeValue("A"));
+    BitSet failures = new BitSet();
+    double[] values = CompiledFormula.compile(formula)
+        .evaluate(fc.getFeatures(), 2, null, failures);
+    assertEquals(1, failures.cardinality());
+    assertTrue(failures.get(3));
+    assertTrue(Double.isNaN(values[2]));
+    assertEquals(5.5 - 5, values[5], 0.0);
+  }
+
+  private void assertSameValues(FormulaValue formula, List<Feature> features) throws Exception {
+    double[] values = CompiledFormula.compile(formula).evaluate(features, 4, null, null);
+    assertEquals(features.size(), values.length);
+    for (int i = 0 ; i < values.length ; i++) {
+      assertEquals(formula.getValue(features.get(i)), values[i], 0.0);
+    }
+  }
+
+  private FeatureCollection features(int n) {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("A", AttributeType.INTEGER);
+    schema.addAttribute("B", AttributeType.DOUBLE);
+    schema.addAttribute("S", AttributeType.STRING);
+    GeometryFactory factory = new GeometryFactory();
+    FeatureCollection fc = new FeatureDataset(schema);
+    List<Feature> features = new ArrayList<>();
+    for (int i = 0 ; i < n ; i++) {
+      Feature feature = new BasicFeature(schema);
+      feature.setGeometry(factory.createPoint(new Coordinate(i, i)));
+      feature.setAttribute("A", i);
+      feature.setAttribute("B", i * 0.25 + 1);
+      feature.setAttribute("S", "" + (i + 0.5));
+      features.add(feature);
+    }
+    fc.addAll(features);
+    return fc;
+  }
+}
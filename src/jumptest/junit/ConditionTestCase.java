@@ -0,0 +1,89 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjump.core.ui.plugin.queries.Condition;
+import org.openjump.core.ui.plugin.queries.Function;
+import org.openjump.core.ui.plugin.queries.Operator;
+import com.vividsolutions.jump.feature.*;
+
+public class ConditionTestCase extends TestCase {
+
+  private GeometryFactory factory = new GeometryFactory();
+
+  public ConditionTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {ConditionTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testNumericCondition() throws Exception {
+    List<Feature> features = features(10000);
+    Condition condition = new Condition("ID", Function.NNOF, Operator.LT, "100", 0, true, null);
+    assertEquals(100, condition.select(features, 1, null).size());
+    List<Feature> selected = condition.select(features, 4, null);
+    assertEquals(100, selected.size());
+    assertSame(features.get(0), selected.get(0));
+    assertSame(features.get(99), selected.get(99));
+  }
+
+  public void testStringCondition() throws Exception {
+    List<Feature> features = features(1000);
+    Condition condition = new Condition("NAME", Function.SNOF, Operator.STAR, "name1", 0, false, null);
+    // NAME1, NAME10..NAME19, NAME100..NAME199
+    assertEquals(111, condition.select(features, 4, null).size());
+    condition = new Condition("NAME", Function.SNOF, Operator.STAR, "name1", 0, true, null);
+    assertEquals(0, condition.select(features, 4, null).size());
+    condition = new Condition("NAME", Function.LENG, Operator.EQ, "5", 0, true, null);
+    assertEquals(10, condition.select(features, 4, null).size());
+  }
+
+  public void testNullCondition() throws Exception {
+    List<Feature> features = features(100);
+    features.get(5).setAttribute("NAME", null);
+    Condition condition = new Condition("NAME", Function.ISNULL, Operator.BEQ, "true", 0, true, null);
+    assertEquals(1, condition.select(features, 4, null).size());
+    condition = new Condition("NAME", Function.SNOF, Operator.DIFF, "NAME1", 0, true, null);
+    assertEquals(99, condition.select(features, 4, null).size());
+  }
+
+  public void testSpatialCondition() throws Exception {
+    List<Feature> features = features(10000);
+    List<Geometry> targets = new ArrayList<>();
+    for (int i = 0 ; i < 1000 ; i++) {
+      targets.add(factory.toGeometry(new Envelope(i * 10 + 0.5, i * 10 + 0.7, 0.5, 0.7)));
+    }
+    Condition condition = new Condition(null, Function.GNOF, Operator.INTER, "", 0, true,
+        Collections.singletonList(targets));
+    assertEquals(1000, condition.select(features, 4, null).size());
+    condition = new Condition(null, Function.GNOF, Operator.WITHI, "", 0, true,
+        Collections.singletonList(targets));
+    assertEquals(1000, condition.select(features, 4, null).size());
+  }
+
+  private List<Feature> features(int n) {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("ID", AttributeType.INTEGER);
+    schema.addAttribute("NAME", AttributeType.STRING);
+    List<Feature> features = new ArrayList<>();
+    for (int i = 0 ; i < n ; i++) {
+      Feature feature = new BasicFeature(schema);
+      feature.setGeometry(factory.createPoint(new Coordinate(i + 0.6, 0.6)));
+      feature.setAttribute("ID", i);
+      feature.setAttribute("NAME", "NAME" + i);
+      features.add(feature);
+    }
+    return features;
+  }
+}
@@ -0,0 +1,109 @@
+package jumptest.junit;
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.*;
+import com.vividsolutions.jump.qa.diff.BufferGeometryMatcher;
+import com.vividsolutions.jump.qa.diff.DiffGeometryComponents;
+import com.vividsolutions.jump.qa.diff.DiffSegments;
+import com.vividsolutions.jump.qa.diff.DiffSegmentsWithTolerance;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+
+public class DiffGeometryTestCase extends TestCase {
+
+  private GeometryFactory factory = new GeometryFactory();
+
+  public DiffGeometryTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {DiffGeometryTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testDiffGeometryComponents() throws Exception {
+    FeatureCollection fc0 = grid(40, 0);
+    FeatureCollection fc1 = grid(40, 0);
+    // 5 modified features, one removed and one added
+    for (int i = 0 ; i < 5 ; i++) {
+      Feature feature = fc1.getFeatures().get(i * 300);
+      feature.setGeometry(factory.toGeometry(new Envelope(0, 0.5, 0, 0.5)));
+    }
+    fc1.remove(fc1.getFeatures().get(1000));
+    fc1.add(toFeature(fc1.getFeatureSchema(), factory.toGeometry(new Envelope(50, 51, 50, 51))));
+    for (int parallelism : new int[]{1, 4}) {
+      DiffGeometryComponents diff = new DiffGeometryComponents(fc0, fc1, new DummyTaskMonitor());
+      diff.setParallelism(parallelism);
+      FeatureCollection[] result = diff.diff();
+      assertEquals(6, result[0].size());
+      assertEquals(6, result[1].size());
+    }
+  }
+
+  public void testDiffGeometryComponentsWithTolerance() throws Exception {
+    FeatureCollection fc0 = grid(40, 0);
+    FeatureCollection fc1 = grid(40, 0.05);
+    DiffGeometryComponents diff = new DiffGeometryComponents(fc0, fc1, new DummyTaskMonitor());
+    diff.setMatcherFactory(() -> new BufferGeometryMatcher(0.1));
+    FeatureCollection[] result = diff.diff();
+    assertEquals(0, result[0].size());
+    assertEquals(0, result[1].size());
+  }
+
+  public void testDiffSegments() throws Exception {
+    FeatureCollection fc0 = lines(2000, 0);
+    FeatureCollection fc1 = lines(2000, 0);
+    fc1.getFeatures().get(700).setGeometry(line(700, 0.5));
+    DiffSegments diff = new DiffSegments(new DummyTaskMonitor());
+    diff.setSegments(0, fc0);
+    diff.setSegments(1, fc1);
+    assertEquals(1, diff.computeDiffEdges(0).size());
+    assertEquals(1, diff.computeDiffEdges(1).size());
+
+    DiffSegmentsWithTolerance diffWithTolerance = new DiffSegmentsWithTolerance(
+        fc0, lines(2000, 0.01), 0.1);
+    FeatureCollection[] result = diffWithTolerance.diff();
+    assertEquals(0, result[0].size());
+    assertEquals(0, result[1].size());
+  }
+
+  private FeatureCollection grid(int n, double shift) {
+    FeatureCollection fc = new FeatureDataset(schema());
+    for (int i = 0 ; i < n ; i++) {
+      for (int j = 0 ; j < n ; j++) {
+        fc.add(toFeature(fc.getFeatureSchema(), factory.toGeometry(
+            new Envelope(i + shift, i + 1 + shift, j, j + 1))));
+      }
+    }
+    return fc;
+  }
+
+  private FeatureCollection lines(int n, double shift) {
+    FeatureCollection fc = new FeatureDataset(schema());
+    for (int i = 0 ; i < n ; i++) {
+      fc.add(toFeature(fc.getFeatureSchema(), line(i, shift)));
+    }
+    return fc;
+  }
+
+  private Geometry line(int i, double shift) {
+    return factory.createLineString(new Coordinate[]{
+        new Coordinate(i % 50, i / 50 + shift), new Coordinate(i % 50 + 1, i / 50 + shift)});
+  }
+
+  private FeatureSchema schema() {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    return schema;
+  }
+
+  private Feature toFeature(FeatureSchema schema, Geometry geometry) {
+    Feature feature = new BasicFeature(schema);
+    feature.setGeometry(geometry);
+    return feature;
+  }
+}
@@ -0,0 +1,94 @@
+package jumptest.junit;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jump.workbench.plugin.ExtensionIndex;
+
+public class ExtensionIndexTestCase extends TestCase {
+
+  public ExtensionIndexTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {ExtensionIndexTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testScan() throws Exception {
+    File jar = jar("a/b/FooExtension.class", "a/b/Foo$BarExtension.class",
+        "a/b/Foo.class", "a/BazConfiguration.class", "a/Extension.txt");
+    try {
+      assertEquals(Arrays.asList("a.b.FooExtension", "a.BazConfiguration"),
+          new ExtensionIndex(null).getClassNames(jar));
+    } finally {
+      jar.delete();
+    }
+  }
+
+  public void testCache() throws Exception {
+    File jar = jar("a/FooExtension.class");
+    File file = File.createTempFile("extension-index", ".properties");
+    try {
+      ExtensionIndex index = new ExtensionIndex(file);
+      assertEquals(Arrays.asList("a.FooExtension"), index.getClassNames(jar));
+      index.save();
+
+      // the names are read from the index as long as the jar is unchanged
+      Properties properties = new Properties();
+      try (InputStream in = new FileInputStream(file)) {
+        properties.load(in);
+      }
+      String key = jar.getAbsolutePath();
+      properties.setProperty(key, properties.getProperty(key)
+          .replace("a.FooExtension", "a.CachedExtension"));
+      try (OutputStream out = new FileOutputStream(file)) {
+        properties.store(out, null);
+      }
+      assertEquals(Arrays.asList("a.CachedExtension"),
+          new ExtensionIndex(file).getClassNames(jar));
+
+      // a modified jar is scanned again
+      jar.setLastModified(jar.lastModified() - 10000);
+      assertEquals(Arrays.asList("a.FooExtension"),
+          new ExtensionIndex(file).getClassNames(jar));
+    } finally {
+      jar.delete();
+      file.delete();
+    }
+  }
+
+  public void testNotAZipFile() throws Exception {
+    File file = File.createTempFile("extension-index", ".jar");
+    try {
+      new ExtensionIndex(null).getClassNames(file);
+      fail();
+    } catch (ZipException e) {
+      // expected
+    } finally {
+      file.delete();
+    }
+  }
+
+  private File jar(String... entries) throws Exception {
+    File jar = File.createTempFile("extension-index", ".jar");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (String entry : entries) {
+        out.putNextEntry(new ZipEntry(entry));
+        out.write(new byte[]{0});
+        out.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
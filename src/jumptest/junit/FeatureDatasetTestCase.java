@@ -0,0 +1,124 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateFilter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.*;
+
+public class FeatureDatasetTestCase extends TestCase {
+
+  public FeatureDatasetTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {FeatureDatasetTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private GeometryFactory factory = new GeometryFactory();
+
+  private FeatureSchema schema() {
+    FeatureSchema fs = new FeatureSchema();
+    fs.addAttribute("geometry", AttributeType.GEOMETRY);
+    return fs;
+  }
+
+  private Feature point(FeatureSchema fs, double x, double y) {
+    Feature f = new BasicFeature(fs);
+    f.setGeometry(factory.createPoint(new Coordinate(x, y)));
+    return f;
+  }
+
+  private List<Feature> scan(FeatureCollection fc, Envelope env) {
+    List<Feature> result = new ArrayList<>();
+    for (Feature f : fc.getFeatures()) {
+      if (f.getGeometry().getEnvelopeInternal().intersects(env)) result.add(f);
+    }
+    return result;
+  }
+
+  public void testIndexedQuery() {
+    FeatureSchema fs = schema();
+    FeatureDataset dataset = new FeatureDataset(fs);
+    for (int i = 0 ; i < 5000 ; i++) {
+      dataset.add(point(fs, i % 100, i / 100));
+    }
+    Envelope env = new Envelope(10.5, 20.5, 10.5, 30.5);
+    assertEquals(scan(dataset, env), dataset.query(env));
+    assertEquals(200, dataset.query(env).size());
+  }
+
+  public void testQueryAfterEdits() {
+    FeatureSchema fs = schema();
+    FeatureDataset dataset = new FeatureDataset(fs);
+    for (int i = 0 ; i < 5000 ; i++) {
+      dataset.add(point(fs, i % 100, i / 100));
+    }
+    Envelope env = new Envelope(10.5, 20.5, 10.5, 30.5);
+    dataset.query(env);
+
+    // added features
+    for (int i = 0 ; i < 10 ; i++) {
+      dataset.add(point(fs, 15, 15));
+    }
+    // removed features
+    List<Feature> inside = dataset.query(env);
+    dataset.remove(inside.get(0));
+    dataset.removeAll(inside.subList(1, 5));
+    // removed then added again
+    dataset.remove(inside.get(5));
+    dataset.add(inside.get(5));
+    // modified features
+    Feature moved = inside.get(6);
+    Feature clone = moved.clone(true);
+    moved.setGeometry(factory.createPoint(new Coordinate(90, 90)));
+    dataset.invalidateEnvelope(Collections.singletonList(moved),
+          Collections.singletonList(clone));
+    Feature outside = dataset.getFeature(0);
+    clone = outside.clone(true);
+    outside.setGeometry(factory.createPoint(new Coordinate(12, 12)));
+    dataset.invalidateEnvelope(Collections.singletonList(outside),
+          Collections.singletonList(clone));
+
+    assertEquals(scan(dataset, env), dataset.query(env));
+    assertEquals(200 + 10 - 5 - 1 + 1, dataset.query(env).size());
+    assertTrue(dataset.query(env).contains(outside));
+    assertFalse(dataset.query(env).contains(moved));
+    assertEquals(scan(dataset, dataset.getEnvelope()),
+          dataset.query(dataset.getEnvelope()));
+  }
+
+  public void testQueryAfterUnnotifiedEdit() {
+    FeatureSchema fs = schema();
+    FeatureDataset dataset = new FeatureDataset(fs);
+    for (int i = 0 ; i < 5000 ; i++) {
+      dataset.add(point(fs, i % 100, i / 100));
+    }
+    Envelope env = new Envelope(10.5, 20.5, 10.5, 30.5);
+    Feature moved = dataset.query(env).get(0);
+    int count = dataset.getModificationCount();
+
+    // moved in place, without calling invalidateEnvelope
+    moved.getGeometry().apply((CoordinateFilter) c -> {
+      c.x = 90.5;
+      c.y = 90.5;
+    });
+    moved.getGeometry().geometryChanged();
+
+    // the stale entry is detected and the index rebuilt
+    assertFalse(dataset.query(env).contains(moved));
+    assertTrue(dataset.getModificationCount() > count);
+    assertEquals(scan(dataset, env), dataset.query(env));
+    Envelope target = new Envelope(90, 91, 90, 91);
+    assertTrue(dataset.query(target).contains(moved));
+    assertTrue(dataset.getEnvelope().contains(moved.getGeometry().getEnvelopeInternal()));
+  }
+
+}
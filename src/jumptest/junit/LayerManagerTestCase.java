@@ -0,0 +1,120 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.workbench.model.CategoryEvent;
+import com.vividsolutions.jump.workbench.model.FeatureEvent;
+import com.vividsolutions.jump.workbench.model.FeatureEventType;
+import com.vividsolutions.jump.workbench.model.Layer;
+import com.vividsolutions.jump.workbench.model.LayerEvent;
+import com.vividsolutions.jump.workbench.model.LayerListener;
+import com.vividsolutions.jump.workbench.model.LayerManager;
+import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
+
+public class LayerManagerTestCase extends TestCase {
+
+  public LayerManagerTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {LayerManagerTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private GeometryFactory factory = new GeometryFactory();
+  private FeatureSchema schema;
+  private LayerManager layerManager;
+  private Layer layer;
+  private List<FeatureEvent> events = new ArrayList<>();
+
+  protected void setUp() {
+    schema = new FeatureSchema();
+    schema.addAttribute("geometry", AttributeType.GEOMETRY);
+    layerManager = new LayerManager();
+    layer = layerManager.addLayer(StandardCategoryNames.WORKING, "batch",
+        new FeatureDataset(schema));
+    layerManager.addLayerListener(new LayerListener() {
+      public void featuresChanged(FeatureEvent e) {
+        events.add(e);
+      }
+      public void layerChanged(LayerEvent e) {
+      }
+      public void categoryChanged(CategoryEvent e) {
+      }
+    });
+  }
+
+  private Feature point(double x, double y) {
+    Feature feature = new BasicFeature(schema);
+    feature.setGeometry(factory.createPoint(new Coordinate(x, y)));
+    return feature;
+  }
+
+  private void move(Feature feature, double x, double y) {
+    Feature clone = feature.clone(false);
+    feature.setGeometry(factory.createPoint(new Coordinate(x, y)));
+    layerManager.fireGeometryModified(Collections.singletonList(feature),
+        layer, Collections.singletonList(clone));
+  }
+
+  public void testWithoutBatch() {
+    layer.getFeatureCollectionWrapper().add(point(0, 0));
+    layer.getFeatureCollectionWrapper().add(point(1, 1));
+    assertEquals(2, events.size());
+    assertEquals(new Envelope(0, 0, 0, 0), events.get(0).getEnvelope());
+  }
+
+  public void testBatch() {
+    Feature a = point(0, 0);
+    layerManager.beginFeatureEventBatch();
+    assertTrue(layerManager.isBatchingFeatureEvents());
+    layer.getFeatureCollectionWrapper().add(a);
+    layer.getFeatureCollectionWrapper().add(point(1, 1));
+    layer.getFeatureCollectionWrapper().add(point(2, 2));
+    move(a, 5, 5);
+    move(a, 6, 6);
+    assertTrue(events.isEmpty());
+    layerManager.endFeatureEventBatch();
+    assertFalse(layerManager.isBatchingFeatureEvents());
+
+    assertEquals(2, events.size());
+    FeatureEvent added = events.get(0);
+    assertEquals(FeatureEventType.ADDED, added.getType());
+    assertEquals(3, added.getFeatures().size());
+    FeatureEvent modified = events.get(1);
+    assertEquals(FeatureEventType.GEOMETRY_MODIFIED, modified.getType());
+    assertEquals(Collections.singletonList(a), new ArrayList<>(modified.getFeatures()));
+    // the clone of the state before the batch is kept
+    assertEquals(new Coordinate(0, 0),
+        modified.getOldFeatureClones().iterator().next().getGeometry().getCoordinate());
+    assertEquals(new Envelope(0, 6, 0, 6), modified.getEnvelope());
+  }
+
+  public void testNestedBatchKeepsOrder() {
+    Feature a = point(0, 0);
+    layerManager.batchFeatureEvents(() -> {
+      layer.getFeatureCollectionWrapper().add(a);
+      layerManager.batchFeatureEvents(() ->
+        layer.getFeatureCollectionWrapper().remove(a)
+      );
+      assertTrue(events.isEmpty());
+      layer.getFeatureCollectionWrapper().add(a);
+    });
+    assertEquals(3, events.size());
+    assertEquals(FeatureEventType.ADDED, events.get(0).getType());
+    assertEquals(FeatureEventType.DELETED, events.get(1).getType());
+    assertEquals(FeatureEventType.ADDED, events.get(2).getType());
+  }
+}
@@ -0,0 +1,127 @@
+package jumptest.junit;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jump.util.Blackboard;
+import com.vividsolutions.jump.workbench.JUMPWorkbench;
+import com.vividsolutions.jump.workbench.WorkbenchContext;
+import com.vividsolutions.jump.workbench.plugin.AbstractPlugIn;
+import com.vividsolutions.jump.workbench.plugin.EnableCheck;
+import com.vividsolutions.jump.workbench.plugin.LazyPlugIn;
+import com.vividsolutions.jump.workbench.plugin.PlugInContext;
+import com.vividsolutions.jump.workbench.ui.ErrorHandler;
+import com.vividsolutions.jump.workbench.ui.LayerNamePanel;
+import com.vividsolutions.jump.workbench.ui.LayerableNamePanel;
+
+public class LazyPlugInTestCase extends TestCase {
+
+  public LazyPlugInTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {LazyPlugInTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  /**
+   * A plug-in counting its initializations and executions, disabled while
+   * disabledMessage is not null.
+   */
+  public static class CountingPlugIn extends AbstractPlugIn {
+    static int initialized = 0;
+    static int executed = 0;
+    static String disabledMessage = null;
+
+    public void initialize(PlugInContext context) throws Exception {
+      initialized++;
+    }
+
+    public boolean execute(PlugInContext context) throws Exception {
+      executed++;
+      return true;
+    }
+
+    public EnableCheck getEnableCheck() {
+      return component -> disabledMessage;
+    }
+  }
+
+  private final List<Throwable> errors = new ArrayList<>();
+
+  private final WorkbenchContext context = new WorkbenchContext() {
+    public JUMPWorkbench getWorkbench() {
+      return null;
+    }
+    public ErrorHandler getErrorHandler() {
+      return errors::add;
+    }
+    public Blackboard getBlackboard() {
+      return new Blackboard();
+    }
+    public LayerNamePanel getLayerNamePanel() {
+      return null;
+    }
+    public LayerableNamePanel getLayerableNamePanel() {
+      return null;
+    }
+  };
+
+  protected void setUp() {
+    CountingPlugIn.initialized = 0;
+    CountingPlugIn.executed = 0;
+    CountingPlugIn.disabledMessage = null;
+  }
+
+  public void testLoadOnFirstExecute() throws Exception {
+    LazyPlugIn lazy = new LazyPlugIn(CountingPlugIn.class.getName(),
+        getClass().getClassLoader(), context);
+    assertFalse(lazy.isLoaded());
+    assertEquals("Counting", lazy.getName());
+    // always enabled until loaded
+    assertNull(lazy.getEnableCheck().check(null));
+    assertEquals(0, CountingPlugIn.initialized);
+
+    ActionListener listener = AbstractPlugIn.toActionListener(lazy, context, null);
+    listener.actionPerformed(null);
+    assertTrue(errors.isEmpty());
+    assertTrue(lazy.isLoaded());
+    assertEquals(1, CountingPlugIn.initialized);
+    assertEquals(1, CountingPlugIn.executed);
+
+    // initialized once only
+    listener.actionPerformed(null);
+    assertEquals(1, CountingPlugIn.initialized);
+    assertEquals(2, CountingPlugIn.executed);
+  }
+
+  public void testEnableCheck() throws Exception {
+    LazyPlugIn lazy = new LazyPlugIn(CountingPlugIn.class.getName(),
+        getClass().getClassLoader(), context);
+    CountingPlugIn.disabledMessage = "disabled";
+    EnableCheck check = lazy.getEnableCheck();
+
+    // the check of the plug-in is applied when it is loaded by the menu item
+    AbstractPlugIn.toActionListener(lazy, context, null).actionPerformed(null);
+    assertTrue(errors.isEmpty());
+    assertEquals(1, CountingPlugIn.initialized);
+    assertEquals(0, CountingPlugIn.executed);
+
+    // and then by the check of the menu item
+    assertEquals("disabled", check.check(null));
+    CountingPlugIn.disabledMessage = null;
+    assertNull(check.check(null));
+  }
+
+  public void testClassNotFound() throws Exception {
+    LazyPlugIn lazy = new LazyPlugIn("a.MissingPlugIn",
+        getClass().getClassLoader(), context);
+    AbstractPlugIn.toActionListener(lazy, context, null).actionPerformed(null);
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0) instanceof ClassNotFoundException);
+    assertFalse(lazy.isLoaded());
+  }
+}
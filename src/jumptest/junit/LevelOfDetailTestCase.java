@@ -0,0 +1,60 @@
+package jumptest.junit;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import com.vividsolutions.jump.workbench.ui.renderer.java2D.LevelOfDetail;
+
+public class LevelOfDetailTestCase extends TestCase {
+
+  public LevelOfDetailTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {LevelOfDetailTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private LineString line(int n) {
+    Coordinate[] coordinates = new Coordinate[n];
+    for (int i = 0 ; i < n ; i++) {
+      coordinates[i] = new Coordinate(i * 0.125, 0);
+    }
+    return new GeometryFactory().createLineString(coordinates);
+  }
+
+  public void testBand() {
+    assertEquals(LevelOfDetail.getBand(1.0), LevelOfDetail.getBand(1.9));
+    assertTrue(LevelOfDetail.getBand(2.0) != LevelOfDetail.getBand(1.9));
+    // tolerance never exceeds resolution pixels within the band
+    assertEquals(0.25, LevelOfDetail.getTolerance(LevelOfDetail.getBand(1.5), 0.5), 0.0);
+  }
+
+  public void testDecimate() {
+    Coordinate[] coordinates = line(100).getCoordinates();
+    assertSame(coordinates, LevelOfDetail.decimate(coordinates, 0.125));
+    Coordinate[] decimated = LevelOfDetail.decimate(coordinates, 1.0);
+    // first four coordinates, then one every eight coordinates (11, 19...
+    // 91), and the last one
+    assertEquals(4 + 11 + 1, decimated.length);
+    assertSame(coordinates[0], decimated[0]);
+    assertSame(coordinates[99], decimated[decimated.length - 1]);
+  }
+
+  public void testCache() {
+    LineString line = line(1000);
+    Coordinate[] coordinates = LevelOfDetail.getCoordinates(line, 1.0, 0.5);
+    assertTrue(coordinates.length < 1000);
+    assertSame(coordinates, LevelOfDetail.getCoordinates(line, 1.5, 0.5));
+    assertNotSame(coordinates, LevelOfDetail.getCoordinates(line, 2.0, 0.5));
+    // a changed geometry is decimated again
+    line.getCoordinateN(500).x = 1000;
+    line.geometryChanged();
+    assertNotSame(coordinates, LevelOfDetail.getCoordinates(line, 1.0, 0.5));
+    // small lines are left to the decimator of Java2DConverter
+    assertEquals(10, LevelOfDetail.getCoordinates(line(10), 0.01, 0.5).length);
+  }
+}
@@ -0,0 +1,154 @@
+package jumptest.junit;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vividsolutions.wms.AbstractWMSRequest;
+import com.vividsolutions.wms.MapTileCache;
+import com.vividsolutions.wms.WMSException;
+import com.vividsolutions.wms.WMService;
+
+public class MapTileCacheTestCase extends TestCase {
+
+  public MapTileCacheTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {MapTileCacheTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private HttpServer server;
+  private AtomicInteger getMapCount = new AtomicInteger();
+  private WMService service;
+  private String url;
+  private File directory;
+
+  /**
+   * A GetMap request to the stand-in server, bypassing the proxy settings of
+   * the workbench.
+   */
+  private static class StandInRequest extends AbstractWMSRequest {
+    private final URL requestUrl;
+    StandInRequest(WMService service, String url, String query) throws IOException {
+      super(service);
+      requestUrl = new URL(url + "?" + query);
+    }
+    public URL getURL() {
+      return requestUrl;
+    }
+    protected HttpURLConnection prepareConnection() throws IOException {
+      con = (HttpURLConnection) requestUrl.openConnection();
+      return con;
+    }
+  }
+
+  protected void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    url = "http://127.0.0.1:" + server.getAddress().getPort() + "/wms";
+    server.createContext("/wms", exchange -> {
+      String query = exchange.getRequestURI().getQuery();
+      if (query.contains("LAYERS=missing")) {
+        send(exchange, "text/plain", "no such layer".getBytes(StandardCharsets.UTF_8));
+      } else {
+        getMapCount.incrementAndGet();
+        send(exchange, "image/png", png());
+      }
+    });
+    server.start();
+    service = new WMService(url, WMService.WMS_1_1_1);
+    directory = File.createTempFile("tiles", "");
+    directory.delete();
+  }
+
+  protected void tearDown() {
+    server.stop(0);
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) file.delete();
+    }
+    directory.delete();
+  }
+
+  private static void send(HttpExchange exchange, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static byte[] png() throws IOException {
+    BufferedImage image = new BufferedImage(MapTileCache.TILE_SIZE,
+        MapTileCache.TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", out);
+    return out.toByteArray();
+  }
+
+  private List<AbstractWMSRequest> requests(String layer, int count) throws IOException {
+    List<AbstractWMSRequest> requests = new ArrayList<>();
+    for (int i = 0 ; i < count ; i++) {
+      requests.add(new StandInRequest(service, url, "REQUEST=GetMap&LAYERS=" + layer +
+          "&BBOX=" + i + ",0," + (i + 1) + ",1"));
+    }
+    return requests;
+  }
+
+  public void testMemoryAndDiskCache() throws Exception {
+    MapTileCache cache = new MapTileCache(directory, 1 << 20, 60000, 16, 4);
+    List<BufferedImage> images = cache.getImages(requests("test", 6));
+    assertEquals(6, images.size());
+    assertEquals(MapTileCache.TILE_SIZE, images.get(5).getWidth());
+    assertEquals(6, getMapCount.get());
+
+    // memory cache
+    assertSame(images.get(2), cache.getImage(requests("test", 3).get(2)));
+    assertEquals(6, getMapCount.get());
+
+    // another cache reading the same directory
+    MapTileCache restarted = new MapTileCache(directory, 1 << 20, 60000, 16, 4);
+    assertEquals(7, restarted.getImages(requests("test", 7)).size());
+    assertEquals(7, getMapCount.get());
+
+    restarted.clear();
+    restarted.getImage(requests("test", 1).get(0));
+    assertEquals(8, getMapCount.get());
+  }
+
+  public void testDiskSizeIsBounded() throws Exception {
+    int tileBytes = png().length;
+    MapTileCache cache = new MapTileCache(directory, 4 * tileBytes, 60000, 16, 2);
+    cache.getImages(requests("test", 10));
+    long size = 0;
+    for (File file : directory.listFiles()) size += file.length();
+    assertTrue(size <= 4 * tileBytes);
+  }
+
+  public void testServerError() throws Exception {
+    MapTileCache cache = new MapTileCache(null, 0, 0, 16, 2);
+    try {
+      cache.getImages(requests("missing", 2));
+      fail();
+    } catch (WMSException e) {
+      assertTrue(e.getMessage().contains("no such layer"));
+    }
+  }
+}
@@ -60,4 +60,43 @@ public class OverlayEngineTestCase extends TestCase {
     return te.overlay(a, b, new DummyTaskMonitor()).size();
   }
 
+  public void testParallelOverlayIsDeterministic() throws Exception {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("ID", AttributeType.INTEGER);
+    FeatureCollection a = new FeatureDataset(schema);
+    FeatureCollection b = new FeatureDataset(schema);
+    for (int i = 0 ; i < 30 ; i++) {
+      for (int j = 0 ; j < 30 ; j++) {
+        a.add(square(schema, i * 10, j * 10, 10, i * 30 + j));
+        b.add(square(schema, i * 10 + 3, j * 10 + 4, 7, i * 30 + j));
+      }
+    }
+    OverlayEngine sequential = new OverlayEngine();
+    sequential.setParallelism(1);
+    OverlayEngine parallel = new OverlayEngine();
+    parallel.setParallelism(4);
+    FeatureCollection expected = sequential.overlay(a, b, new DummyTaskMonitor());
+    FeatureCollection actual = parallel.overlay(a, b, new DummyTaskMonitor());
+    // each square of b overlaps two squares of a, except in the last row
+    assertEquals(30 * 59, expected.size());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0 ; i < expected.size() ; i++) {
+      Feature e = expected.getFeatures().get(i);
+      Feature f = actual.getFeatures().get(i);
+      assertTrue(e.getGeometry().equalsExact(f.getGeometry()));
+      assertEquals(e.getAttribute("ID_1"), f.getAttribute("ID_1"));
+      assertEquals(e.getAttribute("ID_2"), f.getAttribute("ID_2"));
+    }
+  }
+
+  private Feature square(FeatureSchema schema, double x, double y, double size, int id)
+        throws ParseException {
+    Feature feature = new BasicFeature(schema);
+    feature.setGeometry(reader.read("POLYGON((" + x + " " + y + ", " + (x + size) + " " + y + ", "
+        + (x + size) + " " + (y + size) + ", " + x + " " + (y + size) + ", " + x + " " + y + "))"));
+    feature.setAttribute("ID", id);
+    return feature;
+  }
+
 }
@@ -0,0 +1,134 @@
+package jumptest.junit;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+import org.openjump.core.ui.plugin.datastore.postgis.PostGISBinaryCopy;
+
+import com.vividsolutions.jump.datastore.SQLUtil;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureSchema;
+
+public class PostGISBinaryCopyTestCase extends TestCase {
+
+  // 2000-01-01T00:00:00Z, origin of PostgreSQL timestamps
+  private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+
+  public PostGISBinaryCopyTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {PostGISBinaryCopyTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private FeatureSchema schema() {
+    FeatureSchema schema = new FeatureSchema();
+    schema.addAttribute("GID", AttributeType.LONG);
+    schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+    schema.addAttribute("ID", AttributeType.INTEGER);
+    schema.addAttribute("VALUE", AttributeType.DOUBLE);
+    schema.addAttribute("NAME", AttributeType.STRING);
+    schema.addAttribute("DATE", AttributeType.DATE);
+    schema.addAttribute("DATA", AttributeType.OBJECT);
+    schema.addAttribute("AREA", AttributeType.DOUBLE);
+    // the primary key and read-only attributes are not written
+    schema.setExternalPrimaryKeyIndex(0);
+    schema.setAttributeReadOnly(7, true);
+    return schema;
+  }
+
+  public void testHeaderAndTrailer() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    PostGISBinaryCopy.writeHeader(out);
+    PostGISBinaryCopy.writeTrailer(out);
+    out.flush();
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    byte[] signature = new byte[11];
+    in.readFully(signature);
+    assertTrue(Arrays.equals(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n',
+        (byte) 0xFF, '\r', '\n', 0}, signature));
+    assertEquals(0, in.readInt()); // flags
+    assertEquals(0, in.readInt()); // header extension length
+    assertEquals(-1, in.readShort());
+    assertEquals(-1, in.read());
+  }
+
+  public void testRow() throws Exception {
+    FeatureSchema schema = schema();
+    Geometry geometry = new WKTReader().read("POINT (1 2)");
+    Date date = new Date(1500000000000L);
+    Feature feature = new BasicFeature(schema);
+    feature.setAttribute(0, 99L);
+    feature.setGeometry(geometry);
+    feature.setAttribute(2, 42);
+    feature.setAttribute(3, 1.5);
+    feature.setAttribute(4, "\u00e9t\u00e9");
+    feature.setAttribute(5, date);
+    feature.setAttribute(6, "blob");
+    feature.setAttribute(7, 3.0);
+
+    DataInputStream in = write(schema, feature);
+    assertEquals(6, in.readShort());
+    byte[] ewkb = SQLUtil.getByteArrayFromGeometry(geometry, 2154, 2);
+    assertTrue(Arrays.equals(ewkb, readBytes(in)));
+    // int4
+    assertEquals(4, in.readInt());
+    assertEquals(42, in.readInt());
+    // float8
+    assertEquals(8, in.readInt());
+    assertEquals(1.5, in.readDouble());
+    // varchar, encoded in UTF-8
+    assertEquals("\u00e9t\u00e9", new String(readBytes(in), StandardCharsets.UTF_8));
+    // timestamp without time zone, in microseconds since 2000-01-01 local time
+    long millis = date.getTime() + TimeZone.getDefault().getOffset(date.getTime());
+    assertEquals(8, in.readInt());
+    assertEquals((millis - POSTGRES_EPOCH_MILLIS) * 1000L, in.readLong());
+    // bytea
+    assertEquals("blob", new String(readBytes(in), StandardCharsets.UTF_8));
+    assertEquals(-1, in.read());
+  }
+
+  public void testNulls() throws Exception {
+    FeatureSchema schema = schema();
+    Feature feature = new BasicFeature(schema);
+    feature.setAttribute(2, 7);
+
+    DataInputStream in = write(schema, feature);
+    assertEquals(6, in.readShort());
+    assertEquals(-1, in.readInt());
+    assertEquals(4, in.readInt());
+    assertEquals(7, in.readInt());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(-1, in.readInt());
+    }
+    assertEquals(-1, in.read());
+  }
+
+  private DataInputStream write(FeatureSchema schema, Feature feature) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    new PostGISBinaryCopy(schema, null, "table", false).writeRow(out, feature, 2154, 2);
+    out.flush();
+    return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+  private byte[] readBytes(DataInputStream in) throws Exception {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,132 @@
+package jumptest.junit;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.workbench.model.Layer;
+import com.vividsolutions.jump.workbench.model.LayerManager;
+import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanel;
+import com.vividsolutions.jump.workbench.ui.LayerViewPanelContext;
+import com.vividsolutions.jump.workbench.ui.renderer.LayerRendererFactory;
+import com.vividsolutions.jump.workbench.ui.renderer.RenderingManager;
+import com.vividsolutions.jump.workbench.ui.snap.SnapIndex;
+
+public class SnapIndexTestCase extends TestCase {
+
+  public SnapIndexTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {SnapIndexTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private GeometryFactory factory = new GeometryFactory();
+  private FeatureSchema schema;
+  private LayerManager layerManager;
+  private Layer layer;
+  private LayerViewPanel panel;
+
+  protected void setUp() throws Exception {
+    System.setProperty("java.awt.headless", "true");
+    RenderingManager.setRendererFactory(Layer.class, new LayerRendererFactory());
+    schema = new FeatureSchema();
+    schema.addAttribute("geometry", AttributeType.GEOMETRY);
+    FeatureDataset dataset = new FeatureDataset(schema);
+    dataset.add(feature(factory.createPolygon(new Coordinate[]{
+        new Coordinate(0, 0), new Coordinate(10, 0), new Coordinate(10, 10),
+        new Coordinate(0, 10), new Coordinate(0, 0)})));
+    Coordinate[] line = new Coordinate[100];
+    for (int i = 0 ; i < line.length ; i++) {
+      line[i] = new Coordinate(i, 50 + (i % 2));
+    }
+    dataset.add(feature(factory.createLineString(line)));
+    layerManager = new LayerManager();
+    layer = layerManager.addLayer(StandardCategoryNames.WORKING, "snap", dataset);
+    panel = new LayerViewPanel(layerManager, new LayerViewPanelContext() {
+      public void setStatusMessage(String message) {
+      }
+      public void warnUser(String warning) {
+      }
+      public void handleThrowable(Throwable t) {
+        t.printStackTrace();
+      }
+    });
+    panel.setSize(100, 100);
+    panel.getViewport().zoom(new Envelope(0, 100, 0, 100));
+  }
+
+  protected void tearDown() {
+    panel.dispose();
+  }
+
+  private Feature feature(Geometry geometry) {
+    Feature feature = new BasicFeature(schema);
+    feature.setGeometry(geometry);
+    return feature;
+  }
+
+  public void testNearestVertex() {
+    SnapIndex index = SnapIndex.instance(panel);
+    assertSame(index, SnapIndex.instance(panel));
+    assertEquals(new Coordinate(10, 10),
+        index.getNearestVertex(new Coordinate(10.5, 10.2), 1));
+    assertNull(index.getNearestVertex(new Coordinate(5, 5), 1));
+    // a vertex in the middle of the line, beyond the first chunk
+    assertEquals(new Coordinate(70, 50),
+        index.getNearestVertex(new Coordinate(70.1, 49.8), 1));
+  }
+
+  public void testNearestPoint() {
+    SnapIndex index = SnapIndex.instance(panel);
+    assertEquals(new Coordinate(5, 10),
+        index.getNearestPoint(new Coordinate(5, 10.3), 1));
+    assertEquals(new Coordinate(0, 5),
+        index.getNearestPoint(new Coordinate(-0.5, 5), 1));
+    assertNull(index.getNearestPoint(new Coordinate(5, 5), 1));
+  }
+
+  public void testEdits() {
+    SnapIndex index = SnapIndex.instance(panel);
+    assertNull(index.getNearestVertex(new Coordinate(30, 30), 1));
+    Feature point = feature(factory.createPoint(new Coordinate(30, 30)));
+    layer.getFeatureCollectionWrapper().add(point);
+    assertEquals(new Coordinate(30, 30),
+        index.getNearestVertex(new Coordinate(30.2, 30.2), 1));
+
+    Feature clone = point.clone(false);
+    point.setGeometry(factory.createPoint(new Coordinate(20, 20)));
+    layerManager.fireGeometryModified(Collections.singletonList(point),
+        layer, Collections.singletonList(clone));
+    assertNull(index.getNearestVertex(new Coordinate(30.2, 30.2), 1));
+    assertEquals(new Coordinate(20, 20),
+        index.getNearestPoint(new Coordinate(20.2, 20.2), 1));
+
+    layer.getFeatureCollectionWrapper().remove(point);
+    assertNull(index.getNearestVertex(new Coordinate(20.2, 20.2), 1));
+  }
+
+  public void testViewportAndVisibility() throws Exception {
+    SnapIndex index = SnapIndex.instance(panel);
+    assertNotNull(index.getNearestVertex(new Coordinate(10, 10), 1));
+    // leave the indexed area, then come back
+    panel.getViewport().zoom(new Envelope(1000, 1100, 1000, 1100));
+    assertNull(index.getNearestVertex(new Coordinate(1050, 1050), 1));
+    panel.getViewport().zoom(new Envelope(0, 100, 0, 100));
+    assertNotNull(index.getNearestVertex(new Coordinate(10, 10), 1));
+
+    layer.setVisible(false);
+    assertNull(index.getNearestVertex(new Coordinate(10, 10), 1));
+  }
+}
@@ -0,0 +1,231 @@
+package jumptest.junit;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jump.datastore.jdbc.ValueConverter;
+import com.vividsolutions.jump.datastore.jdbc.ValueConverterFactory;
+import com.vividsolutions.jump.datastore.spatialdatabases.SpatialDatabasesDSConnection;
+import com.vividsolutions.jump.datastore.spatialdatabases.SpatialDatabasesFeatureInputStream;
+import com.vividsolutions.jump.datastore.spatialdatabases.SpatialDatabasesResultSetConverter;
+import com.vividsolutions.jump.datastore.spatialdatabases.SpatialDatabasesValueConverterFactory;
+import com.vividsolutions.jump.feature.Feature;
+
+public class SpatialDatabasesFeatureInputStreamTestCase extends TestCase {
+
+  public SpatialDatabasesFeatureInputStreamTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {SpatialDatabasesFeatureInputStreamTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testRowOrder() throws Exception {
+    // 3 full batches of 256 rows and a partial one
+    StubResultSet rs = new StubResultSet(1000, -1, null);
+    StubStream stream = new StubStream(connection(null), rs);
+    List<Integer> ids = readIds(stream);
+    assertEquals(1000, ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      assertEquals(i, ids.get(i).intValue());
+    }
+    assertFalse(stream.hasNext());
+    stream.close();
+    assertTrue(rs.closed);
+  }
+
+  public void testSequentialRead() throws Exception {
+    StubStream stream = new StubStream(connection(null), new StubResultSet(300, -1, null));
+    stream.setPipelined(false);
+    assertEquals(300, readIds(stream).size());
+    stream.close();
+  }
+
+  public void testException() throws Exception {
+    SQLException error = new SQLException("failure");
+    StubStream stream = new StubStream(connection(null), new StubResultSet(1000, 300, error));
+    int count = 0;
+    try {
+      while (stream.hasNext()) {
+        stream.next();
+        count++;
+      }
+      fail();
+    } catch (SQLException e) {
+      assertSame(error, e);
+    }
+    // the rows of the complete batch read before the failure
+    assertEquals(256, count);
+    stream.close();
+  }
+
+  public void testError() throws Exception {
+    LinkageError error = new LinkageError("failure");
+    StubStream stream = new StubStream(connection(null), new StubResultSet(1000, 10, error));
+    try {
+      readIds(stream);
+      fail();
+    } catch (LinkageError e) {
+      assertSame(error, e);
+    }
+    stream.close();
+  }
+
+  public void testCloseWithPendingRows() throws Exception {
+    StubResultSet rs = new StubResultSet(1000000, -1, null);
+    StubStream stream = new StubStream(connection(null), rs);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, stream.next().getAttribute(0));
+    }
+    stream.close();
+    assertTrue(rs.closed);
+    assertTrue(rs.row < 1000000);
+  }
+
+  public void testCursorConnection() throws Exception {
+    final List<String> shared = new ArrayList<>();
+    final List<String> cursor = new ArrayList<>();
+    Connection sharedConnection = connection(shared);
+    final Connection cursorConnection = connection(cursor);
+    SpatialDatabasesDSConnection ds = new SpatialDatabasesDSConnection(sharedConnection);
+    ds.setCursorConnectionFactory(() -> cursorConnection);
+
+    StubStream stream = new StubStream(sharedConnection, new StubResultSet(600, -1, null));
+    stream.cursorInTransaction = true;
+    stream.setDataStoreConnection(ds);
+    assertEquals(600, readIds(stream).size());
+    stream.close();
+
+    // the query ran on the dedicated connection, out of auto-commit mode
+    assertSame(cursorConnection, stream.queryConnection);
+    assertTrue(cursor.contains("setAutoCommit false"));
+    assertTrue(cursor.contains("rollback"));
+    // the shared connection was left alone
+    assertTrue(shared.isEmpty());
+    assertSame(sharedConnection, stream.getConnection());
+    // the dedicated connection is kept for the next read
+    assertSame(cursorConnection, ds.takeCursorConnection());
+  }
+
+  private static List<Integer> readIds(SpatialDatabasesFeatureInputStream stream) throws Exception {
+    List<Integer> ids = new ArrayList<>();
+    while (stream.hasNext()) {
+      Feature feature = stream.next();
+      ids.add((Integer) feature.getAttribute(0));
+    }
+    return ids;
+  }
+
+  /**
+   * A Connection recording the calls changing its state.
+   */
+  private static Connection connection(final List<String> calls) {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class[]{Connection.class}, (proxy, method, args) -> {
+          if (calls != null && (method.getName().startsWith("set") ||
+              method.getName().equals("commit") || method.getName().equals("rollback"))) {
+            calls.add(method.getName() + (args == null ? "" : " " + args[0]));
+          }
+          if (method.getName().equals("getAutoCommit")) return Boolean.TRUE;
+          if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+          if (method.getName().equals("equals")) return proxy == args[0];
+          return null;
+        });
+  }
+
+  /**
+   * A ResultSet of size rows with one integer column, failing at row
+   * failure if failure is not -1.
+   */
+  private static class StubResultSet {
+    final int size;
+    final int failure;
+    final Throwable error;
+    volatile int row = -1;
+    volatile boolean closed = false;
+
+    StubResultSet(int size, int failure, Throwable error) {
+      this.size = size;
+      this.failure = failure;
+      this.error = error;
+    }
+
+    ResultSet toResultSet() {
+      final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+          ResultSetMetaData.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "getColumnCount": return 1;
+              case "getColumnName": return "ID";
+              case "getColumnType": return Types.INTEGER;
+              case "isReadOnly": return false;
+              default: throw new UnsupportedOperationException(method.getName());
+            }
+          });
+      return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+          new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "next":
+                if (closed) throw new SQLException("closed");
+                row++;
+                if (row == failure) throw error;
+                return row < size;
+              case "getInt": return row;
+              case "wasNull": return false;
+              case "getMetaData": return metaData;
+              case "close": closed = true; return null;
+              default: throw new UnsupportedOperationException(method.getName());
+            }
+          });
+    }
+  }
+
+  private static class StubStream extends SpatialDatabasesFeatureInputStream {
+    final StubResultSet rs;
+    boolean cursorInTransaction = false;
+    Connection queryConnection;
+
+    StubStream(Connection conn, StubResultSet rs) {
+      super(conn, "SELECT");
+      this.rs = rs;
+      setPipelined(true);
+      setFetchSize(1000);
+    }
+
+    @Override
+    protected boolean isCursorInTransactionOnly() {
+      return cursorInTransaction;
+    }
+
+    @Override
+    protected ResultSet executeQuery(String query) {
+      queryConnection = conn;
+      return rs.toResultSet();
+    }
+
+    @Override
+    protected SpatialDatabasesResultSetConverter getResultSetConverter(ResultSet rs) {
+      SpatialDatabasesResultSetConverter converter = new SpatialDatabasesResultSetConverter(conn, rs) {
+        {
+          odm = new SpatialDatabasesValueConverterFactory(conn) {
+            @Override
+            public ValueConverter getConverter(ResultSetMetaData rsm, int columnIndex)
+                throws SQLException {
+              return ValueConverterFactory.getConverter(rsm, columnIndex);
+            }
+          };
+        }
+      };
+      return converter;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package jumptest.junit;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.json.simple.parser.JSONParser;
+
+import com.vividsolutions.jump.workbench.StartupProfiler;
+
+public class StartupProfilerTestCase extends TestCase {
+
+  public StartupProfilerTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {StartupProfilerTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testDisabled() throws Exception {
+    assertFalse(StartupProfiler.isEnabled());
+    assertNull(StartupProfiler.begin(StartupProfiler.PHASE, "splash"));
+    // does nothing
+    StartupProfiler.end(null);
+    StartupProfiler.finish();
+    assertNull(StartupProfiler.toJSON());
+  }
+
+  public void testReport() throws Exception {
+    File file = File.createTempFile("startup-profile", ".json");
+    try {
+      StartupProfiler.start(file);
+      StartupProfiler.Measure phase = StartupProfiler.begin(StartupProfiler.PHASE, "extensions");
+      StartupProfiler.Measure plugIn = StartupProfiler.begin(StartupProfiler.PLUGIN, "a.FooPlugIn");
+      int[] allocated = new int[100000];
+      StartupProfiler.end(plugIn);
+      StartupProfiler.Measure extension = StartupProfiler.begin(StartupProfiler.EXTENSION, "a.BarExtension");
+      StartupProfiler.end(extension);
+      StartupProfiler.end(phase);
+      StartupProfiler.finish();
+      assertFalse(StartupProfiler.isEnabled());
+      assertEquals(100000, allocated.length);
+
+      Map report;
+      try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()),
+          StandardCharsets.UTF_8)) {
+        report = (Map) new JSONParser().parse(reader);
+      }
+      assertTrue(((Number) report.get("totalMillis")).doubleValue() >= 0);
+      assertTrue(((Number) report.get("heapUsedBytes")).longValue() > 0);
+
+      List phases = (List) report.get(StartupProfiler.PHASE);
+      assertEquals(1, phases.size());
+      assertEquals("extensions", ((Map) phases.get(0)).get("name"));
+
+      List plugIns = (List) report.get(StartupProfiler.PLUGIN);
+      assertEquals(1, plugIns.size());
+      Map entry = (Map) plugIns.get(0);
+      assertEquals("a.FooPlugIn", entry.get("name"));
+      long bytes = ((Number) entry.get("allocatedBytes")).longValue();
+      assertTrue(bytes == -1 || bytes >= 400000);
+      assertTrue(((Number) entry.get("loadedClasses")).longValue() >= 0);
+
+      List extensions = (List) report.get(StartupProfiler.EXTENSION);
+      assertEquals("a.BarExtension", ((Map) extensions.get(0)).get("name"));
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jump.workbench.ui.renderer.ThreadQueue;
+
+public class ThreadQueueTestCase extends TestCase {
+
+  public ThreadQueueTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {ThreadQueueTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private Runnable record(final List<String> log, final String name) {
+    return new Runnable() {
+      public void run() {
+        log.add(name);
+      }
+    };
+  }
+
+  private Runnable await(final CountDownLatch latch) {
+    return new Runnable() {
+      public void run() {
+        try {
+          latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {}
+      }
+    };
+  }
+
+  public void testPriorityAndSupersede() throws Exception {
+    ThreadQueue queue = new ThreadQueue(1);
+    List<String> log = Collections.synchronizedList(new ArrayList<String>());
+    CountDownLatch blocker = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+    queue.add(await(blocker));
+    queue.add(record(log, "plain"));
+    queue.add(record(log, "b-old"), "b", 2);
+    queue.add(record(log, "a"), "a", 1);
+    queue.add(record(log, "b-new"), "b", 2);
+    queue.add(record(log, "selection"), "s", ThreadQueue.HIGHEST_PRIORITY);
+    queue.addWhenIdle(new Runnable() {
+      public void run() {
+        done.countDown();
+      }
+    });
+    blocker.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("selection", "a", "b-new", "plain"), log);
+    assertNotNull(queue.getTiming("a"));
+    assertNull(queue.getTiming("c"));
+    queue.dispose();
+  }
+
+  public void testListener() throws Exception {
+    final ThreadQueue queue = new ThreadQueue(4);
+    final CountDownLatch finished = new CountDownLatch(1);
+    queue.add(new ThreadQueue.Listener() {
+      public void allRunningThreadsFinished() {
+        queue.remove(this);
+        finished.countDown();
+      }
+    });
+    CountDownLatch blocker = new CountDownLatch(1);
+    for (int i = 0 ; i < 10 ; i++) {
+      queue.add(await(blocker), "job" + i, i);
+    }
+    assertTrue(queue.getRunningThreads() > 0);
+    blocker.countDown();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertEquals(0, queue.getRunningThreads());
+    queue.dispose();
+  }
+
+  /**
+   * A ThreadQueue whose worker can be kept busy by a task which is not a
+   * job, so that jobs stay in the queue while none is running.
+   */
+  private static class BlockableThreadQueue extends ThreadQueue {
+    void block(CountDownLatch latch) {
+      executor.execute(() -> {
+        try {
+          latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {}
+      });
+    }
+  }
+
+  public void testClear() throws Exception {
+    final BlockableThreadQueue queue = new BlockableThreadQueue();
+    List<String> log = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch finished = new CountDownLatch(1);
+    final CountDownLatch idle = new CountDownLatch(1);
+    queue.add(new ThreadQueue.Listener() {
+      public void allRunningThreadsFinished() {
+        finished.countDown();
+      }
+    });
+    CountDownLatch blocker = new CountDownLatch(1);
+    queue.block(blocker);
+    for (int i = 0 ; i < 3 ; i++) {
+      queue.add(record(log, "job" + i), "job" + i, i);
+    }
+    queue.addWhenIdle(new Runnable() {
+      public void run() {
+        idle.countDown();
+      }
+    });
+    assertEquals(3, queue.waitingRunnables());
+    queue.clear();
+    blocker.countDown();
+    // the dropped jobs are never run, but the queue becomes idle
+    assertTrue(idle.await(5, TimeUnit.SECONDS));
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    assertTrue(log.isEmpty());
+    assertEquals(0, queue.getRunningThreads());
+    queue.dispose();
+  }
+}
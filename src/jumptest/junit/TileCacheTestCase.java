@@ -0,0 +1,59 @@
+package jumptest.junit;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Envelope;
+import com.vividsolutions.jump.workbench.ui.renderer.TileCache;
+
+public class TileCacheTestCase extends TestCase {
+
+  public TileCacheTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {TileCacheTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private BufferedImage tile() {
+    return new BufferedImage(TileCache.TILE_SIZE, TileCache.TILE_SIZE,
+        BufferedImage.TYPE_INT_ARGB);
+  }
+
+  public void testLevel() {
+    TileCache cache = new TileCache(null);
+    double level = cache.getLevel(2.5);
+    assertEquals(level, cache.getLevel(2.5 * (1 + 1E-9)));
+    assertTrue(cache.getLevel(2.6) != level);
+  }
+
+  public void testInvalidate() {
+    TileCache cache = new TileCache(null);
+    double level = cache.getLevel(1.0);
+    long generation = cache.getGeneration(0);
+    for (int i = 0 ; i < 4 ; i++) {
+      cache.put(level, i, 0, tile(), generation);
+    }
+    assertNotNull(cache.get(level, 3, 0));
+    // only the tile containing the modified area and its neighbours within
+    // the margin are discarded
+    double x = 1.5 * TileCache.TILE_SIZE;
+    cache.invalidate(new Envelope(x, x, 10, 10), 1);
+    assertNull(cache.get(level, 1, 0));
+    assertNotNull(cache.get(level, 0, 0));
+    assertNotNull(cache.get(level, 2, 0));
+    assertNotNull(cache.get(level, 3, 0));
+    // a tile rendered before the invalidation is not cached
+    cache.put(level, 1, 0, tile(), generation);
+    assertNull(cache.get(level, 1, 0));
+    // an unnotified modification discards all the tiles
+    generation = cache.getGeneration(2);
+    assertNull(cache.get(level, 0, 0));
+    cache.put(level, 1, 0, tile(), generation);
+    assertNotNull(cache.get(level, 1, 0));
+    cache.clear();
+    assertNull(cache.get(level, 1, 0));
+  }
+}
@@ -0,0 +1,159 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureDataset;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.workbench.model.cache.TiledCachingFeatureCollection;
+
+public class TiledCachingFeatureCollectionTestCase extends TestCase {
+
+  public TiledCachingFeatureCollectionTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {TiledCachingFeatureCollectionTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private GeometryFactory factory = new GeometryFactory();
+  private FeatureSchema schema;
+  private List<Envelope> queries = Collections.synchronizedList(new ArrayList<>());
+  private FeatureDataset source;
+
+  protected void setUp() {
+    schema = new FeatureSchema();
+    schema.addAttribute("geometry", AttributeType.GEOMETRY);
+    schema.addAttribute("id", AttributeType.INTEGER);
+    // a database returns new Feature instances for each query
+    source = new FeatureDataset(schema) {
+      public List<Feature> query(Envelope envelope) {
+        queries.add(envelope);
+        List<Feature> features = new ArrayList<>();
+        for (Feature feature : super.query(envelope)) {
+          features.add(feature.clone(true));
+        }
+        return features;
+      }
+    };
+    int id = 0;
+    for (int x = 0 ; x < 100 ; x += 10) {
+      for (int y = 0 ; y < 100 ; y += 10) {
+        Feature feature = new BasicFeature(schema);
+        feature.setGeometry(factory.createPoint(new Coordinate(x + 0.5, y + 0.5)));
+        feature.setAttribute("id", id++);
+        source.add(feature);
+      }
+    }
+    // a line crossing several tiles
+    Feature line = new BasicFeature(schema);
+    line.setGeometry(factory.createLineString(new Coordinate[]{
+        new Coordinate(1, 1), new Coordinate(99, 99)}));
+    line.setAttribute("id", id);
+    source.add(line);
+  }
+
+  private List<Feature> read(TiledCachingFeatureCollection fc, Envelope envelope) {
+    List<Feature> features = new ArrayList<>();
+    for (Feature feature : fc.query(envelope)) {
+      features.add(feature);
+    }
+    return features;
+  }
+
+  public void testTilesAreReused() {
+    TiledCachingFeatureCollection fc =
+        new TiledCachingFeatureCollection(source).setPrefetching(false);
+    List<Feature> features = read(fc, new Envelope(0, 40, 0, 40));
+    // 16 points and the line
+    assertEquals(17, features.size());
+    int tileQueries = queries.size();
+    assertTrue(tileQueries > 0);
+
+    assertEquals(17, read(fc, new Envelope(0, 40, 0, 40)).size());
+    assertEquals(tileQueries, queries.size());
+
+    // panning queries the new tiles only
+    List<Feature> panned = read(fc, new Envelope(30, 70, 0, 40));
+    assertEquals(17, panned.size());
+    assertTrue(queries.size() > tileQueries);
+    assertTrue(queries.size() < 2 * tileQueries);
+
+    // the line returned by several tiles is a single feature
+    Feature line = null;
+    for (Feature feature : features) {
+      if (feature.getGeometry().getDimension() == 1) line = feature;
+    }
+    assertNotNull(line);
+    assertTrue(panned.contains(line));
+    assertEquals(fc.size(), fc.getFeatures().size());
+  }
+
+  public void testLeastRecentlyUsedTilesAreDropped() {
+    TiledCachingFeatureCollection fc =
+        new TiledCachingFeatureCollection(source, 10).setPrefetching(false);
+    read(fc, new Envelope(0, 40, 0, 40));
+    read(fc, new Envelope(60, 100, 60, 100));
+    assertTrue(fc.size() <= 17);
+    int count = queries.size();
+    read(fc, new Envelope(0, 40, 0, 40));
+    assertTrue(queries.size() > count);
+  }
+
+  public void testEmptyCache() {
+    TiledCachingFeatureCollection fc =
+        new TiledCachingFeatureCollection(source).setPrefetching(false);
+    read(fc, new Envelope(0, 40, 0, 40));
+    int count = queries.size();
+    fc.emptyCache();
+    assertTrue(fc.isEmpty());
+    assertEquals(17, read(fc, new Envelope(0, 40, 0, 40)).size());
+    assertEquals(2 * count, queries.size());
+  }
+
+  public void testIdenticalRows() {
+    // without primary key, identical rows are all kept
+    for (int i = 0 ; i < 2 ; i++) {
+      Feature feature = new BasicFeature(schema);
+      feature.setGeometry(factory.createPoint(new Coordinate(5.5, 5.5)));
+      feature.setAttribute("id", -1);
+      source.add(feature);
+    }
+    TiledCachingFeatureCollection fc =
+        new TiledCachingFeatureCollection(source).setPrefetching(false);
+    assertEquals(17 + 2, read(fc, new Envelope(0, 40, 0, 40)).size());
+    assertEquals(17 + 2, read(fc, new Envelope(0, 40, 0, 40)).size());
+    // a larger view, whose tiles overlap the former ones
+    assertEquals(36 + 1 + 2, read(fc, new Envelope(0, 60, 0, 60)).size());
+  }
+
+  public void testPrefetch() throws Exception {
+    final CountDownLatch prefetched = new CountDownLatch(1);
+    TiledCachingFeatureCollection fc = new TiledCachingFeatureCollection(source) {
+      protected void prefetchEnded() {
+        prefetched.countDown();
+      }
+    };
+    read(fc, new Envelope(40, 60, 40, 60));
+    assertTrue(prefetched.await(10, TimeUnit.SECONDS));
+    // 4 tiles covering the envelope, and the 12 tiles around them
+    int count = queries.size();
+    assertEquals(16, count);
+    // the neighbouring tiles are already loaded
+    fc.setPrefetching(false);
+    read(fc, new Envelope(55, 75, 40, 60));
+    assertEquals(count, queries.size());
+  }
+}
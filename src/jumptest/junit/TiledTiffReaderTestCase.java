@@ -0,0 +1,99 @@
+package jumptest.junit;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Envelope;
+import org.openjump.core.rasterimage.ImageAndMetadata;
+import org.openjump.core.rasterimage.Resolution;
+import org.openjump.core.rasterimage.TiledTiffReader;
+
+public class TiledTiffReaderTestCase extends TestCase {
+
+  private static final int WIDTH = 700;
+  private static final int HEIGHT = 500;
+
+  private File file;
+
+  public TiledTiffReaderTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {TiledTiffReaderTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private static float value(int x, int y) {
+    return x * 1000 + y;
+  }
+
+  protected void setUp() throws Exception {
+    ColorModel cm = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_GRAY),
+        false, false, Transparency.OPAQUE, DataBuffer.TYPE_FLOAT);
+    WritableRaster raster = cm.createCompatibleWritableRaster(WIDTH, HEIGHT);
+    for (int y = 0 ; y < HEIGHT ; y++) {
+      for (int x = 0 ; x < WIDTH ; x++) {
+        raster.setSample(x, y, 0, value(x, y));
+      }
+    }
+    file = File.createTempFile("tiled", ".tif");
+    assertTrue(ImageIO.write(new BufferedImage(cm, raster, false, null), "tiff", file));
+  }
+
+  protected void tearDown() {
+    TiledTiffReader.removeFromCache(file);
+    file.delete();
+  }
+
+  public void testReadSubset() throws Exception {
+    // one model unit per pixel
+    Envelope whole = new Envelope(0, WIDTH, 0, HEIGHT);
+    Envelope viewport = new Envelope(200, 600, 100, 400);
+    ImageAndMetadata imageAndMetadata = TiledTiffReader.readImage(file, whole, viewport,
+        new Resolution(1, 1), Double.NaN, null);
+    Raster raster = imageAndMetadata.getImage().getRaster();
+    // the envelope of the subset gives its position in the image
+    Envelope actual = imageAndMetadata.getMetadata().getActualEnvelope();
+    assertEquals(actual.getWidth(), raster.getWidth(), 0.0);
+    assertEquals(actual.getHeight(), raster.getHeight(), 0.0);
+    int x0 = (int) actual.getMinX();
+    int y0 = HEIGHT - (int) actual.getMaxY();
+    assertEquals(value(x0, y0), raster.getSampleFloat(0, 0, 0), 0f);
+    assertEquals(value(x0 + 300, y0 + 250), raster.getSampleFloat(300, 250, 0), 0f);
+    // second read comes from the cached tiles
+    raster = TiledTiffReader.readImage(file, whole, viewport,
+        new Resolution(1, 1), Double.NaN, null).getImage().getRaster();
+    assertEquals(value(x0 + 256, y0 + 221), raster.getSampleFloat(256, 221, 0), 0f);
+  }
+
+  public void testReadSubsampled() throws Exception {
+    Envelope whole = new Envelope(0, WIDTH, 0, HEIGHT);
+    // a resolution of 5 units per pixel is read with a subsampling of 4
+    ImageAndMetadata imageAndMetadata = TiledTiffReader.readImage(file, whole, null,
+        new Resolution(5, 5), Double.NaN, null);
+    Raster raster = imageAndMetadata.getImage().getRaster();
+    assertEquals(175, raster.getWidth());
+    assertEquals(125, raster.getHeight());
+    assertEquals(4.0, imageAndMetadata.getMetadata().getActualCellSize(), 0.0);
+    assertEquals(value(400, 280), raster.getSampleFloat(100, 70, 0), 0f);
+    assertEquals(value(696, 496), raster.getSampleFloat(174, 124, 0), 0f);
+  }
+
+  public void testNoIntersection() throws Exception {
+    Envelope whole = new Envelope(0, WIDTH, 0, HEIGHT);
+    assertNull(TiledTiffReader.readImage(file, whole, new Envelope(1000, 2000, 0, 100),
+        new Resolution(1, 1), Double.NaN, null).getImage());
+  }
+}
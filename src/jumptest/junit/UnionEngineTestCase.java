@@ -0,0 +1,77 @@
+package jumptest.junit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+import com.vividsolutions.jump.tools.UnionEngine;
+
+public class UnionEngineTestCase extends TestCase {
+
+  private GeometryFactory factory = new GeometryFactory();
+
+  public UnionEngineTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {UnionEngineTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testPartitionedUnion() throws Exception {
+    // enough squares to be split into several partitions
+    List<Geometry> squares = grid(0, 0, 40);
+    Geometry union = UnionEngine.union(squares, 4);
+    assertTrue(union instanceof Polygon);
+    assertEquals(1600, union.getArea(), 1e-9);
+    assertEquals(0, ((Polygon)union).getNumInteriorRing());
+    assertTrue(union.equalsTopo(factory.toGeometry(new Envelope(0, 40, 0, 40))));
+    assertTrue(union.equalsExact(UnionEngine.union(squares, 1)));
+  }
+
+  public void testEmptyUnion() {
+    assertNull(UnionEngine.union(new ArrayList<Geometry>(), 4));
+  }
+
+  public void testGroupsAreConsumedInOrder() throws Exception {
+    Map<String,List<Geometry>> groups = new LinkedHashMap<>();
+    groups.put("large", grid(0, 0, 30));
+    groups.put("empty", new ArrayList<Geometry>());
+    groups.put("small", grid(100, 0, 2));
+    groups.put("disjoint", grid(200, 0, 1));
+    groups.get("disjoint").addAll(grid(300, 0, 1));
+    final List<String> keys = new ArrayList<>();
+    final List<Geometry> unions = new ArrayList<>();
+    UnionEngine.union(groups, 4, new DummyTaskMonitor(), "groups", (key, union) -> {
+      keys.add(key);
+      unions.add(union);
+    });
+    assertEquals(new ArrayList<>(groups.keySet()), keys);
+    assertEquals(900, unions.get(0).getArea(), 1e-9);
+    assertNull(unions.get(1));
+    assertEquals(4, unions.get(2).getArea(), 1e-9);
+    assertEquals(2, unions.get(3).getNumGeometries());
+  }
+
+  private List<Geometry> grid(double x0, double y0, int n) {
+    List<Geometry> squares = new ArrayList<>();
+    for (int i = 0 ; i < n ; i++) {
+      for (int j = 0 ; j < n ; j++) {
+        squares.add(factory.createPolygon(new Coordinate[]{
+            new Coordinate(x0 + i, y0 + j), new Coordinate(x0 + i + 1, y0 + j),
+            new Coordinate(x0 + i + 1, y0 + j + 1), new Coordinate(x0 + i, y0 + j + 1),
+            new Coordinate(x0 + i, y0 + j)}));
+      }
+    }
+    return squares;
+  }
+}
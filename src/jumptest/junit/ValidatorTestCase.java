@@ -11,6 +11,7 @@ import com.vividsolutions.jump.geom.Angle;
 import com.vividsolutions.jump.qa.ValidationError;
 import com.vividsolutions.jump.qa.ValidationErrorType;
 import com.vividsolutions.jump.qa.Validator;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
 import junit.framework.TestCase;
 
 import java.util.ArrayList;
@@ -334,6 +335,74 @@ public class ValidatorTestCase extends TestCase {
         new Coordinate(50, 50));
   }
 
+  public void testParallelValidationKeepsFeatureOrder() {
+    List<Feature> features = new ArrayList<>();
+    List<Feature> expected = new ArrayList<>();
+    for (int i = 0 ; i < 2000 ; i++) {
+      Feature feature = toFeature(i % 7 == 0 ?
+          "LINESTRING(" + i + " 0, " + i + " 0, " + i + " 1)" :
+          "LINESTRING(" + i + " 0, " + i + " 1)");
+      features.add(feature);
+      if (i % 7 == 0) expected.add(feature);
+    }
+    testValidator.setCheckingNoRepeatedConsecutivePoints(true);
+    testValidator.setParallelism(4);
+    final List<Feature> actual = new ArrayList<>();
+    testValidator.validate(features, new DummyTaskMonitor(), errors -> {
+      for (ValidationError error : errors) {
+        assertEquals(ValidationErrorType.REPEATED_CONSECUTIVE_POINTS, error.getType());
+        actual.add(error.getFeature());
+      }
+    });
+    assertEquals(expected, actual);
+    testValidator.setParallelism(1);
+    assertEquals(expected.size(), testValidator.validate(features, new DummyTaskMonitor()).size());
+  }
+
+  public void testValidateNoOverlaps() {
+    testValidator.setCheckingBasicTopology(false);
+    testValidator.setCheckingNoOverlaps(true);
+    Feature a = toFeature("POLYGON((0 0, 0 10, 10 10, 10 0, 0 0))");
+    Feature b = toFeature("POLYGON((10 0, 10 10, 20 10, 20 0, 10 0))");
+    Feature c = toFeature("POLYGON((15 5, 15 15, 25 15, 25 5, 15 5))");
+    Feature d = toFeature("LINESTRING(0 0, 25 15)");
+    List errors = testValidator.validate(Arrays.asList(a, b, c, d), new DummyTaskMonitor());
+    // the overlap of b and c is reported once, as an error of b
+    assertEquals(1, errors.size());
+    assertTypeEquals(ValidationErrorType.OVERLAP, (ValidationError)errors.get(0));
+    assertSame(b, ((ValidationError)errors.get(0)).getFeature());
+    assertTrue(geometryFactory.toGeometry(new Envelope(15, 20, 5, 10)).contains(
+        geometryFactory.createPoint(((ValidationError)errors.get(0)).getLocation())));
+
+    // each overlapping pair is reported, in order
+    Feature e = toFeature("POLYGON((5 5, 5 15, 18 15, 18 5, 5 5))");
+    errors = testValidator.validate(Arrays.asList(a, b, c, e), new DummyTaskMonitor());
+    assertEquals(4, errors.size());
+    assertSame(a, ((ValidationError)errors.get(0)).getFeature());
+    assertSame(b, ((ValidationError)errors.get(1)).getFeature());
+    assertSame(b, ((ValidationError)errors.get(2)).getFeature());
+    assertSame(c, ((ValidationError)errors.get(3)).getFeature());
+  }
+
+  public void testValidateNoGaps() {
+    testValidator.setCheckingBasicTopology(false);
+    testValidator.setCheckingNoGaps(true);
+    List<Feature> features = new ArrayList<>();
+    for (int i = 0 ; i < 3 ; i++) {
+      for (int j = 0 ; j < 3 ; j++) {
+        if (i == 1 && j == 1) continue;
+        features.add(toFeature(geometryFactory.toGeometry(new Envelope(i, i + 1, j, j + 1))));
+      }
+    }
+    List errors = testValidator.validate(features, new DummyTaskMonitor());
+    assertEquals(1, errors.size());
+    assertTypeEquals(ValidationErrorType.GAP, (ValidationError)errors.get(0),
+        new Coordinate(1.5, 1.5));
+    assertSame(features.get(0), ((ValidationError)errors.get(0)).getFeature());
+    testValidator.setMaxGapArea(1);
+    assertTrue(testValidator.validate(features, new DummyTaskMonitor()).isEmpty());
+  }
+
   private WKTReader reader = new WKTReader(geometryFactory);
 
   private void assertTypeEquals(ValidationErrorType type, ValidationError error) {
@@ -4,6 +4,11 @@ import com.vividsolutions.jump.io.EndianDataInputStream;
 import com.vividsolutions.jump.workbench.Logger;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 
 import java.text.DateFormat;
@@ -13,16 +18,21 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
  * This class represents a DBF (or DBase) file.<p>
  * Construct it with a filename (including the .dbf)
  * this causes the header and field definitions to be read.<p>
- * Later queries return rows or columns of the database.
+ * Later queries return rows or columns of the database.<p>
+ * Records are read from a memory mapped view of the file, so that any row
+ * can be accessed directly and numeric fields can be decoded without
+ * creating intermediate Strings. Use {@link #getValue(int, int)} for random
+ * access and {@link #cursor()} to read the file sequentially.
  * <hr>
  * @author <a href="mailto:ian@geog.leeds.ac.uk">Ian Turton</a> Centre for
  * Computaional Geography, University of Leeds, LS2 9JT, 1998.
@@ -36,12 +46,30 @@ public class DbfFile implements DbfConsts, AutoCloseable {
     private int last_rec;
     private int rec_size;
     private EndianDataInputStream dFile;
-    private RandomAccessFile rFile;
+    private FileChannel channel;
     private long data_offset;
     private long filesize;
     private int numfields;
     private Map<String,String> uniqueStrings;
 
+    // The file is mapped by segments holding a whole number of records, so
+    // that files larger than 2 GB can be read and that a record never
+    // overlaps two segments. Segments are mapped on demand, and read with
+    // absolute gets only, so that several threads can share them without
+    // locking.
+    private static final int SEGMENT_SIZE = 1 << 28;
+    private AtomicReferenceArray<MappedByteBuffer> segments;
+    private int segmentRecords;
+    private int nextRec = 0;
+    private volatile boolean closed = false;
+
+    // Powers of ten exactly representable as doubles
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1 ; i < POW10.length ; i++) POW10[i] = POW10[i-1] * 10.0;
+    }
+
     public DbfFieldDef[] fielddef;
 
     public static final SimpleDateFormat DATE_PARSER = new SimpleDateFormat("yyyyMMdd") {
@@ -78,8 +106,11 @@ public class DbfFile implements DbfConsts, AutoCloseable {
         InputStream in = new FileInputStream(file);
         EndianDataInputStream sfile = new EndianDataInputStream(in);
         init(sfile);
+        sfile.close();
         // for random access to the dbf file
-        rFile = new RandomAccessFile(new File(file), "r");
+        channel = new FileInputStream(file).getChannel();
+        segmentRecords = Math.max(1, SEGMENT_SIZE / Math.max(1, rec_size));
+        segments = new AtomicReferenceArray<>((int)((last_rec + (long)segmentRecords - 1) / segmentRecords));
     }
 
     /**
@@ -171,7 +202,8 @@ public class DbfFile implements DbfConsts, AutoCloseable {
 
         new DbfFileHeader(sfile);
         // A map to store a unique reference for identical field value
-        uniqueStrings = new HashMap<>();
+        // (concurrent, as fields may be decoded by several threads)
+        uniqueStrings = new ConcurrentHashMap<>();
         int widthsofar;
 
         dFile = sfile;
@@ -197,10 +229,12 @@ public class DbfFile implements DbfConsts, AutoCloseable {
      */
     public StringBuffer GetNextDbfRec() throws java.io.IOException {
         StringBuffer record = new StringBuffer(rec_size + numfields);
+        ByteBuffer segment = getSegment(nextRec);
+        int start = getRecordStart(nextRec++);
 
         for (int i = 0; i < rec_size; i++) {
             // we could do some checking here.
-            record.append((char) rFile.readUnsignedByte());
+            record.append((char)(segment.get(start + i) & 0xFF));
         }
 
         return record;
@@ -212,17 +246,137 @@ public class DbfFile implements DbfConsts, AutoCloseable {
      * @exception java.io.IOException on read error.
      */
     public byte[] GetDbfRec(long row) throws java.io.IOException {  //[sstein 9.Sept.08]
-    	
-        rFile.seek(data_offset + (rec_size * row));
+
+        ByteBuffer segment = getSegment((int)row);
+        int start = getRecordStart((int)row);
 
         //Multi byte character modification thanks to Hisaji ONO
         byte[] strbuf = new byte[rec_size]; // <---- byte array buffer fo storing string's byte data
 
-        dFile.readByteLEnum(strbuf);
+        for (int i = 0; i < rec_size; i++) {
+            strbuf[i] = segment.get(start + i);
+        }
 
         return strbuf;		 //[sstein 9.Sept.08]
     }
 
+    /**
+     * Returns true if the <i>row</i>th record is marked as deleted.
+     * @param row the record index (zero-based)
+     * @exception java.io.IOException on read error.
+     */
+    public boolean isDeleted(int row) throws IOException {
+        return getSegment(row).get(getRecordStart(row)) == (byte)0x2A;
+    }
+
+    /**
+     * Get a field value directly from the mapped file, without reading the
+     * whole record.
+     * @param row the record index (zero-based)
+     * @param wantedCol the wanted column
+     * @return an object representing the field
+     * @throws IOException on read error
+     * @throws ParseException if a date field cannot be parsed
+     */
+    public Object getValue(int row, int wantedCol) throws IOException, ParseException {
+        return parseColumn(getSegment(row), getRecordStart(row), wantedCol);
+    }
+
+    /**
+     * Returns a new cursor to read the records of this file sequentially.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Sequential access to the records of a DbfFile. The cursor is positioned
+     * before the first record : call {@link #next()} before reading values.
+     */
+    public class Cursor {
+
+        private int row = -1;
+        private ByteBuffer segment;
+        private int start;
+
+        private Cursor() {}
+
+        /**
+         * Moves the cursor to the next record.
+         * @return false if there is no more record to read
+         */
+        public boolean next() throws IOException {
+            if (row + 1 >= last_rec) return false;
+            row++;
+            segment = getSegment(row);
+            start = getRecordStart(row);
+            return true;
+        }
+
+        /**
+         * Returns the index of the current record.
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns true if the current record is marked as deleted.
+         */
+        public boolean isDeleted() throws IOException {
+            checkOpen();
+            return segment.get(start) == (byte)0x2A;
+        }
+
+        /**
+         * Returns the value of a field of the current record.
+         * @param wantedCol the wanted column
+         */
+        public Object getValue(int wantedCol) throws IOException, ParseException {
+            checkOpen();
+            return parseColumn(segment, start, wantedCol);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) throw new IOException("Dbf file is closed");
+    }
+
+    /**
+     * Returns the segment containing the <i>row</i>th record, mapping it if
+     * it has not been accessed yet. Only the mapping is synchronized.
+     */
+    private ByteBuffer getSegment(int row) throws IOException {
+        checkOpen();
+        if (row < 0 || row >= last_rec) {
+            throw new EOFException("Dbf record " + row + " does not exist (" + last_rec + " records)");
+        }
+        int index = row / segmentRecords;
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            segment = mapSegment(index);
+        }
+        if (getRecordStart(row) + rec_size > segment.limit()) {
+            throw new EOFException("Dbf record " + row + " is beyond the end of file");
+        }
+        return segment;
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int index) throws IOException {
+        checkOpen();
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            long start = data_offset + (long)index * segmentRecords * rec_size;
+            long size = Math.max(0, Math.min((long)segmentRecords * rec_size, channel.size() - start));
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            segments.set(index, segment);
+        }
+        return segment;
+    }
+
+    private int getRecordStart(int row) {
+        return (row % segmentRecords) * rec_size;
+    }
 
     /**
      * Get a field value from the dbf record data (byte[]) and the field index
@@ -232,9 +386,18 @@ public class DbfFile implements DbfConsts, AutoCloseable {
      * @throws Exception if an Exception occurred
      */
     public Object ParseRecordColumn(byte[] rec, int wantedCol) throws Exception {
+        return parseColumn(ByteBuffer.wrap(rec), 0, wantedCol);
+    }
+
+    /**
+     * Decodes a field from a buffer containing the record starting at
+     * recordStart.
+     */
+    private Object parseColumn(ByteBuffer rec, int recordStart, int wantedCol)
+            throws UnsupportedEncodingException, ParseException {
         int start;
         int end;
-        start = fielddef[wantedCol].fieldstart;
+        start = recordStart + fielddef[wantedCol].fieldstart;
         int len = fielddef[wantedCol].fieldlen;		 //[sstein 9.Sept.08]
         end = start + len;
         String s;
@@ -244,18 +407,13 @@ public class DbfFile implements DbfConsts, AutoCloseable {
             
             case 'C': //character
                 while ((start < end) &&
-                       (rec[end-1] == ' ' ||    //[sstein 9.Sept.08]
-                        rec[end-1] == 0))       //[mmichaud 16 june 2010]
+                       (rec.get(end-1) == ' ' ||    //[sstein 9.Sept.08]
+                        rec.get(end-1) == 0))       //[mmichaud 16 june 2010]
                         end--;  //trim trailing spaces
                 //[sstein 9.Sept.08] + [Matthias Scholz 3. Sept.10] Charset added
-                s = new String(rec, start, end - start, charset.name());
-                masterString = uniqueStrings.get(s);
-                if (masterString != null) {
-                    return masterString;
-                } else {
-                    uniqueStrings.put(s,s);
-                    return s;
-                }
+                s = new String(getBytes(rec, start, end - start), charset.name());
+                masterString = uniqueStrings.putIfAbsent(s,s);
+                return masterString != null ? masterString : s;
 
             case 'F': //same as numeric, more or less
 
@@ -266,60 +424,148 @@ public class DbfFile implements DbfConsts, AutoCloseable {
                     && fielddef[wantedCol].fieldtype == 'N';
                 boolean isLong = isInteger && fielddef[wantedCol].fieldlen > 9;
 
-                // The number field should be trimed from the start AND the end.
-                // Added .trim() to 'String numb = rec.substring(start, end)' instead. [Kevin Neufeld]
-                // while ((start < end) && (rec.charAt(start) == ' '))
-                // 	start++;
-
-                String numb = new String(rec, start, len).trim();  //[sstein 9.Sept.08]
-                if (isLong) { //its an int
-                    try {
-                        return Long.parseLong(numb);
-                    } catch (java.lang.NumberFormatException e) {
-                        return null;
-                    }
-                }
-                else if (isInteger) { //its an int
-                    try {
-                        return Integer.parseInt(numb);
-                    } catch (java.lang.NumberFormatException e) {
-                        return null;
-                    }
-                }
-                else { //its a float
-                    try {
-                        return Double.parseDouble(numb);
-                    } catch (java.lang.NumberFormatException e) {
-                        // dBase can have numbers that look like '********' !! This isn't ideal but at least reads them
-                        return null;
-                    }
-                }
+                return parseNumber(rec, start, end, isInteger, isLong);
 
             case 'L': //boolean added by mmichaud
-                String bool = new String(rec, start, len).trim().toLowerCase();
+                String bool = new String(getBytes(rec, start, len)).trim().toLowerCase();
                 if (bool.equals("?")) return null;
                 else if (bool.equals("t") || bool.equals("y") || bool.equals("1")) return Boolean.TRUE;
                 else return Boolean.FALSE;
 
             case 'D': //date. Added by [Jon Aquino]
-                return parseDate(new String(rec, start, len));  //[sstein 9.Sept.08]
+                return parseDate(new String(getBytes(rec, start, len)));  //[sstein 9.Sept.08]
 
             default:
-           	    s = new String(rec, start, len);  //[sstein 9.Sept.08]
-                masterString = uniqueStrings.get(s);
-                if (masterString!=null) {
-                    return masterString;
-                } else {
-                    uniqueStrings.put(s,s);
-                    return s;
-                }
+           	    s = new String(getBytes(rec, start, len));  //[sstein 9.Sept.08]
+                masterString = uniqueStrings.putIfAbsent(s,s);
+                return masterString != null ? masterString : s;
         }
     }
 
+    private static byte[] getBytes(ByteBuffer rec, int start, int len) {
+        if (rec.hasArray()) {
+            return java.util.Arrays.copyOfRange(rec.array(),
+                    rec.arrayOffset() + start, rec.arrayOffset() + start + len);
+        }
+        byte[] bytes = new byte[len];
+        for (int i = 0 ; i < len ; i++) {
+            bytes[i] = rec.get(start + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Parses a numeric field directly from the bytes of the record. Plain
+     * decimal numbers are decoded without creating a String. Other forms
+     * (exponents, very long numbers...) are delegated to the java parsers.
+     */
+    private static Object parseNumber(ByteBuffer rec, int start, int end,
+                                      boolean isInteger, boolean isLong) {
+        // The number field should be trimed from the start AND the end.
+        while (start < end && (rec.get(start) & 0xFF) <= ' ') start++;
+        while (end > start && (rec.get(end-1) & 0xFF) <= ' ') end--;
+        if (start == end) return null;
+
+        int i = start;
+        boolean negative = false;
+        byte b = rec.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for ( ; i < end ; i++) {
+            b = rec.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (++digits > 15) break;
+                if (decimals >= 0) decimals++;
+            } else if (b == '.' && decimals < 0 && !isInteger) {
+                decimals = 0;
+            } else break;
+        }
 
-    public void close() throws IOException {
-        dFile.close();
-        rFile.close();
+        if (i == end && digits > 0) {
+            if (isLong) {
+                return negative ? -mantissa : mantissa;
+            } else if (isInteger) {
+                return (int)(negative ? -mantissa : mantissa);
+            } else if (decimals < POW10.length) {
+                // mantissa < 10^15 and 10^decimals are exact doubles, so that
+                // a single division gives the correctly rounded value
+                double value = decimals > 0 ? mantissa / POW10[decimals] : mantissa;
+                return negative ? -value : value;
+            }
+        }
+
+        String numb = new String(getBytes(rec, start, end - start));  //[sstein 9.Sept.08]
+        if (isLong) { //its an int
+            try {
+                return Long.parseLong(numb);
+            } catch (java.lang.NumberFormatException e) {
+                return null;
+            }
+        }
+        else if (isInteger) { //its an int
+            try {
+                return Integer.parseInt(numb);
+            } catch (java.lang.NumberFormatException e) {
+                return null;
+            }
+        }
+        else { //its a float
+            try {
+                return Double.parseDouble(numb);
+            } catch (java.lang.NumberFormatException e) {
+                // dBase can have numbers that look like '********' !! This isn't ideal but at least reads them
+                return null;
+            }
+        }
+    }
+
+
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (dFile != null) dFile.close();
+        if (channel != null) channel.close();
+        if (segments != null) {
+            for (int i = 0 ; i < segments.length() ; i++) {
+                MappedByteBuffer segment = segments.get(i);
+                if (segment != null) unmap(segment);
+                segments.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * Releases a mapped segment without waiting for the garbage collector,
+     * otherwise the file stays locked on Windows and cannot be overwritten
+     * or deleted.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {
+            // java 8
+            try {
+                Method getCleaner = buffer.getClass().getMethod("cleaner");
+                getCleaner.setAccessible(true);
+                Object cleaner = getCleaner.invoke(buffer);
+                if (cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (Exception e2) {
+                Logger.debug("Could not unmap dbf file segment", e2);
+            }
+        } catch (Exception e) {
+            Logger.debug("Could not unmap dbf file segment", e);
+        }
     }
 
     /**
@@ -356,7 +602,7 @@ public class DbfFile implements DbfConsts, AutoCloseable {
             rec_size = (char)file.readShortLE();
             Logger.debug("Dbf rec size: " + rec_size);
 
-            filesize = (rec_size * last_rec) + data_offset + 1;
+            filesize = ((long)rec_size * last_rec) + data_offset + 1;
             Logger.debug("Dbf file size :" + filesize);
 
             numfields = (int)((data_offset - DBF_BUFFSIZE - 1) / DBF_BUFFSIZE);
@@ -373,19 +619,22 @@ public class DbfFile implements DbfConsts, AutoCloseable {
         Date date = null;
 
         if (s.trim().length() != 0 && !s.equals("00000000")) {
-            try {
-                date = lastFormat.parse(s);
-            } catch (ParseException e) {
-                String[] patterns = new String[]{"yyyyMMdd", "yy/mm/dd"};
-                for (int i = 0; i < patterns.length; i++) {
-                    DateFormat df = new SimpleDateFormat(patterns[i]);
-                    df.setLenient(true);
-                    try {
-                        date = df.parse(s);
-                        lastFormat = df;
-                        break;
-                    } catch (ParseException pe) {
-                        date = null;
+            // DateFormats are not thread-safe
+            synchronized (DATE_PARSER) {
+                try {
+                    date = lastFormat.parse(s);
+                } catch (ParseException e) {
+                    String[] patterns = new String[]{"yyyyMMdd", "yy/mm/dd"};
+                    for (int i = 0; i < patterns.length; i++) {
+                        DateFormat df = new SimpleDateFormat(patterns[i]);
+                        df.setLenient(true);
+                        try {
+                            date = df.parse(s);
+                            lastFormat = df;
+                            break;
+                        } catch (ParseException pe) {
+                            date = null;
+                        }
                     }
                 }
             }
@@ -4,13 +4,17 @@ import java.io.*;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.locationtech.jts.geom.*;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.io.EndianDataInputStream;
 import com.vividsolutions.jump.io.EndianDataOutputStream;
 import com.vividsolutions.jump.task.*;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.util.Timer;
 import com.vividsolutions.jump.workbench.Logger;
 
@@ -451,6 +455,116 @@ public class Shapefile implements TaskMonitorSupport {
         return geometryFactory.createGeometryCollection(list.toArray(new Geometry[]{}));
     }
 
+    /**
+     * Parallel version of {@link #readFromIndex(GeometryFactory, InputStream)}.
+     * As the shx index gives the offset of every record, records are decoded
+     * independently by parallelism threads, each one reading its own range
+     * of records. Geometries are returned in the order of the file.
+     * @param geometryFactory geometry factory to use to build geometries
+     * @param is shx input stream
+     * @param parallelism maximum number of threads used to decode records
+     * @return a GeometryCollection containing all the shapes.
+     */
+    public synchronized GeometryCollection readFromIndex(final GeometryFactory geometryFactory,
+            InputStream is, int parallelism) throws Exception {
+
+        // Flush shapefile inputStream to a temporary file, because inputStream
+        // may come from a zipped archive, and we want to access data in Random mode
+        File tmpShp = File.createTempFile("tmpshp", ".shp");
+        try (BufferedInputStream bis= new BufferedInputStream(shpInputStream, 4096);
+             BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(tmpShp), 4096);
+             RandomAccessFile raf = new RandomAccessFile(tmpShp, "r");
+             EndianDataInputStream shx = new EndianDataInputStream(new BufferedInputStream(is))) {
+            int nb;
+            byte[] bytes = new byte[4096];
+            while (-1 != (nb = bis.read(bytes))) {
+                bos.write(bytes, 0, nb);
+            }
+            bos.flush();
+            final FileChannel channel = raf.getChannel();
+            // read shapefile header
+            bytes = new byte[100];
+            channel.read(ByteBuffer.wrap(bytes), 0);
+
+            ShapefileHeader shpMainHeader = new ShapefileHeader(
+                    new EndianDataInputStream(new ByteArrayInputStream(bytes)));
+            if (shpMainHeader.getVersion() != VERSION) {
+                Logger.warn(String.format("Unknown shp version (%s) : try to read anyway", shpMainHeader.getVersion()));
+            }
+
+            ShapefileHeader shxMainHeader = new ShapefileHeader(shx);
+            if (shxMainHeader.getVersion() != VERSION) {
+                Logger.warn(String.format("Unknown shx version (%s) : try to read anyway", shxMainHeader.getVersion()));
+            }
+
+            final int type = shpMainHeader.getShapeType();
+            if(getShapeHandler(type)==null) throw new ShapeTypeNotSupportedException("Unsupported shape type:" + type);
+
+            // read the whole index
+            long[] offsets = new long[1024];
+            int[] lengths = new int[1024];
+            int count = 0;
+            try {
+                while (true) {
+                    long offset = shx.readIntBE() & 0x00000000ffffffffL;
+                    int length = shx.readIntBE();
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                        lengths = Arrays.copyOf(lengths, count * 2);
+                    }
+                    offsets[count] = offset;
+                    lengths[count] = length;
+                    count++;
+                }
+            } catch (EOFException e) {}
+
+            final long[] recordOffsets = offsets;
+            final int[] recordLengths = lengths;
+            final Geometry[] geometries = new Geometry[count];
+            final AtomicInteger decoded = new AtomicInteger();
+            final AtomicInteger errorCount = new AtomicInteger();
+            final Reporter r = new Reporter(count);
+            ParallelUtil.forEachChunk(count, 4096, parallelism, getTaskMonitor(), (start, end) -> {
+                // handlers are not shared between threads
+                ShapeHandler handler = getShapeHandler(type);
+                byte[] buffer = new byte[4096];
+                for (int i = start ; i < end ; i++) {
+                    int length = recordLengths[i];
+                    Geometry body;
+                    try {
+                        if (buffer.length < length*2) buffer = new byte[length*2];
+                        ByteBuffer bb = ByteBuffer.wrap(buffer, 0, length*2);
+                        while (bb.hasRemaining()) {
+                            if (channel.read(bb, recordOffsets[i]*2 + 8 + bb.position()) < 0) {
+                                throw new EOFException("Record is beyond the end of file");
+                            }
+                        }
+                        body = handler.read(new EndianDataInputStream(
+                                new ByteArrayInputStream(buffer, 0, length*2)), geometryFactory, length);
+                        if (body.getUserData() != null) errorCount.incrementAndGet();
+                    }
+                    catch(Exception e) {
+                        Logger.warn("Error processing record " + (i+1) + ": " + e.getMessage(), e);
+                        Logger.warn("an empty Geometry has been returned");
+                        body = handler.getEmptyGeometry(geometryFactory);
+                        errorCount.incrementAndGet();
+                    }
+                    geometries[i] = body;
+                    decoded.incrementAndGet();
+                }
+            }, () -> r.report(decoded.get()));
+            errors = errorCount.get();
+            return geometryFactory.createGeometryCollection(geometries);
+        }
+        finally {
+            if (tmpShp.exists()) {
+                if (!tmpShp.delete()) {
+                    Logger.warn(tmpShp + " could not be deleted");
+                }
+            }
+        }
+    }
+
     private TaskMonitor taskMonitor = new DummyTaskMonitor();
     
     public void setTaskMonitor(TaskMonitor taskMonitor) {
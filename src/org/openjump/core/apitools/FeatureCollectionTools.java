@@ -10,6 +10,7 @@
 package org.openjump.core.apitools;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,12 +34,14 @@ import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.feature.FeatureDataset;
 import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.util.StatisticIndices;
 import com.vividsolutions.jump.workbench.Logger;
 import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.plugin.PlugInContext;
 import com.vividsolutions.jump.workbench.ui.EditTransaction;
 
+import de.fho.jump.pirol.utilities.FormulaParsing.CompiledFormula;
 import de.fho.jump.pirol.utilities.FormulaParsing.FormulaValue;
 import de.fho.jump.pirol.utilities.attributes.AttributeInfo;
 import de.fho.jump.pirol.utilities.debugOutput.DebugUserIds;
@@ -650,19 +653,28 @@ public class FeatureCollectionTools extends ToolToMakeYourLifeEasier {
         
         PirolFeatureCollection newFc = FeatureCollectionTools.addAttributeToFeatureCollection( oldFc, attrInfo, clearOldFeatureCollection );
         
-        Feature[] features = (Feature[])newFc.getFeatures().toArray(new Feature[0]);
-        Feature feat;
-        int numFeats = features.length, attrInd = newFc.getFeatureSchema().getAttributeIndex(attrInfo.getUniqueAttributeName());
+        List<Feature> features = newFc.getFeatures();
+        int numFeats = features.size(), attrInd = newFc.getFeatureSchema().getAttributeIndex(attrInfo.getUniqueAttributeName());
+        
+        // the formula is compiled and evaluated for batches of features in parallel
+        BitSet failures = new BitSet();
+        double[] values;
+        try {
+            values = CompiledFormula.compile(formula).evaluate(features,
+                    ParallelUtil.getDefaultParallelism(), null, failures);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (java.lang.Exception e) {
+            throw new IllegalStateException(e);
+        }
         
         for (int i=0; i<numFeats; i++){
-            feat = features[i];
-            try {
-                feat.setAttribute(attrInd, new Double(formula.getValue(feat)));
-            } catch (java.lang.Exception e) {
+            Feature feat = features.get(i);
+            if (failures.get(i)) {
                 logger.printDebug("fail to apply \"" + formula + "\" on feature id " + feat.getID());
+            } else {
+                feat.setAttribute(attrInd, values[i]);
             }
-            if (i%500 == 0)
-                logger.printDebug("done: " + i);
         }
         return newFc;
     }
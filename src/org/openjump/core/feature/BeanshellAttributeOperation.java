@@ -27,29 +27,42 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package org.openjump.core.feature;
 
+import bsh.BshMethod;
 import bsh.EvalError;
 import bsh.Interpreter;
+import bsh.Primitive;
+import bsh.UtilEvalError;
 
 import com.vividsolutions.jump.feature.*;
+import com.vividsolutions.jump.task.TaskMonitor;
 import com.vividsolutions.jump.util.FlexibleDateParser;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.plugin.PlugInContext;
 import com.vividsolutions.jump.workbench.model.Layer;
 
 import java.text.ParseException;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Creates an Operation using the Beanshell scripting language.
  * @author Micha&euml;l Michaud
- * @version 0.1 (2012-11-17)
+ * @version 0.2 (2026-10-17)
  */
+ // 0.2 (2026-10-17) parallel evaluation of a list of features
  // 0.1 (2012-11-17)
 public class BeanshellAttributeOperation implements Operation {
 
     private static final FlexibleDateParser DATE_PARSER = new FlexibleDateParser();
 
+    // name of the scripted method wrapping the expression
+    private static final String SCRIPT_METHOD = "_evaluateExpression";
+
+    // number of features evaluated by a task in parallel evaluation
+    private static final int CHUNK_SIZE = 256;
+
     private PlugInContext context;
     private AttributeType type;
     private String bshExpression;
@@ -70,6 +83,92 @@ public class BeanshellAttributeOperation implements Operation {
     
     public Object evaluate(BasicFeature f) throws EvalError, 
                            NumberFormatException, IllegalArgumentException, ParseException {
+        try {
+            return evaluate(f, interpreter, null);
+        }
+        catch(EvalError e) {
+            warnUser(e);
+            throw e;
+        } 
+        catch(IllegalArgumentException e) {
+            warnUser(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Evaluates the expression for each feature, in parallel chunks.
+     * Each thread has its own Interpreter, in which the expression is parsed
+     * only once, into a scripted method when possible. The expression must
+     * not depend on the evaluation of the previous features (e.g. a counter
+     * stored in a variable).
+     * @param features the features to evaluate
+     * @param parallelism the maximum number of threads
+     * @param monitor a TaskMonitor checked for cancellation, may be null
+     * @return the values of the expression, in the order of features
+     * @throws Exception the first exception thrown by the evaluation, which
+     *         is reported to the user from the calling thread
+     */
+    public Object[] evaluate(List<Feature> features, int parallelism,
+                             TaskMonitor monitor) throws Exception {
+        final Feature[] array = features.toArray(new Feature[0]);
+        final Object[] values = new Object[array.length];
+        // interpreter and compiled expression of each thread
+        final ThreadLocal<Object[]> scripts = new ThreadLocal<Object[]>();
+        try {
+            ParallelUtil.forEachChunk(array.length, CHUNK_SIZE, parallelism, monitor,
+                (start, end) -> {
+                    Object[] script = scripts.get();
+                    if (script == null) {
+                        Interpreter threadInterpreter = initInterpreter(context);
+                        script = new Object[]{threadInterpreter,
+                                              compile(threadInterpreter, bshExpression)};
+                        scripts.set(script);
+                    }
+                    for (int i = start ; i < end ; i++) {
+                        values[i] = evaluate((AbstractBasicFeature)array[i],
+                                (Interpreter)script[0], (BshMethod)script[1]);
+                    }
+                });
+        }
+        catch(EvalError e) {
+            warnUser(e);
+            throw e;
+        } 
+        catch(IllegalArgumentException e) {
+            warnUser(e);
+            throw e;
+        }
+        return values;
+    }
+    
+    /**
+     * Defines a scripted method returning the value of expression, so that
+     * the expression is parsed only once. Returns null if expression can't be
+     * wrapped in a method (e.g. a sequence of statements without return),
+     * in which case it must be evaluated as is.
+     */
+    private static BshMethod compile(Interpreter interpreter, String expression) {
+        String body = expression.trim();
+        while (body.endsWith(";")) body = body.substring(0, body.length()-1).trim();
+        try {
+            try {
+                interpreter.eval(SCRIPT_METHOD + "() {\nreturn (" + body + ");\n}");
+            } catch(EvalError e) {
+                // statements returning the value explicitly
+                if (!expression.contains("return")) return null;
+                interpreter.eval(SCRIPT_METHOD + "() {\n" + expression + "\n}");
+            }
+            return interpreter.getNameSpace().getMethod(SCRIPT_METHOD, new Class[0]);
+        } catch(EvalError e) {
+            return null;
+        } catch(UtilEvalError e) {
+            return null;
+        }
+    }
+    
+    private Object evaluate(AbstractBasicFeature f, Interpreter interpreter, BshMethod method)
+            throws EvalError, NumberFormatException, IllegalArgumentException, ParseException {
         
         FeatureSchema schema = f.getSchema();
         
@@ -90,57 +189,48 @@ public class BeanshellAttributeOperation implements Operation {
                 continue;
             }
             if (schema.isOperation(i) && evaluatedAttributes.contains(i)) continue;
-            try {
-                interpreter.set(normalizeVarName(schema.getAttributeName(i)), 
-                                f.getAttribute(i));
-                //System.out.println("  set to " + f.getAttribute(i));
-                evaluatedAttributes.add(i);
-            }
-            catch(EvalError e) {
-                context.getWorkbenchFrame().warnUser(e.toString());
-                throw e;
-            }
+            interpreter.set(normalizeVarName(schema.getAttributeName(i)), 
+                            f.getAttribute(i));
+            //System.out.println("  set to " + f.getAttribute(i));
+            evaluatedAttributes.add(i);
         }
         f.removeUserData((Object)"evaluatedAttributes");
-        try {
-            interpreter.set("geometry", f.getGeometry());
-            interpreter.set("Geometry", f.getGeometry());
-            interpreter.set("GEOMETRY", f.getGeometry());
-            interpreter.set("feature", f);
-            interpreter.set("Feature", f);
-            interpreter.set("FEATURE", f);
-            Object obj = interpreter.eval(bshExpression);
-            //AttributeType type = schema.getAttributeType(attributeIndex);
-            if (obj == null) return null;
-            else if (type == AttributeType.STRING) {
-                if (obj instanceof String) return obj;
-                else return obj.toString();
-            }
-            else if (type == AttributeType.DOUBLE) {
-                if (obj instanceof Double) return obj;
-                else return Double.valueOf(obj.toString());
-            }
-            else if (type == AttributeType.INTEGER) {
-                if (obj instanceof Integer) return obj;
-                else return Integer.valueOf(obj.toString());
-            }
-            else if (type == AttributeType.DATE) {
-                if (obj instanceof Date) return obj;
-                else return DATE_PARSER.parse(obj.toString(), true);
-            }
-            else return obj;
+        interpreter.set("geometry", f.getGeometry());
+        interpreter.set("Geometry", f.getGeometry());
+        interpreter.set("GEOMETRY", f.getGeometry());
+        interpreter.set("feature", f);
+        interpreter.set("Feature", f);
+        interpreter.set("FEATURE", f);
+        Object obj = method == null ? interpreter.eval(bshExpression) :
+            Primitive.unwrap(method.invoke(new Object[0], interpreter));
+        //AttributeType type = schema.getAttributeType(attributeIndex);
+        if (obj == null) return null;
+        else if (type == AttributeType.STRING) {
+            if (obj instanceof String) return obj;
+            else return obj.toString();
         }
-        catch(EvalError e) {
-            context.getWorkbenchFrame().warnUser(e.toString());
-            throw e;
-        } 
-        catch(NumberFormatException e) {
-            context.getWorkbenchFrame().warnUser(e.toString());
-            throw e;
-        } 
-        catch(IllegalArgumentException e) {
+        else if (type == AttributeType.DOUBLE) {
+            if (obj instanceof Double) return obj;
+            else return Double.valueOf(obj.toString());
+        }
+        else if (type == AttributeType.INTEGER) {
+            if (obj instanceof Integer) return obj;
+            else return Integer.valueOf(obj.toString());
+        }
+        else if (type == AttributeType.DATE) {
+            if (obj instanceof Date) return obj;
+            else return DATE_PARSER.parse(obj.toString(), true);
+        }
+        else return obj;
+    }
+    
+    /**
+     * Shows the error to the user. Must be called from the thread which
+     * started the evaluation, not from the evaluating threads.
+     */
+    private void warnUser(Exception e) {
+        if (context.getWorkbenchContext().getWorkbench() != null) {
             context.getWorkbenchFrame().warnUser(e.toString());
-            throw e;
         }
     }
     
@@ -164,8 +254,10 @@ public class BeanshellAttributeOperation implements Operation {
      */
     private Interpreter initInterpreter(PlugInContext context) throws EvalError {
         Interpreter interpreter = new Interpreter();
-        interpreter.setClassLoader(context.getWorkbenchContext().getWorkbench()
-                .getPlugInManager().getClassLoader());
+        if (context.getWorkbenchContext().getWorkbench() != null) {
+            interpreter.setClassLoader(context.getWorkbenchContext().getWorkbench()
+                    .getPlugInManager().getClassLoader());
+        }
         interpreter.set("wc", context.getWorkbenchContext());
         interpreter.eval("setAccessibility(true)");
         interpreter.eval("import org.locationtech.jts.geom.*");
@@ -380,13 +380,18 @@ public final class RasterImageLayer extends GeoReferencedLayerable
                     }
                 }
                 clearImageAndRaster(true);
+                // Tiled tiff images are read at the viewport resolution (at most
+                // twice finer in each direction), other images are read as a whole
+                double loadedPixels = isTiled() ?
+                        Math.min(4.0*visibleRect.width*visibleRect.height, (double)origImageWidth*origImageHeight) :
+                        (double)origImageWidth*origImageHeight;
                 // Check that there is enough free memory for the image + 1% of available memory + 10Mb
                 if (getAvailRAM()-getCommittedMemory() <
-                        origImageWidth*origImageHeight*bitsPerPixel/8.0 + getAvailRAM()*0.01 + 10*1024*1024) {
+                        loadedPixels*bitsPerPixel/8.0 + getAvailRAM()*0.01 + 10*1024*1024) {
                     layerViewPanel.getContext().warnUser("Low Memory : image " +
                             imageFileName + " will not be displayed");
                     System.out.println("" + (getAvailRAM()-getCommittedMemory())/1024 + "kb < " +
-                            (origImageWidth*origImageHeight*bitsPerPixel/8)/1024 + "kb " +
+                            (long)(loadedPixels*bitsPerPixel/8)/1024 + "kb " +
                             getAvailRAM()*0.01/1024 + "kb + 10240");
                     return null;
                 } else {
@@ -473,6 +478,15 @@ public final class RasterImageLayer extends GeoReferencedLayerable
         }
     }
 
+    /**
+     * @return true if the image is a tiff read tile by tile by TiledTiffReader
+     */
+    protected boolean isTiled() {
+        return TiledTiffReader.isEnabled() && imageFileName != null &&
+                (imageFileName.toLowerCase().endsWith(".tif") ||
+                imageFileName.toLowerCase().endsWith(".tiff"));
+    }
+
     protected long getCommittedMemory() {
         return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
     }
@@ -558,107 +572,117 @@ public final class RasterImageLayer extends GeoReferencedLayerable
     
     protected BufferedImage stretchImageValuesForDisplay() throws NoninvertibleTransformException{
 
-        Raster actualRasterData = image.copyData(null);
-        int width = actualRasterData.getWidth();
-        int height = actualRasterData.getHeight();
-
         // Need to change image type to support transparency and apply symbology
         if(image.getColorModel() instanceof IndexColorModel) {
             return image;  
         }
 
-        BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-
-                if(symbology == null) {
-                    if(stats.getBandCount() < 3) {
-                        
-                        final RasterSymbology rasterSymbology;
-                        if (metadata.getStats().getMin(0) == metadata
-                                .getStats().getMax(0)) {
-                            rasterSymbology = new RasterSymbology(RasterSymbology.TYPE_SINGLE);
-                        } else {
-                            rasterSymbology = new RasterSymbology(RasterSymbology.TYPE_RAMP);
-                        }
-                        if (!Double.isNaN(metadata.getNoDataValue())) {
-                            rasterSymbology.addColorMapEntry(metadata.getNoDataValue(), transparentColor);
-                        }
-                        rasterSymbology.addColorMapEntry(metadata.getStats().getMin(0), Color.WHITE);
-                        rasterSymbology.addColorMapEntry(metadata.getStats().getMax(0), Color.BLACK);
-                        setSymbology(rasterSymbology);
-                        
-                    } else {
-                        double valueR = actualRasterData.getSampleDouble(col, row, 0);
-                        double valueG = actualRasterData.getSampleDouble(col, row, 1);
-                        double valueB = actualRasterData.getSampleDouble(col, row, 2);
-                        double valueAlpha = 255;
-                        if(stats.getBandCount() > 3) {
-                            valueAlpha = actualRasterData.getSampleDouble(col, row, 3);
-                        }
-                        if(Double.isNaN(valueR) || Double.isInfinite(valueR) || valueR == noDataValue
-                                || Double.isNaN(valueG) || Double.isInfinite(valueG) || valueG == noDataValue
-                                || Double.isNaN(valueB) || Double.isInfinite(valueB) || valueB == noDataValue
-                                || valueAlpha <= 0) {
-                            newImage.setRGB(col, row, Color.TRANSLUCENT);
-                            continue;
-                        }
-                        
-                        int r = (int) ((valueR - stats.getMin(0)) * 255./(stats.getMax(0) - stats.getMin(0)));
-                        if(r > 255) r = 255;
-                        if(r < 0) r = 0;
-                        int g = (int) ((valueG - stats.getMin(1)) * 255./(stats.getMax(1) - stats.getMin(0)));
-                        if(g > 255) g = 255;
-                        if(g < 0) g = 0;
-                        int b = (int) ((valueB - stats.getMin(2)) * 255./(stats.getMax(2) - stats.getMin(0)));
-                        if(b > 255) b = 255;
-                        if(b < 0) b = 0;
-
-                        int alpha = (int) valueAlpha;
-                        
-                        newImage.setRGB(col, row, new Color(r, g, b, alpha).getRGB());
-                    }
-                } else {
-                    // Symbology exists
-                    double value = actualRasterData.getSampleDouble(col, row, 0);
-                    
+        // The raster is read in place, tile by tile, instead of being copied
+        Raster actualRasterData = image.getRaster();
+        int width = actualRasterData.getWidth();
+        int height = actualRasterData.getHeight();
 
-                    // If symbology min value is higher than raster min value
-                    // the value becomes equal to the symbology min value
-                    Double[] symbologyClassLimits =  symbology.getColorMapEntries_tm().keySet().toArray(new Double[0]);
-                    double symbMinValue = symbologyClassLimits[0];
-                    double symbFirstValue = symbologyClassLimits[0];
-                    if(this.isNoData(symbFirstValue)) {
-                        symbMinValue = symbologyClassLimits[1];
-                    }
-                    
-                    if(!this.isNoData(value) && value < symbMinValue) {
-                        value = symbMinValue;
-                    }
-                    
-                    Color color = symbology.getColor(value);
-                    
-                    if((Double.isNaN(value) || Double.isInfinite(value) || this.isNoData(value))
-                            && color == null) {
-                        newImage.setRGB(col, row, Color.TRANSLUCENT);
-                        continue;
-                    }
-                    
-                    // Transparency is a combination of total layer transparency
-                    // and single cell transparency
-                    int transparency = 
-                            (int)(((1 - symbology.getTransparency()) * 
-                            (color.getAlpha() / 255d)) * 255);
-                    newImage.setRGB(col, row, new Color(
-                            color.getRed(),
-                            color.getGreen(),
-                            color.getBlue(),
-                            transparency).getRGB());
-                }  
+        if(symbology == null && stats.getBandCount() < 3) {
+            final RasterSymbology rasterSymbology;
+            if (metadata.getStats().getMin(0) == metadata
+                    .getStats().getMax(0)) {
+                rasterSymbology = new RasterSymbology(RasterSymbology.TYPE_SINGLE);
+            } else {
+                rasterSymbology = new RasterSymbology(RasterSymbology.TYPE_RAMP);
+            }
+            if (!Double.isNaN(metadata.getNoDataValue())) {
+                rasterSymbology.addColorMapEntry(metadata.getNoDataValue(), transparentColor);
+            }
+            rasterSymbology.addColorMapEntry(metadata.getStats().getMin(0), Color.WHITE);
+            rasterSymbology.addColorMapEntry(metadata.getStats().getMax(0), Color.BLACK);
+            setSymbology(rasterSymbology);
+        }
+
+        double symbMinValue = 0;
+        if(symbology != null) {
+            // If symbology min value is higher than raster min value
+            // the value becomes equal to the symbology min value
+            Double[] symbologyClassLimits =  symbology.getColorMapEntries_tm().keySet().toArray(new Double[0]);
+            symbMinValue = symbologyClassLimits[0];
+            double symbFirstValue = symbologyClassLimits[0];
+            if(this.isNoData(symbFirstValue)) {
+                symbMinValue = symbologyClassLimits[1];
+            }
+        }
+
+        BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+        int tileSize = TiledTiffReader.TILE_SIZE;
+        int[] rgb = new int[tileSize * tileSize];
+        double[][] values = new double[symbology == null ? Math.min(4, stats.getBandCount()) : 1][];
+        for (int y0 = 0; y0 < height; y0 += tileSize) {
+            for (int x0 = 0; x0 < width; x0 += tileSize) {
+                int w = Math.min(tileSize, width - x0);
+                int h = Math.min(tileSize, height - y0);
+                for (int b = 0; b < values.length; b++) {
+                    values[b] = actualRasterData.getSamples(
+                            actualRasterData.getMinX() + x0, actualRasterData.getMinY() + y0,
+                            w, h, b, values[b]);
+                }
+                for (int i = 0; i < w * h; i++) {
+                    rgb[i] = symbology == null ?
+                            getRGB(values[0][i], values[1][i], values[2][i],
+                                    values.length > 3 ? values[3][i] : 255) :
+                            getRGB(values[0][i], symbMinValue);
+                }
+                newImage.setRGB(x0, y0, w, h, rgb, 0, w);
             }
         }
         return newImage;
     }
+
+    // Color of a cell of a multiband image without symbology
+    private int getRGB(double valueR, double valueG, double valueB, double valueAlpha) {
+        if(Double.isNaN(valueR) || Double.isInfinite(valueR) || valueR == noDataValue
+                || Double.isNaN(valueG) || Double.isInfinite(valueG) || valueG == noDataValue
+                || Double.isNaN(valueB) || Double.isInfinite(valueB) || valueB == noDataValue
+                || valueAlpha <= 0) {
+            return Color.TRANSLUCENT;
+        }
+
+        int r = (int) ((valueR - stats.getMin(0)) * 255./(stats.getMax(0) - stats.getMin(0)));
+        if(r > 255) r = 255;
+        if(r < 0) r = 0;
+        int g = (int) ((valueG - stats.getMin(1)) * 255./(stats.getMax(1) - stats.getMin(0)));
+        if(g > 255) g = 255;
+        if(g < 0) g = 0;
+        int b = (int) ((valueB - stats.getMin(2)) * 255./(stats.getMax(2) - stats.getMin(0)));
+        if(b > 255) b = 255;
+        if(b < 0) b = 0;
+
+        int alpha = (int) valueAlpha;
+
+        return new Color(r, g, b, alpha).getRGB();
+    }
+
+    // Color of a cell of a single band image with symbology
+    private int getRGB(double value, double symbMinValue) {
+        if(!this.isNoData(value) && value < symbMinValue) {
+            value = symbMinValue;
+        }
+
+        Color color = symbology.getColor(value);
+
+        if((Double.isNaN(value) || Double.isInfinite(value) || this.isNoData(value))
+                && color == null) {
+            return Color.TRANSLUCENT;
+        }
+
+        // Transparency is a combination of total layer transparency
+        // and single cell transparency
+        int transparency =
+                (int)(((1 - symbology.getTransparency()) *
+                (color.getAlpha() / 255d)) * 255);
+        return new Color(
+                color.getRed(),
+                color.getGreen(),
+                color.getBlue(),
+                transparency).getRGB();
+    }
     
     /**
      * @return Envelope with the real world coordinates of the image
@@ -1463,6 +1487,7 @@ public final class RasterImageLayer extends GeoReferencedLayerable
         // TiffUtilsV2 contains a cache to avoid reading image files again and again
         // but which can hold file lock for ever if entries are not removed.
         TiffUtilsV2.removeFromGeoRastercache(new File(imageFileName));
+        TiledTiffReader.removeFromCache(new File(imageFileName));
     }
            
     public Double getCellValue(Coordinate coordinate, int band) throws IOException {
@@ -328,6 +328,16 @@ public class TiffUtilsV2 {
 	      stats = calculateStats(tiffFile, noData, tiffFile);
 	    }
 
+	      // Read only the tiles intersecting the viewport, from the best overview
+	      if (TiledTiffReader.isEnabled()) {
+	        try {
+	          return TiledTiffReader.readImage(tiffFile, wholeImageEnvelope, viewportEnvelope,
+	              requestedRes, noData, stats);
+	        } catch (IOException | RuntimeException e) {
+	          Logger.warn("Can't read tiles of " + tiffFile + ", read it with JAI", e);
+	        }
+	      }
+
 	      float xScale = (float) (cellSizeX / requestedRes.getX());
 	      float yScale = (float) (cellSizeY  / requestedRes.getY());
 	      xScale = Math.min(xScale, 1);
@@ -517,8 +527,11 @@ public class TiffUtilsV2 {
 	      throws ParserConfigurationException, TransformerException, TransformerConfigurationException, SAXException,
 	      IOException {
 
-	    BufferedImage bufferedImage = readSubsampled(tiffFile, 1, 1).getAsBufferedImage();
-	    int bandCount = bufferedImage.getRaster().getNumBands();
+	    // Read the image by blocks of rows instead of loading it as a whole
+	    RenderedOp renderedOp = getRenderedOp(tiffFile);
+	    int width = renderedOp.getWidth();
+	    int height = renderedOp.getHeight();
+	    int bandCount = renderedOp.getSampleModel().getNumBands();
 
 	    double minValue[] = new double[bandCount];
 	    double maxValue[] = new double[bandCount];
@@ -531,13 +544,16 @@ public class TiffUtilsV2 {
 	      maxValue[b] = -Double.MAX_VALUE;
 	    }
 
-	    for (int r = 0; r < bufferedImage.getHeight(); r++) {
-	      Raster raster = bufferedImage.getData(new Rectangle(0, r, bufferedImage.getWidth(), 1));
-	      for (int c = 0; c < bufferedImage.getWidth(); c++) {
-
-	        for (int b = 0; b < bandCount; b++) {
+	    double[] values = null;
+	    for (int r0 = 0; r0 < height; r0 += TiledTiffReader.TILE_SIZE) {
+	      int rows = Math.min(TiledTiffReader.TILE_SIZE, height - r0);
+	      Raster raster = renderedOp.getData(new Rectangle(renderedOp.getMinX(),
+	          renderedOp.getMinY() + r0, width, rows));
+	      for (int b = 0; b < bandCount; b++) {
+	        values = raster.getSamples(raster.getMinX(), raster.getMinY(), width, rows, b, values);
+	        for (int i = 0; i < width * rows; i++) {
 
-	          double value = raster.getSampleDouble(c, r, b);
+	          double value = values[i];
 	          if (value != noDataValue && (float) value != (float) noDataValue && !Double.isNaN(value)
 	              && !Double.isInfinite(value)) {
 	            if (value < minValue[b])
@@ -569,7 +585,7 @@ public class TiffUtilsV2 {
 
 	  }
 
-	  private static Envelope getImageSubsetEnvelope(Envelope wholeImageEnvelope, Rectangle imageSubset,
+	  static Envelope getImageSubsetEnvelope(Envelope wholeImageEnvelope, Rectangle imageSubset,
 	      Resolution subsetResolution) {
 
 	    double ulX = Math.max(wholeImageEnvelope.getMinX(),
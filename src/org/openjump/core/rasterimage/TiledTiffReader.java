@@ -0,0 +1,399 @@
+package org.openjump.core.rasterimage;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+import org.locationtech.jts.geom.Envelope;
+
+import com.vividsolutions.jump.workbench.Logger;
+
+/**
+ * Reads the part of a TIFF image intersecting the viewport from square tiles
+ * of {@link #TILE_SIZE} pixels, so that only the intersecting part of large
+ * images (DEMs, orthophotos) is decoded.
+ *
+ * <p>Tiles are read from the image or from the overview (internal or in an
+ * external .ovr file) whose resolution is the closest to, but not coarser
+ * than, the requested resolution. The remaining scale factor is obtained by
+ * subsampling the source by a power of 2 while reading.</p>
+ *
+ * <p>Decoded tiles are kept in a least recently used cache shared by all
+ * files, bounded in bytes. The default size is 1/8 of the maximum heap and
+ * can be set in megabytes with the raster.tile.cache.size system property.
+ * Set raster.tiles.off to read the images with JAI as before.</p>
+ */
+public class TiledTiffReader {
+
+    /** Width and height of the tiles, in pixels of the level they are read at */
+    public static final int TILE_SIZE = 256;
+
+    private static long maxCacheSize = Long.getLong("raster.tile.cache.size",
+            Runtime.getRuntime().maxMemory() / 8 / (1024 * 1024)) * 1024 * 1024;
+
+    private static long cacheSize = 0;
+
+    // Decoded tiles of all files, in access order
+    private static final LinkedHashMap<Key,BufferedImage> TILES =
+            new LinkedHashMap<>(64, 0.75f, true);
+
+    // Images (main image and overviews) of the files read so far
+    private static final Map<File,List<Level>> LEVELS =
+            Collections.synchronizedMap(new HashMap<File,List<Level>>());
+
+    private TiledTiffReader() {}
+
+    /**
+     * @return false if the raster.tiles.off system property is set
+     */
+    public static boolean isEnabled() {
+        return System.getProperty("raster.tiles.off") == null;
+    }
+
+    /**
+     * Sets the maximum number of bytes of decoded tiles kept in memory.
+     * @param bytes maximum size of the cache
+     */
+    public static void setMaxCacheSize(long bytes) {
+        synchronized (TILES) {
+            maxCacheSize = Math.max(0, bytes);
+            trim();
+        }
+    }
+
+    public static long getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    /**
+     * Removes the tiles and the structure of tiffFile from the cache.
+     * @param tiffFile the file which is not displayed anymore or has changed
+     */
+    public static void removeFromCache(File tiffFile) {
+        LEVELS.remove(tiffFile);
+        File ovrFile = new File(tiffFile.getParent(), tiffFile.getName() + ".ovr");
+        synchronized (TILES) {
+            for (Iterator<Map.Entry<Key,BufferedImage>> it = TILES.entrySet().iterator() ; it.hasNext() ; ) {
+                Map.Entry<Key,BufferedImage> entry = it.next();
+                File file = entry.getKey().file;
+                if (file.equals(tiffFile) || file.equals(ovrFile)) {
+                    cacheSize -= getSize(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the part of tiffFile intersecting viewportEnvelope at a
+     * resolution at least as fine as requestedRes.
+     * @param tiffFile file containing the tiff image
+     * @param wholeImageEnvelope the envelope of the whole image
+     * @param viewportEnvelope envelope of the viewport
+     * @param requestedRes requested resolution
+     * @param noData value representing nodata
+     * @param stats statistics about image data
+     * @return an ImageAndMetadata whose image is null if the image does not
+     * intersect the viewport
+     * @throws IOException if the file can't be read
+     * @throws NoninvertibleTransformException if a NoninvertibleTransformException occurs
+     */
+    public static ImageAndMetadata readImage(File tiffFile, Envelope wholeImageEnvelope,
+            Envelope viewportEnvelope, Resolution requestedRes, double noData, Stats stats)
+            throws IOException, NoninvertibleTransformException {
+
+        List<Level> levels = getLevels(tiffFile);
+        Level image = levels.get(0);
+        double cellSizeX = wholeImageEnvelope.getWidth() / image.width;
+        double cellSizeY = wholeImageEnvelope.getHeight() / image.height;
+        if (requestedRes == null) {
+            requestedRes = new Resolution(cellSizeX, cellSizeY);
+        }
+        Level level = pickLevel(levels, wholeImageEnvelope, requestedRes);
+        int levelWidth = level.getWidth();
+        int levelHeight = level.getHeight();
+
+        Resolution subsetResolution = new Resolution(wholeImageEnvelope.getWidth() / levelWidth,
+                wholeImageEnvelope.getHeight() / levelHeight);
+        Rectangle imageSubset = RasterImageIO.getDrawingRectangle(levelWidth, levelHeight,
+                wholeImageEnvelope, viewportEnvelope, subsetResolution);
+        if (imageSubset != null) {
+            imageSubset = imageSubset.intersection(new Rectangle(0, 0, levelWidth, levelHeight));
+        }
+
+        BufferedImage bufferedImage = null;
+        Envelope imagePartEnvelope = null;
+        int actualImageWidth = 0;
+        int actualImageHeight = 0;
+        if (imageSubset != null && !imageSubset.isEmpty()) {
+            bufferedImage = read(level, imageSubset);
+            imagePartEnvelope = TiffUtilsV2.getImageSubsetEnvelope(wholeImageEnvelope,
+                    imageSubset, subsetResolution);
+            actualImageWidth = bufferedImage.getWidth();
+            actualImageHeight = bufferedImage.getHeight();
+        }
+        Metadata metadata = new Metadata(wholeImageEnvelope, imagePartEnvelope,
+                new Point(image.width, image.height), new Point(actualImageWidth, actualImageHeight),
+                (cellSizeX + cellSizeY) / 2, (subsetResolution.getX() + subsetResolution.getY()) / 2,
+                noData, stats);
+        return new ImageAndMetadata(bufferedImage, metadata);
+    }
+
+    /**
+     * Returns the coarsest image whose resolution is finer than the requested
+     * resolution, subsampled by the largest power of 2 keeping a resolution
+     * finer than the requested one.
+     */
+    static Level pickLevel(List<Level> levels, Envelope wholeImageEnvelope, Resolution requestedRes) {
+        Level picked = levels.get(0);
+        for (Level level : levels) {
+            if (level.width < picked.width &&
+                    wholeImageEnvelope.getWidth() / level.width <= requestedRes.getX() &&
+                    wholeImageEnvelope.getHeight() / level.height <= requestedRes.getY()) {
+                picked = level;
+            }
+        }
+        double ratio = Math.min(
+                requestedRes.getX() * picked.width / wholeImageEnvelope.getWidth(),
+                requestedRes.getY() * picked.height / wholeImageEnvelope.getHeight());
+        int subsampling = 1;
+        while (subsampling * 2 <= ratio &&
+                picked.width / (subsampling * 2) > 0 && picked.height / (subsampling * 2) > 0) {
+            subsampling *= 2;
+        }
+        return new Level(picked.file, picked.lastModified, picked.index,
+                picked.width, picked.height, subsampling);
+    }
+
+    /**
+     * Reads the rectangle (in pixels of level) from the cached tiles, reading
+     * the missing ones.
+     */
+    private static BufferedImage read(Level level, Rectangle rectangle) throws IOException {
+        int col0 = rectangle.x / TILE_SIZE;
+        int row0 = rectangle.y / TILE_SIZE;
+        int col1 = (rectangle.x + rectangle.width - 1) / TILE_SIZE;
+        int row1 = (rectangle.y + rectangle.height - 1) / TILE_SIZE;
+        BufferedImage result = null;
+        WritableRaster raster = null;
+        ImageReader reader = null;
+        ImageInputStream stream = null;
+        try {
+            for (int row = row0 ; row <= row1 ; row++) {
+                for (int col = col0 ; col <= col1 ; col++) {
+                    Key key = new Key(level, col, row);
+                    BufferedImage tile;
+                    synchronized (TILES) {
+                        tile = TILES.get(key);
+                    }
+                    if (tile == null) {
+                        if (reader == null) {
+                            stream = javax.imageio.ImageIO.createImageInputStream(level.file);
+                            reader = createReader(stream);
+                        }
+                        tile = readTile(reader, level, col, row);
+                        put(key, tile);
+                    }
+                    if (result == null) {
+                        if (rectangle.width == tile.getWidth() && rectangle.height == tile.getHeight() &&
+                                rectangle.x == col * TILE_SIZE && rectangle.y == row * TILE_SIZE) {
+                            return tile;
+                        }
+                        raster = tile.getRaster().createCompatibleWritableRaster(
+                                rectangle.width, rectangle.height);
+                        result = new BufferedImage(tile.getColorModel(), raster,
+                                tile.isAlphaPremultiplied(), null);
+                    }
+                    raster.setRect(col * TILE_SIZE - rectangle.x, row * TILE_SIZE - rectangle.y,
+                            tile.getRaster());
+                }
+            }
+        } finally {
+            if (reader != null) reader.dispose();
+            if (stream != null) stream.close();
+        }
+        return result;
+    }
+
+    private static BufferedImage readTile(ImageReader reader, Level level, int col, int row)
+            throws IOException {
+        int size = TILE_SIZE * level.subsampling;
+        int x = col * size;
+        int y = row * size;
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(x, y,
+                Math.min(size, level.width - x), Math.min(size, level.height - y)));
+        param.setSourceSubsampling(level.subsampling, level.subsampling, 0, 0);
+        return reader.read(level.index, param);
+    }
+
+    private static ImageReader createReader(ImageInputStream stream) throws IOException {
+        if (stream == null) {
+            throw new IOException("Can't open image input stream");
+        }
+        ImageReader reader = new it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReaderSpi()
+                .createReaderInstance();
+        reader.setInput(stream);
+        return reader;
+    }
+
+    private static void put(Key key, BufferedImage tile) {
+        synchronized (TILES) {
+            BufferedImage old = TILES.put(key, tile);
+            if (old != null) cacheSize -= getSize(old);
+            cacheSize += getSize(tile);
+            trim();
+        }
+    }
+
+    // Removes the least recently used tiles until the cache fits maxCacheSize
+    private static void trim() {
+        Iterator<BufferedImage> it = TILES.values().iterator();
+        while (cacheSize > maxCacheSize && it.hasNext()) {
+            cacheSize -= getSize(it.next());
+            it.remove();
+        }
+    }
+
+    private static long getSize(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() *
+                DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Returns the main image of tiffFile followed by its overviews.
+     * Overviews are the following images of the file (or of the .ovr file)
+     * which are smaller than the main image and have the same number of bands.
+     */
+    static List<Level> getLevels(File tiffFile) throws IOException {
+        List<Level> levels = LEVELS.get(tiffFile);
+        if (levels == null || levels.get(0).lastModified != tiffFile.lastModified()) {
+            levels = new ArrayList<>();
+            addLevels(tiffFile, levels);
+            if (levels.isEmpty()) {
+                throw new IOException("Can't read " + tiffFile);
+            }
+            File ovrFile = new File(tiffFile.getParent(), tiffFile.getName() + ".ovr");
+            if (ovrFile.exists()) {
+                try {
+                    addLevels(ovrFile, levels);
+                } catch (IOException e) {
+                    Logger.warn("Can't read overviews from " + ovrFile, e);
+                }
+            }
+            LEVELS.put(tiffFile, levels);
+        }
+        return levels;
+    }
+
+    private static void addLevels(File file, List<Level> levels) throws IOException {
+        ImageInputStream stream = javax.imageio.ImageIO.createImageInputStream(file);
+        ImageReader reader = createReader(stream);
+        try {
+            int bands = levels.isEmpty() ? -1 : levels.get(0).bands;
+            for (int i = 0 ; i < reader.getNumImages(true) ; i++) {
+                ImageTypeSpecifier type = reader.getRawImageType(i);
+                Level level = new Level(file, file.lastModified(), i,
+                        reader.getWidth(i), reader.getHeight(i), 1);
+                level.bands = type == null ? -1 : type.getNumBands();
+                if (levels.isEmpty()) {
+                    levels.add(level);
+                    bands = level.bands;
+                } else if (level.width < levels.get(0).width && level.height < levels.get(0).height &&
+                        level.bands == bands) {
+                    levels.add(level);
+                }
+            }
+        } finally {
+            reader.dispose();
+            stream.close();
+        }
+    }
+
+    /**
+     * An image of a file (main image or overview) read with a subsampling
+     * factor.
+     */
+    static class Level {
+        final File file;
+        final long lastModified;
+        final int index;
+        final int width;
+        final int height;
+        final int subsampling;
+        int bands = -1;
+
+        Level(File file, long lastModified, int index, int width, int height, int subsampling) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.index = index;
+            this.width = width;
+            this.height = height;
+            this.subsampling = subsampling;
+        }
+
+        /** @return the width in pixels of the subsampled image */
+        int getWidth() {
+            return (width + subsampling - 1) / subsampling;
+        }
+
+        /** @return the height in pixels of the subsampled image */
+        int getHeight() {
+            return (height + subsampling - 1) / subsampling;
+        }
+    }
+
+    private static class Key {
+        final File file;
+        final long lastModified;
+        final int index;
+        final int subsampling;
+        final int column;
+        final int row;
+
+        Key(Level level, int column, int row) {
+            this.file = level.file;
+            this.lastModified = level.lastModified;
+            this.index = level.index;
+            this.subsampling = level.subsampling;
+            this.column = column;
+            this.row = row;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return file.equals(other.file) && lastModified == other.lastModified &&
+                    index == other.index && subsampling == other.subsampling &&
+                    column == other.column && row == other.row;
+        }
+
+        public int hashCode() {
+            int result = file.hashCode();
+            result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = 31 * result + index;
+            result = 31 * result + subsampling;
+            result = 31 * result + column;
+            result = 31 * result + row;
+            return result;
+        }
+    }
+}
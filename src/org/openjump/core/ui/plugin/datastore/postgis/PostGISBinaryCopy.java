@@ -0,0 +1,237 @@
+package org.openjump.core.ui.plugin.datastore.postgis;
+
+import org.locationtech.jts.geom.Geometry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import com.vividsolutions.jump.datastore.SQLUtil;
+import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.feature.Feature;
+import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureSchema;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Writes features to a PostgreSQL table with COPY ... FROM STDIN WITH BINARY,
+ * geometries being sent as EWKB. This is much faster than batched INSERTs
+ * for large collections, but the binary representation of each value must
+ * match the exact type of its column : use {@link #isApplicable(Connection)}
+ * to check that the table columns have the types created by
+ * {@link com.vividsolutions.jump.datastore.postgis.PostgisDSMetadata}.
+ * <p>Set the postgis.copy.off system property to always use INSERTs.</p>
+ */
+public class PostGISBinaryCopy {
+
+    private static final byte[] SIGNATURE = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    // 2000-01-01T00:00:00Z, origin of PostgreSQL timestamps
+    private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FeatureSchema schema;
+    private final String schemaName;
+    private final String tableName;
+    // indexes of the attributes written, in the order of the columns
+    private final int[] attributes;
+    private final String[] columns;
+    private final String copyStatement;
+    // timestamptz columns receive UTC times, set by isApplicable
+    private final boolean[] utc;
+
+    /**
+     * @param schemaName unquoted schema name or null if default schema is used
+     * @param tableName unquoted table name
+     */
+    public PostGISBinaryCopy(FeatureSchema schema, String schemaName, String tableName,
+                             boolean normalizedColumnNames) {
+        this.schema = schema;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        // same attributes as in SaveToPostGISDataSource.insertStatement
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0 ; i < schema.getAttributeCount() ; i++) {
+            if (schema.getExternalPrimaryKeyIndex() == i || schema.isAttributeReadOnly(i)) continue;
+            indexes.add(i);
+        }
+        attributes = new int[indexes.size()];
+        columns = new String[indexes.size()];
+        utc = new boolean[indexes.size()];
+        StringBuilder sb = new StringBuilder("COPY ")
+                .append(SQLUtil.compose(schemaName, tableName)).append(" (");
+        for (int i = 0 ; i < attributes.length ; i++) {
+            attributes[i] = indexes.get(i);
+            columns[i] = normalizedColumnNames ?
+                    SQLUtil.normalize(schema.getAttributeName(attributes[i])) :
+                    schema.getAttributeName(attributes[i]);
+            if (i > 0) sb.append(", ");
+            sb.append("\"").append(columns[i]).append("\"");
+        }
+        copyStatement = sb.append(") FROM STDIN WITH BINARY").toString();
+    }
+
+    static boolean isEnabled() {
+        return System.getProperty("postgis.copy.off") == null;
+    }
+
+    /**
+     * Returns true if conn is a PostgreSQL connection and if all the columns
+     * written have the type expected for their attribute.
+     * Reads the database metadata only, so that a failure does not abort the
+     * current transaction.
+     */
+    boolean isApplicable(Connection conn) throws SQLException {
+        if (!isEnabled() || !conn.isWrapperFor(PGConnection.class)) {
+            return false;
+        }
+        String schema = schemaName;
+        if (schema == null) {
+            try (Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT current_schema()")) {
+                if (!rs.next()) return false;
+                schema = rs.getString(1);
+            }
+        }
+        Map<String,String> columnTypes = new HashMap<>();
+        DatabaseMetaData metadata = conn.getMetaData();
+        try (ResultSet rs = metadata.getColumns(null, schema, tableName, null)) {
+            while (rs.next()) {
+                // the names are patterns : '_' matches any character
+                if (schema.equals(rs.getString("TABLE_SCHEM")) &&
+                        tableName.equals(rs.getString("TABLE_NAME"))) {
+                    columnTypes.put(rs.getString("COLUMN_NAME"), rs.getString("TYPE_NAME"));
+                }
+            }
+        }
+        for (int i = 0 ; i < attributes.length ; i++) {
+            String columnType = columnTypes.get(columns[i]);
+            if (!isCompatible(this.schema.getAttributeType(attributes[i]), columnType)) {
+                return false;
+            }
+            utc[i] = "timestamptz".equals(columnType);
+        }
+        return true;
+    }
+
+    private static boolean isCompatible(AttributeType type, String columnType) {
+        if (columnType == null) return false;
+        if (type == AttributeType.GEOMETRY)     return columnType.equals("geometry");
+        else if (type == AttributeType.STRING)  return columnType.equals("varchar") || columnType.equals("text");
+        else if (type == AttributeType.INTEGER) return columnType.equals("int4");
+        else if (type == AttributeType.LONG)    return columnType.equals("int8");
+        else if (type == AttributeType.DOUBLE)  return columnType.equals("float8");
+        else if (type == AttributeType.DATE)    return columnType.equals("timestamp") || columnType.equals("timestamptz");
+        else if (type == AttributeType.BOOLEAN) return columnType.equals("bool");
+        else if (type == AttributeType.OBJECT)  return columnType.equals("bytea");
+        else return false;
+    }
+
+    /**
+     * Copies all the features of fc to the table, in the current transaction
+     * of conn. #isApplicable must have returned true before.
+     */
+    void copy(Connection conn, FeatureCollection fc, int srid, int dim,
+              SaveToPostGISDataSource.Progress progress) throws SQLException {
+        PGCopyOutputStream copy = new PGCopyOutputStream(
+                conn.unwrap(PGConnection.class), copyStatement, BUFFER_SIZE);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(copy, BUFFER_SIZE));
+            writeHeader(out);
+            int count = 0;
+            for (Iterator it = fc.iterator() ; it.hasNext() ; ) {
+                writeRow(out, (Feature)it.next(), srid, dim);
+                progress.report(++count);
+            }
+            writeTrailer(out);
+            out.flush();
+            copy.endCopy();
+        } catch (IOException e) {
+            throw new SQLException("Error executing query: " + copyStatement, e);
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Writes the header of the binary COPY format.
+     */
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+    }
+
+    /**
+     * Writes the end of the binary COPY format, after the last row.
+     */
+    public static void writeTrailer(DataOutputStream out) throws IOException {
+        out.writeShort(-1);
+    }
+
+    /**
+     * Writes a feature as a row of the binary COPY format : the number of
+     * columns, then the length (-1 for null) and the bytes of each value.
+     */
+    public void writeRow(DataOutputStream out, Feature feature, int srid, int dim)
+            throws IOException {
+        out.writeShort(attributes.length);
+        for (int k = 0 ; k < attributes.length ; k++) {
+            int i = attributes[k];
+            Object value = feature.getAttribute(i);
+            AttributeType type = schema.getAttributeType(i);
+            if (value == null) {
+                out.writeInt(-1);
+            } else if (type == AttributeType.GEOMETRY) {
+                writeBytes(out, SQLUtil.getByteArrayFromGeometry((Geometry) value, srid, dim));
+            } else if (type == AttributeType.STRING) {
+                writeBytes(out, feature.getString(i).getBytes(StandardCharsets.UTF_8));
+            } else if (type == AttributeType.INTEGER) {
+                out.writeInt(4);
+                out.writeInt(((Number) value).intValue());
+            } else if (type == AttributeType.LONG) {
+                out.writeInt(8);
+                out.writeLong(((Number) value).longValue());
+            } else if (type == AttributeType.DOUBLE) {
+                out.writeInt(8);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (type == AttributeType.BOOLEAN) {
+                out.writeInt(1);
+                out.writeByte((Boolean) value ? 1 : 0);
+            } else if (type == AttributeType.DATE) {
+                long millis = ((Date) value).getTime();
+                // timestamp without time zone columns store the local time,
+                // as PreparedStatement.setTimestamp does
+                if (!utc[k]) millis += TimeZone.getDefault().getOffset(millis);
+                out.writeInt(8);
+                out.writeLong((millis - POSTGRES_EPOCH_MILLIS) * 1000L);
+            } else if (type == AttributeType.OBJECT) {
+                writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+            } else {
+                throw new IllegalArgumentException("" + type + " is an unknown AttributeType !");
+            }
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
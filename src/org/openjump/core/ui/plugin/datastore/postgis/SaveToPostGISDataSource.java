@@ -175,7 +175,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
                             deleteTableQuery(conn, schemaName, tableName);
                         }
                         createAndPopulateTable(conn, featureCollection, schemaName,
-                                tableName, srid, "geometry", dim, normalizedColumnNames);
+                                tableName, srid, "geometry", dim, normalizedColumnNames, monitor);
                         if (createPrimaryKey) {
                             addDBPrimaryKey(conn, schemaName, tableName, DEFAULT_PK_NAME);
                         }
@@ -203,7 +203,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
                         }
                         truncateTable(conn, schemaName, tableName);
                         insertInTable(conn, featureCollection, schemaName, tableName, primary_key,
-                                srid, dim, normalizedColumnNames);
+                                srid, dim, normalizedColumnNames, monitor);
                         jdbcConn.commit();
                         jdbcConn.setAutoCommit(true);
                         if (featureSchema.getExternalPrimaryKeyIndex() > -1) {
@@ -226,7 +226,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
                             if (!confirmWriteDespiteDifferentSchemas()) return;
                         }
                         insertInTable(conn, featureCollection, schemaName, tableName, primary_key,
-                                srid, dim, normalizedColumnNames);
+                                srid, dim, normalizedColumnNames, monitor);
                         jdbcConn.commit();
                         jdbcConn.setAutoCommit(true);
                         if (featureSchema.getExternalPrimaryKeyIndex() > -1) {
@@ -356,7 +356,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
                 FeatureCollection fc, 
                 String schemaName, String tableName,
                 int srid, String geometryType, int dim,
-                boolean normalizeColumnNames) throws Exception {
+                boolean normalizeColumnNames, TaskMonitor monitor) throws Exception {
         FeatureSchema schema = fc.getFeatureSchema();
         String geometryColumn = schema.getAttributeName(schema.getGeometryIndex());
         SpatialDatabasesDSMetadata metadata = conn.getMetadata();
@@ -373,7 +373,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
         } catch (SQLException sqle) {
             throw new SQLException("Error executing query: " + metadata.getAddGeometryColumnStatement(schemaName, tableName, geometryColumn, srid, geometryType, dim), sqle);
         }
-        populateTable(conn, fc, schemaName, tableName, null, srid, dim, normalizeColumnNames);
+        insertInTable(conn, fc, schemaName, tableName, null, srid, dim, normalizeColumnNames, monitor);
         try {
             conn.getJdbcConnection().createStatement().execute(metadata.getAddSpatialIndexStatement(schemaName, tableName, geometryColumn));
         } catch (SQLException sqle) {
@@ -425,27 +425,20 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
         }
     }
     
-    private void populateTable(SpatialDatabasesDSConnection conn, FeatureCollection fc,
-        String dbSchema, String dbTable, String primaryKey, int srid, int dim, boolean normalizedColumnNames) throws SQLException {
-        PreparedStatement statement = insertStatement(conn, fc.getFeatureSchema(),
-                dbSchema, dbTable, primaryKey, srid, dim, normalizedColumnNames);
-        int count = 0;
-        for (Iterator it = fc.iterator() ; it.hasNext() ; ) {
-            Feature f = (Feature)it.next();
-            statement = setAttributeValues(statement, f, primaryKey, srid, dim);
-            statement.addBatch();
-            if (count++ % 10000 == 0) {
-                statement.executeBatch();
-                statement.clearBatch();
-            }
-        }
-        statement.executeBatch();
-        statement.clearBatch();
-    }
-    
+    /**
+     * Inserts all the features of fc, with COPY for PostgreSQL connections
+     * (see {@link PostGISBinaryCopy}), or else with batched INSERTs.
+     */
     private void insertInTable(SpatialDatabasesDSConnection conn, FeatureCollection fc,
             String schemaName, String tableName, String primaryKey,
-            int srid, int dim, boolean normalizeColumnNames) throws SQLException {
+            int srid, int dim, boolean normalizeColumnNames, TaskMonitor monitor) throws SQLException {
+        Progress progress = new Progress(monitor, fc.size());
+        PostGISBinaryCopy copy = new PostGISBinaryCopy(fc.getFeatureSchema(),
+                schemaName, tableName, normalizeColumnNames);
+        if (copy.isApplicable(conn.getJdbcConnection())) {
+            copy.copy(conn.getJdbcConnection(), fc, srid, dim, progress);
+            return;
+        }
         PreparedStatement statement = insertStatement(conn, fc.getFeatureSchema(),
                 schemaName, tableName, primaryKey, srid, dim, normalizeColumnNames);
         int count = 0;
@@ -457,6 +450,7 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
                 statement.executeBatch();
                 statement.clearBatch();
             }
+            progress.report(count);
         }
         statement.executeBatch();
         statement.clearBatch();
@@ -646,6 +640,32 @@ public class SaveToPostGISDataSource extends DataStoreQueryDataSource {
         }
     }
 
+    /**
+     * Reports the number of features written and the write rate to a
+     * TaskMonitor, about twice a second.
+     */
+    static class Progress {
+        private final TaskMonitor monitor;
+        private final int total;
+        private final long start = System.currentTimeMillis();
+        private long lastReport = start;
+
+        Progress(TaskMonitor monitor, int total) {
+            this.monitor = monitor;
+            this.total = total;
+        }
+
+        void report(int count) {
+            if (monitor == null || (count % 1000 != 0 && count != total)) return;
+            long now = System.currentTimeMillis();
+            if (now - lastReport < 500 && count != total) return;
+            lastReport = now;
+            monitor.report(I18N.getMessage(
+                    "org.openjump.core.ui.plugin.datastore.postgis.SaveToPostGISDataSource.features-written",
+                    count, total, count * 1000L / Math.max(1, now - start)));
+        }
+    }
+
     /**
      * Return 3 if coll contains at least one 3d geometry, 2 if coll contains
      * only 2d geometries and defaultDim if coll is empty.
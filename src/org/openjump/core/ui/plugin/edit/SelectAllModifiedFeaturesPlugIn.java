@@ -40,6 +40,7 @@ import java.util.List;
 
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.BasicFeature;
+import com.vividsolutions.jump.feature.ColumnarFeature;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
@@ -93,6 +94,10 @@ public class SelectAllModifiedFeaturesPlugIn extends AbstractPlugIn {
               && ((BasicFeature) feature).isModified()) {
             selectedFeatures.add(feature);
           }
+          if (feature instanceof ColumnarFeature
+              && ((ColumnarFeature) feature).isModified()) {
+            selectedFeatures.add(feature);
+          }
         }
       }
       if (selectedFeatures.size() > 0)
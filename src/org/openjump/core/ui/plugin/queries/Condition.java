@@ -6,19 +6,31 @@ import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.index.strtree.STRtree;
 import com.vividsolutions.jump.feature.Feature;
 import com.vividsolutions.jump.feature.FeatureCollection;
+import com.vividsolutions.jump.feature.FeatureSchema;
+import com.vividsolutions.jump.task.TaskMonitor;
 import com.vividsolutions.jump.util.FlexibleDateParser;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.plugin.PlugInContext;
 
-import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 /**
  * Condition
  * @author Michael MICHAUD
- * @version 0.4.0
+ * @version 0.5.0
+ * version 0.5.0 (2026-10-17)
+ *     the condition is compiled once into typed predicates (constants parsed,
+ *     functions and operators resolved, spatial indices built) and features
+ *     can be tested in parallel with select
  * version 0.4.0 (2016-10-26)
  *     big optimization for spatial queries
  * version 0.3.0 (2013-06-28)
@@ -27,14 +39,14 @@ import java.util.regex.Pattern;
  *     change TFFTFF*** to TFF*FF*** for the strictIntersection test
  * version 0.2.2 (2010-01-27)
  *     added Date management
- *     better null handling 
+ *     better null handling
  * version 0.2.1 (2007-08-10)
  * version 0.2   (2005-10-16)
- 
- 
- */ 
+
+
+ */
 public class Condition  {
-    
+
     private static final SimpleDateFormat[] DATE_PARSERS = new SimpleDateFormat[]{
         new SimpleDateFormat(),
         new SimpleDateFormat("dd/MM/yy"),
@@ -48,372 +60,460 @@ public class Condition  {
     };
 
     private static final FlexibleDateParser FLEXIBLE_DATE_PARSER = new FlexibleDateParser();
-    
-    private QueryDialog query;
-    private Function ft;
-    private Operator op;
-    private Pattern pattern;   // only used for match & find functions
-    private PlugInContext context;
-    private Map<String,STRtree> spatialIndices;
-    
-     public Condition(QueryDialog query, PlugInContext context) {
-        this.query = query;
-        this.ft=query.function;
-        this.op=query.operator;
-        if (op==Operator.MATC || op==Operator.FIND) {
-            if (query.caseSensitive.getState())
-                pattern = Pattern.compile((String)query.valueCB.getSelectedValue());
-            else 
-                pattern = Pattern.compile((String)query.valueCB.getSelectedValue(), Pattern.CASE_INSENSITIVE);
-        }
-        if (op.type == 'G') spatialIndices = new HashMap<>();
-        this.context = context;
+
+    // target collections larger than this are queried through a spatial index
+    private static final int INDEX_THRESHOLD = 256;
+
+    // number of features tested by a task in select
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final List<Operator> INDEXED_OPERATORS = Arrays.asList(
+            Operator.INTER, Operator.CONTA, Operator.WITHI, Operator.WSTRI,
+            Operator.WDIST, Operator.TOUCH, Operator.CROSS, Operator.OVERL,
+            Operator.INTIP, Operator.IPINT);
+
+    private final String description;
+    // tested attribute, null if the geometry is tested
+    private final String attribute;
+    // index of the attribute in the schema of the last feature tested
+    private volatile AttributeIndex attributeIndex;
+    private final Predicate<Object> attributeTest;
+    private final Predicate<Geometry> geometryTest;
+
+    /**
+     * Compiles the condition defined by the current state of the QueryDialog.
+     * The targets of spatial operators (selection or layers) are read at
+     * this time.
+     */
+    public Condition(QueryDialog query, PlugInContext context) {
+        this(query.attributeType == 'G' ? null : query.attribute,
+             query.function, query.operator,
+             String.valueOf(query.valueCB.getSelectedValue()),
+             query.valueCB.getSelectedIndex(),
+             query.caseSensitive.getState(),
+             query.operator.type == 'G' ? targets(query, context) : null);
     }
-    
-    public String toString() {
-        String att = query.attribute.trim().equals("")?"GEOMETRY":query.attribute;
+
+    /**
+     * Compiles a condition.
+     * @param attribute the tested attribute, or null to test the geometry
+     * @param ft the function applied to the attribute
+     * @param op the operator
+     * @param value the value compared to the result of the function
+     * @param valueIndex the index of the value in the value list of the
+     *                   QueryDialog (0 means true for boolean operators)
+     * @param caseSensitive true if string operators are case sensitive
+     * @param targets the geometries compared to the result of a geometric
+     *                function by spatial operators
+     */
+    public Condition(String attribute, Function ft, Operator op, String value,
+                     int valueIndex, boolean caseSensitive,
+                     List<? extends Collection<Geometry>> targets) {
         String func = ft.toString().trim().equals("")?"":"."+ft;
-        return "" + att + func + " " + op + " \"" +
-               query.valueCB.getSelectedValue() + "\"";
+        this.description = (attribute == null || attribute.trim().equals("") ? "GEOMETRY" : attribute) +
+                func + " " + op + " \"" + value + "\"";
+        this.attribute = attribute;
+        if (attribute == null) {
+            attributeTest = null;
+            geometryTest = geometryTest(ft, op, value, valueIndex, targets);
+        } else {
+            attributeTest = attributeTest(ft, op, value, valueIndex, caseSensitive);
+            geometryTest = null;
+        }
     }
-    
+
+    public String toString() {
+        return description;
+    }
+
     public boolean test(Feature feature) throws Exception {
-        Object o;
-        if(query.attributeType=='G') {
-            o = feature.getGeometry();
-            if(ft.type=='G') return test(gfunction((Geometry)o));
-            else if(ft.type=='N') return test(nfunction((Geometry)o));
-            else if(ft.type=='B') return test(bfunction((Geometry)o));
-            else return false;
+        if (attribute == null) {
+            return geometryTest.test(feature.getGeometry());
         }
-        else {
-            // attributes which does not exist for this feature must have
-            // been eliminated before the test procedure
-            // (see QueryDialog#executeQuery())
-            o = feature.getAttribute(query.attribute);
-            // [mmichaud 2010-01-25] added null case processing
-            if (ft == Function.ISNULL) return test(o==null);
-            if (o == null) {
-                // Here, we assume that the user consider "null" different from
-                // any user input in the value combobox except 
-                if (op == Operator.NE || op == Operator.BNE || op == Operator.DIFF) {
-                    if (query.valueCB.getSelectedValue().toString().trim().length()==0) {
-                        return false;
-                    }
-                    else return true;
-                }
-                if (op == Operator.EQ || op == Operator.BEQ || op == Operator.EQUA) {
-                    if (query.valueCB.getSelectedValue().toString().trim().length()==0) {
-                        return true;
-                    }
-                    else return false;
+        // attributes which does not exist for this feature must have
+        // been eliminated before the test procedure
+        // (see QueryDialog#executeQuery())
+        return attributeTest.test(feature.getAttribute(attributeIndex(feature.getSchema())));
+    }
+
+    /**
+     * Returns the features satisfying this condition, in their original order.
+     * Features are tested in chunks by at most parallelism threads.
+     * @param monitor a TaskMonitor to which the number of features tested is
+     *                reported and checked for cancellation, may be null
+     * @throws com.vividsolutions.jump.task.TaskCancelledException if the
+     *         monitor requested cancellation
+     * @throws Exception the first exception thrown while testing a feature
+     */
+    public List<Feature> select(Collection<Feature> features, int parallelism,
+                                final TaskMonitor monitor) throws Exception {
+        final Feature[] array = features.toArray(new Feature[0]);
+        final boolean[] selected = new boolean[array.length];
+        final AtomicInteger done = new AtomicInteger();
+        ParallelUtil.forEachChunk(array.length, CHUNK_SIZE, parallelism, monitor,
+            (start, end) -> {
+                for (int i = start ; i < end ; i++) {
+                    selected[i] = test(array[i]);
                 }
-                // Here, we assume that user would like to have
-                // true for name = "" if name = null
-                // true for name <> "A" if name = null
-                if(ft.type == 'S') return test(sfunction(""));
-                else if(ft.type == 'N') return test(nfunction(""));
-            }
-            if(o instanceof Boolean) return test(((Boolean)o).booleanValue());
-            else if(o instanceof Integer) return test(((Integer)o).doubleValue());
-            else if(o instanceof Long) return test(((Long)o).doubleValue());
-            else if(o instanceof Double) return test(((Double)o).doubleValue());
-            else if(o instanceof BigDecimal) return test(((BigDecimal)o).doubleValue());
-            else if(o instanceof Date) return test(dfunction((Date)o));
-            else if(o instanceof String && ft.type == 'S') return test(sfunction((String)o));
-            else if(o instanceof String && ft.type == 'N') return test(nfunction((String)o));
+                done.addAndGet(end - start);
+            },
+            () -> {
+                if (monitor != null) monitor.report(done.get(), array.length, null);
+            });
+        List<Feature> result = new ArrayList<>();
+        for (int i = 0 ; i < array.length ; i++) {
+            if (selected[i]) result.add(array[i]);
+        }
+        return result;
+    }
+
+    private int attributeIndex(FeatureSchema schema) {
+        AttributeIndex index = attributeIndex;
+        if (index == null || index.schema != schema) {
+            index = new AttributeIndex(schema, schema.getAttributeIndex(attribute));
+            attributeIndex = index;
+        }
+        return index.index;
+    }
+
+    private static class AttributeIndex {
+        final FeatureSchema schema;
+        final int index;
+        AttributeIndex(FeatureSchema schema, int index) {
+            this.schema = schema;
+            this.index = index;
+        }
+    }
+
+    //**************************************************************************
+    // compile attribute tests
+    //**************************************************************************
+
+    private static Predicate<Object> attributeTest(Function ft, Operator op, String value,
+                                                  int valueIndex, boolean caseSensitive) {
+        final Predicate<Boolean> booleanTest = booleanTest(op, valueIndex);
+        // [mmichaud 2010-01-25] added null case processing
+        if (ft == Function.ISNULL) return o -> booleanTest.test(o == null);
+        final DoublePredicate numericTest = numericTest(op, value);
+        final Predicate<Date> dateTest = dateTest(ft, op, value);
+        final Predicate<String> stringTest;
+        if (ft.type == 'S') {
+            final UnaryOperator<String> function = stringFunction(ft);
+            final Predicate<String> test = stringTest(op, value, caseSensitive);
+            stringTest = s -> test.test(function.apply(s));
+        } else if (ft == Function.LENG) {
+            stringTest = s -> numericTest.test(s.length());
+        } else {
+            stringTest = s -> false;
+        }
+        final boolean nullResult = nullResult(op, value, stringTest);
+        return o -> {
+            if (o == null) return nullResult;
+            else if (o instanceof Boolean) return booleanTest.test((Boolean)o);
+            else if (o instanceof Number) return numericTest.test(((Number)o).doubleValue());
+            else if (o instanceof Date) return dateTest.test((Date)o);
+            else if (o instanceof String) return stringTest.test((String)o);
             else return false;
+        };
+    }
+
+    private static boolean nullResult(Operator op, String value, Predicate<String> stringTest) {
+        // Here, we assume that the user consider "null" different from
+        // any user input in the value combobox except ""
+        boolean emptyValue = value.trim().length() == 0;
+        if (op == Operator.NE || op == Operator.BNE || op == Operator.DIFF) {
+            return !emptyValue;
+        }
+        if (op == Operator.EQ || op == Operator.BEQ || op == Operator.EQUA) {
+            return emptyValue;
+        }
+        // Here, we assume that user would like to have
+        // true for name = "" if name = null
+        // true for name <> "A" if name = null
+        try {
+            return stringTest.test("");
+        } catch (RuntimeException e) {
+            // e.g. substring of an empty string
+            return false;
         }
     }
-    
-    private boolean test(boolean b) throws Exception {
-        boolean value = query.valueCB.getSelectedIndex()==0;
-        if (b==value && op==Operator.BEQ) return true;
-        else if (b!=value && op==Operator.BNE) return true;
-        else return false;
+
+    private static Predicate<Boolean> booleanTest(Operator op, int valueIndex) {
+        final boolean value = valueIndex == 0;
+        if (op == Operator.BEQ) return b -> b == value;
+        else if (op == Operator.BNE) return b -> b != value;
+        else return b -> false;
     }
-    
-    private boolean test(double d) throws Exception {
-        double value = Double.parseDouble((String)query.valueCB.getSelectedValue());
-        if (op==Operator.EQ && d==value) return true;
-        else if (op==Operator.NE && d!=value) return true;
-        else if (op==Operator.LT && d<value) return true;
-        else if (op==Operator.GT && d>value) return true;
-        else if (op==Operator.LE && d<=value) return true;
-        else if (op==Operator.GE && d>=value) return true;
-        else return false;
+
+    private static DoublePredicate numericTest(Operator op, String s) {
+        final double value;
+        try {
+            value = Double.parseDouble(s);
+        } catch (final NumberFormatException e) {
+            // the error is reported only if a number has to be compared
+            return d -> {throw e;};
+        }
+        if (op == Operator.EQ) return d -> d == value;
+        else if (op == Operator.NE) return d -> d != value;
+        else if (op == Operator.LT) return d -> d < value;
+        else if (op == Operator.GT) return d -> d > value;
+        else if (op == Operator.LE) return d -> d <= value;
+        else if (op == Operator.GE) return d -> d >= value;
+        else return d -> false;
     }
-    
-    private boolean test(Date d) throws Exception {
-        Date value = null;
+
+    private static Predicate<Date> dateTest(Function ft, Operator op, String s) {
+        Date parsed = null;
         for (SimpleDateFormat sdf : DATE_PARSERS) {
-            try {value = sdf.parse((String)query.valueCB.getSelectedValue());}
+            try {parsed = ((SimpleDateFormat)sdf.clone()).parse(s);}
             catch(Exception e){}
-            if (value != null) break;
+            if (parsed != null) break;
         }
-        if (value == null) {
-            try {value = FLEXIBLE_DATE_PARSER.parse((String)query.valueCB.getSelectedValue(), true);}
+        if (parsed == null) {
+            try {parsed = FLEXIBLE_DATE_PARSER.parse(s, true);}
             catch(Exception e){}
         }
-        if (op==Operator.EQ && d==value) return true;
-        else if (op==Operator.NE && d!=value) return true;
-        else if (op==Operator.EQ && d.equals(value)) return true;
-        else if (op==Operator.NE && !d.equals(value)) return true;
-        else if (op==Operator.LT && d.before(value)) return true;
-        else if (op==Operator.GT && d.after(value)) return true;
-        else if (op==Operator.LE && (d.before(value) || d.equals(value))) return true;
-        else if (op==Operator.GE && (d.after(value) || d.equals(value))) return true;
-        else return false;
+        final Date value = parsed;
+        final UnaryOperator<Date> function = dateFunction(ft);
+        final Predicate<Date> test;
+        if (value == null) test = d -> op == Operator.NE;
+        else if (op == Operator.EQ) test = d -> d.equals(value);
+        else if (op == Operator.NE) test = d -> !d.equals(value);
+        else if (op == Operator.LT) test = d -> d.before(value);
+        else if (op == Operator.GT) test = d -> d.after(value);
+        else if (op == Operator.LE) test = d -> d.before(value) || d.equals(value);
+        else if (op == Operator.GE) test = d -> d.after(value) || d.equals(value);
+        else test = d -> false;
+        return d -> test.test(function.apply(d));
     }
-    
-    private boolean test(String s) throws Exception {
-        String value = (String)query.valueCB.getSelectedValue();
-        if (query.caseSensitive.getState()) {
-            if (op==Operator.EQUA) return s.equals(value);
-            else if (op==Operator.DIFF) return !s.equals(value);
-            else if (op==Operator.STAR) return s.startsWith(value);
-            else if (op==Operator.ENDS) return s.endsWith(value);
-            else if (op==Operator.MATC) return pattern.matcher(s).matches();
-            else if (op==Operator.FIND) return pattern.matcher(s).find();
-            else if (op==Operator.BEFO) return s.compareTo(value)<=0;
-            else if (op==Operator.AFTE) return s.compareTo(value)>=0;
-            else return false;
+
+    private static Predicate<String> stringTest(Operator op, final String value, boolean caseSensitive) {
+        // only used for match & find functions
+        final Pattern pattern;
+        if (op == Operator.MATC || op == Operator.FIND) {
+            pattern = caseSensitive ? Pattern.compile(value) :
+                    Pattern.compile(value, Pattern.CASE_INSENSITIVE);
+            if (op == Operator.MATC) return s -> pattern.matcher(s).matches();
+            else return s -> pattern.matcher(s).find();
+        }
+        if (caseSensitive) {
+            if (op == Operator.EQUA) return s -> s.equals(value);
+            else if (op == Operator.DIFF) return s -> !s.equals(value);
+            else if (op == Operator.STAR) return s -> s.startsWith(value);
+            else if (op == Operator.ENDS) return s -> s.endsWith(value);
+            else if (op == Operator.BEFO) return s -> s.compareTo(value) <= 0;
+            else if (op == Operator.AFTE) return s -> s.compareTo(value) >= 0;
+            else return s -> false;
         }
         else {
-            if (op==Operator.EQUA) return s.equalsIgnoreCase(value);
-            else if (op==Operator.DIFF) return !s.equalsIgnoreCase(value);
-            else if (op==Operator.STAR) return s.toUpperCase().startsWith(value.toUpperCase());
-            else if (op==Operator.ENDS) return s.toUpperCase().endsWith(value.toUpperCase());
-            else if (op==Operator.MATC) return pattern.matcher(s).matches();
-            else if (op==Operator.FIND) return pattern.matcher(s).find();
-            else if (op==Operator.BEFO) return s.compareToIgnoreCase(value)<=0;
-            else if (op==Operator.AFTE) return s.compareToIgnoreCase(value)>=0;
-            else return false;
+            final String upperValue = value.toUpperCase();
+            if (op == Operator.EQUA) return s -> s.equalsIgnoreCase(value);
+            else if (op == Operator.DIFF) return s -> !s.equalsIgnoreCase(value);
+            else if (op == Operator.STAR) return s -> s.toUpperCase().startsWith(upperValue);
+            else if (op == Operator.ENDS) return s -> s.toUpperCase().endsWith(upperValue);
+            else if (op == Operator.BEFO) return s -> s.compareToIgnoreCase(value) <= 0;
+            else if (op == Operator.AFTE) return s -> s.compareToIgnoreCase(value) >= 0;
+            else return s -> false;
         }
     }
-    
-    private boolean test(Geometry g) throws Exception {
-        int pos = query.valueCB.getSelectedIndex();
-        // Target Geometry is the selection
-        // System.out.println("position de la valeur selectionnee : " + pos);
-        // pos 1 = selected features case
-        if (pos == QueryDialog.SELECTION) {
-            // [mmichaud 2016] optimization with spatial index
-            Collection candidates = candidates(g, "$SELECTION", query.selection);
-            for (Iterator it = candidates.iterator() ; it.hasNext() ;) {
-                Geometry p = (Geometry)it.next();
-                if (op==Operator.INTER && g.intersects(p)) return true;
-                else if (op==Operator.CONTA && g.contains(p)) return true;
-                else if (op==Operator.WITHI && g.within(p)) return true;
-                else if (op==Operator.WSTRI && g.relate(p, "TFF*FF***")) return true;
-                else if (op==Operator.WDIST && g.distance(p) < Double.parseDouble(op.arg.toString())) return true;
-                else if (op==Operator.TOUCH && g.touches(p)) return true;
-                else if (op==Operator.CROSS && g.crosses(p)) return true;
-                else if (op==Operator.OVERL && g.overlaps(p)) return true;
-                //else if (op==Operator.DISJO && g.disjoint(p)) return true;
-                else if (op==Operator.RELAT && g.relate(p, op.arg.toString())) return true;
-                else if (op==Operator.INTIP && g.intersects(p.getInteriorPoint())) return true;
-                else if (op==Operator.IPINT && g.getInteriorPoint().intersects(p)) return true;
-                else;
-            }
-            return false;
+
+    //**************************************************************************
+    // compile geometry tests
+    //**************************************************************************
+
+    private static Predicate<Geometry> geometryTest(Function ft, Operator op, String value,
+                int valueIndex, List<? extends Collection<Geometry>> targets) {
+        if (ft.type == 'G') {
+            final UnaryOperator<Geometry> function = geometryFunction(ft);
+            final Predicate<Geometry> test = spatialTest(op, targets);
+            return g -> test.test(function.apply(g));
         }
-        // pos 2 = selected layers case
-        else if (pos == QueryDialog.SELECTED_LAYERS) {
-            Layer[] ll = context.getLayerNamePanel().getSelectedLayers();
-            for (int i = 0 ; i < ll.length ; i++) {
-                FeatureCollection fc = ll[i].getFeatureCollectionWrapper();
-                // [mmichaud 2016] optimization with spatial index
-                Collection candidates = candidates(g, ll[i].getName(), fc);
-                for (Iterator it = candidates.iterator() ; it.hasNext() ;) {
-                    Geometry p = ((Feature)it.next()).getGeometry();
-                    if (op==Operator.INTER && g.intersects(p)) return true;
-                    else if (op==Operator.CONTA && g.contains(p)) return true;
-                    else if (op==Operator.WITHI && g.within(p)) return true;
-                    else if (op==Operator.WSTRI && g.relate(p, "TFF*FF***")) return true;
-                    else if (op==Operator.WDIST && g.distance(p) < Double.parseDouble(op.arg.toString())) return true;
-                    else if (op==Operator.TOUCH && g.touches(p)) return true;
-                    else if (op==Operator.CROSS && g.crosses(p)) return true;
-                    else if (op==Operator.OVERL && g.overlaps(p)) return true;
-                    //else if (op==Operator.DISJO && g.disjoint(p)) return true;
-                    else if (op==Operator.RELAT && g.relate(p, op.arg.toString())) return true;
-                    else if (op==Operator.INTIP && g.intersects(p.getInteriorPoint())) return true;
-                    else if (op==Operator.IPINT && g.getInteriorPoint().intersects(p)) return true;
-                    else;
-                }
-                return false;
-            }
+        else if (ft.type == 'N') {
+            final ToDoubleFunction<Geometry> function = numericFunction(ft);
+            final DoublePredicate test = numericTest(op, value);
+            return g -> test.test(function.applyAsDouble(g));
         }
-        // pos 0 = all layers case
-        else if (pos == QueryDialog.ALL_LAYERS) {
-            List ll = context.getLayerManager().getLayers();
-            for (int i = 0 ; i < ll.size() ; i++) {
-                FeatureCollection fc = ((Layer)ll.get(i)).getFeatureCollectionWrapper();
-                // [mmichaud 2016] optimization with spatial index
-                Collection candidates = candidates(g, ((Layer)ll.get(i)).getName(), fc);
-                for (Iterator it = candidates.iterator() ; it.hasNext() ;) {
-                    Geometry p = ((Feature)it.next()).getGeometry();
-                    if (op==Operator.INTER && g.intersects(p)) return true;
-                    else if (op==Operator.CONTA && g.contains(p)) return true;
-                    else if (op==Operator.WITHI && g.within(p)) return true;
-                    else if (op==Operator.WSTRI && g.relate(p, "TFF*FF***")) return true;
-                    else if (op==Operator.WDIST && g.distance(p) < Double.parseDouble(op.arg.toString())) return true;
-                    else if (op==Operator.TOUCH && g.touches(p)) return true;
-                    else if (op==Operator.CROSS && g.crosses(p)) return true;
-                    else if (op==Operator.OVERL && g.overlaps(p)) return true;
-                    //else if (op==Operator.DISJO && g.disjoint(p)) return true;
-                    else if (op==Operator.RELAT && g.relate(p, op.arg.toString())) return true;
-                    else if (op==Operator.INTIP && g.intersects(p.getInteriorPoint())) return true;
-                    else if (op==Operator.IPINT && g.getInteriorPoint().intersects(p)) return true;
-                    else;
-                }
-                return false;
-            }
+        else if (ft.type == 'B') {
+            final Predicate<Geometry> function = booleanFunction(ft);
+            final Predicate<Boolean> test = booleanTest(op, valueIndex);
+            return g -> test.test(function.test(g));
         }
-        else {
-            Layer layer = context.getLayerManager().getLayer((String)query.valueCB.getSelectedValue());
-            FeatureCollection fc = layer.getFeatureCollectionWrapper();
-            // [mmichaud 2016] optimization with spatial index
-            Collection candidates = candidates(g, layer.getName(), fc);
-            for (Iterator it = candidates.iterator() ; it.hasNext() ;) {
-                Geometry p = ((Feature)it.next()).getGeometry();
-                if (op==Operator.INTER && g.intersects(p)) return true;
-                else if (op==Operator.CONTA && g.contains(p)) return true;
-                else if (op==Operator.WITHI && g.within(p)) return true;
-                else if (op==Operator.WSTRI && g.relate(p, "TFF*FF***")) return true;
-                else if (op==Operator.WDIST && g.distance(p) < Double.parseDouble(op.arg.toString())) return true;
-                else if (op==Operator.TOUCH && g.touches(p)) return true;
-                else if (op==Operator.CROSS && g.crosses(p)) return true;
-                else if (op==Operator.OVERL && g.overlaps(p)) return true;
-                //else if (op==Operator.DISJO && g.disjoint(p)) return true;
-                else if (op==Operator.RELAT && g.relate(p, op.arg.toString())) return true;
-                else if (op==Operator.INTIP && g.intersects(p.getInteriorPoint())) return true;
-                else if (op==Operator.IPINT && g.getInteriorPoint().intersects(p)) return true;
-                else;
+        else return g -> false;
+    }
+
+    private static Predicate<Geometry> spatialTest(Operator op,
+                List<? extends Collection<Geometry>> targets) {
+        final double distance = op == Operator.WDIST ? Double.parseDouble(op.arg.toString()) : 0.0;
+        final BiPredicate<Geometry,Geometry> relation = relation(op, distance);
+        final List<Target> compiledTargets = new ArrayList<>();
+        if (targets == null) targets = Collections.emptyList();
+        for (Collection<Geometry> geometries : targets) {
+            compiledTargets.add(new Target(geometries,
+                    geometries.size() > INDEX_THRESHOLD && INDEXED_OPERATORS.contains(op)));
+        }
+        return g -> {
+            Envelope envelope = new Envelope(g.getEnvelopeInternal());
+            envelope.expandBy(distance);
+            for (Target target : compiledTargets) {
+                for (Geometry p : target.candidates(envelope)) {
+                    if (relation.test(g, p)) return true;
+                }
             }
             return false;
-        }
-        return false;
+        };
     }
 
-    private STRtree createIndex(Collection geometries) {
-        STRtree index = new STRtree();
-        for (Object geometry : geometries) {
-            index.insert(((Geometry)geometry).getEnvelopeInternal(), geometry);
+    private static BiPredicate<Geometry,Geometry> relation(Operator op, final double distance) {
+        if (op == Operator.INTER) return Geometry::intersects;
+        else if (op == Operator.CONTA) return Geometry::contains;
+        else if (op == Operator.WITHI) return Geometry::within;
+        else if (op == Operator.WSTRI) return (g, p) -> g.relate(p, "TFF*FF***");
+        else if (op == Operator.WDIST) return (g, p) -> g.distance(p) < distance;
+        else if (op == Operator.TOUCH) return Geometry::touches;
+        else if (op == Operator.CROSS) return Geometry::crosses;
+        else if (op == Operator.OVERL) return Geometry::overlaps;
+        //else if (op == Operator.DISJO) return Geometry::disjoint;
+        else if (op == Operator.RELAT) {
+            final String pattern = op.arg.toString();
+            return (g, p) -> g.relate(p, pattern);
         }
-        return index;
+        else if (op == Operator.INTIP) return (g, p) -> g.intersects(p.getInteriorPoint());
+        else if (op == Operator.IPINT) return (g, p) -> g.getInteriorPoint().intersects(p);
+        else return (g, p) -> false;
     }
 
-    private STRtree createIndex(FeatureCollection fc) {
-        STRtree index = new STRtree();
-        for (Feature f : fc.getFeatures()) {
-            index.insert(f.getGeometry().getEnvelopeInternal(), f);
+    /**
+     * Geometries compared to the tested geometry by a spatial operator.
+     */
+    private static class Target {
+        final Collection<Geometry> geometries;
+        // [mmichaud 2016] optimization with spatial index
+        final STRtree index;
+        Target(Collection<Geometry> geometries, boolean indexed) {
+            this.geometries = geometries;
+            if (indexed) {
+                index = new STRtree();
+                for (Geometry geometry : geometries) {
+                    index.insert(geometry.getEnvelopeInternal(), geometry);
+                }
+                // queries from several threads are only safe on a built tree
+                index.build();
+            } else {
+                index = null;
+            }
+        }
+        @SuppressWarnings("unchecked")
+        Collection<Geometry> candidates(Envelope envelope) {
+            return index == null ? geometries : index.query(envelope);
         }
-        return index;
     }
 
-    private Collection candidates(Geometry g, String collectionName, Collection collection) {
-        if (collection.size() > 256 &&
-                Arrays.asList(Operator.INTER, Operator.CONTA, Operator.WITHI, Operator.WSTRI,
-                        Operator.WDIST, Operator.TOUCH, Operator.CROSS, Operator.OVERL,
-                        Operator.INTIP, Operator.IPINT).contains(op)) {
-            STRtree index = spatialIndices.get(collectionName);
-            if (index == null) {
-                index = createIndex(collection);
-                spatialIndices.put(collectionName, index);
+    /**
+     * Returns the geometries targeted by the spatial operator of the query.
+     */
+    private static List<Collection<Geometry>> targets(QueryDialog query, PlugInContext context) {
+        List<Collection<Geometry>> targets = new ArrayList<>();
+        int pos = query.valueCB.getSelectedIndex();
+        // Target Geometry is the selection
+        if (pos == QueryDialog.SELECTION) {
+            List<Geometry> geometries = new ArrayList<>();
+            if (query.selection != null) {
+                for (Object geometry : query.selection) geometries.add((Geometry)geometry);
             }
-            Envelope e = g.getEnvelopeInternal();
-            if (op == Operator.WDIST) e.expandBy(Double.parseDouble(op.arg.toString()));
-            return index.query(e);
-        } else {
-            return collection;
+            targets.add(geometries);
+        }
+        else if (pos == QueryDialog.SELECTED_LAYERS) {
+            for (Layer layer : context.getLayerNamePanel().getSelectedLayers()) {
+                targets.add(geometries(layer));
+            }
+        }
+        else if (pos == QueryDialog.ALL_LAYERS) {
+            for (Layer layer : context.getLayerManager().getLayers()) {
+                targets.add(geometries(layer));
+            }
+        }
+        else {
+            targets.add(geometries(context.getLayerManager()
+                    .getLayer((String)query.valueCB.getSelectedValue())));
         }
+        return targets;
     }
 
-    private Collection candidates(Geometry g, String collectionName, FeatureCollection collection) {
-        if (collection.size() > 256 &&
-                Arrays.asList(Operator.INTER, Operator.CONTA, Operator.WITHI, Operator.WSTRI,
-                        Operator.WDIST, Operator.TOUCH, Operator.CROSS, Operator.OVERL,
-                        Operator.INTIP, Operator.IPINT).contains(op)) {
-            STRtree index = spatialIndices.get(collectionName);
-            if (index == null) {
-                index = createIndex(collection);
-                spatialIndices.put(collectionName, index);
-            }
-            Envelope e = g.getEnvelopeInternal();
-            if (op == Operator.WDIST) e.expandBy(Double.parseDouble(op.arg.toString()));
-            return index.query(e);
-        } else {
-            return collection.getFeatures();
+    private static List<Geometry> geometries(Layer layer) {
+        FeatureCollection fc = layer.getFeatureCollectionWrapper();
+        List<Geometry> geometries = new ArrayList<>(fc.size());
+        for (Feature feature : fc.getFeatures()) {
+            if (feature.getGeometry() != null) geometries.add(feature.getGeometry());
         }
+        return geometries;
     }
-    
+
     //**************************************************************************
-    // apply functions
+    // compile functions
     //**************************************************************************
-    
-    private String sfunction(String s) {
-        if (ft==Function.SNOF) return s;
-        else if (ft==Function.TRIM) return s.trim();
+
+    private static UnaryOperator<String> stringFunction(Function ft) {
+        if (ft==Function.TRIM) return String::trim;
         else if (ft==Function.SUBS && ft.args.length==1) {
-            return s.substring(ft.args[0]);
+            final int begin = ft.args[0];
+            return s -> s.substring(begin);
         }
         else if (ft==Function.SUBS && ft.args.length==2) {
-            return s.substring(ft.args[0], ft.args[1]);
+            final int begin = ft.args[0];
+            final int end = ft.args[1];
+            return s -> s.substring(begin, end);
         }
-        else return s;
-    }
-    
-    private double nfunction(String s) {
-        if (ft==Function.LENG) return (double)s.length();
-        else return 0.0;
+        else return s -> s;
     }
-    
-    private Geometry gfunction(Geometry g) {
-        if (ft==Function.GNOF) return g;
-        else if (ft==Function.CENT) return g.getInteriorPoint();
-        else if (ft==Function.BUFF) return g.buffer(ft.arg);
-        else return g;
+
+    private static UnaryOperator<Geometry> geometryFunction(Function ft) {
+        if (ft==Function.CENT) return Geometry::getInteriorPoint;
+        else if (ft==Function.BUFF) {
+            final double distance = ft.arg;
+            return g -> g.buffer(distance);
+        }
+        else return g -> g;
     }
-    
-    private Date dfunction(Date d) {
-        if (ft==Function.DNOF) return d;
-        else if (ft==Function.DDAY || ft==Function.DYEA) {
-            Calendar cal = new GregorianCalendar();
-            cal.setTime(d);
-            Calendar rcal = new GregorianCalendar();
-            rcal.clear();
-            if (ft==Function.DDAY) {
-                rcal.set(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH));
-            }
-            else if (ft==Function.DYEA) {
-                rcal.set(Calendar.YEAR, cal.get(Calendar.YEAR));
-            }
-            return rcal.getTime();
+
+    private static UnaryOperator<Date> dateFunction(Function ft) {
+        if (ft==Function.DDAY || ft==Function.DYEA) {
+            final boolean day = ft==Function.DDAY;
+            return d -> {
+                Calendar cal = new GregorianCalendar();
+                cal.setTime(d);
+                Calendar rcal = new GregorianCalendar();
+                rcal.clear();
+                if (day) {
+                    rcal.set(cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DAY_OF_MONTH));
+                }
+                else {
+                    rcal.set(Calendar.YEAR, cal.get(Calendar.YEAR));
+                }
+                return rcal.getTime();
+            };
         }
-        else return d;
+        else return d -> d;
     }
-    
-    private double nfunction(Geometry g) {
-        //System.out.println("numeric function");
-        if (ft==Function.LENG) return g.getLength();
-        else if (ft==Function.AREA) return g.getArea();
-        else if (ft==Function.NBPT) return (double)g.getNumPoints();
+
+    private static ToDoubleFunction<Geometry> numericFunction(Function ft) {
+        if (ft==Function.LENG) return Geometry::getLength;
+        else if (ft==Function.AREA) return Geometry::getArea;
+        else if (ft==Function.NBPT) return Geometry::getNumPoints;
         else if (ft==Function.NBPA) {
-            if (g.isEmpty()) return 0;
-            else if (g instanceof GeometryCollection)
-                return ((GeometryCollection)g).getNumGeometries();
-            else return 1;
+            return g -> {
+                if (g.isEmpty()) return 0;
+                else if (g instanceof GeometryCollection) return g.getNumGeometries();
+                else return 1;
+            };
         }
-        else return 0.0;
+        else return g -> 0.0;
     }
-    
-    private boolean bfunction(Geometry g) {
-        //System.out.println("boolean function");
-        if (ft==Function.EMPT) return g.isEmpty();
-        else if (ft==Function.SIMP) return g.isSimple();
-        else if (ft==Function.VALI) return g.isValid();
-        else return false;
+
+    private static Predicate<Geometry> booleanFunction(Function ft) {
+        if (ft==Function.EMPT) return Geometry::isEmpty;
+        else if (ft==Function.SIMP) return Geometry::isSimple;
+        else if (ft==Function.VALI) return Geometry::isValid;
+        else return g -> false;
     }
 
 }
@@ -7,7 +7,11 @@ import buoy.event.WindowClosingEvent;
 import buoy.widget.*;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
+import com.vividsolutions.jump.task.DummyTaskMonitor;
+import com.vividsolutions.jump.task.TaskCancelledException;
+import com.vividsolutions.jump.task.TaskMonitor;
 import com.vividsolutions.jump.util.CollectionMap;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.model.*;
 import com.vividsolutions.jump.workbench.plugin.PlugInContext;
 import com.vividsolutions.jump.workbench.ui.*;
@@ -844,7 +848,13 @@ public class QueryDialog extends BDialog {
                 cancelQuery=false;
                 refreshButton.setEnabled(false);
                 
-                // New condition
+                // Set the selection used as target for geometric operations
+                // Bug fixed on 2007-08-10 : selection has index 1 (SELECTION), not 0
+                if (operator.type=='G' && valueCB.getSelectedIndex() == SELECTION) {
+                    selection = context.getLayerViewPanel().getSelectionManager().getSelectedItems();
+                }
+                
+                // New condition, compiled once for all the features
                 Condition condition = new Condition(queryDialog, context);
                 
                 comments.setText("<html>" +
@@ -877,12 +887,6 @@ public class QueryDialog extends BDialog {
                     }
                 }
                 
-                // Set the selection used as target for geometric operations
-                // Bug fixed on 2007-08-10 : selection has index 1 (SELECTION), not 0
-                if (operator.type=='G' && valueCB.getSelectedIndex() == SELECTION) {
-                    selection = context.getLayerViewPanel().getSelectionManager().getSelectedItems();
-                }
-                
                 // initialize the selection if the select option is true
                 if(select.getState()) {selectedFeatures.unselectItems();}
                 
@@ -925,30 +929,32 @@ public class QueryDialog extends BDialog {
                     
                     // initialize a new list for the new selection
                     List<Feature> okFeatures = new ArrayList<>();
-                    int mod = 1;
-                    if (total > 1000) mod = 10;
-                    if (total > 33000) mod = 100;
-                    if (total > 1000000) mod = 1000;
-                    try {
-                        for (Feature feature : features) {
-                            count++;
-                            if (count%mod==0) {
-                                progressBar.setProgressText(""+count+"/"+total);
-                                progressBar.setValue(count);
-                            }
-                            if (condition.test(feature)) {
-                                okFeatures.add(feature);
-                                featuresfound++;
-                            }
-                            Thread.yield();
-                            if (cancelQuery) break;
+                    final int layerStart = count;
+                    final int layerTotal = total;
+                    TaskMonitor monitor = new DummyTaskMonitor() {
+                        public void report(int done, int layerSize, String description) {
+                            progressBar.setProgressText(""+(layerStart+done)+"/"+layerTotal);
+                            progressBar.setValue(layerStart+done);
+                        }
+                        public boolean isCancelRequested() {
+                            return cancelQuery;
                         }
-                        progressBar.setProgressText(""+count+"/"+total);
-                        progressBar.setValue(count);
+                    };
+                    try {
+                        // features are tested in parallel chunks
+                        okFeatures = condition.select(features,
+                                ParallelUtil.getDefaultParallelism(), monitor);
+                        featuresfound += okFeatures.size();
+                    }
+                    catch(TaskCancelledException e) {
+                        // cancelQuery is true
                     }
                     catch(Exception e) {
                         context.getErrorHandler().handleThrowable(e);
                     }
+                    count += features.size();
+                    progressBar.setProgressText(""+count+"/"+total);
+                    progressBar.setValue(count);
                     if (cancelQuery) break;
                     
                     if (okFeatures.size()==0) continue;
@@ -62,7 +62,9 @@ import org.locationtech.jts.geom.GeometryFactory;
 
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
+import com.vividsolutions.jump.task.TaskCancelledException;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.util.StringUtil;
 import com.vividsolutions.jump.workbench.model.FeatureEventType;
 import com.vividsolutions.jump.workbench.model.Layer;
@@ -88,8 +90,9 @@ import bsh.Interpreter;
  * Creates a new layer, adding a (dynamic) attribute computed from a
  * beanshell expression.
  * @author Micha&euml;l Michaud
- * @version 0.4 (2016-02-19)
+ * @version 0.5 (2026-10-17)
  */
+ // 0.5 (2026-10-17) add parallel evaluation
  // 0.4 (2016-02-19) add long and boolean attribute types
  // 0.3 (2012-10-13) complete refactoring
  //      inclusion of dynamic capabilities in core openjump feature package
@@ -111,6 +114,8 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
     private static String COMPUTING_NEW_ATTRIBUTE = I18N.get(KEY + ".computing-new-attribute");
     private static String TOO_MANY_ERRORS         = I18N.get(KEY + ".too-many-errors");
     private static String DYNAMIC                 = I18N.get(KEY + ".dynamic");
+    private static String PARALLEL                = I18N.get(KEY + ".parallel-evaluation");
+    private static String PARALLEL_TOOLTIP        = I18N.get(KEY + ".parallel-evaluation-tooltip");
     private static String TEST_EXPRESSION         = I18N.get(KEY + ".test-expression");
     private static String SCRIPT_INIT_ERROR       = I18N.get(KEY + ".script-initialisation-error");
     private static String SCRIPT_EVAL_ERROR       = I18N.get(KEY + ".script-evaluation-error");
@@ -144,6 +149,7 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
     String bsh_expression = "\"Nb Pts = \" + GEOMETRY.getNumPoints()";
     AttributeType new_attribute_type = AttributeType.STRING;
     boolean dynamic;
+    boolean parallel;
     final Vector<String> keywords = new Vector<String>();
     
     public String getName() {
@@ -190,6 +196,16 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
         final JCheckBox jcb_dynamic = dialog.addCheckBox(
             DYNAMIC, false, DYNAMIC);
         
+        final JCheckBox jcb_parallel = dialog.addCheckBox(
+            PARALLEL, parallel, PARALLEL_TOOLTIP);
+        jcb_parallel.setEnabled(!jcb_dynamic.isSelected());
+        // dynamic attributes are evaluated as needed, feature by feature
+        jcb_dynamic.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                jcb_parallel.setEnabled(!jcb_dynamic.isSelected());
+            }
+        });
+        
         final JTextArea jta_bsh_expression = dialog.addTextAreaField(
             BSH_EXPRESSION, bsh_expression, 3, 50, true, null, BSH_EXPRESSION);
         
@@ -233,6 +249,7 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
             new_attribute_name = dialog.getText(NEW_ATTRIBUTE_NAME);
             new_attribute_type = (AttributeType)dialog.getComboBox(NEW_ATTRIBUTE_TYPE).getSelectedItem();
             dynamic = dialog.getBoolean(DYNAMIC);
+            parallel = dialog.getBoolean(PARALLEL);
             bsh_expression = dialog.getText(BSH_EXPRESSION);
             return true;
         }
@@ -260,11 +277,22 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
             dfs.setAttributeReadOnly(dfs.getAttributeCount()-1, true);
         }
         FeatureCollection result = new FeatureDataset(dfs);
-        int errors = 0;
-        EvalError evalError = null;
-        for (Iterator it = fc.iterator() ; it.hasNext() ; ) {
+        List<Feature> features = fc.getFeatures();
+        // in parallel mode, the script is parsed once per thread and
+        // features are evaluated in parallel chunks
+        Object[] values = null;
+        if (!dynamic && parallel) {
+            try {
+                values = operation.evaluate(features,
+                        ParallelUtil.getDefaultParallelism(), monitor);
+            } catch(TaskCancelledException e) {
+                return;
+            }
+        }
+        List<Feature> newFeatures = new ArrayList<Feature>(features.size());
+        for (int j = 0 ; j < features.size() ; j++) {
             try {
-                Feature oldFeature = (Feature)it.next();
+                Feature oldFeature = features.get(j);
                 Feature newFeature = new BasicFeature(dfs);
                 for (int i = 0 ; i < fs.getAttributeCount() ; i++) {
                     newFeature.setAttribute(fs.getAttributeName(i), oldFeature.getAttribute(i));
@@ -272,13 +300,15 @@ public class BeanshellAttributeCalculatorPlugIn extends ThreadedBasePlugIn
                 // values are added if the new attribue is not dynamic
                 // otherwise, values are evaluated as needed
                 if (!dynamic) newFeature.setAttribute(new_attribute_name, 
-                    operation.evaluate((BasicFeature)oldFeature));
-                result.add(newFeature);
+                    values != null ? values[j] : operation.evaluate((BasicFeature)oldFeature));
+                newFeatures.add(newFeature);
             } 
             catch(EvalError e) {
                 throw e;
             }
         }
+        // features are added at once
+        result.addAll(newFeatures);
         context.getLayerManager().addLayer(StandardCategoryNames.RESULT, 
                 layer.getName() + "_" + new_attribute_name, result);
     }
@@ -213,7 +213,7 @@ public class Dissolve2PlugIn extends AbstractThreadedUiPlugIn {
 
         monitor.allowCancellationRequests();
         monitor.report(getName());
-        FeatureCollection resultfc = fca.getAggregatedFeatureCollection();
+        FeatureCollection resultfc = fca.getAggregatedFeatureCollection(monitor);
         context.getLayerManager().addCategory(StandardCategoryNames.RESULT);
         String newLayerName = layer.getName() + "-grouped";
         context.addLayer(StandardCategoryNames.RESULT, newLayerName, resultfc);
@@ -4,10 +4,11 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.operation.linemerge.LineMerger;
-import org.locationtech.jts.operation.union.UnaryUnionOp;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.tools.UnionEngine;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
@@ -200,41 +201,46 @@ public class DissolvePlugIn extends AbstractThreadedUiPlugIn {
             newSchema = schema;
         }
 
-        // Order features by attribute value in a map
-        Map<List<Object>,FeatureCollection> map = new HashMap<List<Object>,FeatureCollection>();
+        // Order geometries by attribute value in a map
+        // Eliminate invalid geometries and warn the user
+        Map<List<Object>,List<Geometry>> map = new LinkedHashMap<List<Object>,List<Geometry>>();
         monitor.report(I18N.get("ui.plugin.analysis.DissolvePlugIn"));
         for (Iterator i = inputFC.iterator() ; i.hasNext() ; ) {
             Feature f = (Feature)i.next();
             List<Object> key = computeKeyFromAttributes(f, attributes);
-            if (!map.containsKey(key)) {
-                FeatureCollection fd = new FeatureDataset(inputFC.getFeatureSchema());
-                fd.add(f);
-                map.put(key, fd);
+            List<Geometry> geometries = map.get(key);
+            if (geometries == null) {
+                geometries = new ArrayList<Geometry>();
+                map.put(key, geometries);
             }
-            else {
-                (map.get(key)).add(f);
+            Geometry g = f.getGeometry();
+            if (!g.isValid()) {
+                context.getWorkbenchFrame().warnUser(
+                        I18N.get("ui.plugin.analysis.DissolvePlugIn.invalid-geometry-excluded"));
+                continue;
+            }
+            for (int j = 0 ; j < g.getNumGeometries() ; j++) {
+                geometries.add(g.getGeometryN(j));
             }
         }
 
-        // Computing the result
-        int count = 1;
-        FeatureCollection resultfc = new FeatureDataset(newSchema);
-        for (Iterator<List<Object>> it = map.keySet().iterator() ; it.hasNext() ; ) {
-            monitor.report(I18N.get("ui.plugin.analysis.DissolvePlugIn.computing-union") + " (" + count++ + "/" + map.size() + ")");
-            List<Object> key = it.next();
-            FeatureCollection fca = map.get(key);
-            if (fca.size() > 0) {
-                List<Geometry> geometries = union(context, monitor, fca);
-                for (Geometry geom : geometries) {
-                    Feature newFeature = new BasicFeature(newSchema);
-                    newFeature.setGeometry(geom);
-                    for (int i = 0 ; i < attributes.size() ; i++) {
-                        newFeature.setAttribute(attributes.get(i), key.get(i));
+        // Computing the result : groups are unioned in parallel, and added to
+        // the result as soon as they are complete
+        final FeatureCollection resultfc = new FeatureDataset(newSchema);
+        UnionEngine.union(map, ParallelUtil.getDefaultParallelism(), monitor,
+                I18N.get("ui.plugin.analysis.DissolvePlugIn.computing-union"),
+                (key, unioned) -> {
+                    if (unioned == null) return;
+                    for (Geometry geom : postProcess(unioned)) {
+                        Feature newFeature = new BasicFeature(newSchema);
+                        newFeature.setGeometry(geom);
+                        for (int i = 0 ; i < attributes.size() ; i++) {
+                            newFeature.setAttribute(attributes.get(i), key.get(i));
+                        }
+                        resultfc.add(newFeature);
                     }
-                    resultfc.add(newFeature);
-                }
-            }
-        }
+                });
+        if (monitor.isCancelRequested()) return;
         context.getLayerManager().addCategory(StandardCategoryNames.RESULT);
         String newLayerName = layer.getName() + "-dissolve";
         context.addLayer(StandardCategoryNames.RESULT, newLayerName, resultfc);
@@ -249,27 +255,10 @@ public class DissolvePlugIn extends AbstractThreadedUiPlugIn {
     }
 
     /**
-     * New method for union. Uses new UnaryUnionOp which is much more
-     * efficient than Geometry.union() for large datasets.
+     * Post-processes the union of a group, computed by {@link UnionEngine}.
      */
-    private List<Geometry> union(PlugInContext context, TaskMonitor monitor, FeatureCollection fc) {
-        // Eliminate invalid geometries and log their fid
+    private List<Geometry> postProcess(Geometry unioned) {
         List<Geometry> geometries  = new ArrayList<Geometry>();
-        for (Iterator it = fc.iterator() ; it.hasNext() ; ) {
-            Feature f = (Feature) it.next();
-            Geometry g = f.getGeometry();
-            if (!g.isValid()) {
-                context.getWorkbenchFrame().warnUser(
-                        I18N.get("ui.plugin.analysis.DissolvePlugIn.invalid-geometry-excluded"));
-                continue;
-            }
-            else {
-                for (int i = 0 ; i < g.getNumGeometries() ; i++) {
-                    geometries.add(g.getGeometryN(i));
-                }
-            }
-        }
-        Geometry unioned = UnaryUnionOp.union(geometries);
         // Post process linestring if merged is wanted
         if (merge_linestrings) {
             geometries.clear();
@@ -7,10 +7,11 @@ import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.util.LineStringExtracter;
 import org.locationtech.jts.geom.util.PointExtracter;
 import org.locationtech.jts.geom.util.PolygonExtracter;
-import org.locationtech.jts.index.strtree.STRtree;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.tools.IndexedJoin;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
@@ -150,42 +151,34 @@ public class EraseLayerAWithLayerBPlugIn extends AbstractThreadedUiPlugIn {
     public void run(TaskMonitor monitor, PlugInContext context) throws Exception {
         monitor.allowCancellationRequests();
 
-        // index layerB
-        STRtree index = new STRtree();
-        for (Object o : layerB.getFeatureCollectionWrapper().getFeatures()) {
-            Geometry g = ((Feature)o).getGeometry();
-            index.insert(g.getEnvelopeInternal(), g);
-        }
-
-        EditTransaction transaction = new EditTransaction(new LinkedHashSet<Feature>(),
-                "Erase A With B", layerA, true, true, context.getLayerViewPanel().getContext());
-
-        Collection<Feature> result = processCollection(
-                monitor,
-                layerA.getFeatureCollectionWrapper().getFeatures(),
-                index,
-                transaction);
+        List<Feature> featuresA = layerA.getFeatureCollectionWrapper().getFeatures();
+        List<Geometry> erased = processCollection(monitor, featuresA,
+                layerB.getFeatureCollectionWrapper().getFeatures());
+        if (monitor.isCancelRequested()) return;
 
         if (updateMode) {
+            EditTransaction transaction = new EditTransaction(new LinkedHashSet<Feature>(),
+                    "Erase A With B", layerA, true, true, context.getLayerViewPanel().getContext());
+            for (int i = 0 ; i < featuresA.size() ; i++) {
+                Feature fSrc = featuresA.get(i);
+                Geometry resultGeom = erased.get(i);
+                if (resultGeom == null) continue;
+                if (resultGeom.isEmpty()) {
+                    transaction.deleteFeature(fSrc);
+                } else if (!fSrc.getGeometry().equals(resultGeom)) {
+                    transaction.modifyFeatureGeometry(fSrc, resultGeom);
+                }
+            }
             transaction.commit();
         } else {
             // Clone layerA
             FeatureCollection result1 = new FeatureDataset(layerA.getFeatureCollectionWrapper().getFeatureSchema());
-            for (Object o : layerA.getFeatureCollectionWrapper().getFeatures()) {
-                Feature newFeature = ((Feature)o).clone(false, true);
-                newFeature.setGeometry(getHomogeneousGeometry(newFeature.getGeometry()));
+            for (int i = 0 ; i < featuresA.size() ; i++) {
+                if (erased.get(i) == null) continue;
+                Feature newFeature = featuresA.get(i).clone(false, true);
+                newFeature.setGeometry(erased.get(i));
                 result1.add(newFeature);
             }
-            for (Object o : result1.getFeatures()) {
-                Feature feature = (Feature)o;
-                List<Geometry> candidates = index.query(feature.getGeometry().getEnvelopeInternal());
-                for (Geometry b : candidates) {
-                    feature.setGeometry(getHomogeneousGeometry(erase(
-                            feature.getGeometry(),
-                            getHomogeneousGeometry(b)
-                    )));
-                }
-            }
             FeatureCollection result2 = new FeatureDataset(result1.getFeatureSchema());
             for (Object o : result1.getFeatures()) {
                 Geometry geometry = ((Feature)o).getGeometry();
@@ -303,39 +296,25 @@ public class EraseLayerAWithLayerBPlugIn extends AbstractThreadedUiPlugIn {
         */
     }
 
-    private Collection<Feature> processCollection(
+    /**
+     * Erases the features of fcB from each feature of fcA, in parallel.
+     * @return the erased geometries, in the order of fcA (null for features
+     * without geometry)
+     */
+    private List<Geometry> processCollection(
             TaskMonitor monitor,
             Collection<Feature> fcA,
-            STRtree index,
-            EditTransaction transaction) {
-        Collection<Feature> resultColl = new ArrayList<>();
-        int total = fcA.size();
-        int count = 0;
-        for (Feature fSrc : fcA) {
-            monitor.report(count++, total, sFeatures);
-            if (monitor.isCancelRequested()) return null;
-
+            Collection<Feature> fcB) throws Exception {
+        return IndexedJoin.join(fcA, fcB, (fSrc, candidates) -> {
             Geometry gSrc = fSrc.getGeometry();
-            if (gSrc == null) continue;
+            if (gSrc == null) return null;
 
-            List<Geometry> candidates = index.query(fSrc.getGeometry().getEnvelopeInternal());
-            Geometry resultGeom = getHomogeneousGeometry(fSrc.getGeometry());
-            for (Geometry b : candidates) {
-                resultGeom = getHomogeneousGeometry(erase(resultGeom,getHomogeneousGeometry(b)));
-            }
-            if (resultGeom.isEmpty() && updateMode) {
-                transaction.deleteFeature(fSrc);
+            Geometry resultGeom = getHomogeneousGeometry(gSrc);
+            for (Feature b : candidates) {
+                resultGeom = getHomogeneousGeometry(erase(resultGeom,getHomogeneousGeometry(b.getGeometry())));
             }
-            else {
-                if (updateMode && !fSrc.getGeometry().equals(resultGeom)) {
-                    transaction.modifyFeatureGeometry(fSrc, resultGeom);
-                } else {
-                    resultColl.add(fSrc);
-                }
-            }
-        }
-
-        return resultColl;
+            return resultGeom;
+        }, ParallelUtil.getDefaultParallelism(), monitor, sFeatures);
     }
 
 
@@ -34,10 +34,11 @@ package org.openjump.core.ui.plugin.tools;
 
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.operation.linemerge.LineMerger;
-import org.locationtech.jts.operation.union.UnaryUnionOp;
 import com.vividsolutions.jump.I18N;
 import com.vividsolutions.jump.feature.*;
 import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.tools.UnionEngine;
+import com.vividsolutions.jump.util.ParallelUtil;
 import com.vividsolutions.jump.workbench.WorkbenchContext;
 import com.vividsolutions.jump.workbench.model.Layer;
 import com.vividsolutions.jump.workbench.model.StandardCategoryNames;
@@ -285,8 +286,9 @@ public class UnionByAttributePlugIn extends AbstractThreadedUiPlugIn {
             }
         }
         
-        // Order features by attribute value in a map
-        Map map = new HashMap();
+        // Order features and their valid geometries by attribute value in maps
+        final Map<Object,FeatureCollection> map = new LinkedHashMap<Object,FeatureCollection>();
+        Map<Object,List<Geometry>> geometryMap = new LinkedHashMap<Object,List<Geometry>>();
         monitor.report(I18N.get("ui.plugin.analysis.UnionByAttributePlugIn"));
         for (Iterator i = inputFC.iterator() ; i.hasNext() ; ) {
             Feature f = (Feature)i.next();
@@ -295,24 +297,27 @@ public class UnionByAttributePlugIn extends AbstractThreadedUiPlugIn {
                 continue;
             }
             else if (!map.containsKey(key)) {
-                FeatureCollection fd = new FeatureDataset(inputFC.getFeatureSchema());
-                fd.add(f);
-                map.put(key, fd);
+                map.put(key, new FeatureDataset(inputFC.getFeatureSchema()));
+                geometryMap.put(key, new ArrayList<Geometry>());
             }
-            else {
-                ((FeatureCollection)map.get(key)).add(f);
+            map.get(key).add(f);
+            // Eliminate invalid geometries and log their fid
+            if (!f.getGeometry().isValid()) {
+                context.getWorkbenchFrame().warnUser(
+                    I18N.get("ui.plugin.analysis.UnionByAttributePlugIn.invalid-geometry-excluded"));
+                context.getOutputFrame().addText(
+                    I18N.getMessage("ui.plugin.analysis.UnionByAttributePlugIn.exclusion", new Object[]{f.getID()}));
             }
+            else geometryMap.get(key).add(f.getGeometry());
         }
         
-        // Computing the result
-        int count = 1;
-        FeatureCollection resultfc = new FeatureDataset(newSchema);
-        for (Iterator i = map.keySet().iterator() ; i.hasNext() ; ) {
-            monitor.report(I18N.get("ui.plugin.analysis.UnionByAttributePlugIn.computing-union") + " (" + count++ + "/" + map.size() + ")");
-            Object key = i.next();
-            FeatureCollection fca = (FeatureCollection)map.get(key);
-            if (fca.size() > 0) {
-                Feature feature = union(context, monitor, fca);
+        // Computing the result : groups are unioned in parallel, and added to
+        // the result as soon as they are complete
+        final FeatureCollection resultfc = new FeatureDataset(newSchema);
+        UnionEngine.union(geometryMap, ParallelUtil.getDefaultParallelism(), monitor,
+            I18N.get("ui.plugin.analysis.UnionByAttributePlugIn.computing-union"),
+            (key, unioned) -> {
+                Feature feature = createFeature(context, map.remove(key), unioned);
                 if (use_attribute) feature.setAttribute(attribute, key);
                 Feature newFeature = new BasicFeature(newSchema);
                 // Copy feature attributes in newFeature
@@ -320,8 +325,8 @@ public class UnionByAttributePlugIn extends AbstractThreadedUiPlugIn {
                     newFeature.setAttribute(j, feature.getAttribute(newSchema.getAttributeName(j)));
                 }
                 resultfc.add(newFeature);
-            }
-        }
+            });
+        if (monitor.isCancelRequested()) return;
         context.getLayerManager().addCategory(StandardCategoryNames.RESULT);
         String newLayerName = layer.getName() +
             (use_attribute ? ("-" + attribute + " (dissolve)") : " (union)");
@@ -332,28 +337,13 @@ public class UnionByAttributePlugIn extends AbstractThreadedUiPlugIn {
     }
     
    /**
-    * New method for union. Uses new UnaryUnionOp which is much more
-    * efficient than Geometry.union() for large datasets.
+    * Creates the feature of a group of features fc from the union of their
+    * valid geometries computed by {@link UnionEngine} (null if none is valid).
     */
-    private Feature union(PlugInContext context, TaskMonitor monitor, FeatureCollection fc) {
-        // Eliminate invalid geomeries and log their fid
+    private Feature createFeature(PlugInContext context, FeatureCollection fc, Geometry unioned) {
         Collection geometries  = new ArrayList();
-        for (Iterator it = fc.iterator() ; it.hasNext() ; ) {
-            Feature f = (Feature) it.next();
-            Geometry g = f.getGeometry();
-            if (!g.isValid()) {
-                context.getWorkbenchFrame().warnUser(
-                    I18N.get("ui.plugin.analysis.UnionByAttributePlugIn.invalid-geometry-excluded"));
-                context.getOutputFrame().addText(
-                    I18N.getMessage("ui.plugin.analysis.UnionByAttributePlugIn.exclusion", new Object[]{f.getID()}));
-                continue;
-            }
-            else geometries.add(g);
-        }
-        Geometry unioned = UnaryUnionOp.union(geometries);
         // Post process linestring if merged is wanted
-        if (merge_linestrings) {
-            geometries.clear();
+        if (unioned != null && merge_linestrings) {
             List points      = new ArrayList();
             List lineStrings = new ArrayList();
             List polygons    = new ArrayList();
@@ -367,7 +357,7 @@ public class UnionByAttributePlugIn extends AbstractThreadedUiPlugIn {
         }
         FeatureSchema schema = fc.getFeatureSchema();
         Feature feature = new BasicFeature(schema);
-        if (geometries.size()==0) {
+        if (unioned == null) {
             feature.setGeometry(factory.createGeometryCollection(new Geometry[]{}));
         }
         else {
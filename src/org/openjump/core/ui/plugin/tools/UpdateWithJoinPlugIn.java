@@ -199,48 +199,52 @@ public class UpdateWithJoinPlugIn extends AbstractThreadedUiPlugIn {
             UndoableCommand command =
                     new UndoableCommand(I18N.get(AutoAssignAttributePlugIn.class.getName())) {
                         public void execute() {
-                            for (Feature f : referenceLayer.getFeatureCollectionWrapper().getFeatures()) {
-                                Feature newFeature = newFeatures.get(f.getID());
-                                if (newFeature != null) {
-                                    f.setAttributes(newFeature.getAttributes());
+                            referenceLayer.getLayerManager().batchFeatureEvents(() -> {
+                                for (Feature f : referenceLayer.getFeatureCollectionWrapper().getFeatures()) {
+                                    Feature newFeature = newFeatures.get(f.getID());
+                                    if (newFeature != null) {
+                                        f.setAttributes(newFeature.getAttributes());
+                                    }
                                 }
-                            }
-                            for (Feature f : removed) {
-                                referenceLayer.getFeatureCollectionWrapper().remove(f);
-                            }
-                            for (Feature f : added) {
-                                referenceLayer.getFeatureCollectionWrapper().add(f);
-                            }
-                            referenceLayer.getLayerManager().fireFeaturesAttChanged(newFeatures.values(),
-                                    FeatureEventType.ATTRIBUTES_MODIFIED, referenceLayer, oldFeatures.values());
-                            referenceLayer.getLayerManager().fireGeometryModified(newFeatures.values(),
-                                    referenceLayer, oldFeatures.values());
-                            referenceLayer.getLayerManager().fireFeaturesChanged(added,
-                                    FeatureEventType.ADDED, referenceLayer);
-                            referenceLayer.getLayerManager().fireFeaturesChanged(removed,
-                                    FeatureEventType.DELETED, referenceLayer);
+                                for (Feature f : removed) {
+                                    referenceLayer.getFeatureCollectionWrapper().remove(f);
+                                }
+                                for (Feature f : added) {
+                                    referenceLayer.getFeatureCollectionWrapper().add(f);
+                                }
+                                referenceLayer.getLayerManager().fireFeaturesAttChanged(newFeatures.values(),
+                                        FeatureEventType.ATTRIBUTES_MODIFIED, referenceLayer, oldFeatures.values());
+                                referenceLayer.getLayerManager().fireGeometryModified(newFeatures.values(),
+                                        referenceLayer, oldFeatures.values());
+                                referenceLayer.getLayerManager().fireFeaturesChanged(added,
+                                        FeatureEventType.ADDED, referenceLayer);
+                                referenceLayer.getLayerManager().fireFeaturesChanged(removed,
+                                        FeatureEventType.DELETED, referenceLayer);
+                            });
                         }
                         public void unexecute() {
-                            for (Feature f : referenceLayer.getFeatureCollectionWrapper().getFeatures()) {
-                                Feature oldFeature = oldFeatures.get(f.getID());
-                                if (oldFeature != null) {
-                                    f.setAttributes(oldFeature.getAttributes());
+                            referenceLayer.getLayerManager().batchFeatureEvents(() -> {
+                                for (Feature f : referenceLayer.getFeatureCollectionWrapper().getFeatures()) {
+                                    Feature oldFeature = oldFeatures.get(f.getID());
+                                    if (oldFeature != null) {
+                                        f.setAttributes(oldFeature.getAttributes());
+                                    }
+                                }
+                                for (Feature f : removed) {
+                                    referenceLayer.getFeatureCollectionWrapper().add(f);
+                                }
+                                for (Feature f : added) {
+                                    referenceLayer.getFeatureCollectionWrapper().remove(f);
                                 }
-                            }
-                            for (Feature f : removed) {
-                                referenceLayer.getFeatureCollectionWrapper().add(f);
-                            }
-                            for (Feature f : added) {
-                                referenceLayer.getFeatureCollectionWrapper().remove(f);
-                            }
-                            referenceLayer.getLayerManager().fireFeaturesAttChanged(oldFeatures.values(),
-                                    FeatureEventType.ATTRIBUTES_MODIFIED, referenceLayer, newFeatures.values());
-                            referenceLayer.getLayerManager().fireGeometryModified(oldFeatures.values(),
-                                    referenceLayer, newFeatures.values());
-                            referenceLayer.getLayerManager().fireFeaturesChanged(removed,
-                                    FeatureEventType.ADDED, referenceLayer);
-                            referenceLayer.getLayerManager().fireFeaturesChanged(added,
-                                    FeatureEventType.DELETED, referenceLayer);
+                                referenceLayer.getLayerManager().fireFeaturesAttChanged(oldFeatures.values(),
+                                        FeatureEventType.ATTRIBUTES_MODIFIED, referenceLayer, newFeatures.values());
+                                referenceLayer.getLayerManager().fireGeometryModified(oldFeatures.values(),
+                                        referenceLayer, newFeatures.values());
+                                referenceLayer.getLayerManager().fireFeaturesChanged(removed,
+                                        FeatureEventType.ADDED, referenceLayer);
+                                referenceLayer.getLayerManager().fireFeaturesChanged(added,
+                                        FeatureEventType.DELETED, referenceLayer);
+                            });
                         }
                     };
             command.execute();
@@ -4,8 +4,8 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.operation.linemerge.LineMerger;
-import org.locationtech.jts.operation.union.UnaryUnionOp;
 import com.vividsolutions.jump.feature.AttributeType;
+import com.vividsolutions.jump.tools.UnionEngine;
 
 import java.util.*;
 
@@ -167,12 +167,19 @@ public class Aggregators {
     }
 
     public static class Union extends AbstractAggregator<Geometry> {
+        private int parallelism = 1;
         public Union() {
             super(AttributeType.GEOMETRY, true);
         }
         @Override public Union clone() {
             return new Union();
         }
+        /**
+         * Sets the number of threads used to union the polygons (default 1).
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
         @Override public Geometry getResult() {
             GeometryFactory gf = getValues().size() == 0 ? new GeometryFactory() : getValues().get(0).getFactory();
             Geometry collected = gf.buildGeometry(getValues());
@@ -186,7 +193,7 @@ public class Aggregators {
             List<Geometry> geometries = new ArrayList<Geometry>();
             geometries.addAll(points);
             geometries.addAll(merger.getMergedLineStrings());
-            Geometry mpoly = UnaryUnionOp.union(polygons);
+            Geometry mpoly = UnionEngine.union(polygons, parallelism);
             if (mpoly != null) {
                 for (int i = 0; i < mpoly.getNumGeometries(); i++) {
                     geometries.add(mpoly.getGeometryN(i));
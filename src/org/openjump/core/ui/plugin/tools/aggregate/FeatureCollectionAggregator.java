@@ -2,6 +2,8 @@ package org.openjump.core.ui.plugin.tools.aggregate;
 
 import com.vividsolutions.jump.feature.*;
 import com.vividsolutions.jump.I18N;
+import com.vividsolutions.jump.task.TaskMonitor;
+import com.vividsolutions.jump.util.ParallelUtil;
 
 import java.util.*;
 
@@ -47,7 +49,26 @@ public class FeatureCollectionAggregator {
      * @return the featureCollection with aggregated attributes
      */
     public FeatureCollection getAggregatedFeatureCollection() {
-        Map<Key,List<AttributeAggregator>> map = new HashMap<>();
+        try {
+            return getAggregatedFeatureCollection(null);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #getAggregatedFeatureCollection()}, the aggregated values
+     * of the different keys being computed in parallel. If there are less keys
+     * than threads, the remaining threads are used by the geometry unions.
+     * @param monitor a TaskMonitor checked for cancellation, may be null
+     * @return the featureCollection with aggregated attributes
+     * @throws com.vividsolutions.jump.task.TaskCancelledException if the
+     *         monitor requested cancellation
+     */
+    public FeatureCollection getAggregatedFeatureCollection(TaskMonitor monitor) throws Exception {
+        Map<Key,List<AttributeAggregator>> map = new LinkedHashMap<>();
         // Add attribute values to features with the same key
         for (Object object : fc.getFeatures()) {
             Feature feature = (Feature)object;
@@ -69,15 +90,37 @@ public class FeatureCollectionAggregator {
             }
         }
 
+        // Compute the aggregated values of each key in parallel
+        final List<Map.Entry<Key,List<AttributeAggregator>>> entries = new ArrayList<>(map.entrySet());
+        final Object[][] values = new Object[entries.size()][];
+        int parallelism = ParallelUtil.getDefaultParallelism();
+        int unionParallelism = Math.max(1, parallelism / Math.max(1, entries.size()));
+        ParallelUtil.forEachChunk(entries.size(), 1, parallelism, monitor, (start, end) -> {
+            for (int i = start ; i < end ; i++) {
+                List<AttributeAggregator> featureAggregators = entries.get(i).getValue();
+                values[i] = new Object[featureAggregators.size()];
+                for (int j = 0 ; j < values[i].length ; j++) {
+                    Aggregator aggregator = featureAggregators.get(j).getAggregator();
+                    if (aggregator instanceof Aggregators.Union) {
+                        ((Aggregators.Union)aggregator).setParallelism(unionParallelism);
+                    }
+                    values[i][j] = aggregator.getResult();
+                    // release the aggregated values
+                    aggregator.reset();
+                }
+            }
+        });
+
         FeatureSchema newSchema = getFeatureSchema();
         FeatureCollection result = new FeatureDataset(newSchema);
-        for (Map.Entry<Key,List<AttributeAggregator>> entry : map.entrySet()) {
+        for (int i = 0 ; i < entries.size() ; i++) {
             Feature feature = new BasicFeature(newSchema);
             for (String keyAtt : keyAttributes) {
-                feature.setAttribute(keyAtt, entry.getKey().map.get(keyAtt));
+                feature.setAttribute(keyAtt, entries.get(i).getKey().map.get(keyAtt));
             }
-            for (AttributeAggregator agg : entry.getValue()) {
-                feature.setAttribute(agg.getOutputName(), agg.getAggregator().getResult());
+            List<AttributeAggregator> featureAggregators = entries.get(i).getValue();
+            for (int j = 0 ; j < values[i].length ; j++) {
+                feature.setAttribute(featureAggregators.get(j).getOutputName(), values[i][j]);
             }
             result.add(feature);
         }